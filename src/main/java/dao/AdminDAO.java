@@ -69,6 +69,20 @@ public class AdminDAO extends BaseDAO {
         return executeInsert(sql, username, passwordHash, salt) > 0;
     }
 
+    /**
+     * Replaces the stored password hash and salt of an admin, e.g. when an
+     * old-format hash is upgraded after a successful login.
+     *
+     * @param id           the ID of the admin
+     * @param passwordHash the new password hash
+     * @param salt         the salt used for the new hash
+     * @return {@code true} if the record was updated; {@code false} otherwise
+     */
+    public boolean updatePasswordHash(int id, String passwordHash, String salt) {
+        return executeUpdate("UPDATE admins SET password_hash = ?, salt = ? WHERE id = ?",
+                passwordHash, salt, id);
+    }
+
     /**
      * Maps a {@link ResultSet} row to an {@link Admin} object.
      *
@@ -2,6 +2,7 @@ package dao;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Level;
@@ -21,6 +22,7 @@ import java.util.logging.Logger;
  *     <li>Executing INSERT statements with retrieval of generated keys.</li>
  *     <li>Executing UPDATE and DELETE statements with success status.</li>
  *     <li>Counting records in a table.</li>
+ *     <li>Running batches and multi-statement transactions.</li>
  *     <li>Parameter binding for prepared statements.</li>
  *     <li>Functional interface for mapping {@link ResultSet} to domain objects.</li>
  * </ul>
@@ -45,6 +47,9 @@ import java.util.logging.Logger;
  * @version 1.1
  */
 public abstract class BaseDAO {
+    /** Most IDs bound to one {@code IN} list, well below SQLite's parameter limit. */
+    protected static final int MAX_IN_PARAMS = 500;
+
     /**
      * Logger instance for logging database operations and errors.
      */
@@ -75,7 +80,7 @@ public abstract class BaseDAO {
         Connection conn = DatabaseConnection.getConnection();
         if (conn == null) return;
 
-        try (Statement stmt = conn.createStatement()) {
+        try (conn; Statement stmt = conn.createStatement()) {
             stmt.execute(sql);
             logger.info(tableName + " table created successfully.");
         } catch (SQLException e) {
@@ -83,6 +88,31 @@ public abstract class BaseDAO {
         }
     }
 
+    /**
+     * Adds a column to an existing table unless it is already there, so that
+     * databases created before the column existed are brought up to date.
+     *
+     * @param table      the table to alter
+     * @param column     the column name
+     * @param definition the column type and constraints, e.g. {@code "TEXT"}
+     */
+    protected void addColumnIfMissing(String table, String column, String definition) {
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) return;
+
+        try (conn; Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+                while (rs.next()) {
+                    if (column.equalsIgnoreCase(rs.getString("name"))) return;
+                }
+            }
+            stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+            logger.info("Column " + table + "." + column + " added.");
+        } catch (SQLException e) {
+            logger.severe("Error adding column " + table + "." + column + ": " + e.getMessage());
+        }
+    }
+
     /**
      * Executes a SELECT query that returns a single result.
      *
@@ -96,7 +126,7 @@ public abstract class BaseDAO {
         Connection conn = DatabaseConnection.getConnection();
         if (conn == null) return null;
 
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (conn; PreparedStatement pstmt = conn.prepareStatement(sql)) {
             setParameters(pstmt, params);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -122,7 +152,7 @@ public abstract class BaseDAO {
         Connection conn = DatabaseConnection.getConnection();
         if (conn == null) return results;
 
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (conn; PreparedStatement pstmt = conn.prepareStatement(sql)) {
             setParameters(pstmt, params);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
@@ -134,6 +164,27 @@ public abstract class BaseDAO {
         return results;
     }
 
+    /**
+     * Executes a query for a list of IDs, binding them in chunks of at most
+     * {@link #MAX_IN_PARAMS}, and maps every row of every chunk.
+     *
+     * @param sql    the SQL query, ending in {@code IN (}; the placeholders and
+     *               closing parenthesis are appended per chunk
+     * @param mapper a {@link ResultSetMapper} to map each row to a domain object
+     * @param ids    the IDs to bind
+     * @param <T>    the type of the domain objects
+     * @return the mapped objects of all chunks; empty if no results found
+     */
+    protected <T> List<T> findManyByIds(String sql, ResultSetMapper<T> mapper, List<Integer> ids) {
+        List<T> results = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += MAX_IN_PARAMS) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + MAX_IN_PARAMS, ids.size()));
+            results.addAll(findMany(sql + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")",
+                    mapper, chunk.toArray()));
+        }
+        return results;
+    }
+
     /**
      * Executes an INSERT statement and returns the generated key.
      *
@@ -145,7 +196,7 @@ public abstract class BaseDAO {
         Connection conn = DatabaseConnection.getConnection();
         if (conn == null) return -1;
 
-        try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (conn; PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             setParameters(pstmt, params);
             pstmt.executeUpdate();
             ResultSet keys = pstmt.getGeneratedKeys();
@@ -169,7 +220,7 @@ public abstract class BaseDAO {
         Connection conn = DatabaseConnection.getConnection();
         if (conn == null) return false;
 
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (conn; PreparedStatement pstmt = conn.prepareStatement(sql)) {
             setParameters(pstmt, params);
             return pstmt.executeUpdate() > 0;
         } catch (SQLException e) {
@@ -178,6 +229,189 @@ public abstract class BaseDAO {
         }
     }
 
+    /**
+     * Executes an INSERT, UPDATE or DELETE statement and reports how many rows it touched.
+     *
+     * @param sql    the SQL statement to execute
+     * @param params optional parameters for the prepared statement
+     * @return the number of affected rows; -1 if an error occurs
+     */
+    protected int executeUpdateCount(String sql, Object... params) {
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) return -1;
+
+        try (conn; PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            setParameters(pstmt, params);
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.severe("Error updating records: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Executes the same INSERT, UPDATE or DELETE statement once per parameter row
+     * as a single JDBC batch inside one transaction.
+     *
+     * @param sql  the SQL statement to execute
+     * @param rows the parameter rows, one array per execution
+     * @return the total number of affected rows; 0 if the batch fails and is rolled back
+     */
+    protected int executeBatch(String sql, List<Object[]> rows) {
+        if (rows.isEmpty()) return 0;
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) return 0;
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            for (Object[] row : rows) {
+                setParameters(pstmt, row);
+                pstmt.addBatch();
+            }
+            int affected = 0;
+            for (int count : pstmt.executeBatch()) {
+                affected += Math.max(count, 0);
+            }
+            conn.commit();
+            return affected;
+        } catch (SQLException e) {
+            logger.severe("Error executing batch: " + e.getMessage());
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                logger.severe("Rollback error: " + ex.getMessage());
+            }
+            return 0;
+        } finally {
+            try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException e) {
+                logger.severe("Error releasing connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Runs several statements on one connection inside a single transaction.
+     * The transaction is committed when {@code work} returns normally and rolled
+     * back when it throws. A runtime exception is rethrown after the rollback,
+     * since restoring auto-commit would otherwise commit the partial work.
+     *
+     * @param work     the statements to run, given the transactional connection
+     * @param fallback the value to return if no connection is available or the work fails
+     * @param <T>      the type of the work's result
+     * @return the result of {@code work}, or {@code fallback} on failure
+     * @throws RuntimeException if {@code work} throws one; the transaction is rolled back first
+     */
+    protected <T> T executeInTransaction(TransactionWork<T> work, T fallback) {
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) return fallback;
+
+        try {
+            conn.setAutoCommit(false);
+            T result = work.execute(conn);
+            conn.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            logger.severe("Transaction failed: " + e);
+            try {
+                conn.rollback();
+            } catch (SQLException ex) {
+                logger.severe("Rollback error: " + ex.getMessage());
+            }
+            if (e instanceof RuntimeException) throw (RuntimeException) e;
+            return fallback;
+        } finally {
+            try {
+                conn.setAutoCommit(true);
+                conn.close();
+            } catch (SQLException e) {
+                logger.severe("Error releasing connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Executes an INSERT, UPDATE or DELETE statement on a caller-managed connection,
+     * typically inside {@link #executeInTransaction(TransactionWork, Object)}.
+     *
+     * @param conn   the connection to use
+     * @param sql    the SQL statement to execute
+     * @param params optional parameters for the prepared statement
+     * @return the number of affected rows
+     * @throws SQLException if a database access error occurs
+     */
+    protected int executeUpdateIn(Connection conn, String sql, Object... params) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            setParameters(pstmt, params);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Executes the same INSERT, UPDATE or DELETE statement once per parameter row
+     * as a single JDBC batch on a caller-managed connection.
+     *
+     * @param conn the connection to use
+     * @param sql  the SQL statement to execute
+     * @param rows the parameter rows, one array per execution
+     * @return the number of rows each execution affected, in row order
+     * @throws SQLException if a database access error occurs
+     */
+    protected int[] executeBatchIn(Connection conn, String sql, List<Object[]> rows) throws SQLException {
+        if (rows.isEmpty()) return new int[0];
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (Object[] row : rows) {
+                setParameters(pstmt, row);
+                pstmt.addBatch();
+            }
+            return pstmt.executeBatch();
+        }
+    }
+
+    /**
+     * Executes a query (or a statement with a {@code RETURNING} clause) on a
+     * caller-managed connection and maps the first row.
+     *
+     * @param conn   the connection to use
+     * @param sql    the SQL statement to execute
+     * @param mapper a {@link ResultSetMapper} to map the row to a domain object
+     * @param params optional parameters for the prepared statement
+     * @param <T>    the type of the domain object
+     * @return the mapped object if a row was returned; {@code null} otherwise
+     * @throws SQLException if a database access error occurs
+     */
+    protected <T> T findOneIn(Connection conn, String sql, ResultSetMapper<T> mapper, Object... params)
+            throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            setParameters(pstmt, params);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? mapper.map(rs) : null;
+        }
+    }
+
+    /**
+     * Executes an INSERT statement on a caller-managed connection and returns the generated key.
+     *
+     * @param conn   the connection to use
+     * @param sql    the INSERT SQL statement
+     * @param params optional parameters for the prepared statement
+     * @return the generated key
+     * @throws SQLException if the insert fails or produces no key
+     */
+    protected int executeInsertIn(Connection conn, String sql, Object... params) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            setParameters(pstmt, params);
+            pstmt.executeUpdate();
+            ResultSet keys = pstmt.getGeneratedKeys();
+            if (keys.next()) {
+                return keys.getInt(1);
+            }
+        }
+        throw new SQLException("Insert produced no generated key");
+    }
+
     /**
      * Executes a COUNT query.
      *
@@ -189,7 +423,7 @@ public abstract class BaseDAO {
         Connection conn = DatabaseConnection.getConnection();
         if (conn == null) return 0;
 
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (conn; PreparedStatement pstmt = conn.prepareStatement(sql)) {
             setParameters(pstmt, params);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -230,4 +464,21 @@ public abstract class BaseDAO {
          */
         T map(ResultSet rs) throws SQLException;
     }
+
+    /**
+     * Functional interface for a unit of work executed inside one transaction.
+     *
+     * @param <T> the type of the work's result
+     */
+    @FunctionalInterface
+    public interface TransactionWork<T> {
+        /**
+         * Runs the work on the given transactional connection.
+         *
+         * @param conn the connection with auto-commit disabled
+         * @return the work's result
+         * @throws SQLException if a database access error occurs; the transaction is rolled back
+         */
+        T execute(Connection conn) throws SQLException;
+    }
 }
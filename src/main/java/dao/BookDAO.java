@@ -17,6 +17,7 @@ import java.util.List;
  *     <li>Find a book by ISBN.</li>
  *     <li>Retrieve all books.</li>
  *     <li>Search books by title, author, or ISBN pattern.</li>
+ *     <li>Search books matching a term in any of those fields at once.</li>
  * </ul>
  *
  * <p>The class uses a {@code BASE_QUERY} to join the "media" and "books" tables
@@ -92,6 +93,18 @@ public class BookDAO extends BaseDAO {
         return findMany(BASE_QUERY + "WHERE m.media_type = 'book'", this::mapBook);
     }
 
+    /**
+     * Retrieves the books whose media ID is above the given one, i.e. those
+     * added after it.
+     *
+     * @param mediaId the last media ID already seen
+     * @return the newer books in ID order
+     */
+    public List<Book> findAddedAfter(int mediaId) {
+        return findMany(BASE_QUERY + "WHERE m.media_type = 'book' AND m.id > ? ORDER BY m.id",
+                this::mapBook, mediaId);
+    }
+
     /**
      * Searches for books whose title contains the specified string.
      *
@@ -125,6 +138,20 @@ public class BookDAO extends BaseDAO {
                 this::mapBook, "%" + isbn + "%");
     }
 
+    /**
+     * Searches for books whose title, author or ISBN contains the specified
+     * string, in one scan. Each matching book is returned once.
+     *
+     * @param term the string to search for in every field
+     * @return a list of {@link Book} objects matching in at least one field
+     */
+    public List<Book> searchByAnyField(String term) {
+        String pattern = "%" + term + "%";
+        return findMany(BASE_QUERY + "WHERE m.media_type = 'book' " +
+                        "AND (m.title LIKE ? OR b.author LIKE ? OR b.isbn LIKE ?)",
+                this::mapBook, pattern, pattern, pattern);
+    }
+
     /**
      * Maps a {@link ResultSet} row to a {@link Book} object.
      *
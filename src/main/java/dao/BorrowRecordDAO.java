@@ -4,7 +4,10 @@ import model.*;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -19,12 +22,24 @@ import java.util.List;
  * <ul>
  *     <li>Create the "borrow_records" table with necessary foreign key constraints.</li>
  *     <li>Insert new borrow records.</li>
+ *     <li>Claim media and insert its borrow record in one transaction.</li>
+ *     <li>Turn a ready hold into a borrow record.</li>
  *     <li>Mark borrow records as returned and record fines.</li>
  *     <li>Retrieve active borrow records for a specific user.</li>
  *     <li>Retrieve overdue borrow records and users with overdue books.</li>
  *     <li>Count active borrow records for a specific user.</li>
+ *     <li>Select loans due for an overdue reminder and record sent reminders.</li>
+ *     <li>Accrue fines on active overdue loans and read the accrued amounts.</li>
+ *     <li>Borrow and return in one transaction that also reads the user's state version.</li>
+ *     <li>Check out several items with batched claims and inserts in one transaction.</li>
+ *     <li>Find active loans by media ID and close a group of them in one batched transaction.</li>
  * </ul>
  *
+ * <p>Each user has a state version in the "borrower_versions" table. Triggers
+ * move it up by one whenever a borrow record of the user is inserted or
+ * returned and whenever an entry is added to the user's fine ledger, so any
+ * writer, in any session, is seen by a cached borrower comparing versions.</p>
+ *
  * <p>Example usage:</p>
  * <pre>
  * {@code
@@ -44,7 +59,50 @@ import java.util.List;
  */
 public class BorrowRecordDAO extends BaseDAO {
     /**
-     * Initializes the "borrow_records" table in the database.
+     * Result of {@link #insertIfAvailable} when the media item was already claimed.
+     */
+    public static final int NOT_AVAILABLE = 0;
+
+    /** Insert statement shared by the plain and the transactional borrow paths. */
+    private static final String INSERT_SQL =
+            "INSERT INTO borrow_records (user_id, media_id, media_type, media_title, borrow_date, due_date) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Value of {@code next_reminder_on} once a loan has had its last reminder.
+     * It sorts after every real date, so the loan never matches again.
+     */
+    public static final String NO_MORE_REMINDERS = "9999-12-31";
+
+    /** Per-user state versions, shared with the fine ledger triggers of {@link FineDAO}. */
+    static final String VERSIONS_TABLE_SQL = "CREATE TABLE IF NOT EXISTS borrower_versions (\n" +
+            " user_id INTEGER PRIMARY KEY,\n" +
+            " version INTEGER NOT NULL DEFAULT 0\n" +
+            ");";
+
+    /** Trigger body statement moving the version of {@code NEW.user_id} up by one. */
+    static final String BUMP_VERSION_SQL = "INSERT INTO borrower_versions (user_id, version) VALUES (NEW.user_id, 1) " +
+            "ON CONFLICT(user_id) DO UPDATE SET version = version + 1;";
+
+    /** Reads a user's state version; 0 for a user nothing has been written for. */
+    static final String VERSION_SQL =
+            "SELECT COALESCE((SELECT version FROM borrower_versions WHERE user_id = ?), 0)";
+
+    /** Closes a loan that is still open. Parameters: return date, fine, record ID. */
+    private static final String RETURN_SQL =
+            "UPDATE borrow_records SET returned = 1, return_date = ?, fine = ? WHERE id = ? AND returned = 0";
+
+    /** Columns of a due reminder. */
+    private static final String REMINDER_COLUMNS = "SELECT br.id AS record_id, u.id, u.username, u.email, " +
+            "br.media_title, br.due_date, br.reminders_sent " +
+            "FROM borrow_records br JOIN users u ON u.id = br.user_id WHERE br.returned = 0 AND ";
+
+    /**
+     * Initializes the "borrow_records" table in the database, adding the
+     * reminder watermark and fine accrual columns to tables created before
+     * they existed, indexes on active loans by next reminder date, by media
+     * type and due date, and by media ID, and the triggers keeping users'
+     * state versions.
      * If the table already exists, no changes are made.
      * The table includes foreign keys referencing "users" and "media" tables.
      */
@@ -60,10 +118,32 @@ public class BorrowRecordDAO extends BaseDAO {
                 " returned INTEGER DEFAULT 0,\n" +
                 " return_date TEXT,\n" +
                 " fine REAL DEFAULT 0.0,\n" +
+                " reminders_sent INTEGER NOT NULL DEFAULT 0,\n" +
+                " last_reminded_on TEXT,\n" +
+                " next_reminder_on TEXT,\n" +
+                " accrued_fine REAL NOT NULL DEFAULT 0,\n" +
+                " accrued_on TEXT,\n" +
                 " FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,\n" +
                 " FOREIGN KEY (media_id) REFERENCES media(id) ON DELETE CASCADE\n" +
                 ");";
         createTable(sql, "Borrow records");
+        addColumnIfMissing("borrow_records", "reminders_sent", "INTEGER NOT NULL DEFAULT 0");
+        addColumnIfMissing("borrow_records", "last_reminded_on", "TEXT");
+        addColumnIfMissing("borrow_records", "next_reminder_on", "TEXT");
+        addColumnIfMissing("borrow_records", "accrued_fine", "REAL NOT NULL DEFAULT 0");
+        addColumnIfMissing("borrow_records", "accrued_on", "TEXT");
+        createTable("CREATE INDEX IF NOT EXISTS idx_borrow_records_reminder " +
+                "ON borrow_records (next_reminder_on, due_date) WHERE returned = 0;", "Borrow records reminder index");
+        createTable("CREATE INDEX IF NOT EXISTS idx_borrow_records_accrual " +
+                "ON borrow_records (media_type, due_date) WHERE returned = 0;", "Borrow records accrual index");
+        createTable("CREATE INDEX IF NOT EXISTS idx_borrow_records_active_media " +
+                "ON borrow_records (media_id) WHERE returned = 0;", "Borrow records active media index");
+        createTable(VERSIONS_TABLE_SQL, "Borrower versions");
+        createTable("CREATE TRIGGER IF NOT EXISTS trg_borrow_records_version_insert " +
+                "AFTER INSERT ON borrow_records BEGIN " + BUMP_VERSION_SQL + " END;", "Borrow records insert trigger");
+        createTable("CREATE TRIGGER IF NOT EXISTS trg_borrow_records_version_return " +
+                "AFTER UPDATE OF returned ON borrow_records WHEN NEW.returned IS NOT OLD.returned " +
+                "BEGIN " + BUMP_VERSION_SQL + " END;", "Borrow records return trigger");
     }
     /**
      * Inserts a new borrow record for a user.
@@ -78,12 +158,298 @@ public class BorrowRecordDAO extends BaseDAO {
      */
     public int insert(int userId, int mediaId, String mediaType, String mediaTitle,
                       LocalDate borrowDate, LocalDate dueDate) {
-        return executeInsert(
-                "INSERT INTO borrow_records (user_id, media_id, media_type, media_title, borrow_date, due_date) " +
-                        "VALUES (?, ?, ?, ?, ?, ?)",
+        return executeInsert(INSERT_SQL,
                 userId, mediaId, mediaType, mediaTitle, borrowDate.toString(), dueDate.toString()
         );
     }
+
+    /**
+     * Claims a media item and inserts its borrow record in one transaction.
+     * The claim only succeeds if the item is still available in the database,
+     * so two concurrent borrowers can never both obtain the same copy.
+     *
+     * @param userId     the ID of the user borrowing the media
+     * @param mediaId    the ID of the media item
+     * @param mediaType  the type of media (e.g., "book", "cd")
+     * @param mediaTitle the title of the media
+     * @param borrowDate the date when the media was borrowed
+     * @param dueDate    the due date for returning the media
+     * @return the generated ID of the borrow record; {@link #NOT_AVAILABLE} if the
+     *         item was already borrowed; -1 if the transaction fails
+     */
+    public int insertIfAvailable(int userId, int mediaId, String mediaType, String mediaTitle,
+                                 LocalDate borrowDate, LocalDate dueDate) {
+        return executeInTransaction(conn -> {
+            if (executeUpdateIn(conn, MediaDAO.CLAIM_SQL, mediaId) != 1) {
+                return NOT_AVAILABLE;
+            }
+            return executeInsertIn(conn, INSERT_SQL,
+                    userId, mediaId, mediaType, mediaTitle, borrowDate.toString(), dueDate.toString());
+        }, -1);
+    }
+    /**
+     * Converts a patron's ready hold into a borrow record in one transaction.
+     * The item is already set aside for the patron, so no availability claim is needed.
+     *
+     * @param userId     the ID of the user holding the media
+     * @param mediaId    the ID of the media item
+     * @param mediaType  the type of media (e.g., "book", "cd")
+     * @param mediaTitle the title of the media
+     * @param borrowDate the date when the media was borrowed
+     * @param dueDate    the due date for returning the media
+     * @return the generated ID of the borrow record; {@link #NOT_AVAILABLE} if the user
+     *         has no ready, unexpired hold on the item; -1 if the transaction fails
+     */
+    public int insertForReadyHold(int userId, int mediaId, String mediaType, String mediaTitle,
+                                  LocalDate borrowDate, LocalDate dueDate) {
+        return executeInTransaction(conn -> {
+            if (executeUpdateIn(conn, HoldDAO.FULFILL_SQL, mediaId, userId, borrowDate.toString()) != 1) {
+                return NOT_AVAILABLE;
+            }
+            return executeInsertIn(conn, INSERT_SQL,
+                    userId, mediaId, mediaType, mediaTitle, borrowDate.toString(), dueDate.toString());
+        }, -1);
+    }
+
+    /**
+     * Borrows a media item in one transaction: claims the copy if it is
+     * available, otherwise consumes the user's ready hold on it, then inserts
+     * the borrow record and reads the user's new state version.
+     *
+     * @param userId     the ID of the user borrowing the media
+     * @param media      the media item
+     * @param borrowDate the date when the media was borrowed
+     * @param dueDate    the due date for returning the media
+     * @return the change set of the new loan; {@link BorrowerDelta#NONE} if the item
+     *         is neither available nor held for the user; {@code null} if the transaction fails
+     */
+    public BorrowerDelta borrow(int userId, Media media, LocalDate borrowDate, LocalDate dueDate) {
+        return executeInTransaction(conn -> {
+            if (executeUpdateIn(conn, MediaDAO.CLAIM_SQL, media.getId()) != 1
+                    && executeUpdateIn(conn, HoldDAO.FULFILL_SQL, media.getId(), userId, borrowDate.toString()) != 1) {
+                return BorrowerDelta.NONE;
+            }
+            int recordId = executeInsertIn(conn, INSERT_SQL, userId, media.getId(), media.getMediaType(),
+                    media.getTitle(), borrowDate.toString(), dueDate.toString());
+            return BorrowerDelta.borrowed(new MediaRecord(recordId, media, dueDate), readVersion(conn, userId));
+        }, null);
+    }
+
+    /**
+     * Checks out several media items in one transaction. Every item is
+     * claimed in one batch; items that were not available are then tried
+     * against the user's ready holds in a second batch. The borrow records of
+     * the granted items are inserted in a third batch, and the user's new
+     * state version is read.
+     *
+     * <p>The inserts run under the transaction's write lock, so their
+     * {@code AUTOINCREMENT} IDs are consecutive and end at the last inserted row ID.</p>
+     *
+     * @param userId       the ID of the user borrowing the media
+     * @param loans        the loans to make, without record IDs, each with its media and due date
+     * @param borrowDate   the date when the media was borrowed
+     * @param allOrNothing {@code true} to borrow nothing if any item is unavailable;
+     *                     {@code false} to borrow whatever could be claimed
+     * @return the loans made and the unavailable items; {@code null} if the transaction fails
+     */
+    public CheckoutResult checkout(int userId, List<MediaRecord> loans, LocalDate borrowDate, boolean allOrNothing) {
+        return executeInTransaction(conn -> {
+            List<Object[]> claims = new ArrayList<>(loans.size());
+            for (MediaRecord loan : loans) {
+                claims.add(new Object[]{loan.getMedia().getId()});
+            }
+            int[] claimed = executeBatchIn(conn, MediaDAO.CLAIM_SQL, claims);
+
+            List<Integer> notClaimed = new ArrayList<>();
+            List<Object[]> holds = new ArrayList<>();
+            for (int i = 0; i < loans.size(); i++) {
+                if (claimed[i] != 1) {
+                    notClaimed.add(i);
+                    holds.add(new Object[]{loans.get(i).getMedia().getId(), userId, borrowDate.toString()});
+                }
+            }
+            int[] fulfilled = executeBatchIn(conn, HoldDAO.FULFILL_SQL, holds);
+
+            boolean[] refused = new boolean[loans.size()];
+            List<Media> unavailable = new ArrayList<>();
+            for (int i = 0; i < notClaimed.size(); i++) {
+                if (fulfilled[i] != 1) {
+                    refused[notClaimed.get(i)] = true;
+                    unavailable.add(loans.get(notClaimed.get(i)).getMedia());
+                }
+            }
+            if (allOrNothing && !unavailable.isEmpty()) {
+                // Release the claims already made in this transaction
+                conn.rollback();
+                return new CheckoutResult(List.of(), unavailable, BorrowerDelta.NONE);
+            }
+
+            List<MediaRecord> granted = new ArrayList<>(loans.size());
+            List<Object[]> rows = new ArrayList<>(loans.size());
+            for (int i = 0; i < loans.size(); i++) {
+                if (refused[i]) continue;
+                MediaRecord loan = loans.get(i);
+                Media media = loan.getMedia();
+                granted.add(loan);
+                rows.add(new Object[]{userId, media.getId(), media.getMediaType(), media.getTitle(),
+                        borrowDate.toString(), loan.getDueDate().toString()});
+            }
+            if (granted.isEmpty()) {
+                return new CheckoutResult(List.of(), unavailable, BorrowerDelta.NONE);
+            }
+            executeBatchIn(conn, INSERT_SQL, rows);
+
+            long firstId = findOneIn(conn, "SELECT last_insert_rowid()", rs -> rs.getLong(1)) - granted.size() + 1;
+            List<MediaRecord> borrowed = new ArrayList<>(granted.size());
+            for (int i = 0; i < granted.size(); i++) {
+                MediaRecord loan = granted.get(i);
+                borrowed.add(new MediaRecord((int) (firstId + i), loan.getMedia(), loan.getDueDate()));
+            }
+            return new CheckoutResult(borrowed, unavailable,
+                    BorrowerDelta.borrowed(borrowed, readVersion(conn, userId)));
+        }, null);
+    }
+
+    /**
+     * Closes a loan, charges its fine and hands the item to the oldest waiting
+     * hold, or makes it available when nobody is waiting, all in one
+     * transaction; then reads the user's new state version.
+     *
+     * @param userId     the ID of the user returning the media
+     * @param record     the loan being returned
+     * @param returnDate the actual return date
+     * @param fine       the fine for late return; 0 if none
+     * @param readyUntil the last pickup day for the holder the item is handed to
+     * @param handedTo   receives the hold the item was handed to, once the transaction has committed
+     * @return the change set of the return; {@link BorrowerDelta#NONE} if the loan
+     *         was already returned; {@code null} if the transaction fails
+     */
+    public BorrowerDelta returnLoan(int userId, MediaRecord record, LocalDate returnDate, double fine,
+                                    LocalDate readyUntil, List<Hold> handedTo) {
+        Hold[] heldFor = new Hold[1];
+        BorrowerDelta delta = executeInTransaction(conn -> {
+            if (executeUpdateIn(conn, RETURN_SQL, returnDate.toString(), fine, record.getRecordId()) != 1) {
+                return BorrowerDelta.NONE;
+            }
+            if (fine > 0) {
+                executeUpdateIn(conn, FineDAO.INSERT_SQL, userId, FineTransaction.toCents(fine), FineTransaction.ACCRUAL);
+            }
+            int mediaId = record.getMedia().getId();
+            if (executeUpdateIn(conn, HoldDAO.PROMOTE_SQL, readyUntil.toString(), mediaId) == 1) {
+                heldFor[0] = findOneIn(conn, HoldDAO.FIND_READY_SQL, HoldDAO::mapHold, mediaId);
+            } else {
+                executeUpdateIn(conn, HoldDAO.RELEASE_SQL, mediaId);
+            }
+            return BorrowerDelta.returned(record, fine, readVersion(conn, userId));
+        }, null);
+
+        if (heldFor[0] != null && delta != null) {
+            handedTo.add(heldFor[0]);
+        }
+        return delta;
+    }
+
+    /**
+     * Finds the active loans on the given media items through the index of
+     * active loans by media ID, binding the IDs in chunks.
+     *
+     * @param mediaIds the IDs of the media items
+     * @return one outcome per item that is on loan, still to be returned, in no particular order
+     */
+    public List<ReturnOutcome> findActiveByMediaIds(List<Integer> mediaIds) {
+        return findManyByIds("SELECT id, user_id, media_id, media_type, media_title, due_date " +
+                        "FROM borrow_records WHERE returned = 0 AND media_id IN (",
+                rs -> new ReturnOutcome(
+                        rs.getInt("id"),
+                        rs.getInt("user_id"),
+                        rs.getInt("media_id"),
+                        rs.getString("media_type"),
+                        rs.getString("media_title"),
+                        LocalDate.parse(rs.getString("due_date"))
+                ), mediaIds);
+    }
+
+    /**
+     * Closes a group of loans in one transaction: every return, every fine
+     * ledger entry, every hold hand-off and every release of an item nobody
+     * is waiting for is sent as one JDBC batch. On success each outcome is
+     * marked {@link ReturnOutcome#RETURNED}, or {@link ReturnOutcome#NOT_ON_LOAN}
+     * if its loan was closed elsewhere in the meantime, and carries the hold
+     * its item was handed to.
+     *
+     * @param loans      the loans to close, with their fines set
+     * @param returnDate the actual return date
+     * @param readyUntil the last pickup day for holders the items are handed to
+     * @return the number of loans closed; -1 if the transaction fails and nothing is changed
+     */
+    public int returnAll(List<ReturnOutcome> loans, LocalDate returnDate, LocalDate readyUntil) {
+        boolean[] closed = new boolean[loans.size()];
+        Hold[] heldFor = new Hold[loans.size()];
+
+        Integer count = executeInTransaction(conn -> {
+            List<Object[]> returns = new ArrayList<>(loans.size());
+            for (ReturnOutcome loan : loans) {
+                returns.add(new Object[]{returnDate.toString(), loan.getFine(), loan.getRecordId()});
+            }
+            int[] returned = executeBatchIn(conn, RETURN_SQL, returns);
+
+            List<Integer> handed = new ArrayList<>(loans.size());
+            List<Object[]> fines = new ArrayList<>();
+            List<Object[]> promotions = new ArrayList<>(loans.size());
+            for (int i = 0; i < loans.size(); i++) {
+                closed[i] = returned[i] == 1;
+                if (!closed[i]) continue;
+                ReturnOutcome loan = loans.get(i);
+                handed.add(i);
+                if (loan.getFine() > 0) {
+                    fines.add(new Object[]{loan.getUserId(), FineTransaction.toCents(loan.getFine()),
+                            FineTransaction.ACCRUAL});
+                }
+                promotions.add(new Object[]{readyUntil.toString(), loan.getMediaId()});
+            }
+            executeBatchIn(conn, FineDAO.INSERT_SQL, fines);
+            int[] promoted = executeBatchIn(conn, HoldDAO.PROMOTE_SQL, promotions);
+
+            List<Object[]> releases = new ArrayList<>(handed.size());
+            for (int i = 0; i < handed.size(); i++) {
+                int mediaId = loans.get(handed.get(i)).getMediaId();
+                if (promoted[i] == 1) {
+                    heldFor[handed.get(i)] = findOneIn(conn, HoldDAO.FIND_READY_SQL, HoldDAO::mapHold, mediaId);
+                } else {
+                    releases.add(new Object[]{mediaId});
+                }
+            }
+            executeBatchIn(conn, HoldDAO.RELEASE_SQL, releases);
+            return handed.size();
+        }, -1);
+
+        if (count < 0) return -1;
+        for (int i = 0; i < loans.size(); i++) {
+            loans.get(i).setStatus(closed[i] ? ReturnOutcome.RETURNED : ReturnOutcome.NOT_ON_LOAN);
+            loans.get(i).setHeldFor(heldFor[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Retrieves a user's state version, which moves whenever the user's
+     * loans or fine ledger change.
+     *
+     * @param userId the ID of the user
+     * @return the state version; 0 if nothing has been written for the user; -1 on error
+     */
+    public long findStateVersion(int userId) {
+        Long version = findOne(VERSION_SQL, rs -> rs.getLong(1), userId);
+        return version == null ? -1 : version;
+    }
+
+    /**
+     * Reads a user's state version on a caller-managed connection.
+     */
+    private long readVersion(Connection conn, int userId) throws SQLException {
+        return findOneIn(conn, VERSION_SQL, rs -> rs.getLong(1), userId);
+    }
+
     /**
      * Marks a borrow record as returned and records any associated fine.
      *
@@ -111,7 +477,7 @@ public class BorrowRecordDAO extends BaseDAO {
                 "JOIN media m ON br.media_id = m.id " +
                 "WHERE br.user_id = ? AND br.returned = 0";
 
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (conn; PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setInt(1, userId);
             ResultSet rs = pstmt.executeQuery();
 
@@ -181,16 +547,171 @@ public class BorrowRecordDAO extends BaseDAO {
      * @return a list of {@link UserWithOverdueBooks} representing users with overdue media
      */
     public List<UserWithOverdueBooks> getUsersWithOverdueBooks() {
+        return getUsersWithOverdueBooks(LocalDate.now());
+    }
+
+    /**
+     * Retrieves users who have borrow records overdue on the given date.
+     *
+     * @param today the current date; loans due before it are overdue
+     * @return a list of {@link UserWithOverdueBooks} representing users with overdue media
+     */
+    public List<UserWithOverdueBooks> getUsersWithOverdueBooks(LocalDate today) {
         String sql = "SELECT u.id, u.username, COUNT(br.id) as overdue_count " +
                 "FROM users u JOIN borrow_records br ON u.id = br.user_id " +
-                "WHERE br.returned = 0 AND br.due_date < date('now') " +
+                "WHERE br.returned = 0 AND br.due_date < ? " +
                 "GROUP BY u.id, u.username";
 
         return findMany(sql, rs -> new UserWithOverdueBooks(
                 rs.getInt("id"),
                 rs.getString("username"),
                 rs.getInt("overdue_count")
-        ));
+        ), today.toString());
+    }
+
+    /**
+     * Lists every loan past its due date with the borrower's contact details,
+     * in one query for all users.
+     *
+     * @param today the current date; loans due before it are overdue
+     * @return one {@link Notice#OVERDUE} notice per overdue loan, by user then due date
+     */
+    public List<Notice> findOverdueNotices(LocalDate today) {
+        String sql = "SELECT u.id, u.username, u.email, br.media_title, br.due_date " +
+                "FROM borrow_records br JOIN users u ON u.id = br.user_id " +
+                "WHERE br.returned = 0 AND br.due_date < ? " +
+                "ORDER BY u.id, br.due_date, br.id";
+
+        return findMany(sql, rs -> new Notice(
+                rs.getInt("id"),
+                rs.getString("username"),
+                rs.getString("email"),
+                Notice.OVERDUE,
+                rs.getString("media_title"),
+                LocalDate.parse(rs.getString("due_date")),
+                0
+        ), today.toString());
+    }
+
+    /**
+     * Retrieves the active loans due for an overdue reminder: loans never
+     * reminded about whose due date has passed, and loans whose next reminder
+     * date has arrived. Both halves are range scans of the reminder index, so
+     * a run reads only the loans that changed since the last one, not every
+     * overdue loan.
+     *
+     * @param today the current date
+     * @return one {@link Notice#OVERDUE} notice per loan, carrying its record ID and
+     *         reminders sent so far, ordered by user, due date and record
+     */
+    public List<Notice> findDueReminders(LocalDate today) {
+        String sql = REMINDER_COLUMNS + "br.next_reminder_on IS NULL AND br.due_date < ? " +
+                "UNION ALL " + REMINDER_COLUMNS + "br.next_reminder_on <= ? " +
+                "ORDER BY 2, 6, 1";
+
+        return findMany(sql, rs -> new Notice(
+                rs.getInt("id"),
+                rs.getString("username"),
+                rs.getString("email"),
+                Notice.OVERDUE,
+                rs.getString("media_title"),
+                LocalDate.parse(rs.getString("due_date")),
+                0,
+                rs.getInt("record_id"),
+                rs.getInt("reminders_sent")
+        ), today.toString(), today.toString());
+    }
+
+    /**
+     * Records that reminders went out and queues the reminder emails, in one
+     * transaction: either every watermark moves and every message is queued,
+     * or nothing changes and the next run selects the same loans again.
+     *
+     * <p>Each watermark only moves if the loan still has the reminder count
+     * it was selected with, so two overlapping runs cannot both remind about
+     * the same loan; the later one rolls back.</p>
+     *
+     * @param reminded     the notices the messages were built from
+     * @param today        the date the reminders are sent
+     * @param nextReminder when to send the following reminder
+     * @param maxReminders the number of reminders after which a loan gets no more
+     * @param messages     the reminder emails
+     * @param outboxDAO    the outbox to queue the emails in
+     * @param now          the current time in epoch milliseconds
+     * @return {@code true} if the reminders were recorded; {@code false} if the transaction failed
+     */
+    public boolean recordReminders(List<Notice> reminded, LocalDate today, LocalDate nextReminder,
+                                   int maxReminders, List<OutboxMessage> messages, OutboxDAO outboxDAO, long now) {
+        return executeInTransaction(conn -> {
+            for (Notice notice : reminded) {
+                String next = notice.getRemindersSent() + 1 >= maxReminders
+                        ? NO_MORE_REMINDERS : nextReminder.toString();
+                if (executeUpdateIn(conn, "UPDATE borrow_records SET reminders_sent = reminders_sent + 1, " +
+                                "last_reminded_on = ?, next_reminder_on = ? WHERE id = ? AND reminders_sent = ?",
+                        today.toString(), next, notice.getRecordId(), notice.getRemindersSent()) != 1) {
+                    throw new SQLException("Borrow record " + notice.getRecordId() + " was reminded concurrently");
+                }
+            }
+            for (OutboxMessage message : messages) {
+                outboxDAO.enqueueIn(conn, message, now);
+            }
+            return true;
+        }, false);
+    }
+
+    /**
+     * Sets the accrued fine of up to {@code batchSize} active overdue loans of
+     * one media type that have not been accrued today, to their days overdue
+     * times the daily rate. The amount is recomputed from the due date rather
+     * than added to, so a batch that runs twice leaves the same result.
+     *
+     * @param mediaType  the media type to accrue
+     * @param finePerDay the fine per overdue day for that type
+     * @param today      the accrual date
+     * @param batchSize  the most loans to update
+     * @return the number of loans updated; -1 if the update fails
+     */
+    public int accrueFines(String mediaType, double finePerDay, LocalDate today, int batchSize) {
+        return executeUpdateCount("UPDATE borrow_records " +
+                        "SET accrued_fine = CAST(julianday(?) - julianday(due_date) AS INTEGER) * ?, accrued_on = ? " +
+                        "WHERE id IN (SELECT id FROM borrow_records WHERE returned = 0 AND media_type = ? " +
+                        "AND due_date < ? AND (accrued_on IS NULL OR accrued_on < ?) LIMIT ?)",
+                today.toString(), finePerDay, today.toString(),
+                mediaType, today.toString(), today.toString(), batchSize);
+    }
+
+    /**
+     * Retrieves the accrued fines of a user's active loans that have been
+     * accrued at least once.
+     *
+     * @param userId the ID of the user
+     * @return the accrued fine by borrow record ID
+     */
+    public Map<Integer, Double> findAccruedFines(int userId) {
+        Map<Integer, Double> fines = new HashMap<>();
+        for (Map.Entry<Integer, Double> fine : findMany("SELECT id, accrued_fine FROM borrow_records " +
+                        "WHERE user_id = ? AND returned = 0 AND accrued_on IS NOT NULL",
+                rs -> Map.entry(rs.getInt("id"), rs.getDouble("accrued_fine")), userId)) {
+            fines.put(fine.getKey(), fine.getValue());
+        }
+        return fines;
+    }
+
+    /**
+     * Sums the accrued fines on all active loans per media type: the
+     * outstanding liability for items that have not come back yet.
+     *
+     * @return the accrued total by media type, in media type order
+     */
+    public Map<String, Double> getAccruedFineTotals() {
+        Map<String, Double> totals = new LinkedHashMap<>();
+        for (Map.Entry<String, Double> total : findMany("SELECT media_type, SUM(accrued_fine) AS total " +
+                        "FROM borrow_records WHERE returned = 0 AND accrued_fine > 0 " +
+                        "GROUP BY media_type ORDER BY media_type",
+                rs -> Map.entry(rs.getString("media_type"), rs.getDouble("total")))) {
+            totals.put(total.getKey(), total.getValue());
+        }
+        return totals;
     }
 
     /**
@@ -94,6 +94,18 @@ public class CDDAO extends BaseDAO {
         return findMany(BASE_QUERY + "WHERE m.media_type = 'cd'", this::mapCD);
     }
 
+    /**
+     * Retrieves the CDs whose media ID is above the given one, i.e. those
+     * added after it.
+     *
+     * @param mediaId the last media ID already seen
+     * @return the newer CDs in ID order
+     */
+    public List<CD> findAddedAfter(int mediaId) {
+        return findMany(BASE_QUERY + "WHERE m.media_type = 'cd' AND m.id > ? ORDER BY m.id",
+                this::mapCD, mediaId);
+    }
+
     /**
      * Searches for CDs whose title contains the specified string.
      *
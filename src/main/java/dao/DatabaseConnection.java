@@ -26,6 +26,9 @@ public class DatabaseConnection {
     /** JDBC URL for the SQLite database */
     private static final String URL = "jdbc:sqlite:database.db";
 
+    /** JDBC URL used for new connections; defaults to {@link #URL} */
+    private static volatile String activeUrl = URL;
+
     /**
      * Attempts to establish a connection to the SQLite database.
      *
@@ -37,10 +40,29 @@ public class DatabaseConnection {
     }
     public static Connection getConnection() {
         try {
-            return DriverManager.getConnection(URL);
+            return DriverManager.getConnection(activeUrl);
         } catch (SQLException e) {
             logger.severe("Database connection error: " + e.getMessage());
             return null;
         }
     }
+
+    /**
+     * Points new connections at a different SQLite database, e.g. a temporary
+     * file used by integration tests or a simulation run.
+     *
+     * @param url the JDBC URL to use, or {@code null} to restore the default database
+     */
+    public static void setUrl(String url) {
+        activeUrl = url == null ? URL : url;
+    }
+
+    /**
+     * Returns the JDBC URL used for new connections.
+     *
+     * @return the active JDBC URL
+     */
+    public static String getUrl() {
+        return activeUrl;
+    }
 }
\ No newline at end of file
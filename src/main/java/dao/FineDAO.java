@@ -1,18 +1,37 @@
 package dao;
 
+import model.BorrowerDelta;
+import model.FineTransaction;
+import model.Notice;
+
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * {@code FineDAO} is a Data Access Object (DAO) class responsible for
  * managing database operations related to user fines.
  * It extends {@link BaseDAO} to utilize common database operations such as
  * table creation, query execution, and result mapping.
  *
+ * <p>Fines are kept in an append-only ledger ({@code fine_transactions}) of
+ * accruals, payments and adjustments in integer cents. A per-user snapshot
+ * ({@code fine_snapshots}) records the balance up to a ledger position, so a
+ * balance is the snapshot plus the tail of the ledger after it. Compaction
+ * rolls snapshots forward so the tail stays short.</p>
+ *
+ * <p>Every ledger entry moves the user's state version up by one, through a
+ * trigger on {@code fine_transactions}; see {@link BorrowRecordDAO}.</p>
+ *
  * <p>This class provides methods to:</p>
  * <ul>
- *     <li>Initialize the "user_fines" table.</li>
+ *     <li>Initialize the ledger and snapshot tables.</li>
  *     <li>Retrieve the fine balance for a specific user.</li>
  *     <li>Initialize a fine record for a user.</li>
  *     <li>Update, add, or pay fines.</li>
+ *     <li>Pay a fine and read the user's new state version in one transaction.</li>
+ *     <li>Append accruals in batches and list a user's ledger.</li>
  *     <li>Clear all fines for a user.</li>
+ *     <li>Compact snapshots.</li>
  * </ul>
  *
  * <p>Example usage:</p>
@@ -24,105 +43,194 @@ package dao;
  * fineDAO.addFine(userId, 5.0);
  * fineDAO.payFine(userId, 3.0);
  * fineDAO.clearFine(userId);
+ * fineDAO.compactSnapshots();
  * }
  * </pre>
  *
  * @author Library
- * @version 1.1
+ * @version 1.2
  *
  */
 public class FineDAO extends BaseDAO {
 
     /**
-     * Initializes the "user_fines" table in the database.
-     * If the table already exists, no changes are made.
-     * The table has a foreign key referencing the "users" table.
+     * Scalar sub-select computing a user's balance in cents from the snapshot
+     * and the ledger tail. The user ID is bound to parameter {@code ?1}.
+     */
+    private static final String BALANCE_CENTS =
+            "(COALESCE((SELECT balance_cents FROM fine_snapshots WHERE user_id = ?1), 0) + " +
+                    "COALESCE((SELECT SUM(amount_cents) FROM fine_transactions WHERE user_id = ?1 " +
+                    "AND id > COALESCE((SELECT last_txn_id FROM fine_snapshots WHERE user_id = ?1), 0)), 0))";
+
+    /**
+     * Appends a ledger entry. Parameters: user ID, amount in cents, kind.
+     * Shared with the return transaction in {@link BorrowRecordDAO}.
+     */
+    static final String INSERT_SQL = "INSERT INTO fine_transactions (user_id, amount_cents, kind) VALUES (?, ?, ?)";
+
+    /** Appends a payment if the balance covers it. Parameters: user ID, amount in cents. */
+    private static final String PAYMENT_SQL = "INSERT INTO fine_transactions (user_id, amount_cents, kind) " +
+            "SELECT ?1, -?2, '" + FineTransaction.PAYMENT + "' WHERE " + BALANCE_CENTS + " >= ?2";
+
+    /**
+     * Initializes the "fine_transactions" and "fine_snapshots" tables in the database,
+     * and the trigger moving a user's state version on every ledger entry.
+     * If the tables already exist, no changes are made. Balances held in the legacy
+     * "user_fines" table are carried over as opening snapshots and the legacy table
+     * is dropped in the same transaction, so the migration runs only once.
      */
     public void initializeTable() {
-        String sql = "CREATE TABLE IF NOT EXISTS user_fines (\n" +
+        createTable("CREATE TABLE IF NOT EXISTS fine_transactions (\n" +
+                " id INTEGER PRIMARY KEY AUTOINCREMENT,\n" +
+                " user_id INTEGER NOT NULL,\n" +
+                " amount_cents INTEGER NOT NULL,\n" +
+                " kind TEXT NOT NULL,\n" +
+                " created_at TEXT NOT NULL DEFAULT (datetime('now'))\n" +
+                ");", "Fine transactions");
+        createTable("CREATE INDEX IF NOT EXISTS idx_fine_transactions_user " +
+                "ON fine_transactions (user_id, id);", "Fine transactions index");
+        createTable("CREATE TABLE IF NOT EXISTS fine_snapshots (\n" +
                 " user_id INTEGER PRIMARY KEY,\n" +
-                " total_fine REAL DEFAULT 0.0,\n" +
-                " FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE\n" +
-                ");";
-        createTable(sql, "User fines");
+                " balance_cents INTEGER NOT NULL DEFAULT 0,\n" +
+                " last_txn_id INTEGER NOT NULL DEFAULT 0,\n" +
+                " taken_at TEXT NOT NULL DEFAULT (datetime('now'))\n" +
+                ");", "Fine snapshots");
+        createTable(BorrowRecordDAO.VERSIONS_TABLE_SQL, "Borrower versions");
+        createTable("CREATE TRIGGER IF NOT EXISTS trg_fine_transactions_version " +
+                "AFTER INSERT ON fine_transactions BEGIN " + BorrowRecordDAO.BUMP_VERSION_SQL + " END;",
+                "Fine transactions trigger");
+        migrateLegacyFines();
+    }
+
+    /**
+     * Carries balances from the legacy "user_fines" table over as opening
+     * snapshots and drops the table, if it is still there.
+     */
+    private void migrateLegacyFines() {
+        String legacy = findOne("SELECT name FROM sqlite_master WHERE type = 'table' AND name = 'user_fines'",
+                rs -> rs.getString("name"));
+        if (legacy == null) return;
+
+        boolean migrated = executeInTransaction(conn -> {
+            executeUpdateIn(conn, "INSERT OR IGNORE INTO fine_snapshots (user_id, balance_cents, last_txn_id) " +
+                    "SELECT user_id, CAST(ROUND(total_fine * 100) AS INTEGER), 0 FROM user_fines");
+            executeUpdateIn(conn, "DROP TABLE user_fines");
+            return true;
+        }, false);
+        if (!migrated) {
+            logger.severe("Legacy fine balances could not be migrated; will retry on next start.");
+        }
     }
 
     /**
-     * Retrieves the total fine balance for a specific user.
-     * If the user has no fine record, it initializes one with a balance of 0.0.
+     * Retrieves the total fine balance for a specific user with a single
+     * indexed query over the snapshot and the ledger tail.
      *
      * @param userId the ID of the user
-     * @return the total fine balance
+     * @return the total fine balance; 0.0 if the user has no fines
      */
     public double getFineBalance(int userId) {
-        Double balance = findOne("SELECT total_fine FROM user_fines WHERE user_id = ?",
-                rs -> rs.getDouble("total_fine"), userId);
-        if (balance == null) {
-            initializeFine(userId);
-            return 0.0;
-        }
-        return balance;
+        Long cents = findOne("SELECT " + BALANCE_CENTS + " AS balance_cents",
+                rs -> rs.getLong("balance_cents"), userId);
+        return cents == null ? 0.0 : FineTransaction.fromCents(cents);
     }
 
     /**
-     * Initializes a fine record for a user with a balance of 0.0.
+     * Initializes an empty fine snapshot for a user.
      *
      * @param userId the ID of the user
      * @return {@code true} if initialization was successful; {@code false} otherwise
      */
     public boolean initializeFine(int userId) {
-        return executeInsert("INSERT INTO user_fines (user_id, total_fine) VALUES (?, 0.0)", userId) > 0;
+        return executeInsert("INSERT INTO fine_snapshots (user_id, balance_cents, last_txn_id) VALUES (?, 0, 0)",
+                userId) > 0;
     }
 
     /**
-     * Updates the fine balance for a specific user.
-     * If the user has no fine record, it initializes one with the given totalFine.
+     * Sets the fine balance for a specific user by appending an adjustment
+     * for the difference between the requested and the current balance.
      *
      * @param userId    the ID of the user
      * @param totalFine the new total fine amount
-     * @return {@code true} if update or initialization was successful; {@code false} otherwise
+     * @return {@code true} if the adjustment was recorded; {@code false} otherwise
      */
     public boolean updateFine(int userId, double totalFine) {
-        boolean updated = executeUpdate("UPDATE user_fines SET total_fine = ? WHERE user_id = ?",
-                totalFine, userId);
-        return updated || initializeFine(userId);
+        return executeUpdate("INSERT INTO fine_transactions (user_id, amount_cents, kind) " +
+                        "SELECT ?1, ?2 - " + BALANCE_CENTS + ", '" + FineTransaction.ADJUSTMENT + "'",
+                userId, FineTransaction.toCents(totalFine));
     }
 
     /**
-     * Adds a specified amount to the user's current fine balance.
+     * Adds a specified amount to the user's fine balance by appending an accrual.
      *
      * @param userId the ID of the user
      * @param amount the amount to add
      * @return {@code true} if the operation was successful; {@code false} otherwise
      */
     public boolean addFine(int userId, double amount) {
-        return updateFine(userId, getFineBalance(userId) + amount);
+        return executeUpdate(INSERT_SQL, userId, FineTransaction.toCents(amount), FineTransaction.ACCRUAL);
+    }
+
+    /**
+     * Appends several ledger entries in one batched transaction.
+     * Either all entries are written or none are.
+     *
+     * @param entries the entries to append; their IDs and timestamps are ignored
+     * @return the number of entries written
+     */
+    public int appendTransactions(List<FineTransaction> entries) {
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        for (FineTransaction entry : entries) {
+            rows.add(new Object[]{entry.getUserId(), entry.getAmountCents(), entry.getKind()});
+        }
+        return executeBatch(INSERT_SQL, rows);
     }
 
     /**
      * Pays a specified amount from the user's fine balance.
-     * Validates that the payment amount is positive and does not exceed the current balance.
+     * The payment must be positive; it is appended only when the balance
+     * computed in the same statement covers the amount.
      *
      * @param userId the ID of the user
      * @param amount the amount to pay
      * @return {@code true} if the payment was successful; {@code false} otherwise
      */
     public boolean payFine(int userId, double amount) {
-        double currentFine = getFineBalance(userId);
-
-        System.out.println("DEBUG: Database fine balance = " + currentFine + ", Payment amount = " + amount);
-
         if (amount <= 0) {
             logger.severe("Invalid payment amount: must be positive.");
             return false;
         }
 
-        if (amount > currentFine) {
-            logger.severe("Invalid payment amount: exceeds current balance (" + currentFine + ")");
-            return false;
+        boolean paid = executeUpdate(PAYMENT_SQL, userId, FineTransaction.toCents(amount));
+        if (!paid) {
+            logger.severe("Invalid payment amount: exceeds current balance for user " + userId);
         }
+        return paid;
+    }
 
-        return updateFine(userId, currentFine - amount);
+    /**
+     * Pays a specified amount from the user's fine balance and reads the
+     * user's new state version, in one transaction.
+     *
+     * @param userId the ID of the user
+     * @param amount the amount to pay; must be positive
+     * @return the change set of the payment; {@link BorrowerDelta#NONE} if the
+     *         balance does not cover the amount; {@code null} if the amount is
+     *         not positive or the transaction fails
+     */
+    public BorrowerDelta pay(int userId, double amount) {
+        if (amount <= 0) {
+            logger.severe("Invalid payment amount: must be positive.");
+            return null;
+        }
+
+        return executeInTransaction(conn -> {
+            if (executeUpdateIn(conn, PAYMENT_SQL, userId, FineTransaction.toCents(amount)) != 1) {
+                return BorrowerDelta.NONE;
+            }
+            return BorrowerDelta.paid(amount,
+                    findOneIn(conn, BorrowRecordDAO.VERSION_SQL, rs -> rs.getLong(1), userId));
+        }, null);
     }
 
     /**
@@ -134,4 +242,61 @@ public class FineDAO extends BaseDAO {
     public boolean clearFine(int userId) {
         return updateFine(userId, 0.0);
     }
-}
\ No newline at end of file
+
+    /**
+     * Lists the ledger entries of a user in the order they were recorded.
+     *
+     * @param userId the ID of the user
+     * @return the user's ledger entries
+     */
+    public List<FineTransaction> findTransactionsByUserId(int userId) {
+        return findMany("SELECT id, user_id, amount_cents, kind, created_at FROM fine_transactions " +
+                        "WHERE user_id = ? ORDER BY id",
+                rs -> new FineTransaction(
+                        rs.getLong("id"),
+                        rs.getInt("user_id"),
+                        rs.getLong("amount_cents"),
+                        rs.getString("kind"),
+                        rs.getString("created_at")
+                ), userId);
+    }
+
+    /**
+     * Lists every user with an unpaid fine balance, in one query over the
+     * snapshots and their ledger tails.
+     *
+     * @return one {@link Notice#FINE} notice per user owing money, by user ID
+     */
+    public List<Notice> findFineNotices() {
+        return findMany("SELECT id, username, email, balance_cents FROM (" +
+                        "SELECT u.id, u.username, u.email, COALESCE(s.balance_cents, 0) + " +
+                        "COALESCE((SELECT SUM(t.amount_cents) FROM fine_transactions t WHERE t.user_id = u.id " +
+                        "AND t.id > COALESCE(s.last_txn_id, 0)), 0) AS balance_cents " +
+                        "FROM users u LEFT JOIN fine_snapshots s ON s.user_id = u.id) " +
+                        "WHERE balance_cents > 0 ORDER BY id",
+                rs -> new Notice(
+                        rs.getInt("id"),
+                        rs.getString("username"),
+                        rs.getString("email"),
+                        Notice.FINE,
+                        null,
+                        null,
+                        rs.getLong("balance_cents")
+                ));
+    }
+
+    /**
+     * Rolls every user's snapshot forward over the ledger entries recorded since
+     * it was taken. Ledger rows are never modified or removed.
+     *
+     * @return the number of snapshots written; -1 if compaction fails
+     */
+    public int compactSnapshots() {
+        return executeUpdateCount("INSERT INTO fine_snapshots (user_id, balance_cents, last_txn_id, taken_at) " +
+                "SELECT t.user_id, COALESCE(s.balance_cents, 0) + SUM(t.amount_cents), MAX(t.id), datetime('now') " +
+                "FROM fine_transactions t LEFT JOIN fine_snapshots s ON s.user_id = t.user_id " +
+                "WHERE t.id > COALESCE(s.last_txn_id, 0) GROUP BY t.user_id " +
+                "ON CONFLICT(user_id) DO UPDATE SET balance_cents = excluded.balance_cents, " +
+                "last_txn_id = excluded.last_txn_id, taken_at = excluded.taken_at");
+    }
+}
@@ -0,0 +1,240 @@
+package dao;
+
+import model.Hold;
+import model.Notice;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * {@code HoldDAO} is a Data Access Object (DAO) class responsible for
+ * managing database operations related to holds (reservations) on media items.
+ * It extends {@link BaseDAO} to reuse common database operations such as
+ * table creation, query execution, and result mapping.
+ *
+ * <p>This class provides methods to:</p>
+ * <ul>
+ *     <li>Initialize the "holds" table and its queue index.</li>
+ *     <li>Place and cancel holds.</li>
+ *     <li>Hand a returned item to the oldest waiting hold, or release it.</li>
+ *     <li>Expire ready holds whose pickup window has passed.</li>
+ *     <li>List waiting and ready holds.</li>
+ * </ul>
+ *
+ * <p>Each media item has a first-in, first-out queue ordered by hold ID. A
+ * patron can have at most one active (waiting or ready) hold per item.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * HoldDAO holdDAO = new HoldDAO();
+ * holdDAO.initializeTable();
+ * long holdId = holdDAO.insert(mediaId, userId);
+ * Hold next = holdDAO.handOff(mediaId, LocalDate.now().plusDays(3));
+ * }
+ * </pre>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class HoldDAO extends BaseDAO {
+    /** Columns selected or returned for every hold row. */
+    private static final String COLUMNS = "id, media_id, user_id, status, ready_until";
+
+    /**
+     * Conditional update that consumes a patron's ready, unexpired hold on an
+     * item. Parameters: media ID, user ID, today's date.
+     */
+    static final String FULFILL_SQL = "UPDATE holds SET status = '" + Hold.FULFILLED + "' " +
+            "WHERE media_id = ? AND user_id = ? AND status = '" + Hold.READY + "' AND ready_until >= ?";
+
+    /**
+     * Promotes the oldest waiting hold on an item to ready; affects no row when
+     * nobody is waiting. Parameters: last pickup day, media ID.
+     */
+    static final String PROMOTE_SQL = "UPDATE holds SET status = '" + Hold.READY + "', ready_until = ? " +
+            "WHERE id = (SELECT id FROM holds WHERE media_id = ? AND status = '" + Hold.WAITING + "' " +
+            "ORDER BY id LIMIT 1)";
+
+    /** Reads the newest ready hold on an item. Parameter: media ID. */
+    static final String FIND_READY_SQL = "SELECT " + COLUMNS + " FROM holds " +
+            "WHERE media_id = ? AND status = '" + Hold.READY + "' ORDER BY id DESC LIMIT 1";
+
+    /** Makes an item available again. Parameter: media ID. */
+    static final String RELEASE_SQL = "UPDATE media SET available = 1 WHERE id = ?";
+
+    /**
+     * Initializes the "holds" table in the database together with an index on
+     * the per-item queue and a uniqueness rule for active holds.
+     * If they already exist, no changes are made.
+     */
+    public void initializeTable() {
+        createTable("CREATE TABLE IF NOT EXISTS holds (\n" +
+                " id INTEGER PRIMARY KEY AUTOINCREMENT,\n" +
+                " media_id INTEGER NOT NULL,\n" +
+                " user_id INTEGER NOT NULL,\n" +
+                " status TEXT NOT NULL DEFAULT '" + Hold.WAITING + "',\n" +
+                " placed_at TEXT NOT NULL DEFAULT (datetime('now')),\n" +
+                " ready_until TEXT,\n" +
+                " FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,\n" +
+                " FOREIGN KEY (media_id) REFERENCES media(id) ON DELETE CASCADE\n" +
+                ");", "Holds");
+        createTable("CREATE INDEX IF NOT EXISTS idx_holds_queue ON holds (media_id, status, id);",
+                "Holds queue index");
+        createTable("CREATE UNIQUE INDEX IF NOT EXISTS idx_holds_active ON holds (media_id, user_id) " +
+                "WHERE status IN ('" + Hold.WAITING + "', '" + Hold.READY + "');", "Active holds index");
+    }
+
+    /**
+     * Places a waiting hold for a patron at the end of an item's queue.
+     *
+     * @param mediaId the ID of the media item
+     * @param userId  the ID of the patron
+     * @return the generated hold ID; -1 if the patron already has an active hold or insertion fails
+     */
+    public long insert(int mediaId, int userId) {
+        return executeInsert("INSERT INTO holds (media_id, user_id, status) VALUES (?, ?, ?)",
+                mediaId, userId, Hold.WAITING);
+    }
+
+    /**
+     * Cancels a patron's waiting hold.
+     *
+     * @param holdId the ID of the hold
+     * @param userId the ID of the patron who owns it
+     * @return {@code true} if a waiting hold was cancelled; {@code false} otherwise
+     */
+    public boolean cancel(long holdId, int userId) {
+        return executeUpdate("UPDATE holds SET status = ? WHERE id = ? AND user_id = ? AND status = ?",
+                Hold.CANCELLED, holdId, userId, Hold.WAITING);
+    }
+
+    /**
+     * Finds a hold by its ID.
+     *
+     * @param holdId the ID of the hold
+     * @return the {@link Hold} if found; {@code null} otherwise
+     */
+    public Hold findById(long holdId) {
+        return findOne("SELECT " + COLUMNS + " FROM holds WHERE id = ?", HoldDAO::mapHold, holdId);
+    }
+
+    /**
+     * Retrieves every waiting hold in queue order, used to rebuild the in-memory queue index.
+     *
+     * @return the waiting holds ordered by media ID and hold ID
+     */
+    public List<Hold> findWaiting() {
+        return findMany("SELECT " + COLUMNS + " FROM holds WHERE status = ? ORDER BY media_id, id",
+                HoldDAO::mapHold, Hold.WAITING);
+    }
+
+    /**
+     * Retrieves a patron's active (waiting or ready) holds.
+     *
+     * @param userId the ID of the patron
+     * @return the patron's active holds in the order they were placed
+     */
+    public List<Hold> findActiveByUserId(int userId) {
+        return findMany("SELECT " + COLUMNS + " FROM holds WHERE user_id = ? AND status IN (?, ?) ORDER BY id",
+                HoldDAO::mapHold, userId, Hold.WAITING, Hold.READY);
+    }
+
+    /**
+     * Retrieves ready holds whose pickup window ended before the given day.
+     *
+     * @param today the current date
+     * @return the expired ready holds
+     */
+    public List<Hold> findExpiredReady(LocalDate today) {
+        return findMany("SELECT " + COLUMNS + " FROM holds WHERE status = ? AND ready_until < ? ORDER BY id",
+                HoldDAO::mapHold, Hold.READY, today.toString());
+    }
+
+    /**
+     * Hands a returned item to the oldest waiting hold, or makes it available
+     * again when nobody is waiting. Both outcomes happen in one transaction.
+     *
+     * @param mediaId    the ID of the returned media item
+     * @param readyUntil the last pickup day for the next holder
+     * @return the hold that became ready; {@code null} if the item was released or the hand-off failed
+     */
+    public Hold handOff(int mediaId, LocalDate readyUntil) {
+        return executeInTransaction(conn -> readyNext(conn, mediaId, readyUntil), null);
+    }
+
+    /**
+     * Expires a ready hold and hands its item on to the next waiting hold
+     * (or releases it) in one transaction.
+     *
+     * @param hold       the ready hold whose pickup window has passed
+     * @param readyUntil the last pickup day for the next holder
+     * @return the hold that became ready next; {@code null} if the item was released,
+     *         the hold was no longer ready, or the transaction failed
+     */
+    public Hold expireAndHandOff(Hold hold, LocalDate readyUntil) {
+        return executeInTransaction(conn -> {
+            int expired = executeUpdateIn(conn, "UPDATE holds SET status = ? WHERE id = ? AND status = ?",
+                    Hold.EXPIRED, hold.getId(), Hold.READY);
+            return expired == 1 ? readyNext(conn, hold.getMediaId(), readyUntil) : null;
+        }, null);
+    }
+
+    /**
+     * Promotes the oldest waiting hold on an item to ready, or releases the item.
+     *
+     * @param conn       the transactional connection
+     * @param mediaId    the ID of the media item
+     * @param readyUntil the last pickup day
+     * @return the promoted hold; {@code null} if the item was released
+     * @throws SQLException if a database access error occurs
+     */
+    private Hold readyNext(Connection conn, int mediaId, LocalDate readyUntil) throws SQLException {
+        if (executeUpdateIn(conn, PROMOTE_SQL, readyUntil.toString(), mediaId) == 1) {
+            return findOneIn(conn, FIND_READY_SQL, HoldDAO::mapHold, mediaId);
+        }
+        executeUpdateIn(conn, RELEASE_SQL, mediaId);
+        return null;
+    }
+
+    /**
+     * Lists every hold waiting for pickup whose window is still open,
+     * with the patron's contact details and the item title.
+     *
+     * @param today the current date
+     * @return one {@link Notice#HOLD_READY} notice per ready hold, by user then deadline
+     */
+    public List<Notice> findReadyNotices(LocalDate today) {
+        return findMany("SELECT u.id, u.username, u.email, m.title, h.ready_until FROM holds h " +
+                        "JOIN users u ON u.id = h.user_id JOIN media m ON m.id = h.media_id " +
+                        "WHERE h.status = ? AND h.ready_until >= ? ORDER BY u.id, h.ready_until, h.id",
+                rs -> new Notice(
+                        rs.getInt("id"),
+                        rs.getString("username"),
+                        rs.getString("email"),
+                        Notice.HOLD_READY,
+                        rs.getString("title"),
+                        LocalDate.parse(rs.getString("ready_until")),
+                        0
+                ), Hold.READY, today.toString());
+    }
+
+    /**
+     * Maps a {@link ResultSet} row to a {@link Hold} object.
+     *
+     * @param rs the result set positioned at the current row
+     * @return the mapped {@link Hold} object
+     * @throws SQLException if a database access error occurs
+     */
+    static Hold mapHold(ResultSet rs) throws SQLException {
+        String readyUntil = rs.getString("ready_until");
+        return new Hold(
+                rs.getLong("id"),
+                rs.getInt("media_id"),
+                rs.getInt("user_id"),
+                rs.getString("status"),
+                readyUntil == null ? null : LocalDate.parse(readyUntil)
+        );
+    }
+}
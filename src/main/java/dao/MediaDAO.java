@@ -1,5 +1,14 @@
 package dao;
 
+import model.Book;
+import model.CD;
+import model.Media;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * {@code MediaDAO} is a Data Access Object (DAO) class responsible for
  * managing database operations related to the {@code media} table.
@@ -11,6 +20,8 @@ package dao;
  *     <li>Initialize the "media" table.</li>
  *     <li>Insert new media records.</li>
  *     <li>Update the availability status of media items.</li>
+ *     <li>Atomically claim an available media item.</li>
+ *     <li>Find media items of any type by ID, as {@link Book} or {@link CD}.</li>
  * </ul>
  *
  * <p>The "media" table stores information about media items such as
@@ -23,6 +34,7 @@ package dao;
  * mediaDAO.initializeTable();
  * int mediaId = mediaDAO.insert("Java Programming", "book");
  * mediaDAO.updateAvailability(mediaId, false);
+ * Media media = mediaDAO.findById(mediaId);
  * }
  * </pre>
  *
@@ -33,6 +45,22 @@ package dao;
  */
 public class MediaDAO extends BaseDAO {
 
+    /**
+     * Conditional update that marks a media item unavailable only if it is
+     * currently available. Exactly one row is affected when the claim succeeds.
+     */
+    static final String CLAIM_SQL = "UPDATE media SET available = 0 WHERE id = ? AND available = 1";
+
+    /**
+     * Selects media items together with the columns of whichever subtype
+     * table matches their type, so any item is loaded in one query.
+     */
+    private static final String BASE_QUERY =
+            "SELECT m.id, m.title, m.available, m.media_type, b.author, b.isbn, c.artist, c.genre, c.duration " +
+                    "FROM media m " +
+                    "LEFT JOIN books b ON b.id = m.id AND m.media_type = 'book' " +
+                    "LEFT JOIN cds c ON c.id = m.id AND m.media_type = 'cd' ";
+
     /**
      * Initializes the "media" table in the database.
      * The table includes an auto-increment primary key, title, media type, and availability.
@@ -71,4 +99,62 @@ public class MediaDAO extends BaseDAO {
         return executeUpdate("UPDATE media SET available = ? WHERE id = ?",
                 available ? 1 : 0, mediaId);
     }
-}
\ No newline at end of file
+
+    /**
+     * Atomically claims a media item by marking it unavailable only if it is
+     * still available. Concurrent callers cannot both succeed.
+     *
+     * @param mediaId the ID of the media item
+     * @return {@code true} if this call claimed the item; {@code false} if it was
+     *         already unavailable or the update failed
+     */
+    public boolean claimAvailability(int mediaId) {
+        return executeUpdateCount(CLAIM_SQL, mediaId) == 1;
+    }
+
+    /**
+     * Finds a media item by ID as its concrete type.
+     *
+     * @param id the ID of the media item
+     * @return a {@link Book} or {@link CD}; {@code null} if not found
+     */
+    public Media findById(int id) {
+        return findOne(BASE_QUERY + "WHERE m.id = ?", this::mapMedia, id);
+    }
+
+    /**
+     * Finds several media items by ID as their concrete types, binding the
+     * IDs in chunks.
+     *
+     * @param ids the IDs of the media items
+     * @return the items found, each a {@link Book} or {@link CD}, in no particular order
+     */
+    public List<Media> findByIds(List<Integer> ids) {
+        List<Media> found = new ArrayList<>(ids.size());
+        for (Media media : findManyByIds(BASE_QUERY + "WHERE m.id IN (", this::mapMedia, ids)) {
+            if (media != null) found.add(media);
+        }
+        return found;
+    }
+
+    /**
+     * Maps a {@link ResultSet} row to a {@link Book} or {@link CD} by its media type.
+     *
+     * @param rs the result set positioned at the current row
+     * @return the mapped item; {@code null} if its type is unknown or its subtype row is missing
+     * @throws SQLException if a database access error occurs
+     */
+    private Media mapMedia(ResultSet rs) throws SQLException {
+        boolean available = rs.getInt("available") == 1;
+        String type = rs.getString("media_type");
+        if ("book".equals(type) && rs.getString("author") != null) {
+            return new Book(rs.getInt("id"), rs.getString("title"), rs.getString("author"),
+                    rs.getString("isbn"), available);
+        }
+        if ("cd".equals(type) && rs.getString("artist") != null) {
+            return new CD(rs.getInt("id"), rs.getString("title"), rs.getString("artist"),
+                    rs.getString("genre"), rs.getInt("duration"), available);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,228 @@
+package dao;
+
+import model.OutboxMessage;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * {@code OutboxDAO} is a Data Access Object (DAO) class responsible for the
+ * notification outbox: emails that have been decided on but not yet sent.
+ * It extends {@link BaseDAO} to reuse common database operations such as
+ * table creation, query execution, and result mapping.
+ *
+ * <p>This class provides methods to:</p>
+ * <ul>
+ *     <li>Initialize the "outbox" table and its due-message index.</li>
+ *     <li>Write messages, either in their own transaction or in a caller's.</li>
+ *     <li>Claim a batch of due messages for delivery under a time-limited lease.</li>
+ *     <li>Remove delivered messages, reschedule failed ones, release unsent ones, or dead-letter them.</li>
+ *     <li>Report queue depth, the oldest pending message, and dead letters.</li>
+ * </ul>
+ *
+ * <p>A claimed message is leased to the dispatcher that claimed it. If that
+ * dispatcher dies before reporting back, the lease runs out and the message
+ * is claimed again, so every message is delivered at least once.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * OutboxDAO outboxDAO = new OutboxDAO();
+ * outboxDAO.initializeTable();
+ * outboxDAO.enqueueAll(List.of(new OutboxMessage("amy@example.com", "Hi", "Hello")), now);
+ * List<OutboxMessage> due = outboxDAO.claimDue(50, now, now + 300_000);
+ * }
+ * </pre>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class OutboxDAO extends BaseDAO {
+    /** Columns selected or returned for every outbox row. */
+    private static final String COLUMNS = "id, recipient, subject, body, attempts, created_at";
+
+    /** Insert of one pending message. Parameters: recipient, subject, body, created at, next attempt at. */
+    private static final String INSERT_SQL = "INSERT INTO outbox (recipient, subject, body, status, " +
+            "created_at, next_attempt_at) VALUES (?, ?, ?, '" + OutboxMessage.PENDING + "', ?, ?)";
+
+    /**
+     * Initializes the "outbox" table in the database together with an index
+     * on pending messages by due time.
+     * If they already exist, no changes are made.
+     */
+    public void initializeTable() {
+        createTable("CREATE TABLE IF NOT EXISTS outbox (\n" +
+                " id INTEGER PRIMARY KEY AUTOINCREMENT,\n" +
+                " recipient TEXT NOT NULL,\n" +
+                " subject TEXT,\n" +
+                " body TEXT NOT NULL,\n" +
+                " status TEXT NOT NULL DEFAULT '" + OutboxMessage.PENDING + "',\n" +
+                " attempts INTEGER NOT NULL DEFAULT 0,\n" +
+                " created_at INTEGER NOT NULL,\n" +
+                " next_attempt_at INTEGER NOT NULL,\n" +
+                " claimed_until INTEGER,\n" +
+                " last_error TEXT\n" +
+                ");", "Outbox");
+        createTable("CREATE INDEX IF NOT EXISTS idx_outbox_due ON outbox (status, next_attempt_at);",
+                "Outbox due index");
+    }
+
+    /**
+     * Writes a message on a caller-managed connection, so that it is stored
+     * only if the caller's transaction commits.
+     *
+     * @param conn    the transactional connection
+     * @param message the message to write
+     * @param now     the current time in epoch milliseconds
+     * @return the generated message ID
+     * @throws SQLException if the insert fails
+     */
+    public long enqueueIn(Connection conn, OutboxMessage message, long now) throws SQLException {
+        return executeInsertIn(conn, INSERT_SQL,
+                message.getRecipient(), message.getSubject(), message.getBody(), now, now);
+    }
+
+    /**
+     * Writes several messages in one transaction: either all are stored or none.
+     *
+     * @param messages the messages to write
+     * @param now      the current time in epoch milliseconds
+     * @return the number of messages stored; 0 if the transaction failed
+     */
+    public int enqueueAll(List<OutboxMessage> messages, long now) {
+        List<Object[]> rows = new ArrayList<>(messages.size());
+        for (OutboxMessage message : messages) {
+            rows.add(new Object[]{message.getRecipient(), message.getSubject(), message.getBody(), now, now});
+        }
+        return executeBatch(INSERT_SQL, rows);
+    }
+
+    /**
+     * Claims up to {@code limit} pending messages that are due and not leased
+     * to anyone, counting one attempt for each. The claim is a single
+     * statement, so concurrent dispatchers never claim the same message.
+     *
+     * @param limit      the maximum number of messages to claim
+     * @param now        the current time in epoch milliseconds
+     * @param leaseUntil when the claim lapses if the message is not reported back
+     * @return the claimed messages in the order they were written
+     */
+    public List<OutboxMessage> claimDue(int limit, long now, long leaseUntil) {
+        List<OutboxMessage> claimed = findMany("UPDATE outbox SET claimed_until = ?, attempts = attempts + 1 " +
+                        "WHERE id IN (SELECT id FROM outbox WHERE status = '" + OutboxMessage.PENDING + "' " +
+                        "AND next_attempt_at <= ? AND (claimed_until IS NULL OR claimed_until <= ?) " +
+                        "ORDER BY next_attempt_at, id LIMIT ?) RETURNING " + COLUMNS,
+                this::mapMessage, leaseUntil, now, now, limit);
+        claimed.sort(Comparator.comparingLong(OutboxMessage::getId));
+        return claimed;
+    }
+
+    /**
+     * Removes a delivered message from the outbox.
+     *
+     * @param id the message ID
+     * @return {@code true} if the message was removed
+     */
+    public boolean markSent(long id) {
+        return executeUpdate("DELETE FROM outbox WHERE id = ?", id);
+    }
+
+    /**
+     * Releases a message after a failed attempt and schedules the next one.
+     *
+     * @param id            the message ID
+     * @param error         what went wrong
+     * @param nextAttemptAt when to try again, in epoch milliseconds
+     * @return {@code true} if the message was rescheduled
+     */
+    public boolean markFailed(long id, String error, long nextAttemptAt) {
+        return executeUpdate("UPDATE outbox SET claimed_until = NULL, next_attempt_at = ?, last_error = ? " +
+                "WHERE id = ?", nextAttemptAt, error, id);
+    }
+
+    /**
+     * Hands a claimed message back untouched, as if it had never been claimed,
+     * so it is picked up again on the next drain.
+     *
+     * @param id the message ID
+     * @return {@code true} if the message was released
+     */
+    public boolean release(long id) {
+        return executeUpdate("UPDATE outbox SET claimed_until = NULL, attempts = attempts - 1 " +
+                "WHERE id = ? AND status = '" + OutboxMessage.PENDING + "'", id);
+    }
+
+    /**
+     * Gives up on a message; it stays in the outbox as a dead letter.
+     *
+     * @param id    the message ID
+     * @param error the last error
+     * @return {@code true} if the message was dead-lettered
+     */
+    public boolean markDead(long id, String error) {
+        return executeUpdate("UPDATE outbox SET status = '" + OutboxMessage.DEAD + "', claimed_until = NULL, " +
+                "last_error = ? WHERE id = ?", error, id);
+    }
+
+    /**
+     * Counts messages still to be delivered, including claimed ones.
+     *
+     * @return the queue depth
+     */
+    public int countPending() {
+        return executeCount("SELECT COUNT(*) FROM outbox WHERE status = ?", OutboxMessage.PENDING);
+    }
+
+    /**
+     * Counts dead-lettered messages.
+     *
+     * @return the number of dead letters
+     */
+    public int countDead() {
+        return executeCount("SELECT COUNT(*) FROM outbox WHERE status = ?", OutboxMessage.DEAD);
+    }
+
+    /**
+     * Finds when the oldest pending message was written.
+     *
+     * @return the creation time in epoch milliseconds; {@code null} if nothing is pending
+     */
+    public Long oldestPendingCreatedAt() {
+        return findOne("SELECT MIN(created_at) AS oldest FROM outbox WHERE status = ?", rs -> {
+            long oldest = rs.getLong("oldest");
+            return rs.wasNull() ? null : oldest;
+        }, OutboxMessage.PENDING);
+    }
+
+    /**
+     * Retrieves dead-lettered messages, oldest first.
+     *
+     * @return the dead letters
+     */
+    public List<OutboxMessage> findDead() {
+        return findMany("SELECT " + COLUMNS + " FROM outbox WHERE status = ? ORDER BY id",
+                this::mapMessage, OutboxMessage.DEAD);
+    }
+
+    /**
+     * Maps a {@link ResultSet} row to an {@link OutboxMessage} object.
+     *
+     * @param rs the result set positioned at the current row
+     * @return the mapped {@link OutboxMessage} object
+     * @throws SQLException if a database access error occurs
+     */
+    private OutboxMessage mapMessage(ResultSet rs) throws SQLException {
+        return new OutboxMessage(
+                rs.getLong("id"),
+                rs.getString("recipient"),
+                rs.getString("subject"),
+                rs.getString("body"),
+                rs.getInt("attempts"),
+                rs.getLong("created_at")
+        );
+    }
+}
@@ -1,4 +1,8 @@
 package dao;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -7,21 +11,44 @@ import java.util.Base64;
 /**
  * Utility class for password hashing and salt generation with enhanced error handling.
  *
- * Provides methods to generate a cryptographically secure salt and hash passwords
- * using SHA-256 combined with the salt. Includes explicit null checks and validation
- * for Base64-encoded salts.
+ * Passwords are hashed with PBKDF2-HMAC-SHA256. The iteration count is tunable
+ * and is encoded in the stored hash as {@code pbkdf2-sha256$<iterations>$<hash>},
+ * so hashes made with different costs can be verified side by side. Hashes
+ * created before PBKDF2 was introduced (a single salted SHA-256 pass, stored
+ * as bare Base64) still verify; {@link #needsRehash(String)} reports them so
+ * they can be upgraded on the next successful login.
  *
  * Usage example:
  *
  * String salt = PasswordUtil.generateSalt();
  * String hashedPassword = PasswordUtil.hashPassword("myPassword", salt);
+ * boolean ok = PasswordUtil.verifyPassword("myPassword", salt, hashedPassword);
  *
  *
  * @author Library
- * @version 1.1
+ * @version 1.2
  *
  */
 public class PasswordUtil {
+    /** Scheme prefix of PBKDF2 hashes. */
+    public static final String PBKDF2_SCHEME = "pbkdf2-sha256";
+
+    /** Default PBKDF2 iteration count; override with {@code -Dpassword.iterations=N}. */
+    public static final int DEFAULT_ITERATIONS = 210_000;
+
+    /** Smallest iteration count accepted. */
+    public static final int MIN_ITERATIONS = 1_000;
+
+    /** Derived key length in bits. */
+    private static final int KEY_BITS = 256;
+
+    /** Shared generator; {@link SecureRandom} is thread-safe and costly to seed. */
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** Iteration count used for new hashes. */
+    private static volatile int iterations = Math.max(MIN_ITERATIONS,
+            Integer.getInteger("password.iterations", DEFAULT_ITERATIONS));
+
     private PasswordUtil() {
         throw new IllegalStateException("Utility class");
     }
@@ -31,35 +58,149 @@ public class PasswordUtil {
      * @return a Base64-encoded random salt
      */
     public static String generateSalt() {
-        SecureRandom random = new SecureRandom();
         byte[] salt = new byte[16];
-        random.nextBytes(salt);
+        RANDOM.nextBytes(salt);
         return Base64.getEncoder().encodeToString(salt);
     }
 
     /**
-     * Hashes a password using SHA-256 combined with the provided salt.
+     * Returns the iteration count used for new hashes.
+     *
+     * @return the current iteration count
+     */
+    public static int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Changes the iteration count used for new hashes. Existing hashes keep
+     * verifying with the count encoded in them and are reported by
+     * {@link #needsRehash(String)} when it is lower.
+     *
+     * @param newIterations the new iteration count
+     * @throws IllegalArgumentException if the count is below {@link #MIN_ITERATIONS}
+     */
+    public static void setIterations(int newIterations) {
+        if (newIterations < MIN_ITERATIONS) {
+            throw new IllegalArgumentException("Iterations must be at least " + MIN_ITERATIONS);
+        }
+        iterations = newIterations;
+    }
+
+    /**
+     * Hashes a password with PBKDF2 at the current iteration count.
      * Performs null checks and validates that the salt is a proper Base64 string.
      *
      * @param password the plain text password (must not be null)
      * @param salt the Base64-encoded salt (must not be null)
-     * @return the Base64-encoded hashed password
+     * @return the encoded hash, including scheme and iteration count
      * @throws IllegalArgumentException if password or salt is null or salt is invalid Base64
-     * @throws RuntimeException if SHA-256 algorithm is not available
      */
     public static String hashPassword(String password, String salt) {
-        if (password == null) throw new IllegalArgumentException("Password cannot be null.");
-        if (salt == null) throw new IllegalArgumentException("Salt cannot be null.");
+        return hashPassword(password, salt, iterations);
+    }
+
+    /**
+     * Hashes a password with PBKDF2 at the given iteration count.
+     *
+     * @param password   the plain text password (must not be null)
+     * @param salt       the Base64-encoded salt (must not be null)
+     * @param iterations the PBKDF2 iteration count
+     * @return the encoded hash, including scheme and iteration count
+     * @throws IllegalArgumentException if password or salt is null or salt is invalid Base64
+     */
+    public static String hashPassword(String password, String salt, int iterations) {
+        byte[] saltBytes = decodeSalt(password, salt);
+        return PBKDF2_SCHEME + "$" + iterations + "$" + pbkdf2(password, saltBytes, iterations);
+    }
 
+    /**
+     * Hashes a password with the original single-pass salted SHA-256 scheme.
+     * Only used to verify hashes stored before PBKDF2 was introduced.
+     *
+     * @param password the plain text password (must not be null)
+     * @param salt the Base64-encoded salt (must not be null)
+     * @return the Base64-encoded hash
+     * @throws IllegalArgumentException if password or salt is null or salt is invalid Base64
+     */
+    public static String legacyHash(String password, String salt) {
+        byte[] saltBytes = decodeSalt(password, salt);
         try {
             MessageDigest md = MessageDigest.getInstance("SHA-256");
-            md.update(Base64.getDecoder().decode(salt));
+            md.update(saltBytes);
             byte[] hashedBytes = md.digest(password.getBytes());
             return Base64.getEncoder().encodeToString(hashedBytes);
         } catch (NoSuchAlgorithmException e) {
             throw new IllegalArgumentException("Hashing algorithm not found: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks a password against a stored hash of either format, comparing in
+     * constant time.
+     *
+     * @param password   the plain text password
+     * @param salt       the Base64-encoded salt stored with the hash
+     * @param storedHash the stored hash
+     * @return {@code true} if the password matches
+     */
+    public static boolean verifyPassword(String password, String salt, String storedHash) {
+        if (storedHash == null) return false;
+
+        String candidate;
+        if (storedHash.startsWith(PBKDF2_SCHEME + "$")) {
+            int storedIterations = parseIterations(storedHash);
+            if (storedIterations < 1) return false;
+            candidate = hashPassword(password, salt, storedIterations);
+        } else {
+            candidate = legacyHash(password, salt);
+        }
+        return MessageDigest.isEqual(candidate.getBytes(StandardCharsets.UTF_8),
+                storedHash.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reports whether a stored hash should be replaced: it uses the legacy
+     * scheme or fewer iterations than the current setting.
+     *
+     * @param storedHash the stored hash
+     * @return {@code true} if the hash should be recomputed on the next login
+     */
+    public static boolean needsRehash(String storedHash) {
+        if (storedHash == null || !storedHash.startsWith(PBKDF2_SCHEME + "$")) return true;
+        return parseIterations(storedHash) < iterations;
+    }
+
+    private static int parseIterations(String storedHash) {
+        int start = PBKDF2_SCHEME.length() + 1;
+        int end = storedHash.indexOf('$', start);
+        if (end < 0) return -1;
+        try {
+            return Integer.parseInt(storedHash.substring(start, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static byte[] decodeSalt(String password, String salt) {
+        if (password == null) throw new IllegalArgumentException("Password cannot be null.");
+        if (salt == null) throw new IllegalArgumentException("Salt cannot be null.");
+        try {
+            return Base64.getDecoder().decode(salt);
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Invalid salt format. Salt must be a valid Base64 string.", e);
         }
     }
-}
\ No newline at end of file
+
+    private static String pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, KEY_BITS);
+        try {
+            SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+            return Base64.getEncoder().encodeToString(factory.generateSecret(spec).getEncoded());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Hashing algorithm not available: " + e.getMessage());
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
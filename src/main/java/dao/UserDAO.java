@@ -14,11 +14,12 @@ import java.sql.*;
  * <ul>
  *     <li>Initialize the "users" table.</li>
  *     <li>Find a user by username.</li>
- *     <li>Insert a new user.</li>
+ *     <li>Insert a new user and update their email address.</li>
  *     <li>Delete a user along with their borrow records and fines.</li>
  * </ul>
  *
- * <p>The "users" table stores user credentials including username, hashed password, and salt.</p>
+ * <p>The "users" table stores user credentials including username, hashed password, and salt,
+ * and the email address notifications are sent to.</p>
  *
  * <p>Example usage:</p>
  * <pre>
@@ -37,19 +38,25 @@ import java.sql.*;
  */
 public class UserDAO extends BaseDAO {
 
+    /** Columns selected for every user row. */
+    private static final String COLUMNS = "id, username, password_hash, salt, email";
+
     /**
      * Initializes the "users" table in the database.
-     * The table includes an auto-increment primary key, unique username, password hash, and salt.
-     * If the table already exists, no changes are made.
+     * The table includes an auto-increment primary key, unique username, password hash, salt,
+     * and an optional email address.
+     * If the table already exists, only a missing email column is added.
      */
     public void initializeTable() {
         String sql = "CREATE TABLE IF NOT EXISTS users (\n" +
                 " id INTEGER PRIMARY KEY AUTOINCREMENT,\n" +
                 " username TEXT NOT NULL UNIQUE,\n" +
                 " password_hash TEXT NOT NULL,\n" +
-                " salt TEXT NOT NULL\n" +
+                " salt TEXT NOT NULL,\n" +
+                " email TEXT\n" +
                 ");";
         createTable(sql, "Users");
+        addColumnIfMissing("users", "email", "TEXT");
     }
 
     /**
@@ -59,7 +66,7 @@ public class UserDAO extends BaseDAO {
      * @return the {@link User} object if found; {@code null} otherwise
      */
     public User findByUsername(String username) {
-        String sql = "SELECT id, username, password_hash, salt FROM users WHERE username = ?";
+        String sql = "SELECT " + COLUMNS + " FROM users WHERE username = ?";
         return findOne(sql, this::mapUser, username);
     }
 
@@ -77,9 +84,55 @@ public class UserDAO extends BaseDAO {
     }
 
     /**
-     * Deletes a user and their associated borrow records and fines.
+     * Inserts a new user with an email address into the "users" table.
+     *
+     * @param username     the username of the new user
+     * @param passwordHash the hashed password of the user
+     * @param salt         the salt used for hashing
+     * @param email        the address notifications are sent to
+     * @return {@code true} if insertion was successful; {@code false} otherwise
+     */
+    public boolean insert(String username, String passwordHash, String salt, String email) {
+        String sql = "INSERT INTO users (username, password_hash, salt, email) VALUES (?, ?, ?, ?)";
+        return executeInsert(sql, username, passwordHash, salt, email) > 0;
+    }
+
+    /**
+     * Replaces the email address notifications for a user are sent to.
+     *
+     * @param id    the ID of the user
+     * @param email the new email address; {@code null} removes it
+     * @return {@code true} if the record was updated; {@code false} otherwise
+     */
+    public boolean updateEmail(int id, String email) {
+        return executeUpdate("UPDATE users SET email = ? WHERE id = ?", email, id);
+    }
+
+    /**
+     * Replaces the stored password hash and salt of a user, e.g. when an
+     * old-format hash is upgraded after a successful login.
+     *
+     * @param id           the ID of the user
+     * @param passwordHash the new password hash
+     * @param salt         the salt used for the new hash
+     * @return {@code true} if the record was updated; {@code false} otherwise
+     */
+    public boolean updatePasswordHash(int id, String passwordHash, String salt) {
+        return executeUpdate("UPDATE users SET password_hash = ?, salt = ? WHERE id = ?",
+                passwordHash, salt, id);
+    }
+
+    /**
+     * Deletes a user and their associated borrow records and holds.
      * The deletion is performed within a transaction to ensure consistency.
      *
+     * <p>The user's fine ledger entries and snapshot are kept: the ledger is
+     * append-only and stays auditable after the account is gone. User IDs are
+     * never reused, so the orphaned entries cannot attach to a new account.</p>
+     *
+     * <p>Holds are removed as rows only; callers release them first through
+     * {@code ReservationService#releaseHolds} so ready items pass on.</p>
+     *
      * @param username the username of the user to delete
      * @return {@code true} if deletion was successful; {@code false} otherwise
      */
@@ -98,7 +151,7 @@ public class UserDAO extends BaseDAO {
             }
 
             executeUpdate("DELETE FROM borrow_records WHERE user_id = ?", userId);
-            executeUpdate("DELETE FROM user_fines WHERE user_id = ?", userId);
+            executeUpdate("DELETE FROM holds WHERE user_id = ?", userId);
             boolean deleted = executeUpdate("DELETE FROM users WHERE id = ?", userId);
 
             if (deleted) {
@@ -119,8 +172,9 @@ public class UserDAO extends BaseDAO {
         } finally {
             try {
                 conn.setAutoCommit(true);
+                conn.close();
             } catch (SQLException e) {
-                logger.severe("Error resetting auto-commit: " + e.getMessage());
+                logger.severe("Error releasing connection: " + e.getMessage());
             }
         }
     }
@@ -133,11 +187,13 @@ public class UserDAO extends BaseDAO {
      * @throws SQLException if a database access error occurs
      */
     private User mapUser(ResultSet rs) throws SQLException {
-        return new User(
+        User user = new User(
                 rs.getInt("id"),
                 rs.getString("username"),
                 rs.getString("password_hash"),
                 rs.getString("salt")
         );
+        user.setEmail(rs.getString("email"));
+        return user;
     }
 }
\ No newline at end of file
@@ -1,7 +1,13 @@
 package model;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
 
 /**
  * Represents a library borrower (patron) in the system.
@@ -12,16 +18,39 @@ import java.util.List;
  * <p>Provides methods to access borrowed media, set fine balances, and
  * retrieve overdue items.</p>
  *
+ * <p>Active loans are indexed by media ID, so finding, adding and removing a
+ * loan is O(1) apart from keeping a second index ordered by due date, which
+ * is O(log n). The earliest due date is cached, so checking for overdue
+ * items is O(1) and listing them stops at the first loan that is not
+ * overdue. A loan's due date must not be changed while it is indexed.</p>
+ *
+ * <p>All access is synchronized on the borrower, so a session may hold its
+ * lock to make several changes atomically.</p>
+ *
  * @author Library
  * @version 1.1
  */
 public class Borrower extends User {
-    /** List of currently borrowed media items */
-    private List<MediaRecord> borrowedMedia;
+    /** Orders loans by due date, then by media ID */
+    private static final Comparator<MediaRecord> BY_DUE_DATE = Comparator
+            .comparing(MediaRecord::getDueDate)
+            .thenComparingInt(record -> record.getMedia().getId());
+
+    /** Currently borrowed media items keyed by media ID */
+    private final Map<Integer, MediaRecord> loans = new HashMap<>();
+
+    /** The same loans ordered by due date */
+    private final NavigableSet<MediaRecord> loansByDueDate = new TreeSet<>(BY_DUE_DATE);
+
+    /** Due date of the first loan in {@link #loansByDueDate}; null if there are no loans */
+    private LocalDate earliestDueDate;
 
     /** The borrower's current fine balance */
     private double fineBalance;
 
+    /** The state version the loans and fine balance reflect; -1 until loaded */
+    private long stateVersion;
+
     /**
      * Constructs a Borrower object.
      *
@@ -32,26 +61,98 @@ public class Borrower extends User {
      */
     public Borrower(int id, String username, String passwordHash, String salt) {
         super(id, username, passwordHash, salt);
-        this.borrowedMedia = new ArrayList<>();
         this.fineBalance = 0.0;
+        this.stateVersion = -1;
     }
 
     /**
-     * Gets a copy of the list of borrowed media.
+     * Gets a copy of the borrowed media, ordered by due date.
      *
      * @return List of MediaRecord objects
      */
-    public List<MediaRecord> getBorrowedMedia() {
-        return new ArrayList<>(borrowedMedia);
+    public synchronized List<MediaRecord> getBorrowedMedia() {
+        return new ArrayList<>(loansByDueDate);
     }
 
     /**
-     * Sets the list of borrowed media.
+     * Replaces all borrowed media, rebuilding the loan index.
      *
      * @param borrowedMedia the list of borrowed media records
      */
-    public void setBorrowedMedia(List<MediaRecord> borrowedMedia) {
-        this.borrowedMedia = borrowedMedia;
+    public synchronized void setBorrowedMedia(List<MediaRecord> borrowedMedia) {
+        loans.clear();
+        loansByDueDate.clear();
+        earliestDueDate = null;
+        for (MediaRecord record : borrowedMedia) {
+            addLoan(record);
+        }
+    }
+
+    /**
+     * Adds a loan, replacing any loan already held on the same media item.
+     *
+     * @param record the loan to add
+     */
+    public synchronized void addLoan(MediaRecord record) {
+        MediaRecord previous = loans.put(record.getMedia().getId(), record);
+        if (previous != null) {
+            loansByDueDate.remove(previous);
+        }
+        loansByDueDate.add(record);
+        earliestDueDate = loansByDueDate.first().getDueDate();
+    }
+
+    /**
+     * Removes the loan on a media item.
+     *
+     * @param mediaId the ID of the media item
+     * @return the removed loan; {@code null} if the item was not borrowed
+     */
+    public synchronized MediaRecord removeLoan(int mediaId) {
+        MediaRecord record = loans.remove(mediaId);
+        if (record != null) {
+            loansByDueDate.remove(record);
+            earliestDueDate = loansByDueDate.isEmpty() ? null : loansByDueDate.first().getDueDate();
+        }
+        return record;
+    }
+
+    /**
+     * Finds the loan on a media item.
+     *
+     * @param mediaId the ID of the media item
+     * @return the loan; {@code null} if the item is not borrowed
+     */
+    public synchronized MediaRecord findLoan(int mediaId) {
+        return loans.get(mediaId);
+    }
+
+    /**
+     * Gets the number of borrowed media items.
+     *
+     * @return the loan count
+     */
+    public synchronized int getLoanCount() {
+        return loans.size();
+    }
+
+    /**
+     * Gets the earliest due date among the borrowed media.
+     *
+     * @return the earliest due date; {@code null} if nothing is borrowed
+     */
+    public synchronized LocalDate getEarliestDueDate() {
+        return earliestDueDate;
+    }
+
+    /**
+     * Checks whether any borrowed media item is overdue on the given date.
+     *
+     * @param today the date to check against
+     * @return {@code true} if at least one item is overdue; {@code false} otherwise
+     */
+    public synchronized boolean hasOverdue(LocalDate today) {
+        return earliestDueDate != null && today.isAfter(earliestDueDate);
     }
 
     /**
@@ -59,7 +160,7 @@ public class Borrower extends User {
      *
      * @return the fine balance amount
      */
-    public double getFineBalance() {
+    public synchronized double getFineBalance() {
         return fineBalance;
     }
 
@@ -68,24 +169,54 @@ public class Borrower extends User {
      *
      * @param fineBalance the new fine balance
      */
-    public void setFineBalance(double fineBalance) {
+    public synchronized void setFineBalance(double fineBalance) {
         this.fineBalance = fineBalance;
     }
 
+    /**
+     * Gets the state version the borrowed media and fine balance reflect.
+     *
+     * @return the state version; -1 if the borrower has not been loaded
+     * @see BorrowerDelta
+     */
+    public synchronized long getStateVersion() {
+        return stateVersion;
+    }
+
+    /**
+     * Sets the state version the borrowed media and fine balance reflect.
+     *
+     * @param stateVersion the state version
+     */
+    public synchronized void setStateVersion(long stateVersion) {
+        this.stateVersion = stateVersion;
+    }
+
     /**
      * Returns all borrowed media items that are currently overdue.
      *
      * @return a list of overdue {@link MediaRecord} objects
      */
     public List<MediaRecord> getOverdueMedia() {
+        return getOverdueMedia(LocalDate.now());
+    }
+
+    /**
+     * Returns all borrowed media items that are overdue on the given date,
+     * earliest due first.
+     *
+     * @param today the date to check against
+     * @return a list of overdue {@link MediaRecord} objects
+     */
+    public synchronized List<MediaRecord> getOverdueMedia(LocalDate today) {
         List<MediaRecord> overdue = new ArrayList<>();
+        if (!hasOverdue(today)) return overdue;
 
-        for (MediaRecord mediaRecord : borrowedMedia) {
-            if (mediaRecord.isOverdue()) {
-                overdue.add(mediaRecord);
-            }
+        for (MediaRecord mediaRecord : loansByDueDate) {
+            if (!mediaRecord.isOverdue(today)) break;
+            overdue.add(mediaRecord);
         }
         return overdue;
     }
 
-}
\ No newline at end of file
+}
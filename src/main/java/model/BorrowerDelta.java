@@ -0,0 +1,178 @@
+package model;
+
+import java.util.List;
+
+/**
+ * The change a borrow, checkout, return or payment made to a borrower's
+ * persisted state, together with the borrower's state version after it.
+ *
+ * <p>Every insert of a borrow record, every return and every fine ledger
+ * entry moves the user's state version up by one. A change set therefore
+ * knows how many steps it accounts for, and applying it to an in-memory
+ * {@link Borrower} that was exactly that many steps behind proves nothing
+ * else has changed in between. When the versions do not line up, the
+ * borrower has missed a change made elsewhere and should be reloaded.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ *     BorrowerDelta delta = borrowingService.borrow(borrower, media);
+ *     if (delta != null &amp;&amp; !delta.applyTo(borrower)) {
+ *         borrowerService.loadBorrowerData(borrower);
+ *     }
+ * </pre>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class BorrowerDelta {
+
+    /**
+     * The empty change set: nothing was written because the persisted state
+     * did not allow it (the item was taken, already returned, or the balance
+     * no longer covers the payment).
+     */
+    public static final BorrowerDelta NONE = new BorrowerDelta(List.of(), null, 0.0, 0, -1);
+
+    /** The loans that were added. */
+    private final List<MediaRecord> borrowed;
+
+    /** The loan that was closed; {@code null} if none. */
+    private final MediaRecord returned;
+
+    /** The change to the fine balance; positive for a fine, negative for a payment. */
+    private final double fineChange;
+
+    /** Number of version steps the write accounts for. */
+    private final int changes;
+
+    /** The borrower's state version after the write. */
+    private final long version;
+
+    private BorrowerDelta(List<MediaRecord> borrowed, MediaRecord returned, double fineChange, int changes, long version) {
+        this.borrowed = borrowed;
+        this.returned = returned;
+        this.fineChange = fineChange;
+        this.changes = changes;
+        this.version = version;
+    }
+
+    /**
+     * Creates the change set of a new loan.
+     *
+     * @param record  the loan that was inserted
+     * @param version the state version after the insert
+     * @return the change set
+     */
+    public static BorrowerDelta borrowed(MediaRecord record, long version) {
+        return borrowed(List.of(record), version);
+    }
+
+    /**
+     * Creates the change set of several loans inserted in one transaction.
+     *
+     * @param records the loans that were inserted
+     * @param version the state version after the inserts
+     * @return the change set
+     */
+    public static BorrowerDelta borrowed(List<MediaRecord> records, long version) {
+        return new BorrowerDelta(List.copyOf(records), null, 0.0, records.size(), version);
+    }
+
+    /**
+     * Creates the change set of a return and the fine it incurred.
+     *
+     * @param record  the loan that was closed
+     * @param fine    the fine charged for the return; 0 if none
+     * @param version the state version after the return
+     * @return the change set
+     */
+    public static BorrowerDelta returned(MediaRecord record, double fine, long version) {
+        return new BorrowerDelta(List.of(), record, fine, fine > 0 ? 2 : 1, version);
+    }
+
+    /**
+     * Creates the change set of a fine payment.
+     *
+     * @param amount  the amount paid
+     * @param version the state version after the payment
+     * @return the change set
+     */
+    public static BorrowerDelta paid(double amount, long version) {
+        return new BorrowerDelta(List.of(), null, -amount, 1, version);
+    }
+
+    /**
+     * Applies the change to the borrower's loans and fine balance and moves
+     * the borrower to the new state version. A borrower that had missed
+     * changes keeps its old version, so a later version check still finds it
+     * stale.
+     *
+     * @param borrower the borrower to update
+     * @return {@code true} if the borrower was in step with the database before
+     *         the write; {@code false} if it has missed changes made elsewhere
+     *         and should be reloaded
+     */
+    public boolean applyTo(Borrower borrower) {
+        synchronized (borrower) {
+            boolean inStep = borrower.getStateVersion() + changes == version;
+            if (returned != null) {
+                borrower.removeLoan(returned.getMedia().getId());
+            }
+            for (MediaRecord record : borrowed) {
+                borrower.addLoan(record);
+            }
+            if (fineChange != 0) {
+                borrower.setFineBalance(borrower.getFineBalance() + fineChange);
+            }
+            if (inStep) {
+                borrower.setStateVersion(version);
+            }
+            return inStep;
+        }
+    }
+
+    /**
+     * Checks whether this is the empty change set.
+     *
+     * @return {@code true} if nothing was written; {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return changes == 0;
+    }
+
+    /**
+     * Gets the loans that were added.
+     *
+     * @return the new loans; empty if none
+     */
+    public List<MediaRecord> getBorrowed() {
+        return borrowed;
+    }
+
+    /**
+     * Gets the loan that was closed.
+     *
+     * @return the returned loan; {@code null} if none
+     */
+    public MediaRecord getReturned() {
+        return returned;
+    }
+
+    /**
+     * Gets the change to the fine balance.
+     *
+     * @return positive for a fine, negative for a payment
+     */
+    public double getFineChange() {
+        return fineChange;
+    }
+
+    /**
+     * Gets the borrower's state version after the write.
+     *
+     * @return the state version
+     */
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,72 @@
+package model;
+
+import java.util.List;
+
+/**
+ * The outcome of checking out several media items in one transaction:
+ * the loans that were made, the items that could not be claimed, and the
+ * change set to apply to the borrower.
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class CheckoutResult {
+
+    /** The loans that were made, in cart order. */
+    private final List<MediaRecord> borrowed;
+
+    /** The items that were neither available nor held for the borrower, in cart order. */
+    private final List<Media> unavailable;
+
+    /** The change set of the loans; {@link BorrowerDelta#NONE} if nothing was borrowed. */
+    private final BorrowerDelta delta;
+
+    /**
+     * Constructs a checkout result.
+     *
+     * @param borrowed    the loans that were made
+     * @param unavailable the items that could not be claimed
+     * @param delta       the change set of the loans
+     */
+    public CheckoutResult(List<MediaRecord> borrowed, List<Media> unavailable, BorrowerDelta delta) {
+        this.borrowed = List.copyOf(borrowed);
+        this.unavailable = List.copyOf(unavailable);
+        this.delta = delta;
+    }
+
+    /**
+     * Gets the loans that were made.
+     *
+     * @return the new loans, in cart order
+     */
+    public List<MediaRecord> getBorrowed() {
+        return borrowed;
+    }
+
+    /**
+     * Gets the items that could not be claimed.
+     *
+     * @return the unavailable items, in cart order
+     */
+    public List<Media> getUnavailable() {
+        return unavailable;
+    }
+
+    /**
+     * Gets the change set to apply to the borrower.
+     *
+     * @return the change set; {@link BorrowerDelta#NONE} if nothing was borrowed
+     */
+    public BorrowerDelta getDelta() {
+        return delta;
+    }
+
+    /**
+     * Checks whether every item in the cart was borrowed.
+     *
+     * @return {@code true} if no item was unavailable; {@code false} otherwise
+     */
+    public boolean isComplete() {
+        return unavailable.isEmpty();
+    }
+}
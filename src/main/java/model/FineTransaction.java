@@ -0,0 +1,139 @@
+package model;
+
+/**
+ * Represents a single entry in the append-only fine ledger.
+ *
+ * <p>Amounts are stored in integer cents: accruals are positive, payments
+ * are negative and adjustments may be either. A borrower's balance is the
+ * latest snapshot plus the sum of all entries recorded after it.</p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class FineTransaction {
+    /** Entry kind for a fine charged to the borrower */
+    public static final String ACCRUAL = "ACCRUAL";
+
+    /** Entry kind for a payment made by the borrower */
+    public static final String PAYMENT = "PAYMENT";
+
+    /** Entry kind for a manual correction of the balance */
+    public static final String ADJUSTMENT = "ADJUSTMENT";
+
+    /** The ledger sequence number; 0 for entries not yet persisted */
+    private final long id;
+
+    /** The user the entry belongs to */
+    private final int userId;
+
+    /** The signed amount in cents */
+    private final long amountCents;
+
+    /** The entry kind (ACCRUAL, PAYMENT or ADJUSTMENT) */
+    private final String kind;
+
+    /** The time the entry was recorded, as stored in the database */
+    private final String createdAt;
+
+    /**
+     * Constructs a persisted ledger entry.
+     *
+     * @param id the ledger sequence number
+     * @param userId the user the entry belongs to
+     * @param amountCents the signed amount in cents
+     * @param kind the entry kind
+     * @param createdAt the time the entry was recorded
+     */
+    public FineTransaction(long id, int userId, long amountCents, String kind, String createdAt) {
+        this.id = id;
+        this.userId = userId;
+        this.amountCents = amountCents;
+        this.kind = kind;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Creates a new, not yet persisted accrual entry.
+     *
+     * @param userId the user being charged
+     * @param amount the fine amount in currency units
+     * @return the accrual entry
+     */
+    public static FineTransaction accrual(int userId, double amount) {
+        return new FineTransaction(0, userId, toCents(amount), ACCRUAL, null);
+    }
+
+    /**
+     * Converts a currency amount to whole cents, rounding half up.
+     *
+     * @param amount the amount in currency units
+     * @return the amount in cents
+     */
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * Converts whole cents to a currency amount.
+     *
+     * @param cents the amount in cents
+     * @return the amount in currency units
+     */
+    public static double fromCents(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * Gets the ledger sequence number.
+     *
+     * @return the entry ID
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the user the entry belongs to.
+     *
+     * @return the user ID
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Gets the signed amount in cents.
+     *
+     * @return the amount in cents
+     */
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    /**
+     * Gets the signed amount in currency units.
+     *
+     * @return the amount
+     */
+    public double getAmount() {
+        return fromCents(amountCents);
+    }
+
+    /**
+     * Gets the entry kind.
+     *
+     * @return ACCRUAL, PAYMENT or ADJUSTMENT
+     */
+    public String getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the time the entry was recorded.
+     *
+     * @return the creation timestamp, or {@code null} if not persisted
+     */
+    public String getCreatedAt() {
+        return createdAt;
+    }
+}
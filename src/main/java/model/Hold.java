@@ -0,0 +1,115 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * Represents a patron's hold (reservation) on a media item.
+ *
+ * <p>Holds on the same item are served first-in, first-out. A hold starts out
+ * {@link #WAITING}; when the item is returned the oldest waiting hold becomes
+ * {@link #READY} and the item is kept for that patron until the pickup window
+ * closes.</p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class Hold {
+    /** Status of a hold still queued for the item */
+    public static final String WAITING = "WAITING";
+
+    /** Status of a hold whose item is set aside for pickup */
+    public static final String READY = "READY";
+
+    /** Status of a hold that ended with the patron borrowing the item */
+    public static final String FULFILLED = "FULFILLED";
+
+    /** Status of a hold whose pickup window passed */
+    public static final String EXPIRED = "EXPIRED";
+
+    /** Status of a hold withdrawn by the patron */
+    public static final String CANCELLED = "CANCELLED";
+
+    /** The unique identifier; also defines the queue order */
+    private final long id;
+
+    /** The held media item */
+    private final int mediaId;
+
+    /** The patron holding the item */
+    private final int userId;
+
+    /** The current status */
+    private final String status;
+
+    /** The last pickup day for a ready hold; {@code null} while waiting */
+    private final LocalDate readyUntil;
+
+    /**
+     * Constructs a Hold object.
+     *
+     * @param id the hold's unique identifier
+     * @param mediaId the held media item
+     * @param userId the patron holding the item
+     * @param status the current status
+     * @param readyUntil the last pickup day, or {@code null} if not ready
+     */
+    public Hold(long id, int mediaId, int userId, String status, LocalDate readyUntil) {
+        this.id = id;
+        this.mediaId = mediaId;
+        this.userId = userId;
+        this.status = status;
+        this.readyUntil = readyUntil;
+    }
+
+    /**
+     * Gets the hold ID.
+     *
+     * @return the hold ID
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the held media ID.
+     *
+     * @return the media ID
+     */
+    public int getMediaId() {
+        return mediaId;
+    }
+
+    /**
+     * Gets the ID of the patron holding the item.
+     *
+     * @return the user ID
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Gets the hold status.
+     *
+     * @return WAITING, READY, FULFILLED, EXPIRED or CANCELLED
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the last pickup day of a ready hold.
+     *
+     * @return the pickup deadline, or {@code null} if the hold is not ready
+     */
+    public LocalDate getReadyUntil() {
+        return readyUntil;
+    }
+
+    /** Returns a string representation of the hold. */
+    @Override
+    public String toString() {
+        String text = "Hold #" + id + " on media " + mediaId + ", Status: " + status;
+        return readyUntil == null ? text : text + ", Pick up by: " + readyUntil;
+    }
+}
@@ -85,7 +85,17 @@ public class MediaRecord {
      * @return true if overdue, false otherwise
      */
     public boolean isOverdue() {
-        return LocalDate.now().isAfter(dueDate);
+        return isOverdue(LocalDate.now());
+    }
+
+    /**
+     * Checks if the media is overdue on the given date.
+     *
+     * @param today the date to check against
+     * @return true if overdue, false otherwise
+     */
+    public boolean isOverdue(LocalDate today) {
+        return today.isAfter(dueDate);
     }
 
     /**
@@ -94,7 +104,17 @@ public class MediaRecord {
      * @return the number of overdue days, 0 if not overdue
      */
     public long getOverdueDays() {
-        if (!isOverdue()) return 0;
-        return java.time.temporal.ChronoUnit.DAYS.between(dueDate, LocalDate.now());
+        return getOverdueDays(LocalDate.now());
+    }
+
+    /**
+     * Calculates the number of days overdue on the given date.
+     *
+     * @param today the date to count up to
+     * @return the number of overdue days, 0 if not overdue
+     */
+    public long getOverdueDays(LocalDate today) {
+        if (!isOverdue(today)) return 0;
+        return java.time.temporal.ChronoUnit.DAYS.between(dueDate, today);
     }
 }
\ No newline at end of file
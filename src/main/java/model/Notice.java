@@ -0,0 +1,173 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * One item a user should be told about: an overdue loan, an item ready for
+ * pickup, or an outstanding fine. Notices for the same user are merged into
+ * a single digest email.
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class Notice {
+    /** Kind of a notice about a loan past its due date */
+    public static final String OVERDUE = "OVERDUE";
+
+    /** Kind of a notice about a held item waiting for pickup */
+    public static final String HOLD_READY = "HOLD_READY";
+
+    /** Kind of a notice about an unpaid fine balance */
+    public static final String FINE = "FINE";
+
+    /** The user the notice is for */
+    private final int userId;
+
+    /** The user's username */
+    private final String username;
+
+    /** The user's stored email address; {@code null} if none is stored */
+    private final String email;
+
+    /** One of {@link #OVERDUE}, {@link #HOLD_READY} or {@link #FINE} */
+    private final String kind;
+
+    /** The item title; {@code null} for fines */
+    private final String title;
+
+    /** The due date or the end of the pickup window; {@code null} for fines */
+    private final LocalDate date;
+
+    /** The fine balance in cents; 0 for other kinds */
+    private final long amountCents;
+
+    /** The borrow record an overdue notice is about; 0 for other kinds */
+    private final int recordId;
+
+    /** Reminders already sent for the borrow record */
+    private final int remindersSent;
+
+    /**
+     * Constructs a notice.
+     *
+     * @param userId the user the notice is for
+     * @param username the user's username
+     * @param email the user's stored email address, or {@code null}
+     * @param kind the kind of notice
+     * @param title the item title, or {@code null}
+     * @param date the due date or pickup deadline, or {@code null}
+     * @param amountCents the fine balance in cents
+     */
+    public Notice(int userId, String username, String email, String kind, String title,
+                  LocalDate date, long amountCents) {
+        this(userId, username, email, kind, title, date, amountCents, 0, 0);
+    }
+
+    /**
+     * Constructs a notice about a borrow record, remembering how many
+     * reminders were already sent for it.
+     *
+     * @param userId the user the notice is for
+     * @param username the user's username
+     * @param email the user's stored email address, or {@code null}
+     * @param kind the kind of notice
+     * @param title the item title, or {@code null}
+     * @param date the due date or pickup deadline, or {@code null}
+     * @param amountCents the fine balance in cents
+     * @param recordId the borrow record the notice is about
+     * @param remindersSent reminders already sent for the record
+     */
+    public Notice(int userId, String username, String email, String kind, String title,
+                  LocalDate date, long amountCents, int recordId, int remindersSent) {
+        this.userId = userId;
+        this.username = username;
+        this.email = email;
+        this.kind = kind;
+        this.title = title;
+        this.date = date;
+        this.amountCents = amountCents;
+        this.recordId = recordId;
+        this.remindersSent = remindersSent;
+    }
+
+    /**
+     * Gets the ID of the user the notice is for.
+     *
+     * @return the user ID
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Gets the user's username.
+     *
+     * @return the username
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Gets the user's stored email address.
+     *
+     * @return the email address; {@code null} if none is stored
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Gets the kind of notice.
+     *
+     * @return {@link #OVERDUE}, {@link #HOLD_READY} or {@link #FINE}
+     */
+    public String getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the item title.
+     *
+     * @return the title; {@code null} for fines
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Gets the due date of an overdue loan or the pickup deadline of a ready hold.
+     *
+     * @return the date; {@code null} for fines
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Gets the fine balance.
+     *
+     * @return the balance in cents; 0 for other kinds
+     */
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    /**
+     * Gets the borrow record an overdue notice is about.
+     *
+     * @return the record ID; 0 for other kinds
+     */
+    public int getRecordId() {
+        return recordId;
+    }
+
+    /**
+     * Gets the number of reminders already sent for the borrow record.
+     *
+     * @return the reminder count
+     */
+    public int getRemindersSent() {
+        return remindersSent;
+    }
+}
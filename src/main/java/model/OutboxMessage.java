@@ -0,0 +1,121 @@
+package model;
+
+/**
+ * Represents an email waiting in the notification outbox.
+ *
+ * <p>A message is written {@link #PENDING} and delivered later by a
+ * background dispatcher. Delivered messages are removed from the outbox;
+ * messages that keep failing are kept as {@link #DEAD} for inspection.</p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class OutboxMessage {
+    /** Status of a message still to be delivered */
+    public static final String PENDING = "PENDING";
+
+    /** Status of a message given up on after too many failed attempts */
+    public static final String DEAD = "DEAD";
+
+    /** The unique identifier; 0 until stored */
+    private final long id;
+
+    /** The recipient's email address */
+    private final String recipient;
+
+    /** The subject line */
+    private final String subject;
+
+    /** The message text */
+    private final String body;
+
+    /** Delivery attempts made so far, including the current one once claimed */
+    private final int attempts;
+
+    /** When the message was written, in epoch milliseconds */
+    private final long createdAt;
+
+    /**
+     * Constructs a message that has not been stored yet.
+     *
+     * @param recipient the recipient's email address
+     * @param subject the subject line
+     * @param body the message text
+     */
+    public OutboxMessage(String recipient, String subject, String body) {
+        this(0, recipient, subject, body, 0, 0);
+    }
+
+    /**
+     * Constructs a stored message.
+     *
+     * @param id the message's unique identifier
+     * @param recipient the recipient's email address
+     * @param subject the subject line
+     * @param body the message text
+     * @param attempts delivery attempts made so far
+     * @param createdAt when the message was written, in epoch milliseconds
+     */
+    public OutboxMessage(long id, String recipient, String subject, String body, int attempts, long createdAt) {
+        this.id = id;
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.attempts = attempts;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Gets the message ID.
+     *
+     * @return the message ID
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the recipient's email address.
+     *
+     * @return the recipient
+     */
+    public String getRecipient() {
+        return recipient;
+    }
+
+    /**
+     * Gets the subject line.
+     *
+     * @return the subject
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * Gets the message text.
+     *
+     * @return the body
+     */
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * Gets the number of delivery attempts made so far.
+     *
+     * @return the attempt count
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Gets when the message was written.
+     *
+     * @return the creation time in epoch milliseconds
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,200 @@
+package model;
+
+import java.time.LocalDate;
+
+/**
+ * The outcome of checking in one media item during a batch return, such as
+ * a staff member emptying the drop box.
+ *
+ * <p>An outcome starts out {@link #NOT_ON_LOAN} for an item without an
+ * active loan. When the loan is found it carries the loan's details and the
+ * fine computed for it, and becomes {@link #RETURNED} once the return has
+ * been committed, or {@link #FAILED} if the transaction it was part of was
+ * rolled back.</p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class ReturnOutcome {
+    /** Status of an item whose loan was closed */
+    public static final String RETURNED = "RETURNED";
+
+    /** Status of an item that had no active loan to close */
+    public static final String NOT_ON_LOAN = "NOT_ON_LOAN";
+
+    /** Status of an item whose return was rolled back */
+    public static final String FAILED = "FAILED";
+
+    /** The checked-in media item */
+    private final int mediaId;
+
+    /** The active loan's borrow record; 0 if none was found */
+    private final int recordId;
+
+    /** The borrowing user; 0 if no loan was found */
+    private final int userId;
+
+    /** The media type of the loan; {@code null} if no loan was found */
+    private final String mediaType;
+
+    /** The item title; {@code null} if no loan was found */
+    private final String title;
+
+    /** The loan's due date; {@code null} if no loan was found */
+    private final LocalDate dueDate;
+
+    /** The fine charged for the return */
+    private double fine;
+
+    /** One of {@link #RETURNED}, {@link #NOT_ON_LOAN} or {@link #FAILED} */
+    private String status;
+
+    /** The hold the item was handed to; {@code null} if it was released */
+    private Hold heldFor;
+
+    /**
+     * Constructs the outcome of an item without an active loan.
+     *
+     * @param mediaId the checked-in media item
+     */
+    public ReturnOutcome(int mediaId) {
+        this(0, 0, mediaId, null, null, null);
+    }
+
+    /**
+     * Constructs the outcome of an item with an active loan still to be closed.
+     *
+     * @param recordId  the active loan's borrow record
+     * @param userId    the borrowing user
+     * @param mediaId   the checked-in media item
+     * @param mediaType the media type of the loan
+     * @param title     the item title
+     * @param dueDate   the loan's due date
+     */
+    public ReturnOutcome(int recordId, int userId, int mediaId, String mediaType, String title, LocalDate dueDate) {
+        this.recordId = recordId;
+        this.userId = userId;
+        this.mediaId = mediaId;
+        this.mediaType = mediaType;
+        this.title = title;
+        this.dueDate = dueDate;
+        this.status = NOT_ON_LOAN;
+    }
+
+    /**
+     * Gets the checked-in media item ID.
+     *
+     * @return the media ID
+     */
+    public int getMediaId() {
+        return mediaId;
+    }
+
+    /**
+     * Gets the ID of the active loan's borrow record.
+     *
+     * @return the record ID; 0 if no loan was found
+     */
+    public int getRecordId() {
+        return recordId;
+    }
+
+    /**
+     * Gets the ID of the borrowing user.
+     *
+     * @return the user ID; 0 if no loan was found
+     */
+    public int getUserId() {
+        return userId;
+    }
+
+    /**
+     * Gets the media type of the loan.
+     *
+     * @return the media type; {@code null} if no loan was found
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Gets the item title.
+     *
+     * @return the title; {@code null} if no loan was found
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Gets the loan's due date.
+     *
+     * @return the due date; {@code null} if no loan was found
+     */
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    /**
+     * Gets the fine charged for the return.
+     *
+     * @return the fine; 0 if none
+     */
+    public double getFine() {
+        return fine;
+    }
+
+    /**
+     * Sets the fine to charge for the return.
+     *
+     * @param fine the fine
+     */
+    public void setFine(double fine) {
+        this.fine = fine;
+    }
+
+    /**
+     * Gets the outcome status.
+     *
+     * @return RETURNED, NOT_ON_LOAN or FAILED
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the outcome status.
+     *
+     * @param status RETURNED, NOT_ON_LOAN or FAILED
+     */
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    /**
+     * Gets the hold the item was handed to.
+     *
+     * @return the hold; {@code null} if the item was released
+     */
+    public Hold getHeldFor() {
+        return heldFor;
+    }
+
+    /**
+     * Sets the hold the item was handed to.
+     *
+     * @param heldFor the hold; {@code null} if the item was released
+     */
+    public void setHeldFor(Hold heldFor) {
+        this.heldFor = heldFor;
+    }
+
+    /**
+     * Checks whether the item's loan was closed.
+     *
+     * @return {@code true} if the status is {@link #RETURNED}; {@code false} otherwise
+     */
+    public boolean isReturned() {
+        return RETURNED.equals(status);
+    }
+}
@@ -0,0 +1,101 @@
+package model;
+
+/**
+ * Represents a logged-in session identified by an opaque token.
+ *
+ * <p>A session belongs to either a patron or an admin. For patrons it caches
+ * the loaded {@link Borrower} (borrowed media and fine balance) so requests
+ * made with the token do not reload that state from the database.</p>
+ *
+ * <p>The expiry time slides forward every time the session is used.</p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class Session {
+    /** The opaque token handed to the client */
+    private final String token;
+
+    /** The logged-in user; a {@link Borrower} for patron sessions */
+    private final User user;
+
+    /** Epoch milliseconds after which the session is no longer valid */
+    private volatile long expiresAt;
+
+    /**
+     * Constructs a Session object.
+     *
+     * @param token     the opaque session token
+     * @param user      the logged-in user
+     * @param expiresAt the initial expiry time in epoch milliseconds
+     */
+    public Session(String token, User user, long expiresAt) {
+        this.token = token;
+        this.user = user;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Gets the session token.
+     *
+     * @return the token
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Gets the logged-in user.
+     *
+     * @return the user
+     */
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Gets the cached borrower state of a patron session.
+     *
+     * @return the borrower, or {@code null} for admin sessions
+     */
+    public Borrower getBorrower() {
+        return user instanceof Borrower ? (Borrower) user : null;
+    }
+
+    /**
+     * Checks whether this is an admin session.
+     *
+     * @return {@code true} if the session belongs to an {@link Admin}
+     */
+    public boolean isAdmin() {
+        return user instanceof Admin;
+    }
+
+    /**
+     * Gets the expiry time.
+     *
+     * @return the expiry time in epoch milliseconds
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Moves the expiry time.
+     *
+     * @param expiresAt the new expiry time in epoch milliseconds
+     */
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Checks whether the session has expired.
+     *
+     * @param now the current time in epoch milliseconds
+     * @return {@code true} if the session is past its expiry time
+     */
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+}
@@ -20,6 +20,9 @@ public class User {
     /** The salt used for password hashing */
     private String salt;
 
+    /** The email address notifications are sent to; {@code null} if none is stored */
+    private String email;
+
     /** The login status */
     private boolean loggedIn;
 
@@ -111,6 +114,24 @@ public class User {
         this.salt = salt;
     }
 
+    /**
+     * Gets the stored email address.
+     *
+     * @return the email address; {@code null} if none is stored
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Sets the stored email address.
+     *
+     * @param email the new email address
+     */
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
     /**
      * Checks if the user is logged in.
      *
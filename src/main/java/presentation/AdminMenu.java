@@ -5,8 +5,17 @@ import service.AdminService;
 import service.BookService;
 import service.BorrowingService;
 import service.CDService;
-
+import service.FineAccrualJob;
+import service.FineCompactionJob;
+import service.LoginThrottle;
+import service.ReminderScheduler;
+import service.SessionStore;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides a console-based admin interface for managing the library system.
@@ -38,8 +47,13 @@ public class AdminMenu {
      * Constructs a new {@code AdminMenu} and initializes required services.
      */
     public AdminMenu() {
-        this.adminService = new AdminService();
         this.borrowingService = new BorrowingService();
+        this.adminService = new AdminService(new SessionStore(), new LoginThrottle(), Clock.systemDefaultZone(),
+                borrowingService.getReservationService());
+        this.adminService.getOutboxDispatcher().start(5, TimeUnit.SECONDS);
+        this.adminService.getReminderScheduler().start(ReminderScheduler.DEFAULT_RUN_TIME);
+        this.adminService.getFineAccrualJob().start(FineAccrualJob.DEFAULT_RUN_TIME);
+        this.adminService.getFineCompactionJob().start(FineCompactionJob.DEFAULT_PERIOD_HOURS, TimeUnit.HOURS);
     }
 
     /**
@@ -151,7 +165,8 @@ public class AdminMenu {
             System.out.println("3. Add New Book");
             System.out.println("4. Add New CD");
             System.out.println("5. View All Users with Overdue Books");
-            System.out.println("6. Logout");
+            System.out.println("6. Check In Drop-Box Returns");
+            System.out.println("7. Logout");
             System.out.print("Select an option: ");
 
             String input = scanner.nextLine().trim();
@@ -181,6 +196,9 @@ public class AdminMenu {
                     viewUsersWithOverdueBooks();
                     break;
                 case 6:
+                    checkInReturns();
+                    break;
+                case 7:
                     currentAdmin.logout();
                     currentAdmin = null;
                     running = false;
@@ -192,12 +210,34 @@ public class AdminMenu {
     }
 
     /**
-     * Sends overdue book reminders to users.
+     * Queues one notification digest per user; they are delivered in the background.
      */
     private void sendOverdueReminders() {
-        System.out.println("\nSending overdue reminders...");
-        adminService.sendOverdueReminders(borrowingService);
-        System.out.println("Reminders sent successfully!");
+        System.out.println("\nQueuing notification digests...");
+        int queued = adminService.sendNotificationDigests();
+        System.out.println(queued + " digest(s) queued. Emails waiting in the outbox: "
+                + adminService.getOutboxDispatcher().getQueueDepth());
+    }
+
+    /**
+     * Checks in a pile of returned items by media ID on behalf of their borrowers.
+     */
+    private void checkInReturns() {
+        System.out.print("\nEnter the media IDs of the returned items, separated by spaces: ");
+        List<Integer> mediaIds = new ArrayList<>();
+        for (String entry : scanner.nextLine().trim().split("[\\s,]+")) {
+            if (entry.isEmpty()) continue;
+            try {
+                mediaIds.add(Integer.parseInt(entry));
+            } catch (NumberFormatException e) {
+                System.out.println("Skipping '" + entry + "': not a media ID.");
+            }
+        }
+        if (mediaIds.isEmpty()) {
+            System.out.println("No items to check in.");
+            return;
+        }
+        borrowingService.returnBatch(mediaIds);
     }
 
     /**
@@ -325,6 +365,12 @@ public class AdminMenu {
             }
             System.out.println("-----------------------------------");
         }
+
+        var accrued = borrowingService.getAccruedFineTotals();
+        if (!accrued.isEmpty()) {
+            System.out.println("Fines accrued on unreturned items:");
+            accrued.forEach((type, total) -> System.out.printf("  %s: %.2f%n", type, total));
+        }
     }
 
     /**
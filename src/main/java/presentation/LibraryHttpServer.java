@@ -0,0 +1,620 @@
+package presentation;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dao.MediaDAO;
+import model.Admin;
+import model.Book;
+import model.Borrower;
+import model.BorrowerDelta;
+import model.CD;
+import model.Media;
+import model.MediaRecord;
+import model.Session;
+import model.User;
+import model.UserWithOverdueBooks;
+import service.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * HTTP/JSON front end for the library system, so that many patrons and admins
+ * can use one running instance at the same time.
+ *
+ * <p>Built on the JDK {@link HttpServer}. Each request runs on its own virtual
+ * thread when the runtime supports them (Java 21+); on older runtimes a bounded
+ * worker pool is used instead. Logging in returns a session token from the
+ * shared {@link SessionStore} that must be sent as
+ * {@code Authorization: Bearer <token>} on every other call; each call then
+ * validates the token with one hash lookup and reuses the borrower state
+ * cached in the session.</p>
+ *
+ * <p>Endpoints (request and response bodies are JSON):</p>
+ * <ul>
+ *     <li>{@code POST /api/register}, {@code POST /api/login}, {@code POST /api/logout}</li>
+ *     <li>{@code GET /api/books}, {@code GET /api/cds},
+ *         {@code GET /api/books/search?q=..&by=title|author|isbn|any},
+ *         {@code GET /api/cds/search?q=..&by=title|artist|genre}</li>
+ *     <li>{@code POST /api/borrow}, {@code POST /api/return}, {@code GET /api/loans}</li>
+ *     <li>{@code GET /api/fines}, {@code POST /api/fines/pay}</li>
+ *     <li>{@code POST /api/admin/login}, {@code POST /api/admin/books}, {@code POST /api/admin/cds},
+ *         {@code POST /api/admin/users/delete}, {@code GET /api/admin/overdue},
+ *         {@code POST /api/admin/reminders}, {@code GET /api/admin/outbox},
+ *         {@code POST /api/admin/outbox/pause}, {@code POST /api/admin/outbox/resume}</li>
+ * </ul>
+ *
+ * <p>A search that finds nothing also returns the closest items for a
+ * misspelled term under {@code "didYouMean"}.</p>
+ *
+ * <p>Logins pass through a shared {@link LoginThrottle}; an attempt over
+ * the limit is answered with {@code 429} and a {@code Retry-After} header.</p>
+ *
+ * <p>Usage: run {@link #main(String[])} with an optional port (default 8080).</p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class LibraryHttpServer {
+
+    /** Default listening port. */
+    public static final int DEFAULT_PORT = 8080;
+
+    /** Worker threads used when virtual threads are not available. */
+    private static final int MAX_WORKERS = 64;
+
+    /** Pending connections the listening socket accepts before refusing new ones. */
+    private static final int BACKLOG = 4096;
+
+    private final UserService userService;
+    private final AdminService adminService;
+    private final BookService bookService;
+    private final CDService cdService;
+    private final BorrowingService borrowingService;
+    private final BorrowerService borrowerService;
+
+    /** Indexes items added outside this server, e.g. from the admin console. */
+    private final CatalogIndexRefresher catalogRefresher;
+
+    /** Shared by the per-request {@link MediaRepository} instances; constructing a DAO is not free. */
+    private final MediaDAO mediaDAO;
+
+    /** Sessions shared by the patron and admin logins. */
+    private final SessionStore sessionStore;
+
+    /** Registered endpoints keyed by "METHOD /path". */
+    private final Map<String, Endpoint> routes = new HashMap<>();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a server bound to the given port and initializes all services.
+     * The server does not accept requests until {@link #start()} is called.
+     *
+     * @param port the TCP port; 0 picks a free port
+     * @throws IOException if the port cannot be bound
+     */
+    public LibraryHttpServer(int port) throws IOException {
+        this(port, new LoginThrottle());
+    }
+
+    /**
+     * Creates a server whose patron and admin logins share the given throttle.
+     *
+     * @param port          the TCP port; 0 picks a free port
+     * @param loginThrottle admission control for login attempts
+     * @throws IOException if the port cannot be bound
+     */
+    public LibraryHttpServer(int port, LoginThrottle loginThrottle) throws IOException {
+        this.sessionStore = new SessionStore();
+        this.userService = new UserService(sessionStore, loginThrottle);
+        this.borrowingService = new BorrowingService();
+        this.adminService = new AdminService(sessionStore, loginThrottle, Clock.systemDefaultZone(),
+                borrowingService.getReservationService());
+        // Items added through these services are indexed as they are added; the refresher picks up any others
+        TrigramIndex catalogIndex = new TrigramIndex();
+        this.bookService = new BookService(catalogIndex);
+        this.cdService = new CDService(catalogIndex);
+        this.catalogRefresher = new CatalogIndexRefresher(catalogIndex);
+        catalogRefresher.runOnce();
+        this.borrowerService = new BorrowerService();
+        this.mediaDAO = new MediaDAO();
+
+        registerRoutes();
+        this.executor = newRequestExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.server.createContext("/api/", this::dispatch);
+        this.server.setExecutor(executor);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+        System.out.println("Library HTTP API listening on port " + getPort());
+    }
+
+    /**
+     * Stops the server, waiting up to the given number of seconds for
+     * in-flight requests to finish.
+     *
+     * @param delaySeconds the maximum time to wait
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        borrowingService.getReservationService().stopSweeper();
+        adminService.getOutboxDispatcher().stop();
+        adminService.getReminderScheduler().stop();
+        adminService.getFineAccrualJob().stop();
+        adminService.getFineCompactionJob().stop();
+        catalogRefresher.stop();
+    }
+
+    /**
+     * Returns the port the server is bound to.
+     *
+     * @return the local port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the number of logged-in sessions.
+     *
+     * @return the session count
+     */
+    public int getSessionCount() {
+        return sessionStore.size();
+    }
+
+    /**
+     * Creates the executor requests are dispatched to: a virtual thread per
+     * request when the runtime provides them, otherwise a bounded pool of
+     * daemon platform threads.
+     *
+     * @return the request executor
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_WORKERS, MAX_WORKERS,
+                    60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                        Thread thread = new Thread(r, "http-worker-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+
+    private void registerRoutes() {
+        routes.put("POST /api/register", this::register);
+        routes.put("POST /api/login", this::login);
+        routes.put("POST /api/logout", this::logout);
+        routes.put("GET /api/books", (ex, body) -> mediaList(bookService.getAllBooks()));
+        routes.put("GET /api/cds", (ex, body) -> mediaList(cdService.getAllCDs()));
+        routes.put("GET /api/books/search", (ex, body) -> searchResults(
+                bookService.searchBooks(query(ex, "q"), queryOr(ex, "by", "title")),
+                () -> bookService.suggestBooks(query(ex, "q"), queryOr(ex, "by", "title"))));
+        routes.put("GET /api/cds/search", (ex, body) -> searchResults(
+                cdService.searchCDs(query(ex, "q"), queryOr(ex, "by", "title")),
+                () -> cdService.suggestCDs(query(ex, "q"), queryOr(ex, "by", "title"))));
+        routes.put("POST /api/borrow", this::borrow);
+        routes.put("POST /api/return", this::giveBack);
+        routes.put("GET /api/loans", (ex, body) -> loans(borrowerSession(ex)));
+        routes.put("GET /api/fines", this::fines);
+        routes.put("POST /api/fines/pay", this::payFine);
+        routes.put("POST /api/admin/login", this::adminLogin);
+        routes.put("POST /api/admin/books", this::addBook);
+        routes.put("POST /api/admin/cds", this::addCD);
+        routes.put("POST /api/admin/users/delete", this::deleteUser);
+        routes.put("GET /api/admin/overdue", this::overdueUsers);
+        routes.put("POST /api/admin/reminders", this::sendReminders);
+        routes.put("GET /api/admin/outbox", this::outboxStatus);
+        routes.put("POST /api/admin/outbox/pause", (ex, body) -> {
+            adminSession(ex);
+            adminService.getOutboxDispatcher().pause();
+            return outboxStatus(ex, body);
+        });
+        routes.put("POST /api/admin/outbox/resume", (ex, body) -> {
+            adminSession(ex);
+            adminService.getOutboxDispatcher().resume();
+            return outboxStatus(ex, body);
+        });
+    }
+
+    /**
+     * Routes an exchange to its endpoint and writes the JSON reply.
+     *
+     * @param exchange the HTTP exchange
+     * @throws IOException if the reply cannot be written
+     */
+    private void dispatch(HttpExchange exchange) throws IOException {
+        Reply reply;
+        try {
+            Endpoint endpoint = routes.get(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+            if (endpoint == null) {
+                reply = new Reply(404, Json.fields("error", "Not found"));
+            } else {
+                reply = endpoint.handle(exchange, Json.parseObject(readBody(exchange)));
+            }
+        } catch (ApiException e) {
+            Map<String, Object> error = Json.fields("error", e.getMessage());
+            if (e.retryAfterSeconds > 0) {
+                exchange.getResponseHeaders().set("Retry-After", Long.toString(e.retryAfterSeconds));
+                error.put("retryAfter", e.retryAfterSeconds);
+            }
+            reply = new Reply(e.status, error);
+        } catch (IllegalArgumentException e) {
+            reply = new Reply(400, Json.fields("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            System.err.println("Unexpected error handling " + exchange.getRequestURI() + ": " + e);
+            reply = new Reply(500, Json.fields("error", "Internal server error"));
+        }
+
+        byte[] bytes = Json.write(reply.body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(reply.status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // ---- patron endpoints ----
+
+    private Reply register(HttpExchange exchange, Map<String, String> body) {
+        User user = userService.register(body.get("username"), body.get("password"), body.get("email"));
+        if (user == null) throw new ApiException(409, "Registration failed");
+        return new Reply(201, Json.fields("id", user.getId(), "username", user.getUsername()));
+    }
+
+    private Reply login(HttpExchange exchange, Map<String, String> body) {
+        String username = required(body, "username");
+        admit(userService.loginRetryAfter(username));
+        Session session = userService.openSession(username, required(body, "password"));
+        if (session == null) throw new ApiException(401, "Invalid username or password");
+
+        Borrower borrower = session.getBorrower();
+        borrowerService.loadBorrowerData(borrower);
+        return new Reply(200, Json.fields("token", session.getToken(), "fineBalance", borrower.getFineBalance()));
+    }
+
+    private Reply logout(HttpExchange exchange, Map<String, String> body) {
+        if (!sessionStore.invalidate(token(exchange))) throw new ApiException(401, "Not logged in");
+        return new Reply(200, Json.fields("loggedOut", true));
+    }
+
+    private Reply borrow(HttpExchange exchange, Map<String, String> body) {
+        Borrower borrower = borrowerSession(exchange);
+        Media media = findMedia(intField(body, "mediaId"));
+        synchronized (borrower) {
+            // The fine and overdue checks read the cached borrower, so pick up charges made elsewhere
+            borrowerService.refreshIfStale(borrower);
+            BorrowerDelta delta = borrowingService.borrow(borrower, media);
+            if (delta == null) {
+                throw new ApiException(409, "Cannot borrow '" + media.getTitle() + "'");
+            }
+            borrowerService.applyChanges(borrower, delta);
+            return loans(borrower);
+        }
+    }
+
+    private Reply giveBack(HttpExchange exchange, Map<String, String> body) {
+        Borrower borrower = borrowerSession(exchange);
+        int mediaId = intField(body, "mediaId");
+        synchronized (borrower) {
+            MediaRecord record = borrower.findLoan(mediaId);
+            if (record == null) {
+                throw new ApiException(404, "You have not borrowed media " + mediaId);
+            }
+            BorrowerDelta delta = borrowingService.returnItem(borrower, record.getMedia());
+            if (delta == null) {
+                // The loan may have been returned through another session or the drop box
+                borrowerService.refreshIfStale(borrower);
+                throw new ApiException(409, "Return failed");
+            }
+            borrowerService.applyChanges(borrower, delta);
+            return new Reply(200, Json.fields("returned", mediaId, "fineBalance", borrower.getFineBalance()));
+        }
+    }
+
+    private Reply loans(Borrower borrower) {
+        List<Object> items = new ArrayList<>();
+        for (MediaRecord record : borrower.getBorrowedMedia()) {
+            Map<String, Object> item = media(record.getMedia());
+            item.put("dueDate", record.getDueDate().toString());
+            item.put("overdue", record.isOverdue());
+            items.add(item);
+        }
+        return new Reply(200, Json.fields("loans", items));
+    }
+
+    private Reply fines(HttpExchange exchange, Map<String, String> body) {
+        Borrower borrower = borrowerSession(exchange);
+        synchronized (borrower) {
+            borrowerService.refreshIfStale(borrower);
+            return new Reply(200, Json.fields("fineBalance", borrower.getFineBalance()));
+        }
+    }
+
+    private Reply payFine(HttpExchange exchange, Map<String, String> body) {
+        Borrower borrower = borrowerSession(exchange);
+        double amount = doubleField(body, "amount");
+        synchronized (borrower) {
+            // The amount is checked against the cached balance, so pick up fines charged elsewhere
+            borrowerService.refreshIfStale(borrower);
+            BorrowerDelta delta = borrowerService.pay(borrower, amount);
+            if (delta == null) {
+                throw new ApiException(409, "Invalid payment amount");
+            }
+            borrowerService.applyChanges(borrower, delta);
+            return new Reply(200, Json.fields("fineBalance", borrower.getFineBalance()));
+        }
+    }
+
+    // ---- admin endpoints ----
+
+    private Reply adminLogin(HttpExchange exchange, Map<String, String> body) {
+        String username = required(body, "username");
+        admit(adminService.loginRetryAfter(username));
+        Session session = adminService.openSession(username, required(body, "password"));
+        if (session == null) throw new ApiException(401, "Invalid credentials");
+        return new Reply(200, Json.fields("token", session.getToken()));
+    }
+
+    private Reply addBook(HttpExchange exchange, Map<String, String> body) {
+        adminSession(exchange);
+        Book book = bookService.addBook(body.get("title"), body.get("author"), body.get("isbn"));
+        if (book == null) throw new ApiException(409, "Book could not be added");
+        return new Reply(201, media(book));
+    }
+
+    private Reply addCD(HttpExchange exchange, Map<String, String> body) {
+        adminSession(exchange);
+        CD cd = cdService.addCD(body.get("title"), body.get("artist"), body.get("genre"),
+                intField(body, "duration"));
+        if (cd == null) throw new ApiException(409, "CD could not be added");
+        return new Reply(201, media(cd));
+    }
+
+    private Reply deleteUser(HttpExchange exchange, Map<String, String> body) {
+        adminSession(exchange);
+        if (!adminService.unregisterUser(required(body, "username"))) {
+            throw new ApiException(404, "User could not be deleted");
+        }
+        return new Reply(200, Json.fields("deleted", body.get("username")));
+    }
+
+    private Reply overdueUsers(HttpExchange exchange, Map<String, String> body) {
+        adminSession(exchange);
+        List<Object> users = new ArrayList<>();
+        for (UserWithOverdueBooks user : borrowingService.getUsersWithOverdueBooks()) {
+            users.add(Json.fields("userId", user.getUserId(), "username", user.getUsername(),
+                    "overdueCount", user.getOverdueCount()));
+        }
+        return new Reply(200, Json.fields("users", users));
+    }
+
+    private Reply sendReminders(HttpExchange exchange, Map<String, String> body) {
+        adminSession(exchange);
+        int queued = adminService.sendNotificationDigests();
+        return new Reply(202, Json.fields("queued", queued,
+                "outboxDepth", adminService.getOutboxDispatcher().getQueueDepth()));
+    }
+
+    private Reply outboxStatus(HttpExchange exchange, Map<String, String> body) {
+        adminSession(exchange);
+        OutboxDispatcher dispatcher = adminService.getOutboxDispatcher();
+        return new Reply(200, Json.fields("depth", dispatcher.getQueueDepth(),
+                "oldestAgeSeconds", dispatcher.getOldestMessageAge().toSeconds(),
+                "inFlight", dispatcher.getInFlightCount(),
+                "delivered", dispatcher.getDeliveredCount(),
+                "failed", dispatcher.getFailedCount(),
+                "dead", dispatcher.getDeadLetterCount(),
+                "paused", dispatcher.isPaused()));
+    }
+
+    // ---- helpers ----
+
+    private Borrower borrowerSession(HttpExchange exchange) {
+        Session session = sessionStore.validate(token(exchange));
+        if (session == null || session.getBorrower() == null) throw new ApiException(401, "Not logged in");
+        return session.getBorrower();
+    }
+
+    private Admin adminSession(HttpExchange exchange) {
+        Session session = sessionStore.validate(token(exchange));
+        if (session == null || !session.isAdmin()) throw new ApiException(403, "Admin login required");
+        return (Admin) session.getUser();
+    }
+
+    private static String token(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) return null;
+        return header.substring("Bearer ".length()).trim();
+    }
+
+    private Media findMedia(int mediaId) {
+        Media media = new MediaRepository(mediaDAO).findById(mediaId);
+        if (media == null) throw new ApiException(404, "Media not found: " + mediaId);
+        return media;
+    }
+
+    private static Reply mediaList(List<? extends Media> items) {
+        return new Reply(200, Json.fields("items", mediaMaps(items)));
+    }
+
+    /** Lists search results, adding the closest items as "didYouMean" when there are none. */
+    private static Reply searchResults(List<? extends Media> items, Supplier<List<? extends Media>> suggestions) {
+        Map<String, Object> fields = Json.fields("items", mediaMaps(items));
+        if (items.isEmpty()) {
+            List<? extends Media> closest = suggestions.get();
+            if (!closest.isEmpty()) {
+                fields.put("didYouMean", mediaMaps(closest));
+            }
+        }
+        return new Reply(200, fields);
+    }
+
+    private static List<Object> mediaMaps(List<? extends Media> items) {
+        List<Object> list = new ArrayList<>(items.size());
+        for (Media item : items) {
+            list.add(media(item));
+        }
+        return list;
+    }
+
+    private static Map<String, Object> media(Media media) {
+        Map<String, Object> map = Json.fields("id", media.getId(), "title", media.getTitle(),
+                "type", media.getMediaType(), "available", media.isAvailable());
+        if (media instanceof Book) {
+            map.put("author", ((Book) media).getAuthor());
+            map.put("isbn", ((Book) media).getIsbn());
+        } else if (media instanceof CD) {
+            map.put("artist", ((CD) media).getArtist());
+            map.put("genre", ((CD) media).getGenre());
+            map.put("duration", ((CD) media).getDuration());
+        }
+        return map;
+    }
+
+    /**
+     * Turns a login away with 429 and a {@code Retry-After} header while the
+     * throttle would reject it, before the service does any work.
+     */
+    private static void admit(Duration wait) {
+        if (!wait.isZero()) {
+            long seconds = (wait.toMillis() + 999) / 1000;
+            throw new ApiException(429, "Too many login attempts", seconds);
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String query(HttpExchange exchange, String name) {
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) return null;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            if (key.equals(name)) {
+                return eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static String queryOr(HttpExchange exchange, String name, String fallback) {
+        String value = query(exchange, name);
+        return value == null || value.isEmpty() ? fallback : value;
+    }
+
+    private static String required(Map<String, String> body, String field) {
+        String value = body.get(field);
+        if (value == null) throw new IllegalArgumentException("Missing field: " + field);
+        return value;
+    }
+
+    private static int intField(Map<String, String> body, String field) {
+        try {
+            return Integer.parseInt(required(body, field));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Field '" + field + "' must be an integer");
+        }
+    }
+
+    private static double doubleField(Map<String, String> body, String field) {
+        try {
+            return Double.parseDouble(required(body, field));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Field '" + field + "' must be a number");
+        }
+    }
+
+    /**
+     * Handles one route.
+     */
+    @FunctionalInterface
+    private interface Endpoint {
+        Reply handle(HttpExchange exchange, Map<String, String> body) throws IOException;
+    }
+
+    /**
+     * HTTP status plus JSON body.
+     */
+    private static final class Reply {
+        final int status;
+        final Object body;
+
+        Reply(int status, Object body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Error that maps directly to an HTTP status.
+     */
+    private static final class ApiException extends RuntimeException {
+        final int status;
+        final long retryAfterSeconds;
+
+        ApiException(int status, String message) {
+            this(status, message, 0);
+        }
+
+        ApiException(int status, String message, long retryAfterSeconds) {
+            super(message);
+            this.status = status;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+
+    /**
+     * Starts the HTTP API.
+     *
+     * @param args optional port number
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        LibraryHttpServer httpServer = new LibraryHttpServer(port);
+        httpServer.borrowingService.getReservationService().startSweeper(1, TimeUnit.HOURS);
+        httpServer.adminService.getOutboxDispatcher().start(5, TimeUnit.SECONDS);
+        httpServer.adminService.getReminderScheduler().start(ReminderScheduler.DEFAULT_RUN_TIME);
+        httpServer.adminService.getFineAccrualJob().start(FineAccrualJob.DEFAULT_RUN_TIME);
+        httpServer.adminService.getFineCompactionJob().start(FineCompactionJob.DEFAULT_PERIOD_HOURS, TimeUnit.HOURS);
+        httpServer.catalogRefresher.start(CatalogIndexRefresher.DEFAULT_PERIOD_SECONDS, TimeUnit.SECONDS);
+        httpServer.start();
+    }
+}
@@ -1,13 +1,21 @@
 package presentation;
 
+import dao.MediaDAO;
 import model.Book;
 import model.Borrower;
+import model.BorrowerDelta;
 import model.CD;
+import model.CheckoutResult;
+import model.Hold;
 import model.Media;
 import service.*;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides a console-based user interface for interacting with the library system.
@@ -28,6 +36,7 @@ public class UserMenu {
     private final CDService cdService;
     private final BorrowingService borrowingService;
     private final BorrowerService borrowerService;
+    private final MediaDAO mediaDAO;
     private Borrower currentUser;
 
     /**
@@ -39,6 +48,8 @@ public class UserMenu {
         this.cdService = new CDService();
         this.borrowingService = new BorrowingService();
         this.borrowerService = new BorrowerService();
+        this.mediaDAO = new MediaDAO();
+        this.borrowingService.getReservationService().startSweeper(1, TimeUnit.HOURS);
     }
 
     /**
@@ -151,7 +162,9 @@ public class UserMenu {
             System.out.println("8. View Overdue Report");
             System.out.println("9. Pay Fine");
             System.out.println("10. View Fine Balance");
-            System.out.println("11. Logout");
+            System.out.println("11. My Holds");
+            System.out.println("12. Check Out Several Items");
+            System.out.println("13. Logout");
             System.out.print("Select an option: ");
 
             String input = scanner.nextLine().trim();
@@ -195,6 +208,12 @@ public class UserMenu {
                     viewFineBalance();
                     break;
                 case 11:
+                    manageHolds();
+                    break;
+                case 12:
+                    checkoutCart();
+                    break;
+                case 13:
                     currentUser.logout();
                     currentUser = null;
                     running = false;
@@ -240,7 +259,7 @@ public class UserMenu {
     }
 
     /**
-     * Searches books based on title, author, or ISBN.
+     * Searches books based on title, author, ISBN, or all three.
      */
     private void searchBooks() {
         System.out.println("\n=== Search Books ===");
@@ -248,6 +267,7 @@ public class UserMenu {
         System.out.println("1. Title");
         System.out.println("2. Author");
         System.out.println("3. ISBN");
+        System.out.println("4. Any field (best matches first)");
         System.out.print("Select search type: ");
 
         String typeInput = scanner.nextLine().trim();
@@ -263,6 +283,9 @@ public class UserMenu {
             case "3":
                 searchType = "isbn";
                 break;
+            case "4":
+                searchType = "any";
+                break;
             default:
                 System.out.println("Invalid type, using title search.");
         }
@@ -274,6 +297,14 @@ public class UserMenu {
 
         if (results.isEmpty()) {
             System.out.println("No books found matching your search.");
+            List<Book> suggestions = bookService.suggestBooks(searchTerm, searchType);
+            if (!suggestions.isEmpty()) {
+                System.out.println("\n=== Did you mean ===");
+                for (Book book : suggestions) {
+                    System.out.println(book);
+                    System.out.println("---");
+                }
+            }
         } else {
             System.out.println("\n=== Search Results ===");
             for (Book book : results) {
@@ -318,6 +349,14 @@ public class UserMenu {
 
         if (results.isEmpty()) {
             System.out.println("No CDs found matching your search.");
+            List<CD> suggestions = cdService.suggestCDs(searchTerm, searchType);
+            if (!suggestions.isEmpty()) {
+                System.out.println("\n=== Did you mean ===");
+                for (CD cd : suggestions) {
+                    System.out.println(cd);
+                    System.out.println("---");
+                }
+            }
         } else {
             System.out.println("\n=== Search Results ===");
             for (CD cd : results) {
@@ -329,7 +368,8 @@ public class UserMenu {
 
     /**
      * Borrows a selected media item (book or CD) for the current user.
-     * FIXED: Reloads borrower data after successful borrow to keep state synchronized.
+     * The new loan is applied to the current user in memory; the user is only
+     * reloaded if the loan shows that something else changed in between.
      */
     private void borrowMedia() {
         System.out.println("\n=== Borrow Media ===");
@@ -342,34 +382,31 @@ public class UserMenu {
         System.out.print("Enter media ID: ");
         String idInput = scanner.nextLine().trim();
 
+        if (!typeInput.equals("1") && !typeInput.equals("2")) {
+            System.out.println("Invalid media type!");
+            return;
+        }
+
         try {
             int mediaId = Integer.parseInt(idInput);
-            Media media = null;
-
-            if (typeInput.equals("1")) {
-                // Find book by searching all books
-                List<Book> allBooks = bookService.getAllBooks();
-                for (Book book : allBooks) {
-                    if (book.getId() == mediaId) {
-                        media = book;
-                        break;
-                    }
-                }
-            } else if (typeInput.equals("2")) {
-                media = cdService.findById(mediaId);
-            } else {
-                System.out.println("Invalid media type!");
-                return;
-            }
+            Class<? extends Media> type = typeInput.equals("1") ? Book.class : CD.class;
+            Media media = new MediaRepository(mediaDAO).findById(mediaId, type);
 
             if (media == null) {
                 System.out.println("Media not found!");
                 return;
             }
 
-            if (borrowingService.borrowMedia(currentUser, media)) {
-                // CRITICAL FIX: Reload borrower data to synchronize state
-                borrowerService.loadBorrowerData(currentUser);
+            // The fine and overdue checks read the cached user, so pick up charges made elsewhere
+            borrowerService.refreshIfStale(currentUser);
+            BorrowerDelta delta = borrowingService.borrow(currentUser, media);
+            if (delta != null) {
+                borrowerService.applyChanges(currentUser, delta);
+            } else if (!media.isAvailable()) {
+                System.out.print("Place a hold on this item? (y/n): ");
+                if (scanner.nextLine().trim().equalsIgnoreCase("y")) {
+                    borrowingService.getReservationService().placeHold(currentUser, media);
+                }
             }
 
         } catch (NumberFormatException e) {
@@ -377,9 +414,64 @@ public class UserMenu {
         }
     }
 
+    /**
+     * Borrows several books and CDs for the current user in one checkout.
+     * Items are entered as {@code b<ID>} for books and {@code c<ID>} for CDs.
+     */
+    private void checkoutCart() {
+        System.out.println("\n=== Check Out Several Items ===");
+        System.out.print("Enter items as b<ID> for books or c<ID> for CDs, separated by spaces: ");
+        String[] entries = scanner.nextLine().trim().split("[\\s,]+");
+
+        Map<String, Integer> ids = new LinkedHashMap<>();
+        for (String entry : entries) {
+            if (entry.isEmpty()) continue;
+            try {
+                ids.put(entry, Integer.parseInt(entry.substring(1)));
+            } catch (NumberFormatException e) {
+                System.out.println("Skipping '" + entry + "': not an item.");
+            }
+        }
+
+        // Load the whole cart in one query
+        Map<Integer, Media> found = new MediaRepository(mediaDAO).findByIds(ids.values());
+        List<Media> cart = new ArrayList<>();
+        for (Map.Entry<String, Integer> id : ids.entrySet()) {
+            char type = Character.toLowerCase(id.getKey().charAt(0));
+            Media media = found.get(id.getValue());
+            if ((type == 'b' && media instanceof Book) || (type == 'c' && media instanceof CD)) {
+                cart.add(media);
+            } else {
+                System.out.println("Skipping '" + id.getKey() + "': media not found.");
+            }
+        }
+        if (cart.isEmpty()) {
+            System.out.println("Your cart is empty.");
+            return;
+        }
+
+        System.out.print("Borrow only if every item is available? (y/n): ");
+        boolean allOrNothing = scanner.nextLine().trim().equalsIgnoreCase("y");
+
+        borrowerService.refreshIfStale(currentUser);
+        CheckoutResult result = borrowingService.checkout(currentUser, cart, allOrNothing);
+        if (result == null) return;
+        if (!result.getDelta().isEmpty()) {
+            borrowerService.applyChanges(currentUser, result.getDelta());
+        }
+        if (!result.isComplete()) {
+            System.out.print("Place holds on the unavailable items? (y/n): ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("y")) {
+                for (Media media : result.getUnavailable()) {
+                    borrowingService.getReservationService().placeHold(currentUser, media);
+                }
+            }
+        }
+    }
+
     /**
      * Returns a borrowed media item for the current user.
-     * FIXED: Reloads borrower data after successful return to synchronize fine balance.
+     * The return and its fine are applied to the current user in memory.
      */
     private void returnMedia() {
         System.out.println("\n=== Return Media ===");
@@ -402,15 +494,60 @@ public class UserMenu {
             int index = Integer.parseInt(input) - 1;
             if (index >= 0 && index < borrowed.size()) {
                 Media media = borrowed.get(index).getMedia();
-                if (borrowingService.returnMedia(currentUser, media)) {
-                    // CRITICAL FIX: Reload borrower data to get updated fine balance from database
-                    borrowerService.loadBorrowerData(currentUser);
+                BorrowerDelta delta = borrowingService.returnItem(currentUser, media);
+                if (delta != null) {
+                    borrowerService.applyChanges(currentUser, delta);
 
                     // Show updated fine balance
                     if (currentUser.getFineBalance() > 0) {
                         System.out.printf("\nYour current fine balance is: %.2f\n",
                                 currentUser.getFineBalance());
                     }
+                } else {
+                    // The loan may have been returned in another session
+                    borrowerService.refreshIfStale(currentUser);
+                }
+            } else {
+                System.out.println("Invalid selection!");
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid input!");
+        }
+    }
+
+    /**
+     * Lists the current user's holds with their queue positions and lets the
+     * user cancel a waiting hold.
+     */
+    private void manageHolds() {
+        System.out.println("\n=== My Holds ===");
+        ReservationService reservations = borrowingService.getReservationService();
+        List<Hold> holds = reservations.getActiveHolds(currentUser.getId());
+        if (holds.isEmpty()) {
+            System.out.println("You have no active holds.");
+            return;
+        }
+
+        for (int i = 0; i < holds.size(); i++) {
+            Hold hold = holds.get(i);
+            if (Hold.READY.equals(hold.getStatus())) {
+                System.out.println((i + 1) + ". Media ID " + hold.getMediaId()
+                        + " - ready for pickup until " + hold.getReadyUntil());
+            } else {
+                System.out.println((i + 1) + ". Media ID " + hold.getMediaId() + " - queue position "
+                        + reservations.getQueuePosition(currentUser.getId(), hold.getMediaId()));
+            }
+        }
+
+        System.out.print("Select a hold to cancel (or press Enter to go back): ");
+        String input = scanner.nextLine().trim();
+        if (input.isEmpty()) return;
+
+        try {
+            int index = Integer.parseInt(input) - 1;
+            if (index >= 0 && index < holds.size()) {
+                if (reservations.cancelHold(currentUser, holds.get(index))) {
+                    System.out.println("Hold cancelled.");
                 }
             } else {
                 System.out.println("Invalid selection!");
@@ -436,13 +573,13 @@ public class UserMenu {
 
     /**
      * Handles paying fines for overdue media.
-     * FIXED: Refreshes fine balance from database before and after payment.
+     * The balance is reloaded first only if it changed in another session.
      */
     private void payFine() {
         System.out.println("\n=== Pay Fine ===");
 
-        // CRITICAL FIX: Refresh fine balance from database before displaying
-        borrowerService.loadBorrowerData(currentUser);
+        // Pick up fines charged or paid in another session
+        borrowerService.refreshIfStale(currentUser);
 
         System.out.printf("Current fine balance: %.2f\n", currentUser.getFineBalance());
 
@@ -456,8 +593,9 @@ public class UserMenu {
 
         try {
             double amount = Double.parseDouble(input);
-            if (borrowerService.payFine(currentUser, amount)) {
-                // Fine balance is already updated in payFine method
+            BorrowerDelta delta = borrowerService.pay(currentUser, amount);
+            if (delta != null) {
+                borrowerService.applyChanges(currentUser, delta);
                 System.out.println("Payment successful!");
             }
         } catch (NumberFormatException e) {
@@ -466,14 +604,14 @@ public class UserMenu {
     }
 
     /**
-     * Displays the current fine balance for the user.
-     * FIXED: Refreshes fine balance from database before displaying.
+     * Displays the current fine balance for the user, reloading it first
+     * only if it changed in another session.
      */
     private void viewFineBalance() {
         System.out.println("\n=== Fine Balance ===");
 
-        // CRITICAL FIX: Refresh fine balance from database to ensure accuracy
-        borrowerService.loadBorrowerData(currentUser);
+        // Pick up fines charged or paid in another session
+        borrowerService.refreshIfStale(currentUser);
 
         System.out.printf("Your current fine balance: %.2f\n", currentUser.getFineBalance());
 
@@ -1,12 +1,20 @@
 package service;
 
 import dao.AdminDAO;
+import dao.BorrowRecordDAO;
+import dao.FineDAO;
+import dao.HoldDAO;
+import dao.OutboxDAO;
 import dao.UserDAO;
 import model.Admin;
-import model.UserWithOverdueBooks;
+import model.Session;
+import model.User;
 import dao.PasswordUtil;
 
-import java.util.List;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Service class responsible for admin-related operations such as registration,
@@ -21,7 +29,7 @@ import java.util.List;
  *     <li>Registering new admins</li>
  *     <li>Logging in existing admins</li>
  *     <li>Deleting user accounts</li>
- *     <li>Sending overdue reminders via email</li>
+ *     <li>Sending notification digests via email</li>
  * </ul>
  *
  * @author Library
@@ -40,6 +48,40 @@ public class AdminService {
 
     /** Email notifier utility wrapping the email server. */
     private EmailNotifier emailNotifier;
+
+    /** DAO for the notification outbox. */
+    private final OutboxDAO outboxDAO;
+
+    /** Background sender draining the outbox through the email server. */
+    private final OutboxDispatcher outboxDispatcher;
+
+    /** Builds per-user notification digests and queues them in the outbox. */
+    private final NotificationDigestService digestService;
+
+    /** Daily job that sends incremental overdue reminders through the outbox. */
+    private final ReminderScheduler reminderScheduler;
+
+    /** Nightly job that accrues fines on unreturned overdue loans. */
+    private final FineAccrualJob fineAccrualJob;
+
+    /** Job that rolls fine balance snapshots forward over the ledger. */
+    private final FineCompactionJob fineCompactionJob;
+
+    /** Clock giving the date notifications are built for. */
+    private final Clock clock;
+
+    /** Service whose hold queues are released when a user is deleted. */
+    private final ReservationService reservationService;
+
+    /** Store that issues and validates session tokens. */
+    private final SessionStore sessionStore;
+
+    /** Bounded pool that runs password hashing. */
+    private final PasswordHasher passwordHasher = PasswordHasher.shared();
+
+    /** Admission control that turns away login bursts before any lookup or hashing. */
+    private final LoginThrottle loginThrottle;
+
     /**
      * Constructs an AdminService instance, initializes required DAOs,
      * and attempts to initialize the email server.
@@ -47,9 +89,62 @@ public class AdminService {
      * and email notifications will be disabled.</p>
      */
     public AdminService() {
+        this(new SessionStore());
+    }
+
+    /**
+     * Constructs an AdminService instance that issues sessions from the given store.
+     *
+     * @param sessionStore the session store shared with other services
+     */
+    public AdminService(SessionStore sessionStore) {
+        this(sessionStore, new LoginThrottle());
+    }
+
+    /**
+     * Constructs an AdminService instance that issues sessions from the given
+     * store and admits login attempts through the given throttle.
+     *
+     * @param sessionStore  the session store shared with other services
+     * @param loginThrottle the login admission control shared with other services
+     */
+    public AdminService(SessionStore sessionStore, LoginThrottle loginThrottle) {
+        this(sessionStore, loginThrottle, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs an AdminService instance whose notifications and background
+     * jobs take the current date and time from the given clock.
+     *
+     * @param sessionStore  the session store shared with other services
+     * @param loginThrottle the login admission control shared with other services
+     * @param clock         the clock giving the current date and time
+     */
+    public AdminService(SessionStore sessionStore, LoginThrottle loginThrottle, Clock clock) {
+        this(sessionStore, loginThrottle, clock, new ReservationService(new HoldDAO(), clock));
+    }
+
+    /**
+     * Constructs an AdminService instance that releases the holds of deleted
+     * users through the given reservation service, so the hold queues it
+     * shares with borrowing stay in step.
+     *
+     * @param sessionStore       the session store shared with other services
+     * @param loginThrottle      the login admission control shared with other services
+     * @param clock              the clock giving the current date and time
+     * @param reservationService the service managing holds on borrowed items
+     */
+    public AdminService(SessionStore sessionStore, LoginThrottle loginThrottle, Clock clock,
+                        ReservationService reservationService) {
+        this.clock = clock;
+        this.reservationService = reservationService;
+        this.sessionStore = sessionStore;
+        this.loginThrottle = loginThrottle;
         this.adminDAO = new AdminDAO();
         this.userDAO = new UserDAO();
+        this.outboxDAO = new OutboxDAO();
         this.adminDAO.initializeTable();
+        this.outboxDAO.initializeTable();
 
         try {
             this.emailServer = new EmailServer();
@@ -59,6 +154,16 @@ public class AdminService {
             this.emailServer = null;
             this.emailNotifier = null;
         }
+        this.outboxDispatcher = new OutboxDispatcher(outboxDAO, emailServer, clock,
+                OutboxDispatcher.DEFAULT_MAX_ATTEMPTS, OutboxDispatcher.DEFAULT_BASE_BACKOFF);
+        BorrowRecordDAO borrowRecordDAO = new BorrowRecordDAO();
+        FineDAO fineDAO = new FineDAO();
+        this.digestService = new NotificationDigestService(borrowRecordDAO, new HoldDAO(),
+                fineDAO, outboxDAO, clock);
+        this.reminderScheduler = new ReminderScheduler(borrowRecordDAO, outboxDAO, outboxDispatcher, clock,
+                ReminderScheduler.DEFAULT_ESCALATION_DAYS, ReminderScheduler.DEFAULT_MAX_REMINDERS);
+        this.fineAccrualJob = new FineAccrualJob(borrowRecordDAO, clock, FineAccrualJob.DEFAULT_BATCH_SIZE);
+        this.fineCompactionJob = new FineCompactionJob(fineDAO);
     }
 
     /**
@@ -76,7 +181,13 @@ public class AdminService {
         }
 
         String salt = PasswordUtil.generateSalt();
-        String passwordHash = PasswordUtil.hashPassword(password, salt);
+        String passwordHash;
+        try {
+            passwordHash = passwordHasher.hash(password, salt);
+        } catch (RejectedExecutionException e) {
+            System.out.println("Server busy, please try again.");
+            return null;
+        }
 
         if (adminDAO.insert(username, passwordHash, salt)) {
             System.out.println("Admin registered successfully: " + username);
@@ -87,13 +198,22 @@ public class AdminService {
     }
 
     /**
-     * Logs an admin into the system.
+     * Logs an admin into the system. The attempt must first be admitted by
+     * the {@link LoginThrottle}. Hashing runs on the shared
+     * {@link PasswordHasher} pool, and an outdated stored hash is upgraded
+     * after a successful login.
      *
      * @param username The username of the admin.
      * @param password The password provided by the admin.
      * @return The logged-in {@link Admin} object, or {@code null} if authentication fails.
      */
     public Admin login(String username, String password) {
+        Duration wait = loginThrottle.tryAcquire(throttleKey(username));
+        if (!wait.isZero()) {
+            System.out.println("Too many login attempts, try again in " + ((wait.toMillis() + 999) / 1000) + " seconds.");
+            return null;
+        }
+
         Admin admin = adminDAO.findByUsername(username);
 
         if (admin == null) {
@@ -101,9 +221,16 @@ public class AdminService {
             return null;
         }
 
-        String inputHash = PasswordUtil.hashPassword(password, admin.getSalt());
+        boolean matches;
+        try {
+            matches = passwordHasher.verify(password, admin.getSalt(), admin.getPasswordHash());
+        } catch (RejectedExecutionException e) {
+            System.out.println("Server busy, please try again.");
+            return null;
+        }
 
-        if (admin.getPasswordHash().equals(inputHash)) {
+        if (matches) {
+            upgradeHashIfNeeded(admin, password);
             admin.setLoggedIn(true);
             System.out.println("Admin login successful, welcome " + username + "!");
             return admin;
@@ -113,40 +240,142 @@ public class AdminService {
         }
     }
 
+    /**
+     * Reports how long an admin login for the given username would currently
+     * have to wait, without counting an attempt.
+     *
+     * @param username The username about to log in.
+     * @return {@link Duration#ZERO} if a login attempt would be admitted now.
+     */
+    public Duration loginRetryAfter(String username) {
+        return loginThrottle.retryAfter(throttleKey(username));
+    }
+
+    private static String throttleKey(String username) {
+        return "admin:" + username;
+    }
+
+    /**
+     * Re-hashes an admin's password at the current cost when the stored hash
+     * is outdated. A failed upgrade is retried on the next login.
+     *
+     * @param admin    The authenticated admin.
+     * @param password The password the admin just proved.
+     */
+    private void upgradeHashIfNeeded(Admin admin, String password) {
+        if (!PasswordUtil.needsRehash(admin.getPasswordHash())) return;
+        try {
+            String salt = PasswordUtil.generateSalt();
+            String passwordHash = passwordHasher.hash(password, salt);
+            if (adminDAO.updatePasswordHash(admin.getId(), passwordHash, salt)) {
+                admin.setPasswordHash(passwordHash);
+                admin.setSalt(salt);
+            }
+        } catch (RejectedExecutionException e) {
+            System.out.println("Password hash upgrade deferred: hashing pool busy.");
+        }
+    }
+
+    /**
+     * Logs an admin in and opens a session for them.
+     *
+     * @param username The username of the admin.
+     * @param password The password provided by the admin.
+     * @return The new {@link Session}, or {@code null} if authentication fails.
+     */
+    public Session openSession(String username, String password) {
+        Admin admin = login(username, password);
+        return admin == null ? null : sessionStore.open(admin);
+    }
+
+    /**
+     * Returns the store holding this service's sessions.
+     *
+     * @return The session store.
+     */
+    public SessionStore getSessionStore() {
+        return sessionStore;
+    }
+
     /**
      * Deletes a user account from the system.
+     * <p>The user's holds are released first, so items kept for them pass to
+     * the next holder rather than staying off the shelf.</p>
      *
      * @param username The username of the user to be deleted.
      * @return {@code true} if deletion was successful; {@code false} otherwise.
      */
     public boolean unregisterUser(String username) {
+        User user = userDAO.findByUsername(username);
+        if (user == null) {
+            return false;
+        }
+        reservationService.releaseHolds(user.getId());
         return userDAO.delete(username);
     }
 
     /**
-     * Sends email reminders to all users who currently have overdue books.
+     * Queues one notification digest for every user with something to hear
+     * about: overdue items, holds ready for pickup, or unpaid fines.
+     * <p>All digests are written to the notification outbox in one
+     * transaction and the method returns at once; the
+     * {@link OutboxDispatcher} delivers them in the background, retrying
+     * failures.</p>
      *
-     * @param borrowingService The {@link BorrowingService} used to fetch overdue records.
+     * @return The number of digests queued.
      */
-    public void sendOverdueReminders(BorrowingService borrowingService) {
+    public int sendNotificationDigests() {
         if (emailNotifier == null) {
             System.out.println("Warning: Email server not available. Cannot send reminders.");
-            return;
+            return 0;
         }
 
-        List<UserWithOverdueBooks> usersWithOverdueBooks = borrowingService.getUsersWithOverdueBooks();
-
-        for (UserWithOverdueBooks userInfo : usersWithOverdueBooks) {
-            String message = "You have " + userInfo.getOverdueCount() + " overdue book(s).";
-            try {
-                model.User user = userDAO.findByUsername(userInfo.getUsername());
-                if (user != null) {
-                    emailNotifier.notify(user, message);
-                }
-            } catch (Exception e) {
-                System.err.println("Failed to send email to " + userInfo.getUsername() + ": " + e.getMessage());
-            }
-        }
+        int queued = digestService.queueDigests(LocalDate.now(clock));
+        System.out.println("Queued " + queued + " notification digest(s) for delivery.");
+        outboxDispatcher.wake();
+        return queued;
+    }
+
+    /**
+     * Returns the dispatcher that delivers queued notifications. It is not
+     * started automatically; callers running a long-lived process start it.
+     *
+     * @return The outbox dispatcher.
+     */
+    public OutboxDispatcher getOutboxDispatcher() {
+        return outboxDispatcher;
+    }
+
+    /**
+     * Returns the job that sends overdue reminders once a day. It is not
+     * started automatically; callers running a long-lived process start it.
+     *
+     * @return The reminder scheduler.
+     */
+    public ReminderScheduler getReminderScheduler() {
+        return reminderScheduler;
+    }
+
+    /**
+     * Returns the job that accrues fines on unreturned overdue loans every
+     * night. It is not started automatically; callers running a long-lived
+     * process start it.
+     *
+     * @return The fine accrual job.
+     */
+    public FineAccrualJob getFineAccrualJob() {
+        return fineAccrualJob;
+    }
+
+    /**
+     * Returns the job that keeps fine balance lookups short by rolling
+     * snapshots forward. It is not started automatically; callers running a
+     * long-lived process start it next to the accrual job.
+     *
+     * @return The fine compaction job.
+     */
+    public FineCompactionJob getFineCompactionJob() {
+        return fineCompactionJob;
     }
 
     /**
@@ -161,6 +390,7 @@ public class AdminService {
         } else {
             this.emailNotifier = new EmailNotifier(server);
         }
+        outboxDispatcher.setEmailServer(server);
     }
 
     /**
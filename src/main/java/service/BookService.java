@@ -11,11 +11,14 @@ import java.util.List;
  * <ul>
  *     <li>Adding new books</li>
  *     <li>Retrieving all books</li>
- *     <li>Searching for books by title, author, or ISBN</li>
+ *     <li>Searching for books by title, author, or ISBN, or by all three ranked by relevance</li>
+ *     <li>Suggesting close matches for misspelled titles and authors</li>
  * </ul>
  *
  * <p>This service interacts with {@link BookDAO} and {@link MediaDAO} to perform
- * database operations and maintain media/book consistency.</p>
+ * database operations and maintain media/book consistency. When given a
+ * {@link TrigramIndex}, it adds every new book to the index and answers title
+ * and author searches from it instead of scanning the books table.</p>
  *
  * @author Library
  * @version 1.1
@@ -27,12 +30,30 @@ public class BookService {
     /** DAO used for interacting with the media table. */
     private final MediaDAO mediaDAO;
 
+    /** In-memory index of the catalog, or {@code null} to search the database directly. */
+    private final TrigramIndex catalogIndex;
+
+    /** Index built on the first suggestion when there is no catalog index; guarded by {@code this}. */
+    private TrigramIndex suggestionIndex;
+
     /**
      * Constructs a {@code BookService} instance and initializes required database tables.
      */
     public BookService() {
+        this(null);
+    }
+
+    /**
+     * Constructs a {@code BookService} that keeps the given index up to date and
+     * searches titles and authors through it. The caller builds the index with
+     * {@link TrigramIndex#rebuild} before the first search.
+     *
+     * @param catalogIndex the index shared with the {@link CDService}; {@code null} for none
+     */
+    public BookService(TrigramIndex catalogIndex) {
         this.bookDAO = new BookDAO();
         this.mediaDAO = new MediaDAO();
+        this.catalogIndex = catalogIndex;
         this.bookDAO.initializeTable();
         this.mediaDAO.initializeTable();
     }
@@ -69,7 +90,15 @@ public class BookService {
         int bookId = bookDAO.insert(mediaId, author.trim(), isbn.trim());
         if (bookId != -1) {
             System.out.println("Book added successfully: " + title);
-            return new Book(bookId, title, author, isbn, true);
+            Book book = new Book(bookId, title, author, isbn, true);
+            if (catalogIndex != null) {
+                catalogIndex.addBook(book);
+            } else {
+                synchronized (this) {
+                    if (suggestionIndex != null) suggestionIndex.addBook(book);
+                }
+            }
+            return book;
         }
 
         return null;
@@ -90,7 +119,8 @@ public class BookService {
      * Searches for books based on a given search term and type.
      *
      * @param searchTerm The keyword to search for; must not be null or empty
-     * @param searchType The type of search: "title", "author", or "isbn"
+     * @param searchType The type of search: "title", "author", "isbn", or "any"
+     *                   for all three fields ranked by relevance
      * @return A list of {@link Book} objects matching the search criteria,
      *         or an empty list if no matches are found
      */
@@ -102,13 +132,72 @@ public class BookService {
 
         switch (searchType.toLowerCase()) {
             case "title":
+                if (catalogIndex != null) {
+                    return new SearchByTrigram(catalogIndex, TrigramIndex.TITLE, mediaDAO).search(searchTerm);
+                }
                 return bookDAO.searchByTitle(searchTerm);
             case "author":
+                if (catalogIndex != null) {
+                    return new SearchByTrigram(catalogIndex, TrigramIndex.AUTHOR, mediaDAO).search(searchTerm);
+                }
                 return bookDAO.searchByAuthor(searchTerm);
             case "isbn":
                 return bookDAO.searchByISBNPattern(searchTerm);
+            case "any":
+                return new SearchByAnyField(bookDAO, SearchByAnyField.DEFAULT_MAX_RESULTS).search(searchTerm.trim());
             default:
                 return bookDAO.searchByTitle(searchTerm);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Suggests the books closest to a possibly misspelled term, for use as a
+     * "did you mean" list when {@link #searchBooks} finds nothing.
+     *
+     * <p>With a catalog index the suggestions come from it; without one,
+     * the first call builds an index from one pass over all books and later
+     * calls reuse it. Books added through this service are added to it;
+     * books added elsewhere appear once a new service is created.</p>
+     *
+     * @param searchTerm The words to look for; must not be null or empty
+     * @param searchType The type of search: "title", "author", or "any" for either;
+     *                   ISBNs are not matched approximately
+     * @return Up to {@link SearchByFuzzyMatch#DEFAULT_MAX_RESULTS} books, closest first,
+     *         or an empty list if none is close enough
+     */
+    public List<Book> suggestBooks(String searchTerm, String searchType) {
+        if (searchTerm == null || searchTerm.trim().isEmpty()) {
+            return List.of();
+        }
+
+        String field;
+        switch (searchType.toLowerCase()) {
+            case "isbn":
+                return List.of();
+            case "author":
+                field = TrigramIndex.AUTHOR;
+                break;
+            case "any":
+                field = null;
+                break;
+            default:
+                field = TrigramIndex.TITLE;
+        }
+
+        TrigramIndex index = catalogIndex != null ? catalogIndex : suggestionIndex();
+        return new SearchByFuzzyMatch(index, field, mediaDAO, SearchByFuzzyMatch.DEFAULT_MAX_RESULTS)
+                .search(searchTerm.trim());
+    }
+
+    /**
+     * Returns this service's own suggestion index, building it on first use.
+     */
+    private synchronized TrigramIndex suggestionIndex() {
+        if (suggestionIndex == null) {
+            TrigramIndex index = new TrigramIndex();
+            index.rebuild(bookDAO.findAll(), List.of());
+            suggestionIndex = index;
+        }
+        return suggestionIndex;
+    }
+}
@@ -3,16 +3,20 @@ package service;
 import dao.BorrowRecordDAO;
 import dao.FineDAO;
 import model.Borrower;
+import model.BorrowerDelta;
 import model.MediaRecord;
 
+import java.time.Clock;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service class responsible for managing borrower-related operations,
  * including:
  * <ul>
  *     <li>Loading currently borrowed media and fine balances</li>
- *     <li>Generating detailed overdue reports with calculated fines</li>
+ *     <li>Generating detailed overdue reports with accrued fines</li>
  *     <li>Processing fine payments</li>
  *     <li>Displaying all borrowed media items with overdue warnings</li>
  * </ul>
@@ -20,6 +24,11 @@ import java.util.List;
  * <p>This service interacts with {@link BorrowRecordDAO} and {@link FineDAO}
  * to retrieve and update borrower information.</p>
  *
+ * <p>A loaded borrower remembers the state version it reflects. Borrows,
+ * returns and payments hand back a {@link BorrowerDelta} that is applied in
+ * memory; the full reload only runs when the version shows the borrower's
+ * loans or fines were changed by someone else.</p>
+ *
  * @author Library
  * @version 1.1
  */
@@ -31,20 +40,37 @@ public class BorrowerService {
     /** DAO used for managing borrower fines. */
     private final FineDAO fineDAO;
 
+    /** Clock giving the date overdue items are judged against. */
+    private final Clock clock;
+
     /**
      * Constructs a {@code BorrowerService} instance and initializes DAOs.
      */
     public BorrowerService() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a {@code BorrowerService} instance that takes today's date
+     * from the given clock.
+     *
+     * @param clock the clock giving the current date
+     */
+    public BorrowerService(Clock clock) {
         this.borrowRecordDAO = new BorrowRecordDAO();
         this.fineDAO = new FineDAO();
+        this.clock = clock;
     }
 
     /**
-     * Loads the borrower's current borrowed media items and fine balance.
+     * Loads the borrower's current borrowed media items, fine balance and
+     * state version. The version is read first, so a change that lands
+     * while loading leaves the borrower behind rather than ahead.
      *
      * @param borrower The borrower whose data will be loaded.
      */
     public void loadBorrowerData(Borrower borrower) {
+        borrower.setStateVersion(borrowRecordDAO.findStateVersion(borrower.getId()));
         List<MediaRecord> borrowedMedia = borrowRecordDAO.findActiveByUserId(borrower.getId());
         borrower.setBorrowedMedia(borrowedMedia);
 
@@ -54,14 +80,45 @@ public class BorrowerService {
         System.out.println("Loaded " + borrowedMedia.size() + " borrowed items for " + borrower.getUsername());
     }
 
+    /**
+     * Reloads the borrower only if its loans or fines have changed since it
+     * was loaded, at the cost of one version lookup.
+     *
+     * @param borrower The borrower to check.
+     * @return {@code true} if the borrower was reloaded; {@code false} if it was current
+     */
+    public boolean refreshIfStale(Borrower borrower) {
+        if (borrowRecordDAO.findStateVersion(borrower.getId()) == borrower.getStateVersion()) {
+            return false;
+        }
+        loadBorrowerData(borrower);
+        return true;
+    }
+
+    /**
+     * Applies a borrow, return or payment to the borrower, and reloads the
+     * borrower instead if it had missed a change made elsewhere.
+     *
+     * @param borrower The borrower the change was made for.
+     * @param delta    The change set returned by the write.
+     */
+    public void applyChanges(Borrower borrower, BorrowerDelta delta) {
+        if (!delta.applyTo(borrower)) {
+            loadBorrowerData(borrower);
+        }
+    }
+
     /**
      * Generates and prints a detailed overdue report for the borrower,
-     * including overdue days and calculated fines per item.
+     * including overdue days and fines per item.
+     * <p>Fines are the amounts precomputed by the nightly {@link FineAccrualJob};
+     * only an item that became overdue since the last run is computed here.</p>
      *
      * @param borrower The borrower for whom the overdue report is generated.
      */
     public void generateOverdueReport(Borrower borrower) {
-        List<MediaRecord> overdueItems = borrower.getOverdueMedia();
+        LocalDate today = LocalDate.now(clock);
+        List<MediaRecord> overdueItems = borrower.getOverdueMedia(today);
 
         if (overdueItems.isEmpty()) {
             System.out.println("You have no overdue items.");
@@ -70,11 +127,13 @@ public class BorrowerService {
 
         System.out.println("\n=== Overdue Items Report ===");
         double totalOverdueFines = 0.0;
+        Map<Integer, Double> accruedFines = borrowRecordDAO.findAccruedFines(borrower.getId());
 
         for (MediaRecord record : overdueItems) {
-            long overdueDays = record.getOverdueDays();
-            double finePerDay = BorrowingService.getFinePerDay(record.getMedia().getMediaType());
-            double itemFine = overdueDays * finePerDay;
+            long overdueDays = record.getOverdueDays(today);
+            Double accrued = accruedFines.get(record.getRecordId());
+            double itemFine = accrued != null ? accrued
+                    : overdueDays * BorrowingService.getFinePerDay(record.getMedia().getMediaType());
             totalOverdueFines += itemFine;
 
             String mediaType = record.getMedia().getMediaType().equals("book") ? "Book" : "CD";
@@ -104,29 +163,34 @@ public class BorrowerService {
      * @return {@code true} if the payment is successful; {@code false} otherwise.
      */
     public boolean payFine(Borrower borrower, double amount) {
+        BorrowerDelta delta = pay(borrower, amount);
+        if (delta == null) return false;
+        applyChanges(borrower, delta);
+        return true;
+    }
+
+    /**
+     * Pays towards the borrower's outstanding fines without touching the borrower.
+     *
+     * @param borrower The borrower making the payment.
+     * @param amount   The payment amount; must be positive and not exceed current fine balance.
+     * @return the change set to apply to the borrower; {@code null} if nothing was paid
+     */
+    public BorrowerDelta pay(Borrower borrower, double amount) {
         if (amount <= 0 || amount > borrower.getFineBalance()) {
             System.out.println("Invalid payment amount.");
-            return false;
+            return null;
         }
 
-        // ★ الخطوة المهمة: احفظ الغرامات المعلقة في قاعدة البيانات أولاً ★
-        double currentDbBalance = fineDAO.getFineBalance(borrower.getId());
-        double pendingFines = borrower.getFineBalance() - currentDbBalance;
-
-        if (pendingFines > 0) {
-            System.out.println("Saving pending fines to database: " + pendingFines);
-            fineDAO.addFine(borrower.getId(), pendingFines);
-        }
-
-        // الآن ادفع من قاعدة البيانات
-        if (fineDAO.payFine(borrower.getId(), amount)) {
-            borrower.setFineBalance(borrower.getFineBalance() - amount);
-            System.out.printf("Payment of %.2f successful. New balance: %.2f\n",
-                    amount, borrower.getFineBalance());
-            return true;
+        BorrowerDelta delta = fineDAO.pay(borrower.getId(), amount);
+        if (delta == null) return null;
+        if (delta.isEmpty()) {
+            System.out.println("Payment failed: the amount exceeds your current balance.");
+            return null;
         }
-
-        return false;
+        System.out.printf("Payment of %.2f successful. New balance: %.2f\n",
+                amount, borrower.getFineBalance() - amount);
+        return delta;
     }
 
     /**
@@ -143,12 +207,13 @@ public class BorrowerService {
             return;
         }
 
+        LocalDate today = LocalDate.now(clock);
         System.out.println("\n=== Your Borrowed Items ===");
         for (MediaRecord record : borrowed) {
             System.out.println(record.getMedia());
             System.out.println("Due Date: " + record.getDueDate());
-            if (record.isOverdue()) {
-                System.out.println("WARNING: OVERDUE by " + record.getOverdueDays() + " days");
+            if (record.isOverdue(today)) {
+                System.out.println("WARNING: OVERDUE by " + record.getOverdueDays(today) + " days");
 
             }
             System.out.println("---");
@@ -2,14 +2,22 @@ package service;
 
 import dao.BorrowRecordDAO;
 import dao.FineDAO;
-import dao.MediaDAO;
 import model.Borrower;
+import model.BorrowerDelta;
+import model.CheckoutResult;
+import model.Hold;
 import model.Media;
 import model.MediaRecord;
+import model.ReturnOutcome;
 import model.UserWithOverdueBooks;
 
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -18,8 +26,8 @@ import java.util.Map;
  * such as books and CDs.
  *
  * <p>This class handles validation rules, fine calculation, overdue tracking,
- * and coordinates operations with {@link BorrowRecordDAO}, {@link FineDAO},
- * and {@link MediaDAO}.</p>
+ * and coordinates operations with {@link BorrowRecordDAO}, {@link FineDAO}
+ * and the hold queues of {@link ReservationService}.</p>
  *
  * <p>Borrowing rules enforced:</p>
  * <ul>
@@ -29,11 +37,33 @@ import java.util.Map;
  *     <li>Media must be available to borrow</li>
  * </ul>
  *
+ * <p>Availability is claimed with a conditional update in the same transaction
+ * that inserts the borrow record, so concurrent sessions can never borrow the
+ * same copy twice. A returned item goes to the next patron in its hold queue
+ * before it becomes available to everyone else.</p>
+ *
+ * <p>{@link #checkout} borrows a whole cart with one check of the rules and
+ * one batched transaction, either all-or-nothing or best-effort.</p>
+ *
+ * <p>{@link #returnBatch} checks in a pile of items by media ID without
+ * the borrowers being logged in, as staff do when emptying the drop box:
+ * active loans are found with one indexed query per few hundred items and
+ * closed in grouped batched transactions. Sessions holding an affected
+ * borrower see the state version move and reload.</p>
+ *
+ * <p>{@link #borrow}, {@link #checkout} and {@link #returnItem} leave the
+ * borrower alone and hand back a {@link BorrowerDelta} the caller applies, so
+ * a session holding a borrower only reloads it when someone else has changed
+ * it in between.</p>
+ *
  * @author Library
  * @version 1.1
  */
 public class BorrowingService {
 
+    /** Loans closed per transaction by {@link #returnBatch(List)}. */
+    public static final int RETURN_BATCH_SIZE = 100;
+
     /** Map storing allowed borrowing days per media type. */
     private static final Map<String, Integer> BORROW_DAYS = new HashMap<>();
 
@@ -42,7 +72,13 @@ public class BorrowingService {
 
     private final BorrowRecordDAO borrowRecordDAO;
     private final FineDAO fineDAO;
-    private final MediaDAO mediaDAO;
+    private final ReservationService reservationService;
+
+    /** Applies change sets to borrowers, reloading those that missed a change. */
+    private final BorrowerService borrowerService;
+
+    /** Clock giving the borrow, due and return dates. */
+    private final Clock clock;
 
     static {
         BORROW_DAYS.put("book", 28);
@@ -60,22 +96,136 @@ public class BorrowingService {
      * </p>
      */
     public BorrowingService() {
+        this(new ReservationService());
+    }
+
+    /**
+     * Constructs a new {@code BorrowingService} that shares the given hold queues.
+     *
+     * @param reservationService the service managing holds on borrowed items
+     */
+    public BorrowingService(ReservationService reservationService) {
+        this(reservationService, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a new {@code BorrowingService} that shares the given hold
+     * queues and takes today's date from the given clock.
+     *
+     * @param reservationService the service managing holds on borrowed items
+     * @param clock              the clock giving the current date
+     */
+    public BorrowingService(ReservationService reservationService, Clock clock) {
         this.borrowRecordDAO = new BorrowRecordDAO();
         this.fineDAO = new FineDAO();
-        this.mediaDAO = new MediaDAO();
+        this.reservationService = reservationService;
+        this.borrowerService = new BorrowerService(clock);
+        this.clock = clock;
         this.borrowRecordDAO.initializeTable();
         this.fineDAO.initializeTable();
     }
 
     /**
-     * Allows a borrower to borrow a media item if all rules are satisfied.
+     * Allows a borrower to borrow a media item if all rules are satisfied,
+     * and adds the loan to the borrower.
      *
      * @param borrower The borrower requesting to borrow media
      * @param media    The media item being borrowed
      * @return {@code true} if borrowing is successful; {@code false} otherwise
      */
-
     public boolean borrowMedia(Borrower borrower, Media media) {
+        BorrowerDelta delta = borrow(borrower, media);
+        if (delta == null) return false;
+        borrowerService.applyChanges(borrower, delta);
+        return true;
+    }
+
+    /**
+     * Borrows a media item if all rules are satisfied, without touching the
+     * borrower. The copy is claimed, or taken from the borrower's ready hold,
+     * in the same transaction that inserts the loan.
+     *
+     * @param borrower The borrower requesting to borrow media
+     * @param media    The media item being borrowed
+     * @return the change set to apply to the borrower; {@code null} if nothing was borrowed
+     */
+    public BorrowerDelta borrow(Borrower borrower, Media media) {
+        LocalDate borrowDate = LocalDate.now(clock);
+        if (!mayBorrow(borrower, borrowDate)) {
+            return null;
+        }
+
+        LocalDate dueDate = borrowDate.plusDays(BORROW_DAYS.get(media.getMediaType()));
+
+        // The in-memory availability flag may be stale; the conditional claim in the
+        // database decides, and the record is inserted in the same transaction.
+        BorrowerDelta delta = borrowRecordDAO.borrow(borrower.getId(), media, borrowDate, dueDate);
+        if (delta == null) return null;
+
+        media.setAvailable(false);
+        if (delta.isEmpty()) {
+            System.out.println("Error: Media '" + media.getTitle() + "' is not available. "
+                    + "You can place a hold to be next in line.");
+            return null;
+        }
+        System.out.println("Successfully borrowed '" + media.getTitle() + "'. Due date: " + dueDate);
+        return delta;
+    }
+
+    /**
+     * Borrows several media items at once, checking the borrowing rules once
+     * for the whole cart. All items are claimed and their borrow records
+     * inserted in one batched transaction; an item listed twice is borrowed once.
+     *
+     * @param borrower     The borrower requesting to borrow media
+     * @param cart         The media items being borrowed
+     * @param allOrNothing {@code true} to borrow nothing unless every item can be
+     *                     borrowed; {@code false} to borrow whatever is available
+     * @return the loans made, the unavailable items and the change set to apply
+     *         to the borrower; {@code null} if the rules forbid borrowing or the
+     *         transaction fails
+     */
+    public CheckoutResult checkout(Borrower borrower, List<Media> cart, boolean allOrNothing) {
+        LocalDate borrowDate = LocalDate.now(clock);
+        if (cart.isEmpty() || !mayBorrow(borrower, borrowDate)) {
+            return null;
+        }
+
+        Map<Integer, MediaRecord> loans = new LinkedHashMap<>();
+        for (Media media : cart) {
+            loans.putIfAbsent(media.getId(),
+                    new MediaRecord(0, media, borrowDate.plusDays(BORROW_DAYS.get(media.getMediaType()))));
+        }
+
+        CheckoutResult result = borrowRecordDAO.checkout(borrower.getId(), new ArrayList<>(loans.values()),
+                borrowDate, allOrNothing);
+        if (result == null) return null;
+
+        for (MediaRecord record : result.getBorrowed()) {
+            record.getMedia().setAvailable(false);
+            System.out.println("Borrowed '" + record.getMedia().getTitle() + "'. Due date: " + record.getDueDate());
+        }
+        for (Media media : result.getUnavailable()) {
+            media.setAvailable(false);
+            System.out.println("Not available: '" + media.getTitle() + "'");
+        }
+        if (allOrNothing && !result.isComplete()) {
+            System.out.println("Nothing was borrowed because not every item is available.");
+        } else {
+            System.out.println("Checked out " + result.getBorrowed().size() + " of " + loans.size() + " item(s).");
+        }
+        return result;
+    }
+
+    /**
+     * Checks the rules a borrower must meet before borrowing anything,
+     * printing the reason when one is not met.
+     *
+     * @param borrower   the borrower requesting to borrow media
+     * @param borrowDate today's date
+     * @return {@code true} if the borrower may borrow; {@code false} otherwise
+     */
+    private boolean mayBorrow(Borrower borrower, LocalDate borrowDate) {
         if (!borrower.isLoggedIn()) {
             System.out.println("Error: You must be logged in to borrow media.");
             return false;
@@ -86,82 +236,162 @@ public class BorrowingService {
             return false;
         }
 
-        if (!borrower.getOverdueMedia().isEmpty()) {
+        if (borrower.hasOverdue(borrowDate)) {
             System.out.println("Error: You must return overdue media first.");
             return false;
         }
+        return true;
+    }
 
-        if (!media.isAvailable()) {
-            System.out.println("Error: Media '" + media.getTitle() + "' is not available.");
-            return false;
+    /**
+     * Handles the return of a borrowed media item, calculates overdue fines,
+     * updates borrower's fine balance, and marks the item as returned. The item
+     * is handed to the next waiting hold, or made available if there is none.
+     *
+     * @param borrower The borrower returning the media
+     * @param media    The media item being returned
+     * @return {@code true} if the return operation succeeds; {@code false} if the
+     *         borrower did not borrow this media
+     */
+    public boolean returnMedia(Borrower borrower, Media media) {
+        BorrowerDelta delta = returnItem(borrower, media);
+        if (delta == null) return false;
+        borrowerService.applyChanges(borrower, delta);
+        System.out.println("Total fine balance: " + borrower.getFineBalance());
+        return true;
+    }
+
+    /**
+     * Returns a borrowed media item without touching the borrower. The loan
+     * is closed, its overdue fine charged and the item handed to the next
+     * waiting hold, or made available if there is none, in one transaction.
+     *
+     * @param borrower The borrower returning the media
+     * @param media    The media item being returned
+     * @return the change set to apply to the borrower; {@code null} if the borrower
+     *         does not have this media or the loan was already returned
+     */
+    public BorrowerDelta returnItem(Borrower borrower, Media media) {
+        MediaRecord record = borrower.findLoan(media.getId());
+        if (record == null) {
+            System.out.println("Error: This media is not borrowed by you.");
+            return null;
         }
 
-        LocalDate dueDate = LocalDate.now().plusDays(BORROW_DAYS.get(media.getMediaType()));
+        LocalDate today = LocalDate.now(clock);
+        double mediaFine = 0.0;
+        if (record.isOverdue(today)) {
+            long overdueDays = record.getOverdueDays(today);
+            mediaFine = overdueDays * FINE_PER_DAY.get(media.getMediaType());
+            System.out.println("Media is " + overdueDays + " days overdue. Fine: " + mediaFine);
+        }
 
-        mediaDAO.updateAvailability(media.getId(), false);
-        media.setAvailable(false);
+        List<Hold> handedTo = new ArrayList<>(1);
+        BorrowerDelta delta = borrowRecordDAO.returnLoan(borrower.getId(), record, today, mediaFine,
+                today.plusDays(ReservationService.PICKUP_DAYS), handedTo);
+        if (delta == null) return null;
+        if (delta.isEmpty()) {
+            System.out.println("Error: '" + media.getTitle() + "' has already been returned.");
+            return null;
+        }
 
-        int recordId = borrowRecordDAO.insert(
-                borrower.getId(),
-                media.getId(),
-                media.getMediaType(),
-                media.getTitle(),
-                LocalDate.now(),
-                dueDate
-        );
+        for (Hold hold : handedTo) {
+            reservationService.handedOff(hold);
+        }
+        media.setAvailable(handedTo.isEmpty());
 
-        if (recordId != -1) {
-            MediaRecord record = new MediaRecord(recordId, media, dueDate);
-            List<MediaRecord> borrowed = borrower.getBorrowedMedia();
-            borrowed.add(record);
-            borrower.setBorrowedMedia(borrowed);
-            System.out.println("Successfully borrowed '" + media.getTitle() + "'. Due date: " + dueDate);
-            return true;
+        if (mediaFine > 0) {
+            System.out.println("Fine added: " + mediaFine);
         }
-        return false;
+        System.out.println("Successfully returned '" + media.getTitle() + "'.");
+        return delta;
     }
 
     /**
-     * Handles the return of a borrowed media item, calculates overdue fines,
-     * updates borrower's fine balance, and marks the item as returned.
+     * Checks in a batch of returned items by media ID, in groups of
+     * {@link #RETURN_BATCH_SIZE}.
      *
-     * @param borrower The borrower returning the media
-     * @param media    The media item being returned
-     * @return {@code true} if the return operation succeeds; {@code false} if the
-     *         borrower did not borrow this media
+     * @param mediaIds the IDs of the returned items; duplicates are checked in once
+     * @return one outcome per distinct ID, in input order
+     * @see #returnBatch(List, int)
      */
-    public boolean returnMedia(Borrower borrower, Media media) {
-        for (MediaRecord record : borrower.getBorrowedMedia()) {
-            if (record.getMedia().getId() == media.getId()) {
-                mediaDAO.updateAvailability(media.getId(), true);
-                media.setAvailable(true);
-
-                double mediaFine = 0.0;
-                if (record.isOverdue()) {
-                    long overdueDays = record.getOverdueDays();
-                    mediaFine = overdueDays * FINE_PER_DAY.get(media.getMediaType());
-                    System.out.println("Media is " + overdueDays + " days overdue. Fine: " + mediaFine);
-                }
+    public List<ReturnOutcome> returnBatch(List<Integer> mediaIds) {
+        return returnBatch(mediaIds, RETURN_BATCH_SIZE);
+    }
 
-                borrowRecordDAO.markAsReturned(record.getRecordId(), LocalDate.now(), mediaFine);
+    /**
+     * Checks in a batch of returned items by media ID on behalf of their
+     * borrowers. The active loans are looked up in bulk, fines are computed
+     * from each loan's due date, and every group of {@code batchSize} loans
+     * is closed in one transaction that also charges the fines and hands
+     * each item to its next holder or releases it. A group whose transaction
+     * fails is reported as {@link ReturnOutcome#FAILED} and left unchanged,
+     * so it can be checked in again. Prints one line per item and the
+     * throughput of the whole batch.
+     *
+     * @param mediaIds  the IDs of the returned items; duplicates are checked in once
+     * @param batchSize the most loans closed per transaction
+     * @return one outcome per distinct ID, in input order
+     * @throws IllegalArgumentException if {@code batchSize} is below one
+     */
+    public List<ReturnOutcome> returnBatch(List<Integer> mediaIds, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now(clock);
 
-                if (mediaFine > 0) {
-                    fineDAO.addFine(borrower.getId(), mediaFine);
-                    double newBalance = fineDAO.getFineBalance(borrower.getId());
-                    borrower.setFineBalance(newBalance);
-                    System.out.println("Fine added: " + mediaFine);
-                }
+        Map<Integer, ReturnOutcome> outcomes = new LinkedHashMap<>();
+        for (int mediaId : mediaIds) {
+            outcomes.putIfAbsent(mediaId, new ReturnOutcome(mediaId));
+        }
+        List<ReturnOutcome> loans = borrowRecordDAO.findActiveByMediaIds(new ArrayList<>(outcomes.keySet()));
+        for (ReturnOutcome loan : loans) {
+            long overdueDays = Math.max(0, ChronoUnit.DAYS.between(loan.getDueDate(), today));
+            loan.setFine(overdueDays * getFinePerDay(loan.getMediaType()));
+            outcomes.put(loan.getMediaId(), loan);
+        }
 
-                List<MediaRecord> borrowed = borrower.getBorrowedMedia();
-                borrowed.remove(record);
-                borrower.setBorrowedMedia(borrowed);
+        LocalDate readyUntil = today.plusDays(ReservationService.PICKUP_DAYS);
+        for (int from = 0; from < loans.size(); from += batchSize) {
+            List<ReturnOutcome> group = loans.subList(from, Math.min(from + batchSize, loans.size()));
+            if (borrowRecordDAO.returnAll(group, today, readyUntil) < 0) {
+                group.forEach(loan -> loan.setStatus(ReturnOutcome.FAILED));
+            }
+        }
 
-                System.out.println("Successfully returned '" + media.getTitle() + "'. Total fine balance: " + borrower.getFineBalance());
-                return true;
+        int returned = 0;
+        double fines = 0.0;
+        for (ReturnOutcome outcome : outcomes.values()) {
+            if (outcome.isReturned()) {
+                returned++;
+                fines += outcome.getFine();
+                if (outcome.getHeldFor() != null) {
+                    reservationService.handedOff(outcome.getHeldFor());
+                }
+                System.out.println("Returned '" + outcome.getTitle() + "' (item " + outcome.getMediaId()
+                        + ", user " + outcome.getUserId() + ")"
+                        + (outcome.getFine() > 0 ? ". Fine: " + outcome.getFine() : ""));
+            } else if (ReturnOutcome.FAILED.equals(outcome.getStatus())) {
+                System.err.println("Failed to return item " + outcome.getMediaId() + "; please check it in again.");
+            } else {
+                System.out.println("Item " + outcome.getMediaId() + " is not on loan.");
             }
         }
-        System.out.println("Error: This media is not borrowed by you.");
-        return false;
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.printf("Checked in %d of %d item(s), fines %.2f, in %.0f ms (%.0f items/s).%n",
+                returned, outcomes.size(), fines, seconds * 1000, outcomes.size() / Math.max(seconds, 1e-9));
+        return new ArrayList<>(outcomes.values());
+    }
+
+    /**
+     * Returns the hold queues used when media is unavailable or returned.
+     *
+     * @return the reservation service
+     */
+    public ReservationService getReservationService() {
+        return reservationService;
     }
 
     /**
@@ -171,7 +401,17 @@ public class BorrowingService {
      *         and overdue counts
      */
     public List<UserWithOverdueBooks> getUsersWithOverdueBooks() {
-        return borrowRecordDAO.getUsersWithOverdueBooks();
+        return borrowRecordDAO.getUsersWithOverdueBooks(LocalDate.now(clock));
+    }
+
+    /**
+     * Retrieves the fines accrued so far on items that have not been
+     * returned, as of the last {@link FineAccrualJob} run.
+     *
+     * @return the accrued total by media type
+     */
+    public Map<String, Double> getAccruedFineTotals() {
+        return borrowRecordDAO.getAccruedFineTotals();
     }
 
     /**
@@ -193,4 +433,13 @@ public class BorrowingService {
     public static double getFinePerDay(String mediaType) {
         return FINE_PER_DAY.getOrDefault(mediaType, 0.0);
     }
+
+    /**
+     * Returns the daily fine amount for every media type.
+     *
+     * @return an unmodifiable map of fine per day by media type
+     */
+    public static Map<String, Double> getFinePolicies() {
+        return Collections.unmodifiableMap(FINE_PER_DAY);
+    }
 }
\ No newline at end of file
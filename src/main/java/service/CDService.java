@@ -3,8 +3,12 @@ package service;
 import dao.CDDAO;
 import dao.MediaDAO;
 import model.CD;
+import model.Media;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service class responsible for managing CD-related operations such as adding,
@@ -12,7 +16,9 @@ import java.util.List;
  *
  * <p>This class coordinates between the {@link CDDAO} and {@link MediaDAO}
  * to persist CD and media records while providing business logic for validation
- * and search functionality.</p>
+ * and search functionality. When given a {@link TrigramIndex}, it adds every
+ * new CD to the index and answers searches from it instead of scanning the
+ * CDs table.</p>
  *
  * @author Library
  * @version 1.1
@@ -26,6 +32,12 @@ public class CDService {
     /** DAO for shared media database operations */
     private final MediaDAO mediaDAO;
 
+    /** In-memory index of the catalog, or {@code null} to search the database directly */
+    private final TrigramIndex catalogIndex;
+
+    /** Index built on the first suggestion when there is no catalog index; guarded by {@code this} */
+    private TrigramIndex suggestionIndex;
+
     /**
      * Constructs a new {@code CDService} and initializes the underlying tables.
      * <p>
@@ -33,8 +45,20 @@ public class CDService {
      * </p>
      */
     public CDService() {
+        this(null);
+    }
+
+    /**
+     * Constructs a new {@code CDService} that keeps the given index up to date
+     * and searches through it. The caller builds the index with
+     * {@link TrigramIndex#rebuild} before the first search.
+     *
+     * @param catalogIndex the index shared with the {@link BookService}; {@code null} for none
+     */
+    public CDService(TrigramIndex catalogIndex) {
         this.cdDAO = new CDDAO();
         this.mediaDAO = new MediaDAO();
+        this.catalogIndex = catalogIndex;
         this.cdDAO.initializeTable();
         this.mediaDAO.initializeTable();
     }
@@ -78,7 +102,15 @@ public class CDService {
         int cdId = cdDAO.insert(mediaId, artist.trim(), genre != null ? genre.trim() : "", duration);
         if (cdId != -1) {
             System.out.println("CD added successfully: " + title);
-            return new CD(cdId, title, artist, genre, duration, true);
+            CD cd = new CD(cdId, title, artist, genre, duration, true);
+            if (catalogIndex != null) {
+                catalogIndex.addCD(cd);
+            } else {
+                synchronized (this) {
+                    if (suggestionIndex != null) suggestionIndex.addCD(cd);
+                }
+            }
+            return cd;
         }
 
         return null;
@@ -109,6 +141,10 @@ public class CDService {
             return List.of();
         }
 
+        if (catalogIndex != null) {
+            return searchIndex(searchTerm, searchType.toLowerCase());
+        }
+
         switch (searchType.toLowerCase()) {
             case "title":
                 return cdDAO.searchByTitle(searchTerm);
@@ -122,6 +158,101 @@ public class CDService {
         }
     }
 
+    /**
+     * Searches the CDs through the catalog index and loads the matches by ID,
+     * so their availability is current.
+     */
+    private List<CD> searchIndex(String searchTerm, String searchType) {
+        String field;
+        switch (searchType) {
+            case "artist":
+                field = TrigramIndex.ARTIST;
+                break;
+            case "genre":
+                field = TrigramIndex.GENRE;
+                break;
+            case "title":
+                field = TrigramIndex.TITLE;
+                break;
+            default:
+                System.out.println("Invalid search type. Using title search.");
+                field = TrigramIndex.TITLE;
+        }
+
+        return loadInOrder(catalogIndex.search(searchTerm, field, "cd"));
+    }
+
+    /**
+     * Suggests the CDs closest to a possibly misspelled term, for use as a
+     * "did you mean" list when {@link #searchCDs} finds nothing.
+     *
+     * <p>With a catalog index the suggestions come from it; without one,
+     * the first call builds an index from one pass over all CDs and later
+     * calls reuse it. CDs added through this service are added to it; CDs
+     * added elsewhere appear once a new service is created.</p>
+     *
+     * @param searchTerm the words to look for; must not be empty
+     * @param searchType the field to match ("title", "artist", "genre")
+     * @return up to {@link SearchByFuzzyMatch#DEFAULT_MAX_RESULTS} CDs, closest first;
+     *         empty list if none is close enough
+     */
+    public List<CD> suggestCDs(String searchTerm, String searchType) {
+        if (searchTerm == null || searchTerm.trim().isEmpty()) {
+            return List.of();
+        }
+
+        String field;
+        switch (searchType.toLowerCase()) {
+            case "artist":
+                field = TrigramIndex.ARTIST;
+                break;
+            case "genre":
+                field = TrigramIndex.GENRE;
+                break;
+            default:
+                field = TrigramIndex.TITLE;
+        }
+
+        TrigramIndex index = catalogIndex != null ? catalogIndex : suggestionIndex();
+        return loadInOrder(index.suggest(searchTerm.trim(), field, "cd", SearchByFuzzyMatch.DEFAULT_MAX_RESULTS));
+    }
+
+    /**
+     * Returns this service's own suggestion index, building it on first use.
+     */
+    private synchronized TrigramIndex suggestionIndex() {
+        if (suggestionIndex == null) {
+            TrigramIndex index = new TrigramIndex();
+            index.rebuild(List.of(), cdDAO.findAll());
+            suggestionIndex = index;
+        }
+        return suggestionIndex;
+    }
+
+    /**
+     * Loads CDs by ID, so their availability is current, keeping the order of the IDs.
+     */
+    private List<CD> loadInOrder(int[] ids) {
+        List<Integer> idList = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            idList.add(id);
+        }
+        Map<Integer, CD> byId = new HashMap<>();
+        for (Media media : mediaDAO.findByIds(idList)) {
+            if (media instanceof CD) {
+                byId.put(media.getId(), (CD) media);
+            }
+        }
+        List<CD> cds = new ArrayList<>(byId.size());
+        for (int id : ids) {
+            CD cd = byId.get(id);
+            if (cd != null) {
+                cds.add(cd);
+            }
+        }
+        return cds;
+    }
+
     /**
      * Finds a CD by its unique identifier.
      *
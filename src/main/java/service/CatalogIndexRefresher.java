@@ -0,0 +1,123 @@
+package service;
+
+import dao.BookDAO;
+import dao.CDDAO;
+import model.Book;
+import model.CD;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that keeps a {@link TrigramIndex} in step with items added
+ * by other processes, such as the admin console.
+ *
+ * <p>Media IDs only grow, so each pass reads just the books and CDs above the
+ * highest ID it has seen and adds them to the index. Items the owning process
+ * adds itself are indexed at once by {@link BookService} and {@link CDService};
+ * picking them up again here is harmless.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ *     CatalogIndexRefresher refresher = new CatalogIndexRefresher(index);
+ *     refresher.runOnce();
+ *     refresher.start(1, TimeUnit.MINUTES);
+ *     ...
+ *     refresher.stop();
+ * </pre>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class CatalogIndexRefresher {
+
+    /** Seconds between refresh passes in a long-lived process. */
+    public static final long DEFAULT_PERIOD_SECONDS = 60;
+
+    /** The index kept up to date. */
+    private final TrigramIndex index;
+
+    /** DAO used for reading new books. */
+    private final BookDAO bookDAO;
+
+    /** DAO used for reading new CDs. */
+    private final CDDAO cdDAO;
+
+    /** Highest media ID indexed by a pass; guarded by {@code this}. */
+    private int lastSeenId;
+
+    /** Runs the job in the background. */
+    private final JobSchedule schedule;
+
+    /**
+     * Constructs a refresher for the given index over new DAOs.
+     *
+     * @param index the index to keep up to date
+     */
+    public CatalogIndexRefresher(TrigramIndex index) {
+        this(index, new BookDAO(), new CDDAO());
+    }
+
+    /**
+     * Constructs a refresher for the given index over the given DAOs.
+     *
+     * @param index   the index to keep up to date
+     * @param bookDAO the DAO used for reading books
+     * @param cdDAO   the DAO used for reading CDs
+     */
+    public CatalogIndexRefresher(TrigramIndex index, BookDAO bookDAO, CDDAO cdDAO) {
+        this.index = index;
+        this.bookDAO = bookDAO;
+        this.cdDAO = cdDAO;
+        this.schedule = new JobSchedule("catalog-index-refresh", "Catalog index refresh", this::runOnce);
+    }
+
+    /**
+     * Indexes every book and CD added since the previous pass. The first pass
+     * indexes the whole catalog.
+     *
+     * @return the number of items indexed
+     */
+    public synchronized int runOnce() {
+        List<Book> books = bookDAO.findAddedAfter(lastSeenId);
+        List<CD> cds = cdDAO.findAddedAfter(lastSeenId);
+        int newest = lastSeenId;
+        for (Book book : books) {
+            index.addBook(book);
+            newest = Math.max(newest, book.getId());
+        }
+        for (CD cd : cds) {
+            index.addCD(cd);
+            newest = Math.max(newest, cd.getId());
+        }
+        lastSeenId = newest;
+        return books.size() + cds.size();
+    }
+
+    /**
+     * Starts refreshing the index on a daemon thread at a fixed rate.
+     * Calling this while the job is already running has no effect.
+     *
+     * @param period the time between passes
+     * @param unit   the unit of {@code period}
+     */
+    public void start(long period, TimeUnit unit) {
+        schedule.startAtFixedRate(period, unit);
+    }
+
+    /**
+     * Stops the background schedule. A pass that is already running completes.
+     */
+    public void stop() {
+        schedule.stop();
+    }
+
+    /**
+     * Checks whether the background schedule is active.
+     *
+     * @return {@code true} if the job is scheduled; {@code false} otherwise
+     */
+    public boolean isRunning() {
+        return schedule.isRunning();
+    }
+}
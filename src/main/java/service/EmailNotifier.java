@@ -20,8 +20,9 @@ interface Observer {
  * Sends email notifications to users via an {@link EmailServer}.
  * Implements the {@link Observer} interface.
  *
- * Usage assumes that the user's username can be used to construct an email address.
- * Example: username@example.com
+ * Messages go to the user's stored email address. Users registered before
+ * addresses were stored fall back to one built from the username.
+ * Example: username@gmail.com
  *
  * Handles null or invalid data gracefully and logs warnings or errors.
  *
@@ -62,7 +63,7 @@ public class EmailNotifier implements Observer {
         }
 
         try {
-            String email = user.getUsername() + "@gmail.com";
+            String email = addressOf(user.getUsername(), user.getEmail());
             emailServer.sendEmail(email, "Library Notification", message);
             System.out.println("Email notification sent to: " + email);
         } catch (Exception e) {
@@ -70,4 +71,27 @@ public class EmailNotifier implements Observer {
             throw new RuntimeException("Failed to send email notification", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the email address notifications for a username are sent to
+     * when no address is stored for the user.
+     *
+     * @param username the user's username
+     * @return the user's email address
+     */
+    public static String addressOf(String username) {
+        return username + "@gmail.com";
+    }
+
+    /**
+     * Returns the email address notifications for a user are sent to: the
+     * stored address, or one built from the username if none is stored.
+     *
+     * @param username    the user's username
+     * @param storedEmail the user's stored email address; may be {@code null}
+     * @return the user's email address
+     */
+    public static String addressOf(String username, String storedEmail) {
+        return storedEmail == null || storedEmail.isEmpty() ? addressOf(username) : storedEmail;
+    }
+}
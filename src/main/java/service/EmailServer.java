@@ -3,9 +3,7 @@ package service;
 import io.github.cdimascio.dotenv.Dotenv;
 import jakarta.mail.*;
 import jakarta.mail.internet.*;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Properties;
 
 /**
  * A service class responsible for sending emails and maintaining a record
@@ -20,6 +18,16 @@ import java.util.Properties;
  * <p>
  * The class uses Jakarta Mail API to handle SMTP communication and provides
  * functionality for sending messages, retrieving email history, and clearing logs.
+ * The history is a bounded {@link SentMailJournal}, so a long-running server
+ * keeps only the most recent messages in memory.
+ * </p>
+ *
+ * <p>
+ * One mail {@link Session} is created per server and messages go out over a
+ * {@link SmtpTransportPool}, so consecutive emails reuse open, authenticated
+ * connections instead of repeating the connect, STARTTLS and AUTH handshake
+ * for every message. The SMTP host, port, pool size and timeouts come from
+ * {@link SmtpSettings}; the default is Gmail's submission port.
  * </p>
  *
  * <p><b>Example Usage:</b></p>
@@ -35,7 +43,11 @@ import java.util.Properties;
 public class EmailServer {
     private final String username;
     private final String password;
-    private final List<Email> sentEmails = new ArrayList<>();
+    private final SmtpSettings settings;
+    private final SentMailJournal sentEmails;
+
+    /** Created on the first send so that constructing a server never touches the network. */
+    private volatile SmtpTransportPool transportPool;
 
 
 
@@ -86,6 +98,11 @@ public class EmailServer {
      *     <li><b>EMAIL_PASSWORD</b> – the corresponding password</li>
      * </ul>
      *
+     * <p>{@code SMTP_HOST}, {@code SMTP_PORT} (default 587) and
+     * {@code SMTP_STARTTLS} (default {@code true}) optionally point the
+     * server at another SMTP server, such as a local test server;
+     * without {@code SMTP_HOST} it sends through Gmail.</p>
+     *
      * <p>If either value is missing or empty, the constructor throws
      * an {@link IllegalStateException} to prevent misconfigured usage.</p>
      */
@@ -98,6 +115,8 @@ public class EmailServer {
 
             this.username = dotenv.get("EMAIL_USERNAME");
             this.password = dotenv.get("EMAIL_PASSWORD");
+            this.settings = settingsFrom(dotenv);
+            this.sentEmails = new SentMailJournal(SentMailJournal.DEFAULT_CAPACITY);
 
             if (username == null || username.isEmpty()) {
                 throw new IllegalStateException("EMAIL_USERNAME not found in .env file");
@@ -122,6 +141,42 @@ public class EmailServer {
      */
 
     public EmailServer(String username, String password) {
+        this(username, password, SmtpSettings.gmail());
+    }
+
+    /**
+     * Constructs an EmailServer that sends through the given SMTP server.
+     *
+     * @param username the email address used for sending messages
+     * @param password the password or app-specific key for SMTP authentication
+     * @param settings the SMTP host, port, pool size and timeouts
+     *
+     * @throws IllegalArgumentException if any parameter is null or empty
+     */
+
+    public EmailServer(String username, String password, SmtpSettings settings) {
+        this(username, password, settings, new SentMailJournal(SentMailJournal.DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Constructs an EmailServer that sends through the given SMTP server and
+     * records sent messages in the given journal.
+     *
+     * @param username the email address used for sending messages
+     * @param password the password or app-specific key for SMTP authentication
+     * @param settings the SMTP host, port, pool size and timeouts
+     * @param journal  the journal sent messages are recorded in
+     *
+     * @throws IllegalArgumentException if any parameter is null or empty
+     */
+
+    public EmailServer(String username, String password, SmtpSettings settings, SentMailJournal journal) {
+        if (journal == null) {
+            throw new IllegalArgumentException("Sent mail journal cannot be null");
+        }
+        if (settings == null) {
+            throw new IllegalArgumentException("SMTP settings cannot be null");
+        }
         if (username == null || username.isEmpty()) {
             throw new IllegalArgumentException("Username cannot be null or empty");
         }
@@ -131,15 +186,18 @@ public class EmailServer {
 
         this.username = username;
         this.password = password;
+        this.settings = settings;
+        this.sentEmails = journal;
     }
 
     /**
      * Sends an email message to a specified recipient using the configured
-     * SMTP credentials. The email is transmitted using TLS encryption via
-     * Gmail's SMTP server.
+     * SMTP credentials. The email is transmitted over a pooled connection to
+     * the configured SMTP server, upgraded with STARTTLS unless disabled in
+     * the {@link SmtpSettings}.
      *
-     * <p>After a successful send, the message is added to the internal
-     * history list for later retrieval.</p>
+     * <p>After a successful send, the message is recorded in the sent mail
+     * journal for later retrieval.</p>
      *
      * @param to       the recipient's email address; must not be null or empty
      * @param subject  the subject line of the email
@@ -164,20 +222,8 @@ public class EmailServer {
             body = "";
         }
 
-        Properties props = new Properties();
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enable", "true");
-        props.put("mail.smtp.host", "smtp.gmail.com");
-        props.put("mail.smtp.port", "587");
-        props.put("mail.smtp.ssl.trust", "smtp.gmail.com");
-        props.put("mail.smtp.ssl.protocols", "TLSv1.2");
-
-        Session session = Session.getInstance(props, new Authenticator() {
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(username, password);
-            }
-        });
+        SmtpTransportPool pool = transportPool();
+        Session session = pool.getSession();
 
         try {
             Message message = new MimeMessage(session);
@@ -186,10 +232,10 @@ public class EmailServer {
             message.setSubject(subject);
             message.setText(body);
 
-            Transport.send(message);
+            pool.send(message);
             System.out.println("Email sent successfully to: " + to);
 
-            sentEmails.add(new Email(to, subject, body));
+            sentEmails.record(new Email(to, subject, body));
         } catch (MessagingException e) {
             System.err.println("Failed to send email: " + e.getMessage());
             throw new RuntimeException("Failed to send email: " + e.getMessage(), e);
@@ -197,16 +243,27 @@ public class EmailServer {
     }
 
     /**
-     * Returns a snapshot of all previously sent emails.
+     * Returns a snapshot of the sent emails still held in the journal.
      *
      * <p>The returned list is a defensive copy to prevent external modification
-     * of the internal email history.</p>
+     * of the internal email history. To look up particular messages without
+     * copying the whole history, query {@link #getJournal()}.</p>
      *
-     * @return a list containing all sent email records
+     * @return a list containing the most recent sent email records
      */
 
     public List<Email> getSentEmails() {
-        return new ArrayList<>(sentEmails);
+        return sentEmails.snapshot();
+    }
+
+    /**
+     * Returns the journal sent emails are recorded in.
+     *
+     * @return the sent mail journal
+     */
+
+    public SentMailJournal getJournal() {
+        return sentEmails;
     }
 
     /**
@@ -220,6 +277,77 @@ public class EmailServer {
         sentEmails.clear();
     }
 
+    /**
+     * Returns the SMTP settings this server sends with.
+     *
+     * @return the SMTP settings
+     */
+
+    public SmtpSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Returns how many SMTP connections this server has opened so far.
+     *
+     * @return the number of connect handshakes, or 0 if nothing was sent yet
+     */
+
+    public long getConnectCount() {
+        SmtpTransportPool pool = transportPool;
+        return pool == null ? 0 : pool.getConnectCount();
+    }
+
+    /**
+     * Closes the pooled SMTP connections and the journal's spill file.
+     * A later send opens new ones.
+     */
+
+    public void close() {
+        sentEmails.close();
+        SmtpTransportPool pool;
+        synchronized (this) {
+            pool = transportPool;
+            transportPool = null;
+        }
+        if (pool != null) pool.close();
+    }
+
+    /**
+     * Reads the SMTP server from {@code SMTP_HOST}, {@code SMTP_PORT} and
+     * {@code SMTP_STARTTLS}, falling back to Gmail.
+     */
+    private static SmtpSettings settingsFrom(Dotenv dotenv) {
+        String host = dotenv.get("SMTP_HOST");
+        if (host == null || host.isEmpty()) {
+            return SmtpSettings.gmail();
+        }
+        String port = dotenv.get("SMTP_PORT");
+        String startTls = dotenv.get("SMTP_STARTTLS");
+        return new SmtpSettings(host, port == null || port.isEmpty() ? 587 : Integer.parseInt(port.trim()))
+                .withStartTls(startTls == null || !startTls.trim().equalsIgnoreCase("false"));
+    }
+
+    private SmtpTransportPool transportPool() {
+        SmtpTransportPool pool = transportPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = transportPool;
+                if (pool == null) {
+                    Session session = Session.getInstance(settings.toProperties(), new Authenticator() {
+                        @Override
+                        protected PasswordAuthentication getPasswordAuthentication() {
+                            return new PasswordAuthentication(username, password);
+                        }
+                    });
+                    pool = new SmtpTransportPool(session, settings);
+                    transportPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
 
 
 }
\ No newline at end of file
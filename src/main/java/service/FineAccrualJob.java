@@ -0,0 +1,134 @@
+package service;
+
+import dao.BorrowRecordDAO;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+
+/**
+ * Background job that accrues fines on unreturned overdue loans once a night.
+ *
+ * <p>For each media type the job runs one set-based {@code UPDATE} that sets
+ * every active overdue loan's accrued fine to its days overdue times the
+ * type's daily rate, in batches so no single statement holds the database
+ * for long. Each loan records the date it was accrued, so a pass that is
+ * interrupted or run twice on the same day only touches the loans it has
+ * not reached yet.</p>
+ *
+ * <p>Reports read the accrued amounts instead of recomputing them per item,
+ * and the outstanding liability for items still out is a single sum.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ *     FineAccrualJob job = new FineAccrualJob(new BorrowRecordDAO());
+ *     job.start(FineAccrualJob.DEFAULT_RUN_TIME);
+ *     ...
+ *     job.stop();
+ * </pre>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class FineAccrualJob {
+
+    /** Loans updated per statement by default. */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /** Time of day the nightly run starts by default. */
+    public static final LocalTime DEFAULT_RUN_TIME = LocalTime.of(2, 0);
+
+    private final BorrowRecordDAO borrowRecordDAO;
+    private final Clock clock;
+    private final int batchSize;
+
+    /** Runs the job in the background. */
+    private final JobSchedule schedule;
+
+    /**
+     * Constructs an accrual job over the given DAO with the default batch size.
+     *
+     * @param borrowRecordDAO the DAO owning the loans to accrue
+     */
+    public FineAccrualJob(BorrowRecordDAO borrowRecordDAO) {
+        this(borrowRecordDAO, Clock.systemDefaultZone(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs an accrual job with an explicit clock and batch size.
+     *
+     * @param borrowRecordDAO the DAO owning the loans to accrue
+     * @param clock           clock giving the current date and time
+     * @param batchSize       loans updated per statement
+     * @throws IllegalArgumentException if {@code batchSize} is below one
+     */
+    public FineAccrualJob(BorrowRecordDAO borrowRecordDAO, Clock clock, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.borrowRecordDAO = borrowRecordDAO;
+        this.clock = clock;
+        this.batchSize = batchSize;
+        this.schedule = new JobSchedule("fine-accrual", "Fine accrual", clock, this::runOnce);
+    }
+
+    /**
+     * Runs one accrual pass for the current date.
+     *
+     * @return the number of loans accrued; -1 if the pass failed
+     */
+    public int runOnce() {
+        return runOnce(LocalDate.now(clock));
+    }
+
+    /**
+     * Runs one accrual pass over every media type with a fine policy.
+     *
+     * @param today the date to accrue up to
+     * @return the number of loans accrued; -1 if the pass failed part way,
+     *         in which case the next run picks up where it stopped
+     */
+    public int runOnce(LocalDate today) {
+        int total = 0;
+        for (Map.Entry<String, Double> policy : BorrowingService.getFinePolicies().entrySet()) {
+            int updated;
+            do {
+                updated = borrowRecordDAO.accrueFines(policy.getKey(), policy.getValue(), today, batchSize);
+                if (updated < 0) {
+                    System.err.println("Fine accrual for " + policy.getKey() + " failed; it will be retried.");
+                    return -1;
+                }
+                total += updated;
+            } while (updated == batchSize);
+        }
+        System.out.println("Accrued fines on " + total + " overdue loan(s) as of " + today + ".");
+        return total;
+    }
+
+    /**
+     * Starts running a pass every day at the given time on a daemon thread.
+     * Calling this while the job is already running has no effect.
+     *
+     * @param runAt the local time of day to run at
+     */
+    public void start(LocalTime runAt) {
+        schedule.startDaily(runAt);
+    }
+
+    /**
+     * Stops the nightly schedule. A pass that is already running completes.
+     */
+    public void stop() {
+        schedule.stop();
+    }
+
+    /**
+     * Checks whether the nightly schedule is active.
+     *
+     * @return {@code true} if the job is scheduled; {@code false} otherwise
+     */
+    public boolean isRunning() {
+        return schedule.isRunning();
+    }
+}
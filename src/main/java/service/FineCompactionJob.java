@@ -0,0 +1,89 @@
+package service;
+
+import dao.FineDAO;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that periodically rolls fine balance snapshots forward over
+ * the append-only fine ledger.
+ *
+ * <p>Compaction keeps the ledger tail read by {@link FineDAO#getFineBalance(int)}
+ * short without touching the ledger itself, so the full history remains
+ * available for auditing.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ *     FineCompactionJob job = new FineCompactionJob();
+ *     job.start(1, TimeUnit.HOURS);
+ *     ...
+ *     job.stop();
+ * </pre>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class FineCompactionJob {
+
+    /** Hours between compaction passes in a long-lived process. */
+    public static final long DEFAULT_PERIOD_HOURS = 1;
+
+    /** DAO that owns the fine ledger and snapshots. */
+    private final FineDAO fineDAO;
+
+    /** Runs the job in the background. */
+    private final JobSchedule schedule;
+
+    /**
+     * Constructs a compaction job over a new {@link FineDAO}.
+     */
+    public FineCompactionJob() {
+        this(new FineDAO());
+    }
+
+    /**
+     * Constructs a compaction job over the given DAO.
+     *
+     * @param fineDAO the DAO to compact
+     */
+    public FineCompactionJob(FineDAO fineDAO) {
+        this.fineDAO = fineDAO;
+        this.schedule = new JobSchedule("fine-compaction", "Fine compaction", this::runOnce);
+    }
+
+    /**
+     * Runs one compaction pass immediately.
+     *
+     * @return the number of snapshots rolled forward; -1 if the pass failed
+     */
+    public int runOnce() {
+        return fineDAO.compactSnapshots();
+    }
+
+    /**
+     * Starts running compaction on a daemon thread at a fixed rate.
+     * Calling this while the job is already running has no effect.
+     *
+     * @param period the time between passes
+     * @param unit   the unit of {@code period}
+     */
+    public void start(long period, TimeUnit unit) {
+        schedule.startAtFixedRate(period, unit);
+    }
+
+    /**
+     * Stops the background schedule. A pass that is already running completes.
+     */
+    public void stop() {
+        schedule.stop();
+    }
+
+    /**
+     * Checks whether the background schedule is active.
+     *
+     * @return {@code true} if the job is scheduled; {@code false} otherwise
+     */
+    public boolean isRunning() {
+        return schedule.isRunning();
+    }
+}
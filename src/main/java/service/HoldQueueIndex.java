@@ -0,0 +1,143 @@
+package service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index over the waiting holds of every media item.
+ *
+ * <p>Each item keeps its waiting hold IDs in a sorted array with a moving
+ * head, so serving the front of the queue is O(1) and a patron's queue
+ * position is found with a hash lookup plus a binary search, O(log n).
+ * Hold IDs grow monotonically, so new holds are appended at the tail.</p>
+ *
+ * <p>The index is a cache of the "holds" table; {@link ReservationService}
+ * rebuilds it at start-up and keeps it in step with every change it makes.</p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class HoldQueueIndex {
+
+    /** Queues keyed by media ID. */
+    private final Map<Integer, MediaQueue> queues = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a waiting hold to an item's queue.
+     *
+     * @param mediaId the ID of the media item
+     * @param holdId  the ID of the hold
+     * @param userId  the ID of the patron holding it
+     */
+    public void add(int mediaId, long holdId, int userId) {
+        queues.computeIfAbsent(mediaId, id -> new MediaQueue()).add(holdId, userId);
+    }
+
+    /**
+     * Removes a hold from an item's queue, e.g. when it becomes ready or is cancelled.
+     *
+     * @param mediaId the ID of the media item
+     * @param holdId  the ID of the hold
+     */
+    public void remove(int mediaId, long holdId) {
+        MediaQueue queue = queues.get(mediaId);
+        if (queue != null) {
+            queue.remove(holdId);
+        }
+    }
+
+    /**
+     * Returns a patron's 1-based position in an item's queue.
+     *
+     * @param mediaId the ID of the media item
+     * @param userId  the ID of the patron
+     * @return the queue position; 0 if the patron has no waiting hold on the item
+     */
+    public int position(int mediaId, int userId) {
+        MediaQueue queue = queues.get(mediaId);
+        return queue == null ? 0 : queue.position(userId);
+    }
+
+    /**
+     * Returns the number of waiting holds on an item.
+     *
+     * @param mediaId the ID of the media item
+     * @return the queue length
+     */
+    public int size(int mediaId) {
+        MediaQueue queue = queues.get(mediaId);
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * Removes every queue from the index.
+     */
+    public void clear() {
+        queues.clear();
+    }
+
+    /**
+     * Waiting holds of one media item, ordered by hold ID.
+     */
+    private static final class MediaQueue {
+        private long[] ids = new long[4];
+        private int head;
+        private int tail;
+        private final Map<Integer, Long> holdByUser = new HashMap<>();
+        private final Map<Long, Integer> userByHold = new HashMap<>();
+
+        synchronized void add(long holdId, int userId) {
+            if (userByHold.containsKey(holdId)) return;
+            if (tail == ids.length) {
+                grow();
+            }
+            int insertAt = tail;
+            if (tail > head && ids[tail - 1] > holdId) {
+                insertAt = -(Arrays.binarySearch(ids, head, tail, holdId) + 1);
+                System.arraycopy(ids, insertAt, ids, insertAt + 1, tail - insertAt);
+            }
+            ids[insertAt] = holdId;
+            tail++;
+            holdByUser.put(userId, holdId);
+            userByHold.put(holdId, userId);
+        }
+
+        synchronized void remove(long holdId) {
+            Integer userId = userByHold.remove(holdId);
+            if (userId == null) return;
+            holdByUser.remove(userId, holdId);
+            int index = Arrays.binarySearch(ids, head, tail, holdId);
+            if (index == head) {
+                head++;
+            } else {
+                System.arraycopy(ids, index + 1, ids, index, tail - index - 1);
+                tail--;
+            }
+            if (head == tail) {
+                head = 0;
+                tail = 0;
+            }
+        }
+
+        synchronized int position(int userId) {
+            Long holdId = holdByUser.get(userId);
+            if (holdId == null) return 0;
+            return Arrays.binarySearch(ids, head, tail, holdId) - head + 1;
+        }
+
+        synchronized int size() {
+            return tail - head;
+        }
+
+        private void grow() {
+            int live = tail - head;
+            long[] target = live * 2 < ids.length ? ids : new long[ids.length * 2];
+            System.arraycopy(ids, head, target, 0, live);
+            ids = target;
+            head = 0;
+            tail = live;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedule shared by the background jobs: runs a job's pass on its own
+ * daemon thread, either every day at a set time or at a fixed rate.
+ *
+ * <p>An exception thrown by a pass is logged and the next pass still runs;
+ * an executor would otherwise cancel the schedule silently.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ *     JobSchedule schedule = new JobSchedule("fine-accrual", "Fine accrual", clock, this::runOnce);
+ *     schedule.startDaily(LocalTime.of(2, 0));
+ *     ...
+ *     schedule.stop();
+ * </pre>
+ *
+ * @author Library
+ * @version 1.1
+ */
+final class JobSchedule {
+
+    private final String threadName;
+    private final String jobName;
+    private final Clock clock;
+    private final Runnable pass;
+
+    /** Scheduler running the job; {@code null} while stopped. */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs a stopped schedule for a job that runs at a fixed rate.
+     *
+     * @param threadName the name of the job's thread
+     * @param jobName    the job as named in log messages
+     * @param pass       one pass of the job
+     */
+    JobSchedule(String threadName, String jobName, Runnable pass) {
+        this(threadName, jobName, Clock.systemDefaultZone(), pass);
+    }
+
+    /**
+     * Constructs a stopped schedule that reads the time of day from the given clock.
+     *
+     * @param threadName the name of the job's thread
+     * @param jobName    the job as named in log messages
+     * @param clock      the clock giving the current date and time
+     * @param pass       one pass of the job
+     */
+    JobSchedule(String threadName, String jobName, Clock clock, Runnable pass) {
+        this.threadName = threadName;
+        this.jobName = jobName;
+        this.clock = clock;
+        this.pass = pass;
+    }
+
+    /**
+     * Starts running a pass every day at the given time.
+     * Calling this while the schedule is active has no effect.
+     *
+     * @param runAt the local time of day to run at
+     */
+    synchronized void startDaily(LocalTime runAt) {
+        start(delayUntil(runAt).toMillis(), TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts running a pass at a fixed rate, the first one period from now.
+     * Calling this while the schedule is active has no effect.
+     *
+     * @param period the time between passes
+     * @param unit   the unit of {@code period}
+     */
+    synchronized void startAtFixedRate(long period, TimeUnit unit) {
+        start(period, period, unit);
+    }
+
+    /**
+     * Stops the schedule. A pass that is already running completes.
+     */
+    synchronized void stop() {
+        if (scheduler == null) return;
+        scheduler.shutdown();
+        scheduler = null;
+    }
+
+    /**
+     * Checks whether the schedule is active.
+     *
+     * @return {@code true} if the job is scheduled; {@code false} otherwise
+     */
+    synchronized boolean isRunning() {
+        return scheduler != null;
+    }
+
+    private void start(long delay, long period, TimeUnit unit) {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::runQuietly, delay, period, unit);
+    }
+
+    /**
+     * Computes the time from now until the next occurrence of {@code runAt}.
+     *
+     * @param runAt the local time of day
+     * @return the delay; zero or more, and less than a day
+     */
+    private Duration delayUntil(LocalTime runAt) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime next = now.toLocalDate().atTime(runAt);
+        if (next.isBefore(now)) {
+            next = next.plusDays(1);
+        }
+        return Duration.between(now, next);
+    }
+
+    /**
+     * Runs a pass without letting an exception cancel the schedule.
+     */
+    private void runQuietly() {
+        try {
+            pass.run();
+        } catch (RuntimeException e) {
+            System.err.println(jobName + " run failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package service;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control in front of login.
+ *
+ * <p>Every login attempt costs a database lookup and a password hash. The
+ * throttle admits at most a fixed number of attempts per username and a
+ * larger fixed number overall within a sliding window. Anything above
+ * those limits is turned away before any of that work is done, together
+ * with how long the caller should wait before trying again.</p>
+ *
+ * <p>Each limit uses a sliding-window counter: the count of the current
+ * fixed window plus the count of the previous window, weighted by how much
+ * of the previous window still overlaps the sliding one. Per-username counts
+ * live in a count-min sketch, so memory stays fixed no matter how many
+ * distinct names are tried. The sketch may overestimate a count when names
+ * collide, but it never underestimates one. Each instance picks random hash
+ * seeds, so collisions cannot be planned in advance to lock out a
+ * particular user.</p>
+ *
+ * <p>Counters are atomics and windows rotate with a compare-and-set. An
+ * attempt is checked and counted in one step under the lock of the windows
+ * it reads, so racing attempts cannot both take the last slot. The lock is
+ * held for a handful of counter reads, far less than the hash it saves.</p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class LoginThrottle {
+
+    /** Attempts per username allowed within one window. */
+    public static final int DEFAULT_PER_USER_LIMIT = 10;
+
+    /** Attempts across all usernames allowed within one window. */
+    public static final int DEFAULT_GLOBAL_LIMIT = 1200;
+
+    /** Length of the sliding window. */
+    public static final Duration DEFAULT_WINDOW = Duration.ofMinutes(1);
+
+    /** Counters per sketch row; sized for a few thousand active names at a low error rate. */
+    private static final int SKETCH_WIDTH = 2048;
+
+    /** Independent hash rows in the sketch. */
+    private static final int SKETCH_DEPTH = 4;
+
+    private final int perUserLimit;
+    private final int globalLimit;
+    private final long windowMillis;
+    private final Clock clock;
+    private final long[] seeds = new long[SKETCH_DEPTH];
+
+    /** Previous and current window, replaced together when the window rolls over. */
+    private final AtomicReference<Windows> windows;
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Constructs a throttle with the default limits and window.
+     */
+    public LoginThrottle() {
+        this(DEFAULT_PER_USER_LIMIT, DEFAULT_GLOBAL_LIMIT, DEFAULT_WINDOW, Clock.systemUTC());
+    }
+
+    /**
+     * Constructs a throttle.
+     *
+     * @param perUserLimit attempts per username allowed within one window
+     * @param globalLimit  attempts in total allowed within one window
+     * @param window       length of the sliding window
+     * @param clock        clock used to place attempts in windows
+     * @throws IllegalArgumentException if a limit is below one or the window is not positive
+     */
+    public LoginThrottle(int perUserLimit, int globalLimit, Duration window, Clock clock) {
+        if (perUserLimit < 1 || globalLimit < 1) {
+            throw new IllegalArgumentException("Login limits must be at least 1");
+        }
+        if (window.isZero() || window.isNegative()) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        this.perUserLimit = perUserLimit;
+        this.globalLimit = globalLimit;
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+
+        SecureRandom random = new SecureRandom();
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            seeds[row] = random.nextLong();
+        }
+        long epoch = clock.millis() / windowMillis;
+        this.windows = new AtomicReference<>(new Windows(new Window(epoch - 1), new Window(epoch)));
+    }
+
+    /**
+     * Asks to admit one login attempt for a key. An admitted attempt is
+     * counted against both limits; a rejected one is not.
+     *
+     * @param key the username, optionally prefixed to separate account kinds
+     * @return {@link Duration#ZERO} if the attempt is admitted, otherwise how
+     *         long to wait before it would be
+     */
+    public Duration tryAcquire(String key) {
+        return check(key, true);
+    }
+
+    /**
+     * Reports how long an attempt for a key would have to wait, without
+     * counting it.
+     *
+     * @param key the username, optionally prefixed to separate account kinds
+     * @return {@link Duration#ZERO} if an attempt would be admitted now
+     */
+    public Duration retryAfter(String key) {
+        return check(key, false);
+    }
+
+    /**
+     * Returns the number of attempts turned away so far.
+     *
+     * @return the rejected attempt count
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private Duration check(String key, boolean acquire) {
+        long now = clock.millis();
+        long epoch = now / windowMillis;
+        long elapsed = now - epoch * windowMillis;
+        Windows current = windowsAt(epoch);
+        int[] cells = cells(key == null ? "" : key);
+
+        if (!acquire) {
+            return toDuration(waitFor(current, cells, elapsed));
+        }
+        long wait;
+        synchronized (current) {
+            wait = waitFor(current, cells, elapsed);
+            if (wait == 0) current.current.add(cells);
+        }
+        if (wait > 0) rejected.increment();
+        return toDuration(wait);
+    }
+
+    /**
+     * Computes how long until one more attempt for a key fits under both limits.
+     */
+    private long waitFor(Windows windows, int[] cells, long elapsed) {
+        return Math.max(
+                waitMillis(windows.previous.estimate(cells), windows.current.estimate(cells), perUserLimit, elapsed),
+                waitMillis(windows.previous.total.get(), windows.current.total.get(), globalLimit, elapsed));
+    }
+
+    private static Duration toDuration(long waitMillis) {
+        return waitMillis > 0 ? Duration.ofMillis(waitMillis) : Duration.ZERO;
+    }
+
+    /**
+     * Returns the windows for the given epoch, rolling them over first if
+     * the clock has moved into a new window.
+     */
+    private Windows windowsAt(long epoch) {
+        while (true) {
+            Windows seen = windows.get();
+            if (seen.current.epoch >= epoch) return seen;
+            Window previous = seen.current.epoch == epoch - 1 ? seen.current : new Window(epoch - 1);
+            Windows next = new Windows(previous, new Window(epoch));
+            if (windows.compareAndSet(seen, next)) return next;
+        }
+    }
+
+    /**
+     * Computes how long until one more attempt fits under a limit, assuming
+     * no other attempts arrive meanwhile. Works in whole milliseconds so the
+     * answer is exact at window boundaries.
+     *
+     * @param previous attempts counted in the previous window
+     * @param current  attempts counted in the current window
+     * @param limit    attempts allowed per sliding window
+     * @param elapsed  milliseconds of the current window already passed
+     * @return milliseconds to wait, or 0 if an attempt fits now
+     */
+    private long waitMillis(long previous, long current, int limit, long elapsed) {
+        long room = limit - 1L;
+        // previous * (1 - elapsed / window) + current <= room, scaled by window
+        if (previous * (windowMillis - elapsed) + current * windowMillis <= room * windowMillis) return 0;
+
+        if (current <= room && previous > 0) {
+            // The previous window fades out far enough before this one ends.
+            long fitsAt = windowMillis - (room - current) * windowMillis / previous;
+            return Math.max(1, fitsAt - elapsed);
+        }
+        // Only once this window has itself partly slid out of view.
+        long fitsAt = windowMillis - room * windowMillis / current;
+        return windowMillis - elapsed + fitsAt;
+    }
+
+    /**
+     * Returns the sketch cell of the key in each row.
+     */
+    private int[] cells(String key) {
+        int[] cells = new int[SKETCH_DEPTH];
+        for (int row = 0; row < SKETCH_DEPTH; row++) {
+            long hash = seeds[row];
+            for (int i = 0; i < key.length(); i++) {
+                hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            cells[row] = row * SKETCH_WIDTH + (int) ((hash & Long.MAX_VALUE) % SKETCH_WIDTH);
+        }
+        return cells;
+    }
+
+    /**
+     * Counts for one fixed window: a count-min sketch of attempts per key
+     * plus the total.
+     */
+    private static final class Window {
+        final long epoch;
+        final AtomicLongArray sketch = new AtomicLongArray(SKETCH_WIDTH * SKETCH_DEPTH);
+        final AtomicLong total = new AtomicLong();
+
+        Window(long epoch) {
+            this.epoch = epoch;
+        }
+
+        long estimate(int[] cells) {
+            long min = Long.MAX_VALUE;
+            for (int cell : cells) {
+                min = Math.min(min, sketch.get(cell));
+            }
+            return min;
+        }
+
+        void add(int[] cells) {
+            for (int cell : cells) {
+                sketch.incrementAndGet(cell);
+            }
+            total.incrementAndGet();
+        }
+    }
+
+    /**
+     * The two windows a sliding window spans.
+     */
+    private static final class Windows {
+        final Window previous;
+        final Window current;
+
+        Windows(Window previous, Window current) {
+            this.previous = previous;
+            this.current = current;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package service;
+
+import dao.MediaDAO;
+import model.Media;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Looks up media items of any type by ID through {@link MediaDAO}, each as
+ * its concrete {@link model.Book} or {@link model.CD} in one query.
+ *
+ * <p>A repository is an identity map meant to live for one request or
+ * console action: every item is loaded at most once, and asking for the
+ * same ID again hands back the same object, including a remembered miss.
+ * Several IDs are loaded together with chunked {@code IN} lists, skipping
+ * the ones already loaded. A repository is not thread-safe and does not see
+ * changes made after it loaded an item; create a new one per request.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ *     MediaRepository media = new MediaRepository();
+ *     Book book = media.findById(mediaId, Book.class);
+ *     Map&lt;Integer, Media&gt; cart = media.findByIds(List.of(3, 7, 12));
+ * </pre>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class MediaRepository {
+
+    /** DAO loading the media items. */
+    private final MediaDAO mediaDAO;
+
+    /** Items loaded so far by ID; {@code null} values record IDs that were not found. */
+    private final Map<Integer, Media> loaded = new HashMap<>();
+
+    /**
+     * Constructs a repository over a new {@link MediaDAO}.
+     */
+    public MediaRepository() {
+        this(new MediaDAO());
+    }
+
+    /**
+     * Constructs a repository over the given DAO.
+     *
+     * @param mediaDAO the DAO loading the media items
+     */
+    public MediaRepository(MediaDAO mediaDAO) {
+        this.mediaDAO = mediaDAO;
+    }
+
+    /**
+     * Finds a media item by ID, loading it on first use.
+     *
+     * @param id the ID of the media item
+     * @return the {@link model.Book} or {@link model.CD}; {@code null} if not found
+     */
+    public Media findById(int id) {
+        if (loaded.containsKey(id)) {
+            return loaded.get(id);
+        }
+        Media media = mediaDAO.findById(id);
+        loaded.put(id, media);
+        return media;
+    }
+
+    /**
+     * Finds a media item of the given type by ID.
+     *
+     * @param id   the ID of the media item
+     * @param type the expected type, e.g. {@code Book.class}
+     * @param <T>  the expected type
+     * @return the item; {@code null} if not found or of another type
+     */
+    public <T extends Media> T findById(int id, Class<T> type) {
+        Media media = findById(id);
+        return type.isInstance(media) ? type.cast(media) : null;
+    }
+
+    /**
+     * Finds several media items by ID, loading all that are not loaded yet
+     * in one chunked query.
+     *
+     * @param ids the IDs of the media items
+     * @return the items found by ID, in the order of {@code ids}; IDs that were not found are left out
+     */
+    public Map<Integer, Media> findByIds(Collection<Integer> ids) {
+        Set<Integer> missing = new LinkedHashSet<>();
+        for (int id : ids) {
+            if (!loaded.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (int id : missing) {
+                loaded.put(id, null);
+            }
+            for (Media media : mediaDAO.findByIds(new ArrayList<>(missing))) {
+                loaded.put(media.getId(), media);
+            }
+        }
+
+        Map<Integer, Media> found = new LinkedHashMap<>();
+        for (int id : ids) {
+            Media media = loaded.get(id);
+            if (media != null) {
+                found.put(id, media);
+            }
+        }
+        return found;
+    }
+}
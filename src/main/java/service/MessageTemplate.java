@@ -0,0 +1,112 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A text template with {@code {{name}}} placeholders, parsed once.
+ *
+ * <p>{@link #compile(String)} splits the source into literal text and
+ * placeholder names up front, so rendering is a single pass of appends to a
+ * {@link StringBuilder} with no scanning or regular expressions. Templates
+ * are immutable and can be shared between threads; compile them once and
+ * keep them in constants.</p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>
+ *     MessageTemplate greeting = MessageTemplate.compile("Hello {{name}},\n");
+ *     String text = greeting.render(Map.of("name", "amy"));
+ * </pre>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public final class MessageTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    /** Literal text; one more entry than there are placeholders. */
+    private final String[] literals;
+
+    /** Placeholder names, each following the literal with the same index. */
+    private final String[] names;
+
+    private MessageTemplate(String[] literals, String[] names) {
+        this.literals = literals;
+        this.names = names;
+    }
+
+    /**
+     * Parses a template.
+     *
+     * @param source the template text
+     * @return the compiled template
+     * @throws IllegalArgumentException if a placeholder is unclosed or empty
+     */
+    public static MessageTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf(OPEN, pos);
+            if (open < 0) break;
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at index " + open);
+            }
+            String name = source.substring(open + OPEN.length(), close).trim();
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Empty placeholder at index " + open);
+            }
+            literals.add(source.substring(pos, open));
+            names.add(name);
+            pos = close + CLOSE.length();
+        }
+        literals.add(source.substring(pos));
+        return new MessageTemplate(literals.toArray(new String[0]), names.toArray(new String[0]));
+    }
+
+    /**
+     * Appends the template to a builder, filling in each placeholder.
+     *
+     * @param out    the builder to append to
+     * @param values placeholder values by name
+     * @throws IllegalArgumentException if a placeholder has no value
+     */
+    public void renderTo(StringBuilder out, Map<String, ?> values) {
+        for (int i = 0; i < names.length; i++) {
+            out.append(literals[i]);
+            Object value = values.get(names[i]);
+            if (value == null && !values.containsKey(names[i])) {
+                throw new IllegalArgumentException("No value for placeholder " + names[i]);
+            }
+            out.append(value);
+        }
+        out.append(literals[names.length]);
+    }
+
+    /**
+     * Renders the template to a new string.
+     *
+     * @param values placeholder values by name
+     * @return the rendered text
+     * @throws IllegalArgumentException if a placeholder has no value
+     */
+    public String render(Map<String, ?> values) {
+        StringBuilder out = new StringBuilder();
+        renderTo(out, values);
+        return out.toString();
+    }
+
+    /**
+     * Returns the placeholder names in the order they appear.
+     *
+     * @return the placeholder names
+     */
+    public List<String> getPlaceholders() {
+        return Collections.unmodifiableList(List.of(names));
+    }
+}
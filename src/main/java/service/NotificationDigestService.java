@@ -0,0 +1,209 @@
+package service;
+
+import dao.BorrowRecordDAO;
+import dao.FineDAO;
+import dao.HoldDAO;
+import dao.OutboxDAO;
+import model.Notice;
+import model.OutboxMessage;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builds one notification email per user from everything they need to hear
+ * about: overdue loans with titles and due dates, items ready for pickup,
+ * and an unpaid fine balance.
+ *
+ * <p>A run reads all pending notices with three set-based queries, one per
+ * kind, groups them by user, and renders each user's digest from templates
+ * compiled once when the class loads. A patron with five overdue items and
+ * a hold ready gets one message instead of six, which keeps outbound volume
+ * and SMTP load proportional to the number of users, not items.</p>
+ *
+ * <p>Messages go to the address stored for each user, falling back to the
+ * username-based address for users registered before addresses were
+ * stored.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ *     NotificationDigestService digests = new NotificationDigestService();
+ *     int queued = digests.queueDigests(LocalDate.now());
+ * </pre>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class NotificationDigestService {
+
+    /** Subject line of every digest. */
+    private static final MessageTemplate SUBJECT = MessageTemplate.compile(
+            "Library account: {{count}} item(s) need your attention");
+
+    private static final MessageTemplate GREETING = MessageTemplate.compile("Hello {{username}},\n");
+    private static final MessageTemplate OVERDUE_HEADING = MessageTemplate.compile(
+            "\nOverdue items ({{count}}):\n");
+    private static final MessageTemplate OVERDUE_ITEM = MessageTemplate.compile(
+            "  - {{title}}, due {{dueDate}} ({{days}} day(s) overdue)\n");
+    private static final MessageTemplate HOLD_HEADING = MessageTemplate.compile(
+            "\nReady for pickup ({{count}}):\n");
+    private static final MessageTemplate HOLD_ITEM = MessageTemplate.compile(
+            "  - {{title}}, held for you until {{readyUntil}}\n");
+    private static final MessageTemplate FINE = MessageTemplate.compile(
+            "\nOutstanding fines: ${{amount}}\n");
+    private static final MessageTemplate SIGN_OFF = MessageTemplate.compile(
+            "\nThank you,\n{{library}}\n");
+
+    private static final String LIBRARY_NAME = "The Library";
+
+    private final BorrowRecordDAO borrowRecordDAO;
+    private final HoldDAO holdDAO;
+    private final FineDAO fineDAO;
+    private final OutboxDAO outboxDAO;
+    private final Clock clock;
+
+    /**
+     * Constructs a digest service over new DAOs.
+     */
+    public NotificationDigestService() {
+        this(new BorrowRecordDAO(), new HoldDAO(), new FineDAO(), new OutboxDAO());
+    }
+
+    /**
+     * Constructs a digest service over the given DAOs.
+     *
+     * @param borrowRecordDAO source of overdue loans
+     * @param holdDAO         source of holds ready for pickup
+     * @param fineDAO         source of fine balances
+     * @param outboxDAO       outbox the digests are queued in
+     */
+    public NotificationDigestService(BorrowRecordDAO borrowRecordDAO, HoldDAO holdDAO,
+                                     FineDAO fineDAO, OutboxDAO outboxDAO) {
+        this(borrowRecordDAO, holdDAO, fineDAO, outboxDAO, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a digest service over the given DAOs that stamps queued
+     * digests with the time from the given clock.
+     *
+     * @param borrowRecordDAO source of overdue loans
+     * @param holdDAO         source of holds ready for pickup
+     * @param fineDAO         source of fine balances
+     * @param outboxDAO       outbox the digests are queued in
+     * @param clock           clock giving the current time
+     */
+    public NotificationDigestService(BorrowRecordDAO borrowRecordDAO, HoldDAO holdDAO,
+                                     FineDAO fineDAO, OutboxDAO outboxDAO, Clock clock) {
+        this.borrowRecordDAO = borrowRecordDAO;
+        this.holdDAO = holdDAO;
+        this.fineDAO = fineDAO;
+        this.outboxDAO = outboxDAO;
+        this.clock = clock;
+    }
+
+    /**
+     * Builds the digests and writes them to the outbox in one transaction.
+     *
+     * @param today the current date
+     * @return the number of digests queued; 0 if there were none or the write failed
+     */
+    public int queueDigests(LocalDate today) {
+        List<OutboxMessage> digests = buildDigests(today);
+        if (digests.isEmpty()) return 0;
+        return outboxDAO.enqueueAll(digests, clock.millis());
+    }
+
+    /**
+     * Builds one digest per user with at least one pending notice.
+     *
+     * @param today the current date
+     * @return the digests, ordered by user ID
+     */
+    public List<OutboxMessage> buildDigests(LocalDate today) {
+        Map<Integer, Digest> byUser = new TreeMap<>();
+        for (Notice notice : borrowRecordDAO.findOverdueNotices(today)) {
+            digestFor(byUser, notice).overdue.add(notice);
+        }
+        for (Notice notice : holdDAO.findReadyNotices(today)) {
+            digestFor(byUser, notice).ready.add(notice);
+        }
+        for (Notice notice : fineDAO.findFineNotices()) {
+            digestFor(byUser, notice).fine = notice;
+        }
+
+        List<OutboxMessage> messages = new ArrayList<>(byUser.size());
+        Map<String, Object> values = new HashMap<>();
+        for (Digest digest : byUser.values()) {
+            messages.add(render(digest, today, values));
+        }
+        return messages;
+    }
+
+    private static Digest digestFor(Map<Integer, Digest> byUser, Notice notice) {
+        return byUser.computeIfAbsent(notice.getUserId(), id -> new Digest(notice));
+    }
+
+    /**
+     * Renders one user's digest. {@code values} is reused between calls to
+     * avoid a map per line.
+     */
+    private static OutboxMessage render(Digest digest, LocalDate today, Map<String, Object> values) {
+        StringBuilder body = new StringBuilder(256);
+        values.clear();
+        values.put("username", digest.username);
+        GREETING.renderTo(body, values);
+
+        if (!digest.overdue.isEmpty()) {
+            values.put("count", digest.overdue.size());
+            OVERDUE_HEADING.renderTo(body, values);
+            for (Notice notice : digest.overdue) {
+                values.put("title", notice.getTitle());
+                values.put("dueDate", notice.getDate());
+                values.put("days", ChronoUnit.DAYS.between(notice.getDate(), today));
+                OVERDUE_ITEM.renderTo(body, values);
+            }
+        }
+        if (!digest.ready.isEmpty()) {
+            values.put("count", digest.ready.size());
+            HOLD_HEADING.renderTo(body, values);
+            for (Notice notice : digest.ready) {
+                values.put("title", notice.getTitle());
+                values.put("readyUntil", notice.getDate());
+                HOLD_ITEM.renderTo(body, values);
+            }
+        }
+        if (digest.fine != null) {
+            values.put("amount", String.format(Locale.ROOT, "%.2f", digest.fine.getAmountCents() / 100.0));
+            FINE.renderTo(body, values);
+        }
+        values.put("library", LIBRARY_NAME);
+        SIGN_OFF.renderTo(body, values);
+
+        values.put("count", digest.overdue.size() + digest.ready.size() + (digest.fine == null ? 0 : 1));
+        return new OutboxMessage(EmailNotifier.addressOf(digest.username, digest.email),
+                SUBJECT.render(values), body.toString());
+    }
+
+    /**
+     * Notices gathered for one user during a run.
+     */
+    private static final class Digest {
+        final String username;
+        final String email;
+        final List<Notice> overdue = new ArrayList<>();
+        final List<Notice> ready = new ArrayList<>();
+        Notice fine;
+
+        Digest(Notice first) {
+            this.username = first.getUsername();
+            this.email = first.getEmail();
+        }
+    }
+}
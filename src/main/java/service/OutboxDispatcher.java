@@ -0,0 +1,409 @@
+package service;
+
+import dao.OutboxDAO;
+import model.OutboxMessage;
+
+import java.lang.reflect.Method;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers messages from the notification outbox in the background.
+ *
+ * <p>Services write emails to the outbox with {@link OutboxDAO} and return
+ * at once. The dispatcher claims due messages in batches and sends them
+ * through an {@link EmailServer}. A failed message is retried later with
+ * exponential backoff: {@code baseBackoff}, then twice that, and so on, up
+ * to {@link #MAX_BACKOFF}. After {@code maxAttempts} failures it is
+ * dead-lettered and left in the outbox for inspection.</p>
+ *
+ * <p>Messages in a batch are sent in parallel, one virtual thread each
+ * where the runtime has them, with at most {@code concurrency} sends in
+ * flight. A {@link TokenBucket} spaces the sends to the provider's rate
+ * limit. {@link #pause()} cancels a run: sends already started finish, the
+ * rest of the claimed batch goes back to the outbox untouched, and
+ * {@link #resume()} carries on where the run stopped.</p>
+ *
+ * <p>Because messages are claimed under a lease that runs out, a message
+ * claimed by a dispatcher that died is picked up again by the next one.
+ * Delivery is therefore at least once.</p>
+ *
+ * @author Library
+ * @version 1.2
+ */
+public class OutboxDispatcher {
+
+    /** Messages claimed per round trip to the database. */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
+    /** Failed attempts after which a message is dead-lettered. */
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    /** Wait before the first retry. */
+    public static final Duration DEFAULT_BASE_BACKOFF = Duration.ofSeconds(30);
+
+    /** Sends in flight at once by default. */
+    public static final int DEFAULT_CONCURRENCY = 8;
+
+    /** Default send rate limit, in messages per second; also the largest burst. */
+    public static final int DEFAULT_SENDS_PER_SECOND = 10;
+
+    /** Longest wait between retries. */
+    public static final Duration MAX_BACKOFF = Duration.ofHours(1);
+
+    /** How long a claimed message stays reserved for this dispatcher. */
+    public static final Duration LEASE = Duration.ofMinutes(5);
+
+    private final OutboxDAO outboxDAO;
+    private final Clock clock;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final int concurrency;
+    private final TokenBucket rateLimiter;
+    private volatile EmailServer emailServer;
+    private volatile boolean paused;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /** Scheduler running the drain loop; {@code null} while stopped. */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs a dispatcher with the default retry policy, concurrency and rate limit.
+     *
+     * @param outboxDAO   the outbox to drain
+     * @param emailServer the server to send through; {@code null} pauses delivery
+     */
+    public OutboxDispatcher(OutboxDAO outboxDAO, EmailServer emailServer) {
+        this(outboxDAO, emailServer, Clock.systemUTC(), DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_BACKOFF);
+    }
+
+    /**
+     * Constructs a dispatcher with the default concurrency and rate limit.
+     *
+     * @param outboxDAO   the outbox to drain
+     * @param emailServer the server to send through; {@code null} pauses delivery
+     * @param clock       clock used for due times and message age
+     * @param maxAttempts failed attempts after which a message is dead-lettered
+     * @param baseBackoff wait before the first retry
+     */
+    public OutboxDispatcher(OutboxDAO outboxDAO, EmailServer emailServer, Clock clock,
+                            int maxAttempts, Duration baseBackoff) {
+        this(outboxDAO, emailServer, clock, maxAttempts, baseBackoff, DEFAULT_CONCURRENCY,
+                new TokenBucket(DEFAULT_SENDS_PER_SECOND, DEFAULT_SENDS_PER_SECOND));
+    }
+
+    /**
+     * Constructs a dispatcher.
+     *
+     * @param outboxDAO   the outbox to drain
+     * @param emailServer the server to send through; {@code null} pauses delivery
+     * @param clock       clock used for due times and message age
+     * @param maxAttempts failed attempts after which a message is dead-lettered
+     * @param baseBackoff wait before the first retry
+     * @param concurrency most sends in flight at once
+     * @param rateLimiter limiter every send takes a token from
+     * @throws IllegalArgumentException if the concurrency is below one
+     */
+    public OutboxDispatcher(OutboxDAO outboxDAO, EmailServer emailServer, Clock clock,
+                            int maxAttempts, Duration baseBackoff, int concurrency, TokenBucket rateLimiter) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+        this.outboxDAO = outboxDAO;
+        this.emailServer = emailServer;
+        this.clock = clock;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = baseBackoff;
+        this.concurrency = concurrency;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Changes the server messages are sent through.
+     *
+     * @param emailServer the new server; {@code null} pauses delivery
+     */
+    public void setEmailServer(EmailServer emailServer) {
+        this.emailServer = emailServer;
+    }
+
+    /**
+     * Starts draining the outbox on a daemon thread at a fixed delay.
+     * Calling this while the dispatcher is already running has no effect.
+     *
+     * @param period the delay between drain runs
+     * @param unit   the unit of {@code period}
+     */
+    public synchronized void start(long period, TimeUnit unit) {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "outbox-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::drainQuietly, 0, period, unit);
+    }
+
+    /**
+     * Stops the dispatcher. Messages still in the outbox are delivered after
+     * the next start.
+     */
+    public synchronized void stop() {
+        if (scheduler == null) return;
+        scheduler.shutdown();
+        scheduler = null;
+    }
+
+    /**
+     * Asks a running dispatcher to drain now rather than at its next turn.
+     * Does nothing while the dispatcher is stopped.
+     */
+    public synchronized void wake() {
+        if (scheduler == null) return;
+        try {
+            scheduler.execute(this::drainQuietly);
+        } catch (RejectedExecutionException e) {
+            // Stopping; the messages stay in the outbox.
+        }
+    }
+
+    /**
+     * Cancels the current run and holds further delivery. Sends already in
+     * flight complete; unsent messages stay in the outbox.
+     */
+    public void pause() {
+        paused = true;
+    }
+
+    /**
+     * Lifts a {@link #pause()} and continues delivering where the run stopped.
+     */
+    public void resume() {
+        paused = false;
+        wake();
+    }
+
+    /**
+     * Reports whether delivery is paused.
+     *
+     * @return {@code true} while paused
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Delivers every message that is due now, batch by batch, stopping early
+     * if the dispatcher is paused.
+     *
+     * @return the number of messages delivered
+     */
+    public int drain() {
+        EmailServer server = emailServer;
+        if (server == null || paused) return 0;
+
+        int sent = 0;
+        Semaphore permits = new Semaphore(concurrency);
+        ExecutorService senders = newSenderExecutor(concurrency);
+        try {
+            List<OutboxMessage> batch;
+            do {
+                long now = clock.millis();
+                batch = outboxDAO.claimDue(DEFAULT_BATCH_SIZE, now, now + LEASE.toMillis());
+                List<OutboxMessage> started = new ArrayList<>(batch.size());
+                List<Future<RuntimeException>> sends = new ArrayList<>(batch.size());
+                for (OutboxMessage message : batch) {
+                    if (paused || !acquire(permits)) {
+                        outboxDAO.release(message.getId());
+                        continue;
+                    }
+                    inFlight.incrementAndGet();
+                    started.add(message);
+                    sends.add(senders.submit(() -> {
+                        try {
+                            server.sendEmail(message.getRecipient(), message.getSubject(), message.getBody());
+                            return null;
+                        } catch (RuntimeException e) {
+                            return e;
+                        } finally {
+                            inFlight.decrementAndGet();
+                            permits.release();
+                        }
+                    }));
+                }
+                // Outcomes are written back here, on one thread, so the senders never contend for the database.
+                for (int i = 0; i < sends.size(); i++) {
+                    if (record(started.get(i), await(sends.get(i)))) sent++;
+                }
+            } while (batch.size() == DEFAULT_BATCH_SIZE && !paused);
+        } finally {
+            senders.shutdown();
+        }
+        return sent;
+    }
+
+    /**
+     * Returns the number of messages waiting to be delivered.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return outboxDAO.countPending();
+    }
+
+    /**
+     * Returns how long the oldest undelivered message has been waiting.
+     *
+     * @return the age of the oldest pending message; {@link Duration#ZERO} if none
+     */
+    public Duration getOldestMessageAge() {
+        Long oldest = outboxDAO.oldestPendingCreatedAt();
+        return oldest == null ? Duration.ZERO : Duration.ofMillis(Math.max(0, clock.millis() - oldest));
+    }
+
+    /**
+     * Returns the number of dead-lettered messages.
+     *
+     * @return the dead letter count
+     */
+    public int getDeadLetterCount() {
+        return outboxDAO.countDead();
+    }
+
+    /**
+     * Returns the number of messages this dispatcher delivered.
+     *
+     * @return the delivered count
+     */
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    /**
+     * Returns the number of failed delivery attempts this dispatcher saw.
+     *
+     * @return the failed attempt count
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Returns the number of sends in progress right now.
+     *
+     * @return the in-flight send count
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * Waits for a concurrency slot and a rate-limit token.
+     *
+     * @return {@code false} if interrupted while waiting
+     */
+    private boolean acquire(Semaphore permits) {
+        try {
+            rateLimiter.acquire();
+            permits.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            paused = true;
+            return false;
+        }
+    }
+
+    /**
+     * Writes the outcome of one send back to the outbox.
+     *
+     * @param error what the send threw; {@code null} if it succeeded
+     * @return {@code true} if the message was delivered
+     */
+    private boolean record(OutboxMessage message, RuntimeException error) {
+        if (error == null) {
+            outboxDAO.markSent(message.getId());
+            delivered.incrementAndGet();
+            return true;
+        }
+        failed.incrementAndGet();
+        String reason = error.getMessage() == null ? error.getClass().getSimpleName() : error.getMessage();
+        if (message.getAttempts() >= maxAttempts) {
+            outboxDAO.markDead(message.getId(), reason);
+            System.err.println("Giving up on email to " + message.getRecipient() + " after "
+                    + message.getAttempts() + " attempts: " + reason);
+        } else {
+            outboxDAO.markFailed(message.getId(), reason, clock.millis() + backoff(message.getAttempts()));
+        }
+        return false;
+    }
+
+    /**
+     * Returns the wait before the next try after the given number of attempts.
+     */
+    private long backoff(int attempts) {
+        long millis = baseBackoff.toMillis() << Math.min(attempts - 1, 20);
+        return Math.min(millis, MAX_BACKOFF.toMillis());
+    }
+
+    /**
+     * Waits for one send and returns what it threw.
+     */
+    private static RuntimeException await(Future<RuntimeException> send) {
+        try {
+            return send.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new IllegalStateException("Interrupted while sending", e);
+        } catch (ExecutionException e) {
+            return new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            System.err.println("Outbox dispatch failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the executor sends run on: a virtual thread per send when the
+     * runtime provides them, otherwise daemon platform threads, as many as
+     * the concurrency cap.
+     */
+    private static ExecutorService newSenderExecutor(int threads) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                        Thread thread = new Thread(r, "outbox-sender-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+}
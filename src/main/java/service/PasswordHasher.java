@@ -0,0 +1,112 @@
+package service;
+
+import dao.PasswordUtil;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashing on a small, bounded worker pool.
+ *
+ * <p>PBKDF2 is deliberately expensive. Sending every hash through a fixed
+ * number of workers caps how many cores logins and registrations can use at
+ * once, so a burst of login attempts cannot starve catalog traffic. When the
+ * queue in front of the workers is full, new work is rejected at once
+ * instead of piling up.</p>
+ *
+ * <p>All services share one pool through {@link #shared()}.</p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class PasswordHasher {
+
+    /** Hashing jobs that may wait for a worker before new ones are rejected. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    private static final PasswordHasher SHARED = new PasswordHasher(
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2), DEFAULT_QUEUE_CAPACITY);
+
+    private final ThreadPoolExecutor pool;
+
+    /**
+     * Constructs a hasher.
+     *
+     * @param workers       number of hashing threads
+     * @param queueCapacity jobs that may wait for a worker
+     */
+    public PasswordHasher(int workers, int queueCapacity) {
+        AtomicInteger count = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "password-hasher-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Returns the pool shared by all services, sized to half the available cores.
+     *
+     * @return the shared hasher
+     */
+    public static PasswordHasher shared() {
+        return SHARED;
+    }
+
+    /**
+     * Hashes a password at the current cost on a hashing worker.
+     *
+     * @param password the plain text password
+     * @param salt     the Base64-encoded salt
+     * @return the encoded hash
+     * @throws RejectedExecutionException if the hashing queue is full
+     */
+    public String hash(String password, String salt) {
+        return run(() -> PasswordUtil.hashPassword(password, salt));
+    }
+
+    /**
+     * Verifies a password against a stored hash on a hashing worker.
+     *
+     * @param password   the plain text password
+     * @param salt       the Base64-encoded salt
+     * @param storedHash the stored hash, in either format
+     * @return {@code true} if the password matches
+     * @throws RejectedExecutionException if the hashing queue is full
+     */
+    public boolean verify(String password, String salt, String storedHash) {
+        return run(() -> PasswordUtil.verifyPassword(password, salt, storedHash));
+    }
+
+    /**
+     * Returns how many hashing jobs are waiting for a worker.
+     *
+     * @return the queue length
+     */
+    public int getQueuedJobs() {
+        return pool.getQueue().size();
+    }
+
+    private <T> T run(Callable<T> job) {
+        Future<T> future = pool.submit(job);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package service;
+
+import dao.BorrowRecordDAO;
+import dao.OutboxDAO;
+import model.Notice;
+import model.OutboxMessage;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Background job that sends overdue reminders once a day.
+ *
+ * <p>Every loan keeps a watermark: how many reminders it has had, when the
+ * last one went out, and when the next one is due. A run selects only loans
+ * that have just become overdue or whose next reminder date has arrived, so
+ * its work is proportional to what changed since yesterday rather than to
+ * the whole overdue set, and nobody hears about the same loan twice in one
+ * escalation step. After the first reminder a loan is reminded again every
+ * {@code escalationDays} days, up to {@code maxReminders} reminders in
+ * total; the last one is worded as a final notice.</p>
+ *
+ * <p>A user's due loans are combined into one email. The emails are queued
+ * in the notification outbox in the same transaction that moves the
+ * watermarks, and the {@link OutboxDispatcher} delivers them.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ *     ReminderScheduler reminders = new ReminderScheduler(new BorrowRecordDAO(), new OutboxDAO(), dispatcher);
+ *     reminders.start(LocalTime.of(8, 0));
+ *     ...
+ *     reminders.stop();
+ * </pre>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class ReminderScheduler {
+
+    /** Days between reminders about the same loan. */
+    public static final int DEFAULT_ESCALATION_DAYS = 7;
+
+    /** Reminders sent about one loan, counting the final notice. */
+    public static final int DEFAULT_MAX_REMINDERS = 3;
+
+    /** Time of day the daily run starts by default. */
+    public static final LocalTime DEFAULT_RUN_TIME = LocalTime.of(8, 0);
+
+    private static final MessageTemplate SUBJECT = MessageTemplate.compile(
+            "{{kind}}: {{count}} overdue item(s)");
+    private static final MessageTemplate GREETING = MessageTemplate.compile(
+            "Hello {{username}},\n\nThe following item(s) are overdue:\n");
+    private static final MessageTemplate ITEM = MessageTemplate.compile(
+            "  - {{title}}, due {{dueDate}} ({{days}} day(s) overdue) - {{step}}\n");
+    private static final MessageTemplate SIGN_OFF = MessageTemplate.compile(
+            "\nPlease return them as soon as possible.\n\nThank you,\n{{library}}\n");
+
+    private static final String LIBRARY_NAME = "The Library";
+
+    private final BorrowRecordDAO borrowRecordDAO;
+    private final OutboxDAO outboxDAO;
+    private final OutboxDispatcher outboxDispatcher;
+    private final Clock clock;
+    private final int escalationDays;
+    private final int maxReminders;
+
+    /** Runs the job in the background. */
+    private final JobSchedule schedule;
+
+    /**
+     * Constructs a scheduler with the default escalation policy.
+     *
+     * @param borrowRecordDAO  source of due loans and owner of their watermarks
+     * @param outboxDAO        outbox the reminders are queued in
+     * @param outboxDispatcher dispatcher woken after a run queues mail; may be {@code null}
+     */
+    public ReminderScheduler(BorrowRecordDAO borrowRecordDAO, OutboxDAO outboxDAO,
+                             OutboxDispatcher outboxDispatcher) {
+        this(borrowRecordDAO, outboxDAO, outboxDispatcher, Clock.systemDefaultZone(),
+                DEFAULT_ESCALATION_DAYS, DEFAULT_MAX_REMINDERS);
+    }
+
+    /**
+     * Constructs a scheduler with an explicit clock and escalation policy.
+     *
+     * @param borrowRecordDAO  source of due loans and owner of their watermarks
+     * @param outboxDAO        outbox the reminders are queued in
+     * @param outboxDispatcher dispatcher woken after a run queues mail; may be {@code null}
+     * @param clock            clock giving the current date and time
+     * @param escalationDays   days between reminders about the same loan
+     * @param maxReminders     reminders sent about one loan in total
+     * @throws IllegalArgumentException if {@code escalationDays} or {@code maxReminders} is below one
+     */
+    public ReminderScheduler(BorrowRecordDAO borrowRecordDAO, OutboxDAO outboxDAO,
+                             OutboxDispatcher outboxDispatcher, Clock clock,
+                             int escalationDays, int maxReminders) {
+        if (escalationDays < 1 || maxReminders < 1) {
+            throw new IllegalArgumentException("Escalation days and reminder count must be positive");
+        }
+        this.borrowRecordDAO = borrowRecordDAO;
+        this.outboxDAO = outboxDAO;
+        this.outboxDispatcher = outboxDispatcher;
+        this.clock = clock;
+        this.escalationDays = escalationDays;
+        this.maxReminders = maxReminders;
+        this.schedule = new JobSchedule("overdue-reminders", "Overdue reminder", clock, this::runOnce);
+    }
+
+    /**
+     * Runs one reminder pass for the current date.
+     *
+     * @return the number of reminder emails queued; -1 if the pass failed
+     */
+    public int runOnce() {
+        return runOnce(LocalDate.now(clock));
+    }
+
+    /**
+     * Runs one reminder pass. Running it again on the same date queues
+     * nothing, because every loan reminded about has moved its watermark.
+     *
+     * @param today the date to run for
+     * @return the number of reminder emails queued; -1 if the pass failed
+     */
+    public int runOnce(LocalDate today) {
+        List<Notice> due = borrowRecordDAO.findDueReminders(today);
+        if (due.isEmpty()) return 0;
+
+        List<OutboxMessage> messages = buildReminders(due, today);
+        if (!borrowRecordDAO.recordReminders(due, today, today.plusDays(escalationDays), maxReminders,
+                messages, outboxDAO, clock.millis())) {
+            System.err.println("Overdue reminder run for " + today + " failed; it will be retried.");
+            return -1;
+        }
+        System.out.println("Queued " + messages.size() + " overdue reminder(s) for " + due.size() + " loan(s).");
+        if (outboxDispatcher != null) {
+            outboxDispatcher.wake();
+        }
+        return messages.size();
+    }
+
+    /**
+     * Builds one reminder email per user from the loans due for a reminder.
+     *
+     * @param due   the due loans, grouped by user
+     * @param today the current date
+     * @return the emails, in the order the users first appear
+     */
+    private List<OutboxMessage> buildReminders(List<Notice> due, LocalDate today) {
+        Map<Integer, List<Notice>> byUser = new LinkedHashMap<>();
+        for (Notice notice : due) {
+            byUser.computeIfAbsent(notice.getUserId(), id -> new ArrayList<>()).add(notice);
+        }
+
+        List<OutboxMessage> messages = new ArrayList<>(byUser.size());
+        Map<String, Object> values = new HashMap<>();
+        for (List<Notice> loans : byUser.values()) {
+            messages.add(render(loans, today, values));
+        }
+        return messages;
+    }
+
+    private OutboxMessage render(List<Notice> loans, LocalDate today, Map<String, Object> values) {
+        Notice first = loans.get(0);
+        StringBuilder body = new StringBuilder(256);
+        values.clear();
+        values.put("username", first.getUsername());
+        GREETING.renderTo(body, values);
+
+        boolean finalNotice = false;
+        for (Notice loan : loans) {
+            int number = loan.getRemindersSent() + 1;
+            boolean last = number >= maxReminders;
+            finalNotice |= last;
+            values.put("title", loan.getTitle());
+            values.put("dueDate", loan.getDate());
+            values.put("days", ChronoUnit.DAYS.between(loan.getDate(), today));
+            values.put("step", last ? "final notice" : "reminder " + number + " of " + maxReminders);
+            ITEM.renderTo(body, values);
+        }
+        values.put("library", LIBRARY_NAME);
+        SIGN_OFF.renderTo(body, values);
+
+        values.put("kind", finalNotice ? "Final notice" : "Overdue reminder");
+        values.put("count", loans.size());
+        return new OutboxMessage(EmailNotifier.addressOf(first.getUsername(), first.getEmail()),
+                SUBJECT.render(values), body.toString());
+    }
+
+    /**
+     * Starts running a pass every day at the given time on a daemon thread.
+     * Calling this while the job is already running has no effect.
+     *
+     * @param runAt the local time of day to run at
+     */
+    public void start(LocalTime runAt) {
+        schedule.startDaily(runAt);
+    }
+
+    /**
+     * Stops the daily schedule. A pass that is already running completes.
+     */
+    public void stop() {
+        schedule.stop();
+    }
+
+    /**
+     * Checks whether the daily schedule is active.
+     *
+     * @return {@code true} if the job is scheduled; {@code false} otherwise
+     */
+    public boolean isRunning() {
+        return schedule.isRunning();
+    }
+}
@@ -0,0 +1,264 @@
+package service;
+
+import dao.HoldDAO;
+import model.Borrower;
+import model.Hold;
+import model.Media;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class responsible for holds (reservations) on media items that are
+ * currently out on loan.
+ *
+ * <p>Patrons join a first-in, first-out queue per item instead of polling the
+ * catalog. When the item is returned it is handed to the oldest waiting hold
+ * and kept for that patron for {@link #PICKUP_DAYS} days. A background sweeper
+ * expires uncollected holds and passes the item on.</p>
+ *
+ * <p>Holds are persisted through {@link HoldDAO}; queue positions are answered
+ * from an in-memory {@link HoldQueueIndex} without touching the database.</p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class ReservationService {
+
+    /** Number of days a returned item is kept for the next holder. */
+    public static final int PICKUP_DAYS = 3;
+
+    /** DAO used for persisting holds. */
+    private final HoldDAO holdDAO;
+
+    /** Clock giving today's date for pickup deadlines and expiry. */
+    private final Clock clock;
+
+    /** In-memory index of waiting holds per item. */
+    private final HoldQueueIndex queueIndex = new HoldQueueIndex();
+
+    /** Scheduler running the expiry sweeper; {@code null} while stopped. */
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * Constructs a {@code ReservationService}, initializes the holds table and
+     * loads the queue index from it.
+     */
+    public ReservationService() {
+        this(new HoldDAO());
+    }
+
+    /**
+     * Constructs a {@code ReservationService} over the given DAO.
+     *
+     * @param holdDAO the DAO used for persisting holds
+     */
+    public ReservationService(HoldDAO holdDAO) {
+        this(holdDAO, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a {@code ReservationService} over the given DAO that takes
+     * today's date from the given clock.
+     *
+     * @param holdDAO the DAO used for persisting holds
+     * @param clock   the clock giving the current date
+     */
+    public ReservationService(HoldDAO holdDAO, Clock clock) {
+        this.holdDAO = holdDAO;
+        this.clock = clock;
+        this.holdDAO.initializeTable();
+        rebuildIndex();
+    }
+
+    /**
+     * Reloads the queue index from the waiting holds in the database.
+     */
+    public void rebuildIndex() {
+        queueIndex.clear();
+        for (Hold hold : holdDAO.findWaiting()) {
+            queueIndex.add(hold.getMediaId(), hold.getId(), hold.getUserId());
+        }
+    }
+
+    /**
+     * Places a hold for the borrower at the end of the item's queue.
+     *
+     * @param borrower the borrower placing the hold
+     * @param media    the media item to hold
+     * @return the borrower's queue position; 0 if the hold could not be placed,
+     *         including when the item is on the shelf and can simply be borrowed
+     */
+    public int placeHold(Borrower borrower, Media media) {
+        if (!borrower.isLoggedIn()) {
+            System.out.println("Error: You must be logged in to place a hold.");
+            return 0;
+        }
+        if (media.isAvailable()) {
+            System.out.println("Error: '" + media.getTitle() + "' is available; borrow it instead.");
+            return 0;
+        }
+
+        long holdId = holdDAO.insert(media.getId(), borrower.getId());
+        if (holdId == -1) {
+            System.out.println("Error: You already have a hold on '" + media.getTitle() + "'.");
+            return 0;
+        }
+
+        queueIndex.add(media.getId(), holdId, borrower.getId());
+        int position = queueIndex.position(media.getId(), borrower.getId());
+        System.out.println("Hold placed on '" + media.getTitle() + "'. Queue position: " + position);
+        return position;
+    }
+
+    /**
+     * Cancels one of the borrower's waiting holds.
+     *
+     * @param borrower the borrower who owns the hold
+     * @param hold     the hold to cancel
+     * @return {@code true} if the hold was cancelled; {@code false} otherwise
+     */
+    public boolean cancelHold(Borrower borrower, Hold hold) {
+        if (!holdDAO.cancel(hold.getId(), borrower.getId())) {
+            System.out.println("Error: Only waiting holds can be cancelled.");
+            return false;
+        }
+        queueIndex.remove(hold.getMediaId(), hold.getId());
+        return true;
+    }
+
+    /**
+     * Returns the borrower's 1-based position in an item's hold queue.
+     *
+     * @param userId  the ID of the borrower
+     * @param mediaId the ID of the media item
+     * @return the queue position; 0 if the borrower is not waiting for the item
+     */
+    public int getQueuePosition(int userId, int mediaId) {
+        return queueIndex.position(mediaId, userId);
+    }
+
+    /**
+     * Returns how many patrons are waiting for an item.
+     *
+     * @param mediaId the ID of the media item
+     * @return the queue length
+     */
+    public int getQueueLength(int mediaId) {
+        return queueIndex.size(mediaId);
+    }
+
+    /**
+     * Lists the borrower's waiting and ready holds.
+     *
+     * @param userId the ID of the borrower
+     * @return the borrower's active holds
+     */
+    public List<Hold> getActiveHolds(int userId) {
+        return holdDAO.findActiveByUserId(userId);
+    }
+
+    /**
+     * Hands a returned item to the next holder, or releases it when nobody is waiting.
+     *
+     * @param mediaId the ID of the returned media item
+     * @return the hold that became ready; {@code null} if the item is available again
+     */
+    public Hold handOff(int mediaId) {
+        Hold next = holdDAO.handOff(mediaId, LocalDate.now(clock).plusDays(PICKUP_DAYS));
+        if (next != null) {
+            queueIndex.remove(mediaId, next.getId());
+            System.out.println("Item " + mediaId + " is now held for user " + next.getUserId()
+                    + " until " + next.getReadyUntil());
+        }
+        return next;
+    }
+
+    /**
+     * Records a hand-off made as part of another transaction, such as a batch
+     * return, so the hold leaves its queue in the index.
+     *
+     * @param hold the hold that became ready
+     */
+    public void handedOff(Hold hold) {
+        queueIndex.remove(hold.getMediaId(), hold.getId());
+        System.out.println("Item " + hold.getMediaId() + " is now held for user " + hold.getUserId()
+                + " until " + hold.getReadyUntil());
+    }
+
+    /**
+     * Releases every active hold of a patron whose account is being removed.
+     * Waiting holds are cancelled and leave the queue index; ready holds are
+     * expired so their items pass to the next holder instead of staying
+     * reserved for nobody.
+     *
+     * @param userId the ID of the patron
+     * @return the number of holds released
+     */
+    public int releaseHolds(int userId) {
+        LocalDate readyUntil = LocalDate.now(clock).plusDays(PICKUP_DAYS);
+        int released = 0;
+        for (Hold hold : holdDAO.findActiveByUserId(userId)) {
+            if (Hold.READY.equals(hold.getStatus())) {
+                Hold next = holdDAO.expireAndHandOff(hold, readyUntil);
+                if (next != null) {
+                    handedOff(next);
+                }
+            } else {
+                holdDAO.cancel(hold.getId(), userId);
+                queueIndex.remove(hold.getMediaId(), hold.getId());
+            }
+            released++;
+        }
+        return released;
+    }
+
+    /**
+     * Expires ready holds whose pickup window has passed and hands each item
+     * on to the next holder.
+     *
+     * @return the number of holds expired
+     */
+    public int sweepExpiredHolds() {
+        LocalDate today = LocalDate.now(clock);
+        int expired = 0;
+        for (Hold hold : holdDAO.findExpiredReady(today)) {
+            Hold next = holdDAO.expireAndHandOff(hold, today.plusDays(PICKUP_DAYS));
+            if (next != null) {
+                queueIndex.remove(next.getMediaId(), next.getId());
+            }
+            expired++;
+        }
+        return expired;
+    }
+
+    /**
+     * Starts the expiry sweeper on a daemon thread at a fixed rate.
+     * Calling this while the sweeper is already running has no effect.
+     *
+     * @param period the time between sweeps
+     * @param unit   the unit of {@code period}
+     */
+    public synchronized void startSweeper(long period, TimeUnit unit) {
+        if (sweeper != null) return;
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hold-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleAtFixedRate(this::sweepExpiredHolds, period, period, unit);
+    }
+
+    /**
+     * Stops the expiry sweeper.
+     */
+    public synchronized void stopSweeper() {
+        if (sweeper == null) return;
+        sweeper.shutdown();
+        sweeper = null;
+    }
+}
@@ -0,0 +1,167 @@
+package service;
+
+import dao.BookDAO;
+import model.Book;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * A concrete implementation of the {@link SearchStrategy} interface that
+ * matches a term against the title, author and ISBN of every book at once
+ * and returns the best matches first.
+ * <p>
+ * The candidates come from one scan through {@link BookDAO#searchByAnyField},
+ * so each book appears once however many fields it matches. Each candidate
+ * gets a score per field, weighted so a title match counts for more than an
+ * author match and an author match for more than an ISBN match, and within a
+ * field an exact match beats a prefix, a prefix beats the start of a word,
+ * and the start of a word beats any other substring.
+ * </p>
+ *
+ * <p>
+ * Only the best {@code maxResults} are kept, in a bounded min-heap whose head
+ * is the weakest result so far, so ranking n candidates costs O(n log k)
+ * instead of sorting all of them.
+ * </p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class SearchByAnyField implements SearchStrategy {
+
+    /** Number of results returned by default. */
+    public static final int DEFAULT_MAX_RESULTS = 20;
+
+    /** Weight of a match in the title. */
+    public static final int TITLE_WEIGHT = 3;
+
+    /** Weight of a match in the author. */
+    public static final int AUTHOR_WEIGHT = 2;
+
+    /** Weight of a match in the ISBN. */
+    public static final int ISBN_WEIGHT = 1;
+
+    /** Orders results best first: higher score, then title, then ID. */
+    private static final Comparator<ScoredBook> BEST_FIRST = Comparator
+            .comparingInt(ScoredBook::score).reversed()
+            .thenComparing(scored -> scored.book().getTitle(), String.CASE_INSENSITIVE_ORDER)
+            .thenComparingInt(scored -> scored.book().getId());
+
+    /**
+     * Data Access Object responsible for retrieving and querying book records
+     * from the underlying data source.
+     */
+    private final BookDAO bookDAO;
+
+    /** Most results returned by one search. */
+    private final int maxResults;
+
+    /**
+     * Creates a new instance of the {@code SearchByAnyField} strategy returning
+     * up to {@link #DEFAULT_MAX_RESULTS} books.
+     */
+    public SearchByAnyField() {
+        this(new BookDAO(), DEFAULT_MAX_RESULTS);
+    }
+
+    /**
+     * Creates a new instance of the {@code SearchByAnyField} strategy over the given DAO.
+     *
+     * @param bookDAO    the DAO to search
+     * @param maxResults the most results returned by one search
+     * @throws IllegalArgumentException if {@code maxResults} is below one
+     */
+    public SearchByAnyField(BookDAO bookDAO, int maxResults) {
+        if (maxResults < 1) {
+            throw new IllegalArgumentException("Result limit must be positive");
+        }
+        this.bookDAO = bookDAO;
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Searches for books whose title, author or ISBN contains the specified term.
+     *
+     * @param searchTerm the term to look for in every field; must not be null or empty
+     * @return up to {@code maxResults} matching {@link Book} objects, best match first,
+     *         or an empty list if no results are found
+     */
+    @Override
+    public List<Book> search(String searchTerm) {
+        // Min-heap of the best results so far; its head is the first to drop
+        PriorityQueue<ScoredBook> best = new PriorityQueue<>(maxResults + 1, BEST_FIRST.reversed());
+        for (Book book : bookDAO.searchByAnyField(searchTerm)) {
+            int score = score(book, searchTerm);
+            if (score == 0) continue;
+            best.add(new ScoredBook(book, score));
+            if (best.size() > maxResults) {
+                best.poll();
+            }
+        }
+
+        List<Book> results = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            results.add(best.poll().book());
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    /**
+     * Scores how well a book matches a term, summing the weighted match
+     * quality of each field.
+     *
+     * @param book the book to score
+     * @param term the search term
+     * @return the score; 0 if no field contains the term
+     */
+    public static int score(Book book, String term) {
+        String lower = term.toLowerCase(Locale.ROOT);
+        return TITLE_WEIGHT * matchQuality(book.getTitle(), lower)
+                + AUTHOR_WEIGHT * matchQuality(book.getAuthor(), lower)
+                + ISBN_WEIGHT * matchQuality(book.getIsbn(), lower);
+    }
+
+    /**
+     * Rates how a field contains a lower-case term: 4 for the whole field,
+     * 3 for a prefix, 2 for the start of a later word, 1 for any other
+     * substring and 0 for no match.
+     */
+    private static int matchQuality(String field, String term) {
+        if (field == null) return 0;
+        String value = field.toLowerCase(Locale.ROOT);
+        if (value.equals(term)) return 4;
+        if (value.startsWith(term)) return 3;
+
+        int quality = 0;
+        for (int at = value.indexOf(term, 1); at > 0; at = value.indexOf(term, at + 1)) {
+            if (!Character.isLetterOrDigit(value.charAt(at - 1))) return 2;
+            quality = 1;
+        }
+        return quality;
+    }
+
+    /** A candidate book and its score. */
+    private static final class ScoredBook {
+        private final Book book;
+        private final int score;
+
+        private ScoredBook(Book book, int score) {
+            this.book = book;
+            this.score = score;
+        }
+
+        private Book book() {
+            return book;
+        }
+
+        private int score() {
+            return score;
+        }
+    }
+}
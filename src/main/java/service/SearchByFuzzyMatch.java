@@ -0,0 +1,113 @@
+package service;
+
+import dao.MediaDAO;
+import model.Book;
+import model.Media;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A concrete implementation of the {@link SearchStrategy} interface that
+ * tolerates typos, so "Tolkein" still finds Tolkien's books.
+ * <p>
+ * The closest books come from {@link TrigramIndex#suggest}, which matches each
+ * word of the term to the words of the field within a few edits; they are then
+ * loaded by ID through {@link MediaDAO#findByIds} so their availability is
+ * current.
+ * </p>
+ *
+ * <p>
+ * It is meant as a "did you mean" fallback when an exact search finds
+ * nothing: unlike the other strategies it matches whole words, not any
+ * substring.
+ * </p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class SearchByFuzzyMatch implements SearchStrategy {
+
+    /** Number of results returned by default. */
+    public static final int DEFAULT_MAX_RESULTS = 10;
+
+    /** Index holding the words of the catalog. */
+    private final TrigramIndex index;
+
+    /** Field searched, or {@code null} for title or author. */
+    private final String field;
+
+    /** DAO loading the matching books. */
+    private final MediaDAO mediaDAO;
+
+    /** Most results returned by one search. */
+    private final int maxResults;
+
+    /**
+     * Creates a new instance of the {@code SearchByFuzzyMatch} strategy returning
+     * up to {@link #DEFAULT_MAX_RESULTS} books.
+     *
+     * @param index the index to search
+     * @param field {@link TrigramIndex#TITLE} or {@link TrigramIndex#AUTHOR};
+     *              {@code null} to match either
+     */
+    public SearchByFuzzyMatch(TrigramIndex index, String field) {
+        this(index, field, new MediaDAO(), DEFAULT_MAX_RESULTS);
+    }
+
+    /**
+     * Creates a new instance of the {@code SearchByFuzzyMatch} strategy loading books through the given DAO.
+     *
+     * @param index      the index to search
+     * @param field      {@link TrigramIndex#TITLE} or {@link TrigramIndex#AUTHOR};
+     *                   {@code null} to match either
+     * @param mediaDAO   the DAO loading the matching books
+     * @param maxResults the most results returned by one search
+     * @throws IllegalArgumentException if {@code maxResults} is below one
+     */
+    public SearchByFuzzyMatch(TrigramIndex index, String field, MediaDAO mediaDAO, int maxResults) {
+        if (maxResults < 1) {
+            throw new IllegalArgumentException("Result limit must be positive");
+        }
+        this.index = index;
+        this.field = field;
+        this.mediaDAO = mediaDAO;
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Searches for the books whose field is closest to the specified term.
+     *
+     * @param searchTerm the possibly misspelled words to look for; must not be null or empty
+     * @return up to {@code maxResults} {@link Book} objects, closest match first,
+     *         or an empty list if no book is close enough
+     */
+    @Override
+    public List<Book> search(String searchTerm) {
+        int[] ids = index.suggest(searchTerm, field, "book", maxResults);
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+
+        List<Integer> idList = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            idList.add(id);
+        }
+        Map<Integer, Book> byId = new HashMap<>();
+        for (Media media : mediaDAO.findByIds(idList)) {
+            if (media instanceof Book) {
+                byId.put(media.getId(), (Book) media);
+            }
+        }
+        List<Book> books = new ArrayList<>(byId.size());
+        for (int id : ids) {
+            Book book = byId.get(id);
+            if (book != null) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+}
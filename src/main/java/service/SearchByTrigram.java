@@ -0,0 +1,92 @@
+package service;
+
+import dao.MediaDAO;
+import model.Book;
+import model.Media;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A concrete implementation of the {@link SearchStrategy} interface that finds
+ * books through an in-memory {@link TrigramIndex} instead of a
+ * {@code LIKE '%term%'} scan of the books table.
+ * <p>
+ * The index answers which book IDs contain the term; the books themselves are
+ * then loaded by ID through {@link MediaDAO#findByIds}, so their availability
+ * is read fresh from the database and only the matching rows are touched.
+ * </p>
+ *
+ * <p>
+ * The index must be built before searching and kept up to date, which
+ * {@link BookService} does for every book it adds when given the index.
+ * </p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class SearchByTrigram implements SearchStrategy {
+
+    /** Index answering which books contain the term. */
+    private final TrigramIndex index;
+
+    /** Field searched, or {@code null} for title or author. */
+    private final String field;
+
+    /** DAO loading the matching books. */
+    private final MediaDAO mediaDAO;
+
+    /**
+     * Creates a new instance of the {@code SearchByTrigram} strategy over the given index.
+     *
+     * @param index the index to search
+     * @param field {@link TrigramIndex#TITLE} or {@link TrigramIndex#AUTHOR};
+     *              {@code null} to match either
+     */
+    public SearchByTrigram(TrigramIndex index, String field) {
+        this(index, field, new MediaDAO());
+    }
+
+    /**
+     * Creates a new instance of the {@code SearchByTrigram} strategy loading books through the given DAO.
+     *
+     * @param index    the index to search
+     * @param field    {@link TrigramIndex#TITLE} or {@link TrigramIndex#AUTHOR};
+     *                 {@code null} to match either
+     * @param mediaDAO the DAO loading the matching books
+     */
+    public SearchByTrigram(TrigramIndex index, String field, MediaDAO mediaDAO) {
+        this.index = index;
+        this.field = field;
+        this.mediaDAO = mediaDAO;
+    }
+
+    /**
+     * Searches for books whose field contains the specified term, ignoring case.
+     *
+     * @param searchTerm the substring to look for; must not be null or empty
+     * @return the matching {@link Book} objects in ID order,
+     *         or an empty list if no results are found
+     */
+    @Override
+    public List<Book> search(String searchTerm) {
+        int[] ids = index.search(searchTerm, field, "book");
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+
+        List<Integer> idList = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            idList.add(id);
+        }
+        List<Book> books = new ArrayList<>(ids.length);
+        for (Media media : mediaDAO.findByIds(idList)) {
+            if (media instanceof Book) {
+                books.add((Book) media);
+            }
+        }
+        books.sort(Comparator.comparingInt(Book::getId));
+        return books;
+    }
+}
@@ -0,0 +1,310 @@
+package service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * A bounded, thread-safe journal of sent emails.
+ *
+ * <p>Entries are kept in a fixed-size ring: once it is full, each new entry
+ * replaces the oldest, so memory use stays flat however long the process
+ * runs. Queries walk the ring under its lock and copy only the matching
+ * entries.</p>
+ *
+ * <p>Optionally, entries pushed out of the ring are appended to a log file
+ * on disk, one tab-separated line each. When the file grows past its size
+ * limit it is rotated ({@code sent-mail.log} to {@code sent-mail.log.1} and
+ * so on), and the oldest file beyond the file limit is deleted, so the disk
+ * footprint is bounded too. Evicted entries are queued under the journal's
+ * lock and written after it is released, by whichever recording thread
+ * holds the separate spill lock, so queries never wait on the disk.</p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>
+ *     SentMailJournal journal = new SentMailJournal(1000, Path.of("logs"), 10_000_000, 5);
+ *     journal.record(new EmailServer.Email("amy@example.com", "Hi", "Hello"));
+ *     List&lt;EmailServer.Email&gt; toAmy = journal.findByRecipient("amy@example.com");
+ * </pre>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class SentMailJournal {
+
+    /** Entries kept in memory by default. */
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    /** Name of the active spill file. */
+    public static final String LOG_NAME = "sent-mail.log";
+
+    private final EmailServer.Email[] ring;
+    private final Path spillDir;
+    private final long maxFileBytes;
+    private final int maxFiles;
+
+    /** Total entries ever recorded; the next write goes to {@code written % capacity}. */
+    private long written;
+    /** Entries currently in the ring. */
+    private int size;
+
+    /** Evicted entries waiting to be written, oldest first; guarded by the journal's lock. */
+    private final Deque<EmailServer.Email> pendingSpill = new ArrayDeque<>();
+
+    /** Serializes writes to the spill file; guards {@link #spill} and {@link #spillBytes}. */
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private BufferedWriter spill;
+    private long spillBytes;
+
+    /**
+     * Constructs an in-memory journal.
+     *
+     * @param capacity most entries kept
+     * @throws IllegalArgumentException if the capacity is below one
+     */
+    public SentMailJournal(int capacity) {
+        this(capacity, null, 0, 0);
+    }
+
+    /**
+     * Constructs a journal that spills evicted entries to a rotating log.
+     *
+     * @param capacity     most entries kept in memory
+     * @param spillDir     directory of the log files; {@code null} disables spilling
+     * @param maxFileBytes size after which the log file is rotated
+     * @param maxFiles     most log files kept, counting the active one
+     * @throws IllegalArgumentException if the capacity is below one, or spilling
+     *                                  is enabled with a non-positive size or file limit
+     */
+    public SentMailJournal(int capacity, Path spillDir, long maxFileBytes, int maxFiles) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        if (spillDir != null && (maxFileBytes <= 0 || maxFiles < 1)) {
+            throw new IllegalArgumentException("Spill file size and count must be positive");
+        }
+        this.ring = new EmailServer.Email[capacity];
+        this.spillDir = spillDir;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * Adds an entry, evicting the oldest one if the journal is full. An
+     * evicted entry is written to the spill log after the journal's lock is
+     * released.
+     *
+     * @param email the sent email
+     */
+    public void record(EmailServer.Email email) {
+        synchronized (this) {
+            int slot = (int) (written % ring.length);
+            EmailServer.Email evicted = ring[slot];
+            ring[slot] = email;
+            written++;
+            if (size < ring.length) {
+                size++;
+                return;
+            }
+            if (spillDir == null) return;
+            pendingSpill.addLast(evicted);
+        }
+        drainSpill();
+    }
+
+    /**
+     * Returns the entries sent to a recipient, oldest first.
+     *
+     * @param recipient the recipient address
+     * @return the matching entries still in memory
+     */
+    public List<EmailServer.Email> findByRecipient(String recipient) {
+        return find(email -> recipient.equals(email.getTo()));
+    }
+
+    /**
+     * Returns the entries sent within a time range, oldest first.
+     *
+     * @param fromMillis start of the range, inclusive, in epoch milliseconds
+     * @param toMillis   end of the range, exclusive, in epoch milliseconds
+     * @return the matching entries still in memory
+     */
+    public List<EmailServer.Email> findBetween(long fromMillis, long toMillis) {
+        return find(email -> email.getTimestamp() >= fromMillis && email.getTimestamp() < toMillis);
+    }
+
+    /**
+     * Returns every entry in memory, oldest first.
+     *
+     * @return a snapshot of the journal
+     */
+    public List<EmailServer.Email> snapshot() {
+        return find(email -> true);
+    }
+
+    /**
+     * Returns the number of entries in memory.
+     *
+     * @return the entry count; at most the capacity
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of entries recorded since the journal was created,
+     * including evicted ones.
+     *
+     * @return the total recorded
+     */
+    public synchronized long getTotalRecorded() {
+        return written;
+    }
+
+    /**
+     * Returns the most entries kept in memory.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    /**
+     * Drops the entries in memory. Spilled entries stay on disk.
+     */
+    public synchronized void clear() {
+        Arrays.fill(ring, null);
+        size = 0;
+    }
+
+    /**
+     * Writes any queued entries, then flushes and closes the spill file. A
+     * later spill reopens it.
+     */
+    public void close() {
+        spillLock.lock();
+        try {
+            writePending();
+            if (spill == null) return;
+            try {
+                spill.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close sent mail log: " + e.getMessage());
+            }
+            spill = null;
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    private synchronized List<EmailServer.Email> find(Predicate<EmailServer.Email> filter) {
+        List<EmailServer.Email> matches = new ArrayList<>();
+        long first = written - size;
+        for (long i = first; i < written; i++) {
+            EmailServer.Email email = ring[(int) (i % ring.length)];
+            if (filter.test(email)) matches.add(email);
+        }
+        return matches;
+    }
+
+    /**
+     * Writes queued entries unless another thread is already doing so. That
+     * thread rechecks the queue after releasing the spill lock, so an entry
+     * queued while it was writing is never left behind.
+     */
+    private void drainSpill() {
+        while (spillLock.tryLock()) {
+            try {
+                writePending();
+            } finally {
+                spillLock.unlock();
+            }
+            synchronized (this) {
+                if (pendingSpill.isEmpty()) return;
+            }
+        }
+    }
+
+    /**
+     * Takes queued entries in batches and appends them to the log, flushing
+     * once per batch. Called with the spill lock held.
+     */
+    private void writePending() {
+        while (true) {
+            List<EmailServer.Email> batch;
+            synchronized (this) {
+                if (pendingSpill.isEmpty()) return;
+                batch = new ArrayList<>(pendingSpill);
+                pendingSpill.clear();
+            }
+            try {
+                for (EmailServer.Email email : batch) {
+                    spill(email);
+                }
+                spill.flush();
+            } catch (IOException e) {
+                System.err.println("Failed to write sent mail log: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Appends an evicted entry to the log, rotating first if the file is full.
+     * A failing disk never fails a send; the batch is reported and dropped.
+     */
+    private void spill(EmailServer.Email email) throws IOException {
+        String line = email.getTimestamp() + "\t" + escape(email.getTo()) + "\t"
+                + escape(email.getSubject()) + "\t" + escape(email.getBody()) + "\n";
+        long bytes = line.getBytes(StandardCharsets.UTF_8).length;
+        if (spill == null) openSpill();
+        if (spillBytes > 0 && spillBytes + bytes > maxFileBytes) {
+            rotate();
+        }
+        spill.write(line);
+        spillBytes += bytes;
+    }
+
+    private void openSpill() throws IOException {
+        Files.createDirectories(spillDir);
+        Path active = spillDir.resolve(LOG_NAME);
+        spill = Files.newBufferedWriter(active, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        spillBytes = Files.size(active);
+    }
+
+    private void rotate() throws IOException {
+        spill.close();
+        spill = null;
+        Files.deleteIfExists(spillDir.resolve(LOG_NAME + "." + (maxFiles - 1)));
+        for (int i = maxFiles - 2; i >= 1; i--) {
+            Path older = spillDir.resolve(LOG_NAME + "." + i);
+            if (Files.exists(older)) {
+                Files.move(older, spillDir.resolve(LOG_NAME + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 1) {
+            Files.move(spillDir.resolve(LOG_NAME), spillDir.resolve(LOG_NAME + ".1"),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(spillDir.resolve(LOG_NAME));
+        }
+        openSpill();
+    }
+
+    private static String escape(String value) {
+        if (value == null) return "";
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+}
@@ -0,0 +1,283 @@
+package service;
+
+import model.Admin;
+import model.Session;
+import model.User;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory store of logged-in sessions keyed by opaque token.
+ *
+ * <p>Validating a token is a single hash lookup; it does not touch the
+ * database or re-hash a password. Every successful validation slides the
+ * session's expiry forward by the time-to-live. Each user may hold a limited
+ * number of sessions; opening one more ends that user's oldest session.</p>
+ *
+ * <p>Expired sessions are removed lazily. Each session sits in one slot of a
+ * hashed timer wheel chosen by its expiry time. Store operations advance the
+ * wheel to the current time and look only at the slots that have come due.
+ * A session whose expiry has slid further out since it was scheduled is put
+ * back into its new slot rather than evicted. The cost of eviction is
+ * therefore proportional to the sessions that are due, not to all sessions.</p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class SessionStore {
+
+    /** Default time a session stays valid after its last use. */
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(30);
+
+    /** Default number of concurrent sessions per user. */
+    public static final int DEFAULT_MAX_SESSIONS_PER_USER = 5;
+
+    /** Number of slots in the timer wheel. */
+    private static final int WHEEL_SLOTS = 64;
+
+    private final long ttlMillis;
+    private final int maxSessionsPerUser;
+    private final Clock clock;
+
+    /** Live sessions keyed by token. */
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /** Each user's sessions, oldest first. */
+    private final Map<String, Deque<Session>> sessionsByUser = new ConcurrentHashMap<>();
+
+    /** Timer wheel slots, each holding sessions scheduled to expire in that tick. */
+    private final Queue<Session>[] wheel;
+
+    /** Length of one wheel tick in milliseconds. */
+    private final long tickMillis;
+
+    /** Guards advancing the wheel; callers that lose the race skip eviction. */
+    private final ReentrantLock wheelLock = new ReentrantLock();
+
+    /** Last tick whose slot has been processed. */
+    private long currentTick;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Constructs a store with the default time-to-live and per-user cap.
+     */
+    public SessionStore() {
+        this(DEFAULT_TTL, DEFAULT_MAX_SESSIONS_PER_USER, Clock.systemUTC());
+    }
+
+    /**
+     * Constructs a store.
+     *
+     * @param ttl                time a session stays valid after its last use
+     * @param maxSessionsPerUser maximum concurrent sessions per user
+     * @param clock              clock used for expiry
+     */
+    @SuppressWarnings("unchecked")
+    public SessionStore(Duration ttl, int maxSessionsPerUser, Clock clock) {
+        if (ttl.isZero() || ttl.isNegative()) throw new IllegalArgumentException("TTL must be positive");
+        if (maxSessionsPerUser < 1) throw new IllegalArgumentException("Per-user cap must be at least 1");
+
+        this.ttlMillis = ttl.toMillis();
+        this.maxSessionsPerUser = maxSessionsPerUser;
+        this.clock = clock;
+        this.tickMillis = Math.max(1, ttlMillis / WHEEL_SLOTS);
+        this.wheel = new Queue[WHEEL_SLOTS];
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.currentTick = clock.millis() / tickMillis;
+    }
+
+    /**
+     * Opens a session for a logged-in user. If the user already holds the
+     * maximum number of sessions, the oldest one is ended.
+     *
+     * @param user the authenticated user; pass a loaded {@code Borrower} for patrons
+     * @return the new session
+     */
+    public Session open(User user) {
+        long now = clock.millis();
+        advance(now);
+
+        Session session = new Session(newToken(), user, now + ttlMillis);
+        sessions.put(session.getToken(), session);
+
+        Session evicted = null;
+        String key = userKey(user);
+        boolean added = false;
+        while (!added) {
+            Deque<Session> owned = sessionsByUser.computeIfAbsent(key, k -> new ArrayDeque<>());
+            synchronized (owned) {
+                // An emptied deque may have been unmapped concurrently; retry with the live one.
+                if (sessionsByUser.get(key) != owned) continue;
+                owned.addLast(session);
+                if (owned.size() > maxSessionsPerUser) {
+                    evicted = owned.pollFirst();
+                }
+                added = true;
+            }
+        }
+        if (evicted != null) {
+            end(evicted);
+        }
+        schedule(session);
+        return session;
+    }
+
+    /**
+     * Looks up a session and slides its expiry forward.
+     *
+     * @param token the session token; may be {@code null}
+     * @return the session, or {@code null} if the token is unknown or expired
+     */
+    public Session validate(String token) {
+        if (token == null) return null;
+        long now = clock.millis();
+        advance(now);
+
+        Session session = sessions.get(token);
+        if (session == null) return null;
+        if (session.isExpired(now)) {
+            end(session);
+            return null;
+        }
+        session.setExpiresAt(now + ttlMillis);
+        return session;
+    }
+
+    /**
+     * Ends a session, e.g. on logout.
+     *
+     * @param token the session token
+     * @return {@code true} if a live session was ended
+     */
+    public boolean invalidate(String token) {
+        Session session = token == null ? null : sessions.get(token);
+        return session != null && end(session);
+    }
+
+    /**
+     * Returns the number of sessions held, including expired ones not yet evicted.
+     *
+     * @return the session count
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Returns how many sessions a user holds.
+     *
+     * @param user the user
+     * @return the number of sessions
+     */
+    public int countFor(User user) {
+        Deque<Session> owned = sessionsByUser.get(userKey(user));
+        if (owned == null) return 0;
+        synchronized (owned) {
+            return owned.size();
+        }
+    }
+
+    /**
+     * Advances the timer wheel to the current time and evicts the sessions
+     * that have expired.
+     *
+     * @return the number of sessions evicted
+     */
+    public int evictExpired() {
+        return advance(clock.millis());
+    }
+
+    /**
+     * Processes every wheel slot between the last processed tick and now.
+     * If another thread is already advancing the wheel, this returns at once.
+     *
+     * @param now the current time in epoch milliseconds
+     * @return the number of sessions evicted
+     */
+    private int advance(long now) {
+        long targetTick = now / tickMillis;
+        if (targetTick <= currentTick || !wheelLock.tryLock()) return 0;
+
+        int evicted = 0;
+        try {
+            // One full turn visits every slot; skip ticks beyond that.
+            currentTick = Math.max(currentTick, targetTick - WHEEL_SLOTS);
+            while (currentTick < targetTick) {
+                currentTick++;
+                Queue<Session> slot = wheel[(int) (currentTick % WHEEL_SLOTS)];
+                for (int pending = slot.size(); pending > 0; pending--) {
+                    Session session = slot.poll();
+                    if (session == null) break;
+                    if (sessions.get(session.getToken()) != session) continue;
+                    if (session.isExpired(now)) {
+                        if (end(session)) evicted++;
+                    } else {
+                        schedule(session);
+                    }
+                }
+            }
+        } finally {
+            wheelLock.unlock();
+        }
+        return evicted;
+    }
+
+    /**
+     * Puts a session into the slot of the tick in which it expires.
+     *
+     * @param session the session to schedule
+     */
+    private void schedule(Session session) {
+        long tick = Math.max(session.getExpiresAt() / tickMillis + 1, currentTick + 1);
+        wheel[(int) (tick % WHEEL_SLOTS)].add(session);
+    }
+
+    /**
+     * Removes a session from the store and marks its user logged out.
+     *
+     * @param session the session to end
+     * @return {@code true} if this call removed the session
+     */
+    private boolean end(Session session) {
+        if (!sessions.remove(session.getToken(), session)) return false;
+
+        String key = userKey(session.getUser());
+        Deque<Session> owned = sessionsByUser.get(key);
+        if (owned != null) {
+            synchronized (owned) {
+                owned.remove(session);
+                if (owned.isEmpty()) {
+                    sessionsByUser.remove(key, owned);
+                }
+            }
+        }
+        session.getUser().setLoggedIn(false);
+        return true;
+    }
+
+    private static String userKey(User user) {
+        return (user instanceof Admin ? "admin:" : "user:") + user.getId();
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        StringBuilder token = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            token.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return token.toString();
+    }
+}
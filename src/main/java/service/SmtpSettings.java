@@ -0,0 +1,184 @@
+package service;
+
+import java.util.Properties;
+
+/**
+ * Connection settings for the SMTP server {@link EmailServer} sends through.
+ *
+ * <p>Instances are immutable; the {@code with...} methods return a changed
+ * copy. {@link #gmail()} gives the settings the library has always used.</p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public final class SmtpSettings {
+
+    /** Connections kept open to the SMTP server by default. */
+    public static final int DEFAULT_POOL_SIZE = 4;
+
+    /** Default time allowed to open a connection, in milliseconds. */
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10_000;
+
+    /** Default time allowed for the server to answer a command, in milliseconds. */
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 30_000;
+
+    /** Default idle time after which a pooled connection is closed instead of reused. */
+    public static final long DEFAULT_MAX_IDLE_MILLIS = 60_000;
+
+    /** Default number of messages sent over one connection before it is replaced. */
+    public static final int DEFAULT_MAX_MESSAGES_PER_CONNECTION = 100;
+
+    private final String host;
+    private final int port;
+    private final boolean startTls;
+    private final int poolSize;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final long maxIdleMillis;
+    private final int maxMessagesPerConnection;
+
+    /**
+     * Creates settings for the given server with STARTTLS and default pool
+     * size and timeouts.
+     *
+     * @param host the SMTP host name
+     * @param port the SMTP port
+     * @throws IllegalArgumentException if the host is empty or the port is out of range
+     */
+    public SmtpSettings(String host, int port) {
+        this(host, port, true, DEFAULT_POOL_SIZE, DEFAULT_CONNECT_TIMEOUT_MILLIS,
+                DEFAULT_READ_TIMEOUT_MILLIS, DEFAULT_MAX_IDLE_MILLIS, DEFAULT_MAX_MESSAGES_PER_CONNECTION);
+    }
+
+    private SmtpSettings(String host, int port, boolean startTls, int poolSize, int connectTimeoutMillis,
+                         int readTimeoutMillis, long maxIdleMillis, int maxMessagesPerConnection) {
+        if (host == null || host.isEmpty()) {
+            throw new IllegalArgumentException("SMTP host cannot be null or empty");
+        }
+        if (port < 1 || port > 65535) {
+            throw new IllegalArgumentException("SMTP port out of range: " + port);
+        }
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        if (connectTimeoutMillis < 0 || readTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Timeouts cannot be negative");
+        }
+        this.host = host;
+        this.port = port;
+        this.startTls = startTls;
+        this.poolSize = poolSize;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.maxIdleMillis = maxIdleMillis;
+        this.maxMessagesPerConnection = Math.max(1, maxMessagesPerConnection);
+    }
+
+    /**
+     * Returns the settings for Gmail's submission port.
+     *
+     * @return settings for {@code smtp.gmail.com:587} with STARTTLS
+     */
+    public static SmtpSettings gmail() {
+        return new SmtpSettings("smtp.gmail.com", 587);
+    }
+
+    /**
+     * Returns a copy that does or does not upgrade connections with STARTTLS.
+     *
+     * @param enabled whether to require STARTTLS
+     * @return the changed settings
+     */
+    public SmtpSettings withStartTls(boolean enabled) {
+        return new SmtpSettings(host, port, enabled, poolSize, connectTimeoutMillis,
+                readTimeoutMillis, maxIdleMillis, maxMessagesPerConnection);
+    }
+
+    /**
+     * Returns a copy with a different number of pooled connections.
+     *
+     * @param size the maximum number of open connections
+     * @return the changed settings
+     */
+    public SmtpSettings withPoolSize(int size) {
+        return new SmtpSettings(host, port, startTls, size, connectTimeoutMillis,
+                readTimeoutMillis, maxIdleMillis, maxMessagesPerConnection);
+    }
+
+    /**
+     * Returns a copy with different connect and read timeouts.
+     *
+     * @param connectMillis time allowed to open a connection; 0 waits forever
+     * @param readMillis    time allowed for each server reply; 0 waits forever
+     * @return the changed settings
+     */
+    public SmtpSettings withTimeouts(int connectMillis, int readMillis) {
+        return new SmtpSettings(host, port, startTls, poolSize, connectMillis,
+                readMillis, maxIdleMillis, maxMessagesPerConnection);
+    }
+
+    /**
+     * Returns a copy with different connection recycling limits.
+     *
+     * @param idleMillis  idle time after which a connection is replaced
+     * @param maxMessages messages sent over one connection before it is replaced
+     * @return the changed settings
+     */
+    public SmtpSettings withRecycling(long idleMillis, int maxMessages) {
+        return new SmtpSettings(host, port, startTls, poolSize, connectTimeoutMillis,
+                readTimeoutMillis, idleMillis, maxMessages);
+    }
+
+    /**
+     * Builds the Jakarta Mail session properties for these settings.
+     *
+     * @return a new properties object
+     */
+    public Properties toProperties() {
+        Properties props = new Properties();
+        props.put("mail.smtp.auth", "true");
+        props.put("mail.smtp.host", host);
+        props.put("mail.smtp.port", String.valueOf(port));
+        props.put("mail.smtp.connectiontimeout", String.valueOf(connectTimeoutMillis));
+        props.put("mail.smtp.timeout", String.valueOf(readTimeoutMillis));
+        if (startTls) {
+            props.put("mail.smtp.starttls.enable", "true");
+            props.put("mail.smtp.starttls.required", "true");
+            props.put("mail.smtp.ssl.trust", host);
+            props.put("mail.smtp.ssl.protocols", "TLSv1.2");
+        }
+        return props;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public boolean isStartTls() {
+        return startTls;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public int getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    public long getMaxIdleMillis() {
+        return maxIdleMillis;
+    }
+
+    public int getMaxMessagesPerConnection() {
+        return maxMessagesPerConnection;
+    }
+}
@@ -0,0 +1,174 @@
+package service;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A small pool of connected SMTP transports.
+ *
+ * <p>Opening an SMTP connection costs a TCP connect, the greeting, EHLO,
+ * usually STARTTLS and AUTH. The pool keeps up to
+ * {@link SmtpSettings#getPoolSize()} connections open and sends each message
+ * over an idle one, so a batch of messages pays the handshake once per
+ * connection instead of once per message.</p>
+ *
+ * <p>A connection is replaced when it has been idle longer than
+ * {@link SmtpSettings#getMaxIdleMillis()}, after
+ * {@link SmtpSettings#getMaxMessagesPerConnection()} messages, or when the
+ * server drops it. If a send fails and the connection turns out to be
+ * closed, the message is retried once on a new connection. A failure the
+ * server reports on an open connection, such as a rejected recipient, is
+ * not retried.</p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class SmtpTransportPool implements AutoCloseable {
+
+    private final Session session;
+    private final SmtpSettings settings;
+    private final BlockingQueue<PooledTransport> idle;
+    private final Semaphore permits;
+    private final AtomicLong connects = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Creates an empty pool; connections are opened on first use.
+     *
+     * @param session  the mail session transports are created from
+     * @param settings pool size and recycling limits
+     */
+    public SmtpTransportPool(Session session, SmtpSettings settings) {
+        this.session = session;
+        this.settings = settings;
+        this.idle = new ArrayBlockingQueue<>(settings.getPoolSize());
+        this.permits = new Semaphore(settings.getPoolSize(), true);
+    }
+
+    /**
+     * Sends a message over a pooled connection, waiting for one to become
+     * free if all are busy.
+     *
+     * @param message the message to send; {@code saveChanges()} is called here
+     * @throws MessagingException if the message cannot be sent
+     */
+    public void send(Message message) throws MessagingException {
+        if (closed) throw new MessagingException("SMTP transport pool is closed");
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an SMTP connection", e);
+        }
+
+        PooledTransport pooled = null;
+        try {
+            message.saveChanges();
+            pooled = borrow();
+            try {
+                pooled.transport.sendMessage(message, message.getAllRecipients());
+            } catch (MessagingException e) {
+                if (pooled.transport.isConnected()) throw e;
+                // The server dropped the connection; try once more on a fresh one.
+                discard(pooled);
+                pooled = null;
+                pooled = connect();
+                pooled.transport.sendMessage(message, message.getAllRecipients());
+            }
+            pooled.sent++;
+            pooled.lastUsed = System.currentTimeMillis();
+            if (pooled.sent < settings.getMaxMessagesPerConnection() && !closed && idle.offer(pooled)) {
+                pooled = null;
+            }
+        } finally {
+            discard(pooled);
+            permits.release();
+        }
+    }
+
+    /**
+     * Returns the mail session messages for this pool should be created in.
+     *
+     * @return the mail session
+     */
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * Returns how many connections the pool has opened over its lifetime.
+     *
+     * @return the number of SMTP handshakes performed
+     */
+    public long getConnectCount() {
+        return connects.get();
+    }
+
+    /**
+     * Returns the number of open connections waiting for work.
+     *
+     * @return the idle connection count
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Closes all idle connections and stops accepting work. Connections
+     * in use are closed as their sends finish.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        PooledTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            discard(pooled);
+        }
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        long now = System.currentTimeMillis();
+        PooledTransport pooled;
+        while ((pooled = idle.poll()) != null) {
+            if (now - pooled.lastUsed <= settings.getMaxIdleMillis()) return pooled;
+            discard(pooled);
+        }
+        return connect();
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        Transport transport = session.getTransport("smtp");
+        transport.connect();
+        connects.incrementAndGet();
+        return new PooledTransport(transport);
+    }
+
+    private static void discard(PooledTransport pooled) {
+        if (pooled == null) return;
+        try {
+            pooled.transport.close();
+        } catch (MessagingException e) {
+            // The connection is being thrown away; nothing more to do.
+        }
+    }
+
+    /**
+     * An open transport and how much it has been used.
+     */
+    private static final class PooledTransport {
+        final Transport transport;
+        int sent;
+        long lastUsed = System.currentTimeMillis();
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package service;
+
+import java.time.Clock;
+
+/**
+ * A token-bucket rate limiter.
+ *
+ * <p>The bucket holds up to {@code capacity} tokens and gains
+ * {@code ratePerSecond} tokens every second. Each permitted action takes one
+ * token. A full bucket allows a burst of {@code capacity} actions; after
+ * that, actions are spaced to the refill rate. Mail providers publish their
+ * send limits in this form, so the bucket keeps a dispatch run inside them.</p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class TokenBucket {
+
+    private final double ratePerMilli;
+    private final double capacity;
+    private final Clock clock;
+
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Constructs a full bucket on the system clock.
+     *
+     * @param ratePerSecond tokens added per second
+     * @param capacity      most tokens the bucket holds; the largest burst
+     */
+    public TokenBucket(double ratePerSecond, int capacity) {
+        this(ratePerSecond, capacity, Clock.systemUTC());
+    }
+
+    /**
+     * Constructs a full bucket.
+     *
+     * @param ratePerSecond tokens added per second
+     * @param capacity      most tokens the bucket holds; the largest burst
+     * @param clock         clock used to refill the bucket
+     * @throws IllegalArgumentException if the rate is not positive or the capacity is below one
+     */
+    public TokenBucket(double ratePerSecond, int capacity, Clock clock) {
+        if (!(ratePerSecond > 0)) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.ratePerMilli = ratePerSecond / 1000.0;
+        this.capacity = capacity;
+        this.clock = clock;
+        this.tokens = capacity;
+        this.lastRefill = clock.millis();
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @return {@code true} if a token was taken
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) return false;
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * Takes a token, waiting for the bucket to refill if it is empty.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitMillis;
+            synchronized (this) {
+                refill();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitMillis = (long) Math.ceil((1 - tokens) / ratePerMilli);
+            }
+            Thread.sleep(Math.max(1, waitMillis));
+        }
+    }
+
+    /**
+     * Returns the number of whole tokens available now.
+     *
+     * @return the available tokens
+     */
+    public synchronized int available() {
+        refill();
+        return (int) tokens;
+    }
+
+    private void refill() {
+        long now = clock.millis();
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerMilli);
+            lastRefill = now;
+        }
+    }
+}
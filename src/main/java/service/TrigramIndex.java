@@ -0,0 +1,634 @@
+package service;
+
+import model.Book;
+import model.CD;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index answering case-insensitive substring searches
+ * over the title, author, artist and genre of every book and CD, the way
+ * {@code LIKE '%term%'} does without scanning the catalog.
+ *
+ * <p>Every run of three characters in a lower-cased field is a trigram. The
+ * index keeps one posting list per trigram with the IDs of the media items
+ * containing it, stored as a sorted array of variable-length deltas, so a
+ * list of n IDs takes about n bytes. A term of three or more characters can
+ * only occur in an item holding all of its trigrams: the lists are
+ * intersected shortest first, and the few candidates left are checked
+ * against the field text itself. Shorter terms have no trigram and fall back
+ * to checking every item.</p>
+ *
+ * <p>Media IDs only grow, so adding an item appends to the end of each of its
+ * lists. The index is a cache of the catalog; {@link #rebuild} loads it and
+ * {@link BookService#addBook} and {@link CDService#addCD} keep it in step,
+ * while {@link CatalogIndexRefresher} adds items written by other processes.
+ * Searches may run concurrently with each other, and an update waits for
+ * searches in progress.</p>
+ *
+ * <p>For misspelled searches the index also keeps every distinct word of the
+ * indexed fields with the IDs of the items using it, arranged in a BK-tree by
+ * edit distance. {@link #suggest} looks up the words within a small
+ * Levenshtein distance of each word of the term, which only visits the part
+ * of the tree that can hold them, and ranks the items containing a close
+ * word for every term word by their total distance.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ *     TrigramIndex index = new TrigramIndex();
+ *     index.rebuild(bookService.getAllBooks(), cdService.getAllCDs());
+ *     int[] ids = index.search("tolk", TrigramIndex.AUTHOR, "book");
+ *     int[] closest = index.suggest("tolkein", TrigramIndex.AUTHOR, "book", 10);
+ * </pre>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class TrigramIndex {
+
+    /** Field name of a book's or CD's title. */
+    public static final String TITLE = "title";
+
+    /** Field name of a book's author. */
+    public static final String AUTHOR = "author";
+
+    /** Field name of a CD's artist. */
+    public static final String ARTIST = "artist";
+
+    /** Field name of a CD's genre. */
+    public static final String GENRE = "genre";
+
+    /** Indexed fields, in the order their text is stored per item. */
+    private static final List<String> FIELDS = List.of(TITLE, AUTHOR, ARTIST, GENRE);
+
+    /** Posting lists keyed by trigram. */
+    private final Map<Long, PostingList> postings = new HashMap<>();
+
+    /** Posting lists keyed by distinct lower-cased word. */
+    private final Map<String, PostingList> wordPostings = new HashMap<>();
+
+    /** The distinct words of {@link #wordPostings} by edit distance. */
+    private final WordTree words = new WordTree();
+
+    /** Lower-cased field text by media ID, in {@link #FIELDS} order; {@code null} if not indexed. */
+    private String[][] texts = new String[1024][];
+
+    /** Media type by media ID; {@code null} if not indexed. */
+    private String[] types = new String[1024];
+
+    /** Number of items indexed. */
+    private int size;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Replaces the whole index with the given catalog.
+     *
+     * @param books the books to index
+     * @param cds   the CDs to index
+     */
+    public void rebuild(List<Book> books, List<CD> cds) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            wordPostings.clear();
+            words.clear();
+            texts = new String[1024][];
+            types = new String[1024];
+            size = 0;
+            for (Book book : books) {
+                index(book.getId(), "book", book.getTitle(), book.getAuthor(), null, null);
+            }
+            for (CD cd : cds) {
+                index(cd.getId(), "cd", cd.getTitle(), null, cd.getArtist(), cd.getGenre());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a book's title and author to the index.
+     *
+     * @param book the book to add
+     */
+    public void addBook(Book book) {
+        lock.writeLock().lock();
+        try {
+            index(book.getId(), "book", book.getTitle(), book.getAuthor(), null, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a CD's title, artist and genre to the index.
+     *
+     * @param cd the CD to add
+     */
+    public void addCD(CD cd) {
+        lock.writeLock().lock();
+        try {
+            index(cd.getId(), "cd", cd.getTitle(), null, cd.getArtist(), cd.getGenre());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the media items whose field contains the term, ignoring case.
+     *
+     * @param term      the substring to look for; must not be empty
+     * @param field     one of {@link #TITLE}, {@link #AUTHOR}, {@link #ARTIST} or
+     *                  {@link #GENRE}; {@code null} for any of them
+     * @param mediaType {@code "book"} or {@code "cd"}; {@code null} for both
+     * @return the matching media IDs in ascending order
+     * @throws IllegalArgumentException if {@code field} is not an indexed field
+     */
+    public int[] search(String term, String field, String mediaType) {
+        int fieldIndex = field == null ? -1 : FIELDS.indexOf(field);
+        if (field != null && fieldIndex < 0) {
+            throw new IllegalArgumentException("Not an indexed field: " + field);
+        }
+        String lower = term.toLowerCase(Locale.ROOT);
+
+        lock.readLock().lock();
+        try {
+            int[] candidates;
+            int count;
+            if (lower.length() < 3) {
+                candidates = allIds();
+                count = candidates.length;
+            } else {
+                PostingList[] lists = listsFor(lower);
+                if (lists == null) return new int[0];
+                Arrays.sort(lists, (a, b) -> Integer.compare(a.count, b.count));
+                candidates = lists[0].toArray();
+                count = candidates.length;
+                for (int i = 1; i < lists.length && count > 0; i++) {
+                    count = lists[i].retainIn(candidates, count);
+                }
+            }
+
+            int matches = 0;
+            for (int i = 0; i < count; i++) {
+                int id = candidates[i];
+                if ((mediaType == null || mediaType.equals(types[id])) && contains(texts[id], fieldIndex, lower)) {
+                    candidates[matches++] = id;
+                }
+            }
+            return Arrays.copyOf(candidates, matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the media items closest to a possibly misspelled term. Each word
+     * of the term matches a word of the field within a few edits: none for
+     * words of up to three characters, one for up to five and two for longer
+     * words. Items need a match for every word of the term.
+     *
+     * @param term       the words to look for; must not be empty
+     * @param field      one of {@link #TITLE}, {@link #AUTHOR}, {@link #ARTIST} or
+     *                   {@link #GENRE}; {@code null} for any of them
+     * @param mediaType  {@code "book"} or {@code "cd"}; {@code null} for both
+     * @param maxResults the most IDs returned
+     * @return the matching media IDs, fewest edits first and then by ID
+     * @throws IllegalArgumentException if {@code field} is not an indexed field
+     *                                  or {@code maxResults} is below one
+     */
+    public int[] suggest(String term, String field, String mediaType, int maxResults) {
+        int fieldIndex = field == null ? -1 : FIELDS.indexOf(field);
+        if (field != null && fieldIndex < 0) {
+            throw new IllegalArgumentException("Not an indexed field: " + field);
+        }
+        if (maxResults < 1) {
+            throw new IllegalArgumentException("Result limit must be positive");
+        }
+        List<String> termWords = tokenize(term.toLowerCase(Locale.ROOT));
+        if (termWords.isEmpty()) return new int[0];
+
+        lock.readLock().lock();
+        try {
+            // The vocabulary words close to each term word, rarest term word first
+            List<Map<String, Integer>> closeWords = new ArrayList<>();
+            for (String termWord : termWords) {
+                Map<String, Integer> close = words.within(termWord, maxEdits(termWord));
+                if (close.isEmpty()) return new int[0];
+                closeWords.add(close);
+            }
+            closeWords.sort((a, b) -> Long.compare(postingCount(a), postingCount(b)));
+
+            // Candidates are the items using a word close to the rarest term word
+            Map<Integer, Integer> seed = new HashMap<>();
+            for (Map.Entry<String, Integer> close : closeWords.get(0).entrySet()) {
+                for (int id : wordPostings.get(close.getKey()).toArray()) {
+                    seed.merge(id, close.getValue(), Math::min);
+                }
+            }
+            int[] candidates = seed.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            int[] totals = new int[candidates.length];
+            for (int i = 0; i < candidates.length; i++) {
+                totals[i] = seed.get(candidates[i]);
+            }
+
+            // Every other term word adds its fewest edits, dropping candidates without a close word
+            int count = candidates.length;
+            for (int w = 1; w < closeWords.size() && count > 0; w++) {
+                int[] best = new int[count];
+                Arrays.fill(best, Integer.MAX_VALUE);
+                for (Map.Entry<String, Integer> close : closeWords.get(w).entrySet()) {
+                    int[] hits = Arrays.copyOf(candidates, count);
+                    int hitCount = wordPostings.get(close.getKey()).retainIn(hits, count);
+                    for (int h = 0, c = 0; h < hitCount; h++) {
+                        while (candidates[c] != hits[h]) c++;
+                        best[c] = Math.min(best[c], close.getValue());
+                    }
+                }
+                int kept = 0;
+                for (int c = 0; c < count; c++) {
+                    if (best[c] == Integer.MAX_VALUE) continue;
+                    candidates[kept] = candidates[c];
+                    totals[kept++] = totals[c] + best[c];
+                }
+                count = kept;
+            }
+
+            List<int[]> ranked = new ArrayList<>();
+            for (int c = 0; c < count; c++) {
+                int id = candidates[c];
+                if (mediaType != null && !mediaType.equals(types[id])) continue;
+                int total = fieldIndex < 0 ? totals[c] : fieldDistance(texts[id][fieldIndex], termWords);
+                if (total >= 0) ranked.add(new int[]{id, total});
+            }
+            ranked.sort((a, b) -> a[1] != b[1] ? Integer.compare(a[1], b[1]) : Integer.compare(a[0], b[0]));
+
+            int[] ids = new int[Math.min(maxResults, ranked.size())];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = ranked.get(i)[0];
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Computes the Levenshtein distance between two strings, giving up once it
+     * exceeds a bound.
+     *
+     * @param a   the first string
+     * @param b   the second string
+     * @param max the largest distance of interest
+     * @return the number of single-character insertions, deletions and
+     *         substitutions turning {@code a} into {@code b}, or {@code max + 1}
+     *         if more than {@code max} are needed
+     */
+    public static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) return max + 1;
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1], previous[j]) + 1, previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            // Distances never shrink from one row to the next
+            if (rowMin > max) return max + 1;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    /**
+     * Returns the number of media items indexed.
+     *
+     * @return the item count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores an item's fields and appends its ID to the list of every trigram
+     * in them. Must be called with the write lock held.
+     */
+    private void index(int id, String mediaType, String title, String author, String artist, String genre) {
+        if (id >= texts.length) {
+            int capacity = Math.max(id + 1, texts.length * 2);
+            texts = Arrays.copyOf(texts, capacity);
+            types = Arrays.copyOf(types, capacity);
+        }
+        if (texts[id] == null) size++;
+
+        String[] fields = {lower(title), lower(author), lower(artist), lower(genre)};
+        texts[id] = fields;
+        types[id] = mediaType;
+        for (String text : fields) {
+            if (text == null) continue;
+            for (int i = 0; i + 3 <= text.length(); i++) {
+                postings.computeIfAbsent(trigram(text, i), key -> new PostingList()).add(id);
+            }
+            for (String word : tokenize(text)) {
+                PostingList list = wordPostings.get(word);
+                if (list == null) {
+                    list = new PostingList();
+                    wordPostings.put(word, list);
+                    words.add(word);
+                }
+                list.add(id);
+            }
+        }
+    }
+
+    /** Returns how many item IDs the posting lists of the given words hold together. */
+    private long postingCount(Map<String, Integer> closeWords) {
+        long total = 0;
+        for (String word : closeWords.keySet()) {
+            total += wordPostings.get(word).count;
+        }
+        return total;
+    }
+
+    /**
+     * Sums the fewest edits from each term word to a word of the field text,
+     * or returns -1 if some term word has no word close enough.
+     */
+    private static int fieldDistance(String text, List<String> termWords) {
+        if (text == null) return -1;
+        List<String> fieldWords = tokenize(text);
+        int total = 0;
+        for (String termWord : termWords) {
+            int max = maxEdits(termWord);
+            int best = max + 1;
+            for (String fieldWord : fieldWords) {
+                best = Math.min(best, editDistance(termWord, fieldWord, max));
+            }
+            if (best > max) return -1;
+            total += best;
+        }
+        return total;
+    }
+
+    /** Returns the edits allowed when matching a term word: more for longer words. */
+    private static int maxEdits(String word) {
+        if (word.length() <= 3) return 0;
+        return word.length() <= 5 ? 1 : 2;
+    }
+
+    /** Splits lower-cased text into its runs of letters and digits. */
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the posting list of every distinct trigram of a term, or
+     * {@code null} if one of them occurs nowhere.
+     */
+    private PostingList[] listsFor(String term) {
+        Set<Long> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            trigrams.add(trigram(term, i));
+        }
+        PostingList[] lists = new PostingList[trigrams.size()];
+        int i = 0;
+        for (long trigram : trigrams) {
+            PostingList list = postings.get(trigram);
+            if (list == null) return null;
+            lists[i++] = list;
+        }
+        return lists;
+    }
+
+    /** Returns the IDs of all indexed items in ascending order. */
+    private int[] allIds() {
+        int[] ids = new int[size];
+        int count = 0;
+        for (int id = 0; id < texts.length && count < size; id++) {
+            if (texts[id] != null) ids[count++] = id;
+        }
+        return ids;
+    }
+
+    /** Checks whether the given field, or any field for -1, contains the lower-cased term. */
+    private static boolean contains(String[] fields, int fieldIndex, String term) {
+        if (fieldIndex >= 0) {
+            return fields[fieldIndex] != null && fields[fieldIndex].contains(term);
+        }
+        for (String text : fields) {
+            if (text != null && text.contains(term)) return true;
+        }
+        return false;
+    }
+
+    private static String lower(String text) {
+        return text == null ? null : text.toLowerCase(Locale.ROOT);
+    }
+
+    /** Packs the three characters starting at {@code i} into one key. */
+    private static long trigram(String text, int i) {
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    /**
+     * Sorted media IDs stored as variable-length deltas: seven bits per byte,
+     * the high bit set on every byte but the last of each delta.
+     */
+    private static final class PostingList {
+        private byte[] bytes = new byte[4];
+        private int length;
+        private int count;
+        private int last;
+
+        /**
+         * Adds an ID. IDs above the last one are appended in O(1) and the last
+         * one again is ignored; anything else re-encodes the list, which only
+         * happens when an item is re-indexed.
+         */
+        void add(int id) {
+            if (count > 0 && id == last) return;
+            if (id > last || count == 0) {
+                append(id - last);
+                last = id;
+                count++;
+                return;
+            }
+            int[] ids = toArray();
+            int at = Arrays.binarySearch(ids, id);
+            if (at >= 0) return;
+
+            int insert = -at - 1;
+            int[] merged = new int[ids.length + 1];
+            System.arraycopy(ids, 0, merged, 0, insert);
+            merged[insert] = id;
+            System.arraycopy(ids, insert, merged, insert + 1, ids.length - insert);
+            length = 0;
+            count = 0;
+            last = 0;
+            for (int value : merged) {
+                append(value - last);
+                last = value;
+                count++;
+            }
+        }
+
+        /** Decodes the whole list. */
+        int[] toArray() {
+            int[] ids = new int[count];
+            int pos = 0;
+            int id = 0;
+            for (int i = 0; i < count; i++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id += delta;
+                ids[i] = id;
+            }
+            return ids;
+        }
+
+        /**
+         * Keeps only the first {@code n} sorted candidates that are also in
+         * this list, decoding it once and stopping when the candidates run out.
+         *
+         * @return the number of candidates kept at the front of the array
+         */
+        int retainIn(int[] candidates, int n) {
+            int kept = 0;
+            int next = 0;
+            int pos = 0;
+            int id = 0;
+            for (int i = 0; i < count && next < n; i++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id += delta;
+                while (next < n && candidates[next] < id) next++;
+                if (next < n && candidates[next] == id) {
+                    candidates[kept++] = id;
+                    next++;
+                }
+            }
+            return kept;
+        }
+
+        private void append(int delta) {
+            if (length + 5 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + 5, bytes.length * 2));
+            }
+            while ((delta & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            bytes[length++] = (byte) delta;
+        }
+    }
+
+    /**
+     * BK-tree of distinct words: every child hangs off its parent under its
+     * edit distance to the parent, so by the triangle inequality a search for
+     * words within {@code k} of a term only descends into children whose key
+     * is within {@code k} of the term's distance to the parent.
+     */
+    private static final class WordTree {
+        private Node root;
+
+        void add(String word) {
+            if (root == null) {
+                root = new Node(word);
+                return;
+            }
+            Node node = root;
+            while (true) {
+                int distance = editDistance(word, node.word, Integer.MAX_VALUE - 1);
+                if (distance == 0) return;
+                Node child = node.children.get(distance);
+                if (child == null) {
+                    node.children.put(distance, new Node(word));
+                    return;
+                }
+                node = child;
+            }
+        }
+
+        /** Returns the words within {@code max} edits of the term, with their distances. */
+        Map<String, Integer> within(String term, int max) {
+            Map<String, Integer> found = new HashMap<>();
+            if (root == null) return found;
+            Deque<Node> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                Node node = pending.pop();
+                int distance = editDistance(term, node.word, Integer.MAX_VALUE - 1);
+                if (distance <= max) {
+                    found.put(node.word, distance);
+                }
+                for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                    if (Math.abs(child.getKey() - distance) <= max) {
+                        pending.push(child.getValue());
+                    }
+                }
+            }
+            return found;
+        }
+
+        void clear() {
+            root = null;
+        }
+
+        private static final class Node {
+            private final String word;
+            private final Map<Integer, Node> children = new HashMap<>(4);
+
+            private Node(String word) {
+                this.word = word;
+            }
+        }
+    }
+}
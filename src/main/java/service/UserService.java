@@ -1,9 +1,14 @@
 package service;
 
 import dao.UserDAO;
+import model.Borrower;
+import model.Session;
 import model.User;
 import dao.PasswordUtil;
 
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Service class responsible for handling user-related business logic,
  * including registration, authentication, input validation, and secure
@@ -29,6 +34,15 @@ public class UserService {
      */
     private final UserDAO userDAO;
 
+    /** Store that issues and validates session tokens. */
+    private final SessionStore sessionStore;
+
+    /** Bounded pool that runs password hashing. */
+    private final PasswordHasher passwordHasher = PasswordHasher.shared();
+
+    /** Admission control that turns away login bursts before any lookup or hashing. */
+    private final LoginThrottle loginThrottle;
+
     /**
      * Constructs a new {@code UserService} instance.
      * <p>
@@ -39,7 +53,29 @@ public class UserService {
      */
 
     public UserService() {
+        this(new SessionStore());
+    }
+
+    /**
+     * Constructs a new {@code UserService} that issues sessions from the given store.
+     *
+     * @param sessionStore the session store shared with other services
+     */
+    public UserService(SessionStore sessionStore) {
+        this(sessionStore, new LoginThrottle());
+    }
+
+    /**
+     * Constructs a new {@code UserService} that issues sessions from the given
+     * store and admits login attempts through the given throttle.
+     *
+     * @param sessionStore  the session store shared with other services
+     * @param loginThrottle the login admission control shared with other services
+     */
+    public UserService(SessionStore sessionStore, LoginThrottle loginThrottle) {
         this.userDAO = new UserDAO();
+        this.sessionStore = sessionStore;
+        this.loginThrottle = loginThrottle;
         this.userDAO.initializeTable();
     }
 
@@ -61,6 +97,19 @@ public class UserService {
      */
 
     public User register(String username, String password) {
+        return register(username, password, null);
+    }
+
+    /**
+     * Registers a new user with the address notifications are sent to.
+     *
+     * @param username the desired username for the new user
+     * @param password the raw password to be hashed and stored securely
+     * @param email    the user's email address; {@code null} to store none
+     * @return the newly created {@link User}, or {@code null} if registration fails
+     */
+
+    public User register(String username, String password, String email) {
         if (username == null || username.trim().isEmpty() ||
                 password == null || password.trim().isEmpty()) {
             System.err.println("Error: Username and password cannot be empty");
@@ -74,15 +123,44 @@ public class UserService {
         }
 
         String salt = PasswordUtil.generateSalt();
-        String passwordHash = PasswordUtil.hashPassword(password, salt);
+        String passwordHash;
+        try {
+            passwordHash = passwordHasher.hash(password, salt);
+        } catch (RejectedExecutionException e) {
+            System.out.println("Server busy, please try again.");
+            return null;
+        }
 
-        if (userDAO.insert(username, passwordHash, salt)) {
+        boolean inserted = email == null || email.trim().isEmpty()
+                ? userDAO.insert(username, passwordHash, salt)
+                : userDAO.insert(username, passwordHash, salt, email.trim());
+        if (inserted) {
             System.out.println("User registered successfully: " + username);
             return userDAO.findByUsername(username);
         }
 
         return null;
     }
+    /**
+     * Changes the address notifications for a user are sent to.
+     *
+     * @param user  the user to update
+     * @param email the new email address
+     * @return {@code true} if the address was stored; {@code false} otherwise
+     */
+
+    public boolean updateEmail(User user, String email) {
+        if (user == null || email == null || !email.contains("@")) {
+            System.err.println("Error: A valid email address is required");
+            return false;
+        }
+        if (userDAO.updateEmail(user.getId(), email.trim())) {
+            user.setEmail(email.trim());
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Authenticates a user by verifying the existence of the username and
      * comparing the hashed form of the entered password with the stored hash.
@@ -91,8 +169,17 @@ public class UserService {
      * <ul>
      *   <li>The username does not exist in the database</li>
      *   <li>The password does not match the stored hash</li>
+     *   <li>The password hashing pool is saturated</li>
+     *   <li>Too many recent attempts were made for this username or overall</li>
      * </ul>
      * </p>
+     * <p>
+     * Attempts are admitted through the {@link LoginThrottle} first, so a
+     * rejected attempt costs neither a lookup nor a hash. Hashing runs on the
+     * shared {@link PasswordHasher} pool. After a successful login, a hash in
+     * the legacy format or at a lower cost than the current setting is
+     * recomputed and stored.
+     * </p>
      *
      * @param username the username of the account attempting to log in
      * @param password the raw password provided by the user
@@ -100,6 +187,12 @@ public class UserService {
      *         or {@code null} if authentication fails
      */
     public User login(String username, String password) {
+        Duration wait = loginThrottle.tryAcquire(throttleKey(username));
+        if (!wait.isZero()) {
+            System.out.println("Too many login attempts, try again in " + ((wait.toMillis() + 999) / 1000) + " seconds.");
+            return null;
+        }
+
         User user = userDAO.findByUsername(username);
 
         if (user == null) {
@@ -107,9 +200,16 @@ public class UserService {
             return null;
         }
 
-        String inputHash = PasswordUtil.hashPassword(password, user.getSalt());
+        boolean matches;
+        try {
+            matches = passwordHasher.verify(password, user.getSalt(), user.getPasswordHash());
+        } catch (RejectedExecutionException e) {
+            System.out.println("Server busy, please try again.");
+            return null;
+        }
 
-        if (user.getPasswordHash().equals(inputHash)) {
+        if (matches) {
+            upgradeHashIfNeeded(user, password);
             user.setLoggedIn(true);
             System.out.println("Login successful, welcome " + username + "!");
             return user;
@@ -118,4 +218,69 @@ public class UserService {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Reports how long a login for the given username would currently have
+     * to wait, without counting an attempt.
+     *
+     * @param username the username about to log in
+     * @return {@link Duration#ZERO} if a login attempt would be admitted now
+     */
+    public Duration loginRetryAfter(String username) {
+        return loginThrottle.retryAfter(throttleKey(username));
+    }
+
+    private static String throttleKey(String username) {
+        return "user:" + username;
+    }
+
+    /**
+     * Re-hashes a password at the current cost when the stored hash is outdated.
+     * A failed upgrade is retried on the next login.
+     *
+     * @param user     the authenticated user
+     * @param password the password the user just proved
+     */
+    private void upgradeHashIfNeeded(User user, String password) {
+        if (!PasswordUtil.needsRehash(user.getPasswordHash())) return;
+        try {
+            String salt = PasswordUtil.generateSalt();
+            String passwordHash = passwordHasher.hash(password, salt);
+            if (userDAO.updatePasswordHash(user.getId(), passwordHash, salt)) {
+                user.setPasswordHash(passwordHash);
+                user.setSalt(salt);
+            }
+        } catch (RejectedExecutionException e) {
+            System.out.println("Password hash upgrade deferred: hashing pool busy.");
+        }
+    }
+
+    /**
+     * Logs a patron in and opens a session for them. The session holds a
+     * {@link Borrower} for the user, which callers load once and then reuse
+     * for as long as the session lives.
+     *
+     * @param username the username of the account attempting to log in
+     * @param password the raw password provided by the user
+     * @return the new {@link Session}, or {@code null} if authentication fails
+     */
+    public Session openSession(String username, String password) {
+        User user = login(username, password);
+        if (user == null) return null;
+
+        Borrower borrower = new Borrower(user.getId(), user.getUsername(),
+                user.getPasswordHash(), user.getSalt());
+        borrower.setEmail(user.getEmail());
+        borrower.setLoggedIn(true);
+        return sessionStore.open(borrower);
+    }
+
+    /**
+     * Returns the store holding this service's sessions.
+     *
+     * @return the session store
+     */
+    public SessionStore getSessionStore() {
+        return sessionStore;
+    }
+}
@@ -1,19 +1,21 @@
 import service.*;
 
 import dao.AdminDAO;
+import dao.OutboxDAO;
 import dao.UserDAO;
 import model.Admin;
+import model.Session;
 import model.User;
-import model.UserWithOverdueBooks;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 import service.EmailNotifier;
 import service.EmailServer;
 import dao.PasswordUtil;
 
 import java.lang.reflect.Field;
-import java.util.List;
+import java.time.LocalDate;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,6 +27,9 @@ public class AdminServiceTest {
     private UserDAO userDAOMock;
     private EmailServer emailServerMock;
     private EmailNotifier emailNotifierMock;
+    private OutboxDAO outboxDAOMock;
+    private NotificationDigestService digestServiceMock;
+    private ReservationService reservationServiceMock;
 
     @BeforeEach
     public void setup() throws Exception {
@@ -34,11 +39,17 @@ public class AdminServiceTest {
         userDAOMock = Mockito.mock(UserDAO.class);
         emailServerMock = Mockito.mock(EmailServer.class);
         emailNotifierMock = Mockito.mock(EmailNotifier.class);
+        outboxDAOMock = Mockito.mock(OutboxDAO.class);
+        digestServiceMock = Mockito.mock(NotificationDigestService.class);
+        reservationServiceMock = Mockito.mock(ReservationService.class);
 
         injectField(adminService, "adminDAO", adminDAOMock);
         injectField(adminService, "userDAO", userDAOMock);
         injectField(adminService, "emailServer", emailServerMock);
         injectField(adminService, "emailNotifier", emailNotifierMock);
+        injectField(adminService, "outboxDAO", outboxDAOMock);
+        injectField(adminService, "digestService", digestServiceMock);
+        injectField(adminService, "reservationService", reservationServiceMock);
     }
 
     private void injectField(Object target, String fieldName, Object value) throws Exception {
@@ -97,6 +108,20 @@ public class AdminServiceTest {
         assertNull(result);
     }
 
+    @Test
+    public void testOpenSession_IssuesAdminToken() {
+        Admin admin = new Admin(1, "admin", PasswordUtil.hashPassword("pass", "salt"), "salt");
+        when(adminDAOMock.findByUsername("admin")).thenReturn(admin);
+
+        Session session = adminService.openSession("admin", "pass");
+
+        assertNotNull(session);
+        assertTrue(session.isAdmin());
+        assertNull(session.getBorrower());
+        assertTrue(adminService.getSessionStore().invalidate(session.getToken()));
+        assertFalse(admin.isLoggedIn());
+    }
+
     @Test
     public void testLogin_UserNotFound() {
         when(adminDAOMock.findByUsername("unknown")).thenReturn(null);
@@ -110,41 +135,44 @@ public class AdminServiceTest {
 
     @Test
     public void testUnregisterUser() {
+        when(userDAOMock.findByUsername("john")).thenReturn(new User(7, "john", "hash", "salt"));
         when(userDAOMock.delete("john")).thenReturn(true);
 
         boolean result = adminService.unregisterUser("john");
 
         assertTrue(result);
-        verify(userDAOMock).delete("john");
+        InOrder order = inOrder(reservationServiceMock, userDAOMock);
+        order.verify(reservationServiceMock).releaseHolds(7);
+        order.verify(userDAOMock).delete("john");
     }
 
-    // -------------------------------------------------------------------------
-
     @Test
-    public void testSendOverdueReminders_SendsEmails() {
-        UserWithOverdueBooks overdueUser = new UserWithOverdueBooks(1, "john", 2);
-        BorrowingService borrowingService = mock(BorrowingService.class);
+    public void testUnregisterUser_UnknownUser() {
+        assertFalse(adminService.unregisterUser("nobody"));
+        verify(userDAOMock, never()).delete(anyString());
+        verifyNoInteractions(reservationServiceMock);
+    }
 
-        when(borrowingService.getUsersWithOverdueBooks())
-                .thenReturn(List.of(overdueUser));
+    // -------------------------------------------------------------------------
 
-        User dbUser = new User(1, "john", "hash", "salt");
-        when(userDAOMock.findByUsername("john")).thenReturn(dbUser);
+    @Test
+    public void testSendNotificationDigests_QueuesDigests() {
+        when(digestServiceMock.queueDigests(any(LocalDate.class))).thenReturn(2);
 
-        adminService.sendOverdueReminders(borrowingService);
+        assertEquals(2, adminService.sendNotificationDigests());
 
-        verify(emailNotifierMock).notify(dbUser, "You have 2 overdue book(s).");
+        verify(digestServiceMock).queueDigests(LocalDate.now());
+        // Delivery happens later, on the outbox dispatcher.
+        verify(emailNotifierMock, never()).notify(any(), anyString());
     }
 
     @Test
-    public void testSendOverdueReminders_NoEmailServer() throws Exception {
+    public void testSendNotificationDigests_NoEmailServer() throws Exception {
         injectField(adminService, "emailNotifier", null);
 
-        BorrowingService borrowingService = mock(BorrowingService.class);
-
-        adminService.sendOverdueReminders(borrowingService);
+        assertEquals(0, adminService.sendNotificationDigests());
 
-        verify(emailNotifierMock, never()).notify(any(), anyString());
+        verify(digestServiceMock, never()).queueDigests(any());
     }
 
     // -------------------------------------------------------------------------
@@ -0,0 +1,146 @@
+import model.Borrower;
+import model.Hold;
+import model.Media;
+import model.ReturnOutcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.BorrowingService;
+import service.ReservationService;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks in drop-box returns by media ID against real tables on a temporary
+ * SQLite file.
+ */
+class BatchReturnTest {
+
+    private static final LocalDate TODAY = TestLibrary.TODAY;
+
+    @TempDir
+    Path tempDir;
+
+    private TestLibrary library;
+    private ReservationService reservationService;
+    private BorrowingService borrowingService;
+    private int amy;
+    private int ben;
+
+    @BeforeEach
+    void setUp() {
+        library = TestLibrary.open(tempDir);
+        reservationService = library.reservationService();
+        borrowingService = library.borrowingService(reservationService);
+        amy = library.user("amy");
+        ben = library.user("ben");
+    }
+
+    @AfterEach
+    void tearDown() {
+        library.close();
+    }
+
+    @Test
+    void testReturnsLoansOfSeveralUsersAndChargesFines() {
+        int dune = lend(amy, "Dune", TODAY.plusDays(5));
+        int emma = lend(amy, "Emma", TODAY.minusDays(3));
+        int ulysses = lend(ben, "Ulysses", TODAY.minusDays(1));
+        long amyVersion = library.borrowRecordDAO.findStateVersion(amy);
+
+        List<ReturnOutcome> outcomes = borrowingService.returnBatch(List.of(dune, emma, ulysses));
+
+        assertEquals(3, outcomes.size());
+        assertTrue(outcomes.stream().allMatch(ReturnOutcome::isReturned));
+        assertEquals(List.of(dune, emma, ulysses), outcomes.stream().map(ReturnOutcome::getMediaId).toList());
+        assertEquals(0.0, outcomes.get(0).getFine());
+        assertEquals(30.0, outcomes.get(1).getFine());
+        assertEquals(10.0, outcomes.get(2).getFine());
+        assertEquals(30.0, library.fineDAO.getFineBalance(amy));
+        assertEquals(10.0, library.fineDAO.getFineBalance(ben));
+        assertTrue(library.borrowRecordDAO.findActiveByUserId(amy).isEmpty());
+        assertTrue(library.borrowRecordDAO.findActiveByUserId(ben).isEmpty());
+        // Two returns and one fine for amy
+        assertEquals(amyVersion + 3, library.borrowRecordDAO.findStateVersion(amy));
+        assertTrue(library.mediaDAO.claimAvailability(dune));
+        assertTrue(library.mediaDAO.claimAvailability(ulysses));
+    }
+
+    @Test
+    void testItemWithWaitingHoldIsHandedToTheHolder() {
+        int dune = lend(amy, "Dune", TODAY.plusDays(5));
+        assertTrue(reservationService.placeHold(patron(ben), media(dune)) > 0);
+
+        ReturnOutcome outcome = borrowingService.returnBatch(List.of(dune)).get(0);
+
+        assertTrue(outcome.isReturned());
+        Hold hold = outcome.getHeldFor();
+        assertNotNull(hold);
+        assertEquals(ben, hold.getUserId());
+        assertEquals(Hold.READY, hold.getStatus());
+        assertEquals(TODAY.plusDays(ReservationService.PICKUP_DAYS), hold.getReadyUntil());
+        assertEquals(0, reservationService.getQueueLength(dune));
+        assertFalse(library.mediaDAO.claimAvailability(dune));
+    }
+
+    @Test
+    void testUnknownAndDuplicateIdsAreReportedOnce() {
+        int dune = lend(amy, "Dune", TODAY.plusDays(5));
+        int shelved = library.mediaDAO.insert("On the shelf", "book");
+
+        List<ReturnOutcome> outcomes = borrowingService.returnBatch(List.of(dune, 999, dune, shelved));
+
+        assertEquals(3, outcomes.size());
+        assertTrue(outcomes.get(0).isReturned());
+        assertEquals(ReturnOutcome.NOT_ON_LOAN, outcomes.get(1).getStatus());
+        assertEquals(ReturnOutcome.NOT_ON_LOAN, outcomes.get(2).getStatus());
+
+        // Checking the same item in again finds no active loan
+        assertEquals(ReturnOutcome.NOT_ON_LOAN, borrowingService.returnBatch(List.of(dune)).get(0).getStatus());
+    }
+
+    @Test
+    void testLargeBatchIsClosedInGroups() {
+        List<Integer> mediaIds = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            mediaIds.add(lend(i % 2 == 0 ? amy : ben, "Item " + i, TODAY.minusDays(i % 3)));
+        }
+
+        List<ReturnOutcome> outcomes = borrowingService.returnBatch(mediaIds, 4);
+
+        assertTrue(outcomes.stream().allMatch(ReturnOutcome::isReturned));
+        assertEquals(0, library.borrowRecordDAO.countActiveByUserId(amy));
+        assertEquals(0, library.borrowRecordDAO.countActiveByUserId(ben));
+        double charged = outcomes.stream().mapToDouble(ReturnOutcome::getFine).sum();
+        assertEquals(charged, library.fineDAO.getFineBalance(amy) + library.fineDAO.getFineBalance(ben), 0.001);
+    }
+
+    @Test
+    void testRejectsNonPositiveBatchSize() {
+        assertThrows(IllegalArgumentException.class, () -> borrowingService.returnBatch(List.of(1), 0));
+    }
+
+    private int lend(int userId, String title, LocalDate dueDate) {
+        int mediaId = library.mediaDAO.insert(title, "book");
+        assertTrue(library.bookDAO.insert(mediaId, "Author", "isbn-" + mediaId) >= 0);
+        assertTrue(library.mediaDAO.claimAvailability(mediaId));
+        assertTrue(library.borrowRecordDAO.insert(userId, mediaId, "book", title, dueDate.minusDays(28), dueDate) > 0);
+        return mediaId;
+    }
+
+    private Borrower patron(int userId) {
+        Borrower borrower = new Borrower(userId, "patron", "hash", "salt");
+        borrower.setLoggedIn(true);
+        return borrower;
+    }
+
+    private Media media(int mediaId) {
+        return new Media(mediaId, "held", false, "book");
+    }
+}
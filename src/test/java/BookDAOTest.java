@@ -293,6 +293,34 @@ class BookDAOTest {
         }
     }
 
+    // ------------------ searchByAnyField() ------------------
+
+    @Test
+    void testSearchByAnyField_bindsTermForEveryField() throws SQLException {
+        Connection mockConn = mock(Connection.class);
+        PreparedStatement mockStmt = mock(PreparedStatement.class);
+        ResultSet mockRs = mock(ResultSet.class);
+
+        when(mockConn.prepareStatement(anyString())).thenReturn(mockStmt);
+        when(mockStmt.executeQuery()).thenReturn(mockRs);
+        when(mockRs.next()).thenReturn(true, false);
+        when(mockRs.getInt("id")).thenReturn(1);
+        when(mockRs.getString("title")).thenReturn("Title");
+        when(mockRs.getString("author")).thenReturn("Author");
+        when(mockRs.getString("isbn")).thenReturn("123456");
+        when(mockRs.getInt("available")).thenReturn(1);
+
+        try (MockedStatic<DatabaseConnection> dbMock = mockStatic(DatabaseConnection.class)) {
+            dbMock.when(DatabaseConnection::getConnection).thenReturn(mockConn);
+
+            List<Book> books = bookDAO.searchByAnyField("Auth");
+            assertEquals(1, books.size());
+            verify(mockStmt).setObject(1, "%Auth%");
+            verify(mockStmt).setObject(2, "%Auth%");
+            verify(mockStmt).setObject(3, "%Auth%");
+        }
+    }
+
     // ------------------ searchByISBNPattern() ------------------
 
     @Test
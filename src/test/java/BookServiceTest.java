@@ -161,6 +161,38 @@ public class BookServiceTest {
         verify(bookDAOMock).searchByISBNPattern("978");
     }
 
+    @Test
+    public void testSearchBooks_ByAnyField_RanksOneScan() {
+        Book byAuthor = new Book(1, "Clean Code", "Robert Martin", "111", true);
+        Book byTitle = new Book(2, "Martin Eden", "Jack London", "222", true);
+        when(bookDAOMock.searchByAnyField("Martin")).thenReturn(List.of(byAuthor, byTitle));
+
+        List<Book> results = bookService.searchBooks(" Martin ", "any");
+
+        assertEquals(List.of(byTitle, byAuthor), results);
+        verify(bookDAOMock).searchByAnyField("Martin");
+        verify(bookDAOMock, never()).searchByTitle(anyString());
+    }
+
+    @Test
+    public void testSuggestBooks_BuildsIndexOnce() {
+        Book hobbit = new Book(1, "The Hobbit", "J.R.R. Tolkien", "111", true);
+        Book dune = new Book(2, "Dune", "Frank Herbert", "222", true);
+        when(bookDAOMock.findAll()).thenReturn(List.of(hobbit));
+        when(mediaDAOMock.findByIds(List.of(1))).thenReturn(List.of(hobbit));
+        when(mediaDAOMock.findByIds(List.of(2))).thenReturn(List.of(dune));
+        when(bookDAOMock.findByISBN("222")).thenReturn(null);
+        when(mediaDAOMock.insert("Dune", "book")).thenReturn(2);
+        when(bookDAOMock.insert(2, "Frank Herbert", "222")).thenReturn(2);
+
+        assertEquals(List.of(hobbit), bookService.suggestBooks("Tolkein", "author"));
+        assertEquals(List.of(hobbit), bookService.suggestBooks("Hobit", "title"));
+        bookService.addBook("Dune", "Frank Herbert", "222");
+        assertEquals(List.of(dune), bookService.suggestBooks("Herbrt", "author"));
+
+        verify(bookDAOMock, times(1)).findAll();
+    }
+
     @Test
     public void testSearchBooks_InvalidType_UsesTitle() {
         when(bookDAOMock.searchByTitle("Test")).thenReturn(List.of());
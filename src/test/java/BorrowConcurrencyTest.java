@@ -0,0 +1,118 @@
+import dao.BaseDAO;
+import dao.DatabaseConnection;
+import model.Book;
+import model.Borrower;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.BorrowingService;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress harness: many borrowers race for the same few copies through the
+ * real {@link BorrowingService} and SQLite, and no copy may be borrowed twice.
+ */
+class BorrowConcurrencyTest {
+
+    private static final int BORROWERS = 32;
+    private static final int COPIES = 20;
+
+    @TempDir
+    Path tempDir;
+
+    private TestLibrary library;
+    private BorrowingService borrowingService;
+    private final List<Integer> mediaIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        library = TestLibrary.openShared(tempDir);
+        borrowingService = new BorrowingService();
+        for (int i = 0; i < COPIES; i++) {
+            mediaIds.add(library.mediaDAO.insert("Copy " + i, "book"));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        library.close();
+    }
+
+    @Test
+    void testRuntimeFailureRollsBackTheClaim() {
+        int mediaId = mediaIds.get(0);
+        ClaimThenFailDAO dao = new ClaimThenFailDAO();
+
+        assertThrows(IllegalStateException.class, () -> dao.claimThenFail(mediaId));
+        // Restoring auto-commit must not have committed the claim
+        assertTrue(library.mediaDAO.claimAvailability(mediaId));
+    }
+
+    @Test
+    void testNoDoubleBorrowsUnderContention() throws Exception {
+        AtomicInteger successes = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(BORROWERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int b = 1; b <= BORROWERS; b++) {
+                int borrowerId = b;
+                futures.add(executor.submit(() -> {
+                    Borrower borrower = new Borrower(borrowerId, "patron" + borrowerId, "hash", "salt");
+                    borrower.setLoggedIn(true);
+                    start.await();
+                    for (int mediaId : mediaIds) {
+                        // Every session holds its own stale copy that still claims to be available.
+                        Book copy = new Book(mediaId, "Copy", "Author", "isbn-" + mediaId, true);
+                        if (borrowingService.borrowMedia(borrower, copy)) {
+                            successes.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(COPIES, successes.get());
+        assertEquals(COPIES, count("SELECT COUNT(*) FROM borrow_records WHERE returned = 0"));
+        assertEquals(0, count("SELECT COUNT(*) FROM (SELECT media_id FROM borrow_records " +
+                "WHERE returned = 0 GROUP BY media_id HAVING COUNT(*) > 1)"));
+        assertEquals(0, count("SELECT COUNT(*) FROM media WHERE available = 1"));
+    }
+
+    private int count(String sql) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : -1;
+        }
+    }
+
+    /** Claims a copy inside a transaction, then fails the way a buggy row mapper would. */
+    private static class ClaimThenFailDAO extends BaseDAO {
+        void claimThenFail(int mediaId) {
+            executeInTransaction(conn -> {
+                executeUpdateIn(conn, "UPDATE media SET available = 0 WHERE id = ?", mediaId);
+                throw new IllegalStateException("mapper failed");
+            }, null);
+        }
+    }
+}
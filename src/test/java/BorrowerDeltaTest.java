@@ -0,0 +1,151 @@
+import model.Borrower;
+import model.BorrowerDelta;
+import model.Hold;
+import model.Media;
+import model.MediaRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.BorrowerService;
+import service.BorrowingService;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Applies borrow, return and payment change sets against real tables on a
+ * temporary SQLite file, with a second session writing underneath.
+ */
+class BorrowerDeltaTest {
+
+    private static final LocalDate TODAY = TestLibrary.TODAY;
+
+    @TempDir
+    Path tempDir;
+
+    private TestLibrary library;
+    private BorrowingService borrowingService;
+    private BorrowerService borrowerService;
+    private Borrower amy;
+
+    @BeforeEach
+    void setUp() {
+        library = TestLibrary.open(tempDir);
+        borrowingService = library.borrowingService(library.reservationService());
+        borrowerService = new BorrowerService(library.clock);
+        amy = library.borrower("amy");
+    }
+
+    @AfterEach
+    void tearDown() {
+        library.close();
+    }
+
+    @Test
+    void testEveryLoanAndLedgerChangeMovesTheVersion() {
+        assertEquals(0, amy.getStateVersion());
+        int mediaId = library.mediaDAO.insert("Dune", "book");
+        int recordId = library.borrowRecordDAO.insert(amy.getId(), mediaId, "book", "Dune", TODAY, TODAY.plusDays(28));
+        assertEquals(1, library.borrowRecordDAO.findStateVersion(amy.getId()));
+
+        assertTrue(library.borrowRecordDAO.markAsReturned(recordId, TODAY, 0.0));
+        assertEquals(2, library.borrowRecordDAO.findStateVersion(amy.getId()));
+
+        assertTrue(library.fineDAO.addFine(amy.getId(), 5.0));
+        assertTrue(library.fineDAO.payFine(amy.getId(), 5.0));
+        assertEquals(4, library.borrowRecordDAO.findStateVersion(amy.getId()));
+
+        assertEquals(1, library.fineDAO.compactSnapshots());
+        assertEquals(4, library.borrowRecordDAO.findStateVersion(amy.getId()));
+    }
+
+    @Test
+    void testBorrowReturnAndPayStayInStepWithoutReloading() {
+        Media dune = media("Dune");
+
+        BorrowerDelta borrowed = borrowingService.borrow(amy, dune);
+        assertTrue(borrowed.applyTo(amy));
+        assertEquals(1, amy.getBorrowedMedia().size());
+        assertEquals(library.borrowRecordDAO.findStateVersion(amy.getId()), amy.getStateVersion());
+
+        // Make the loan overdue so the return charges a fine
+        MediaRecord loan = amy.getBorrowedMedia().get(0);
+        amy.setBorrowedMedia(new java.util.ArrayList<>(java.util.List.of(
+                new MediaRecord(loan.getRecordId(), dune, TODAY.minusDays(2)))));
+
+        BorrowerDelta returned = borrowingService.returnItem(amy, dune);
+        assertTrue(returned.applyTo(amy));
+        assertTrue(amy.getBorrowedMedia().isEmpty());
+        assertEquals(20.0, amy.getFineBalance());
+        assertEquals(20.0, library.fineDAO.getFineBalance(amy.getId()));
+
+        BorrowerDelta paid = borrowerService.pay(amy, 15.0);
+        assertTrue(paid.applyTo(amy));
+        assertEquals(5.0, amy.getFineBalance());
+        assertEquals(5.0, library.fineDAO.getFineBalance(amy.getId()));
+        assertEquals(library.borrowRecordDAO.findStateVersion(amy.getId()), amy.getStateVersion());
+    }
+
+    @Test
+    void testChangeFromAnotherSessionForcesReload() {
+        Media dune = media("Dune");
+        Media emma = media("Emma");
+        assertTrue(borrowingService.borrowMedia(amy, dune));
+
+        // Another session borrows for the same user and is charged a fine
+        Borrower elsewhere = new Borrower(amy.getId(), "amy", "hash", "salt");
+        elsewhere.setLoggedIn(true);
+        borrowerService.loadBorrowerData(elsewhere);
+        assertTrue(borrowingService.borrowMedia(elsewhere, emma));
+        assertTrue(library.fineDAO.addFine(amy.getId(), 3.0));
+
+        BorrowerDelta delta = borrowingService.returnItem(amy, dune);
+        assertFalse(delta.applyTo(amy));
+        // The stale borrower keeps its old version, so the next check reloads it
+        assertTrue(borrowerService.refreshIfStale(amy));
+        assertEquals(1, amy.getBorrowedMedia().size());
+        assertEquals("Emma", amy.getBorrowedMedia().get(0).getMedia().getTitle());
+        assertEquals(3.0, amy.getFineBalance());
+        assertFalse(borrowerService.refreshIfStale(amy));
+    }
+
+    @Test
+    void testWrapperReloadsBorrowerThatMissedAChange() {
+        Media dune = media("Dune");
+        assertTrue(borrowingService.borrowMedia(amy, dune));
+        assertTrue(library.fineDAO.addFine(amy.getId(), 4.0));
+
+        assertTrue(borrowingService.returnMedia(amy, dune));
+        assertTrue(amy.getBorrowedMedia().isEmpty());
+        assertEquals(4.0, amy.getFineBalance());
+        assertFalse(borrowerService.refreshIfStale(amy));
+    }
+
+    @Test
+    void testRefusedWritesReturnTheEmptyChangeSet() {
+        Media dune = media("Dune");
+        BorrowerDelta borrowed = library.borrowRecordDAO.borrow(amy.getId(), dune, TODAY, TODAY.plusDays(28));
+        assertFalse(borrowed.isEmpty());
+
+        assertSame(BorrowerDelta.NONE, library.borrowRecordDAO.borrow(amy.getId(), dune, TODAY, TODAY.plusDays(28)));
+        List<Hold> handedTo = new ArrayList<>();
+        assertFalse(library.borrowRecordDAO.returnLoan(amy.getId(), borrowed.getBorrowed().get(0), TODAY, 0.0,
+                TODAY.plusDays(3), handedTo).isEmpty());
+        assertSame(BorrowerDelta.NONE, library.borrowRecordDAO.returnLoan(amy.getId(), borrowed.getBorrowed().get(0),
+                TODAY, 0.0, TODAY.plusDays(3), handedTo));
+        assertTrue(handedTo.isEmpty());
+        assertSame(BorrowerDelta.NONE, library.fineDAO.pay(amy.getId(), 1.0));
+        assertNull(library.fineDAO.pay(amy.getId(), 0.0));
+    }
+
+    private Media media(String title) {
+        int id = library.mediaDAO.insert(title, "book");
+        assertTrue(library.bookDAO.insert(id, "Author", "isbn-" + id) >= 0);
+        return new Media(id, title, true, "book");
+    }
+}
@@ -1,6 +1,7 @@
 import dao.BorrowRecordDAO;
 import dao.FineDAO;
 import model.Borrower;
+import model.BorrowerDelta;
 import model.Media;
 import model.MediaRecord;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,6 +13,7 @@ import java.io.PrintStream;
 import java.lang.reflect.Field;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -76,7 +78,7 @@ class BorrowerServiceTest {
         assertFalse(borrowerService.payFine(borrower, 0));   // zero
         assertFalse(borrowerService.payFine(borrower, 50));  // more than balance
 
-        verify(fineDAOMock, never()).payFine(anyInt(), anyDouble());
+        verify(fineDAOMock, never()).pay(anyInt(), anyDouble());
     }
 
     // -----------------------------------------------------------
@@ -85,14 +87,17 @@ class BorrowerServiceTest {
     @Test
     void testPayFine_Success() {
         borrower.setFineBalance(20);
+        borrower.setStateVersion(2);
 
-        when(fineDAOMock.payFine(1, 10.0)).thenReturn(true);
+        when(fineDAOMock.pay(1, 10.0)).thenReturn(BorrowerDelta.paid(10.0, 3));
 
         boolean result = borrowerService.payFine(borrower, 10.0);
 
         assertTrue(result);
         assertEquals(10.0, borrower.getFineBalance());  // updated balance
-        verify(fineDAOMock).payFine(1, 10.0);
+        assertEquals(3, borrower.getStateVersion());
+        verify(fineDAOMock).pay(1, 10.0);
+        verify(fineDAOMock, never()).getFineBalance(anyInt());
     }
 
     // -----------------------------------------------------------
@@ -102,8 +107,8 @@ class BorrowerServiceTest {
     void testPayFine_DAOFails() {
         borrower.setFineBalance(20);
 
-        when(fineDAOMock.payFine(1, 10.0))
-                .thenReturn(false);
+        when(fineDAOMock.pay(1, 10.0))
+                .thenReturn(BorrowerDelta.NONE);
 
         boolean result = borrowerService.payFine(borrower, 10.0);
 
@@ -114,7 +119,7 @@ class BorrowerServiceTest {
     @Test
     void testGenerateOverdueReport_NoOverdueItems() {
         Borrower borrower = mock(Borrower.class);
-        when(borrower.getOverdueMedia()).thenReturn(List.of());
+        when(borrower.getOverdueMedia(any())).thenReturn(List.of());
 
         // Capture system output
         PrintStream originalOut = System.out;
@@ -167,13 +172,13 @@ class BorrowerServiceTest {
         MediaRecord record1 = mock(MediaRecord.class);
         when(record1.getMedia()).thenReturn(media1);
         when(record1.getDueDate()).thenReturn(LocalDate.now().minusDays(2));
-        when(record1.isOverdue()).thenReturn(true);
-        when(record1.getOverdueDays()).thenReturn(2L);
+        when(record1.isOverdue(any())).thenReturn(true);
+        when(record1.getOverdueDays(any())).thenReturn(2L);
 
         MediaRecord record2 = mock(MediaRecord.class);
         when(record2.getMedia()).thenReturn(media2);
         when(record2.getDueDate()).thenReturn(LocalDate.now().plusDays(3));
-        when(record2.isOverdue()).thenReturn(false);
+        when(record2.isOverdue(any())).thenReturn(false);
 
         Borrower borrower = mock(Borrower.class);
         when(borrower.getBorrowedMedia()).thenReturn(List.of(record1, record2));
@@ -210,14 +215,14 @@ class BorrowerServiceTest {
 
         MediaRecord record1 = mock(MediaRecord.class);
         when(record1.getMedia()).thenReturn(media1);
-        when(record1.getOverdueDays()).thenReturn(3L);
+        when(record1.getOverdueDays(any())).thenReturn(3L);
 
         MediaRecord record2 = mock(MediaRecord.class);
         when(record2.getMedia()).thenReturn(media2);
-        when(record2.getOverdueDays()).thenReturn(2L);
+        when(record2.getOverdueDays(any())).thenReturn(2L);
 
         Borrower borrower = mock(Borrower.class);
-        when(borrower.getOverdueMedia()).thenReturn(List.of(record1, record2));
+        when(borrower.getOverdueMedia(any())).thenReturn(List.of(record1, record2));
 
         PrintStream originalOut = System.out;
         ByteArrayOutputStream output = new ByteArrayOutputStream();
@@ -242,6 +247,82 @@ class BorrowerServiceTest {
         }
     }
 
+    @Test
+    void testGenerateOverdueReport_UsesAccruedFines() {
+        Media book = new Media(1, "Book A", false, "book");
+        Media cd = new Media(2, "CD B", false, "cd");
+
+        MediaRecord accrued = mock(MediaRecord.class);
+        when(accrued.getRecordId()).thenReturn(11);
+        when(accrued.getMedia()).thenReturn(book);
+        when(accrued.getOverdueDays(any())).thenReturn(3L);
+
+        MediaRecord notYetAccrued = mock(MediaRecord.class);
+        when(notYetAccrued.getRecordId()).thenReturn(12);
+        when(notYetAccrued.getMedia()).thenReturn(cd);
+        when(notYetAccrued.getOverdueDays(any())).thenReturn(1L);
+
+        Borrower borrower = mock(Borrower.class);
+        when(borrower.getId()).thenReturn(1);
+        when(borrower.getOverdueMedia(any())).thenReturn(List.of(accrued, notYetAccrued));
+        when(borrowRecordDAOMock.findAccruedFines(1)).thenReturn(Map.of(11, 20.0));
+
+        PrintStream originalOut = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output));
+
+        try {
+            borrowerService.generateOverdueReport(borrower);
+
+            String outStr = output.toString();
+            assertTrue(outStr.contains("'Book A', Type: Book, Overdue Days: 3, Fine: 20.00"));
+            assertTrue(outStr.contains("'CD B', Type: CD, Overdue Days: 1, Fine: 20.00"));
+            assertTrue(outStr.contains("Total Overdue Fines: 40.00"));
+        } finally {
+            System.setOut(originalOut);
+        }
+    }
+
+    @Test
+    void testRefreshIfStale_ReloadsOnlyWhenVersionMoved() {
+        when(borrowRecordDAOMock.findStateVersion(1)).thenReturn(5L);
+        when(fineDAOMock.getFineBalance(1)).thenReturn(2.5);
+
+        assertTrue(borrowerService.refreshIfStale(borrower));
+        assertEquals(5, borrower.getStateVersion());
+        assertEquals(2.5, borrower.getFineBalance());
+
+        assertFalse(borrowerService.refreshIfStale(borrower));
+        verify(borrowRecordDAOMock, times(1)).findActiveByUserId(1);
+        verify(fineDAOMock, times(1)).getFineBalance(1);
+    }
+
+    @Test
+    void testApplyChanges_InStepSkipsReload() {
+        borrower.setStateVersion(4);
+        borrower.setFineBalance(30.0);
+
+        borrowerService.applyChanges(borrower, BorrowerDelta.paid(10.0, 5));
+
+        assertEquals(20.0, borrower.getFineBalance());
+        assertEquals(5, borrower.getStateVersion());
+        verifyNoInteractions(borrowRecordDAOMock, fineDAOMock);
+    }
+
+    @Test
+    void testApplyChanges_MissedChangeReloads() {
+        borrower.setStateVersion(4);
+        borrower.setFineBalance(30.0);
+        when(borrowRecordDAOMock.findStateVersion(1)).thenReturn(7L);
+        when(fineDAOMock.getFineBalance(1)).thenReturn(5.0);
+
+        borrowerService.applyChanges(borrower, BorrowerDelta.paid(10.0, 7));
+
+        assertEquals(5.0, borrower.getFineBalance());
+        assertEquals(7, borrower.getStateVersion());
+        verify(borrowRecordDAOMock).findActiveByUserId(1);
+    }
+
     // ---------------------------
     // Test loadBorrowerData with empty borrowed media and zero fine
     // ---------------------------
@@ -1,8 +1,8 @@
 import model.*;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.*;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -34,23 +34,23 @@ class BorrowerTest {
 
     @Test
     void testBorrowedMediaSetterGetter() {
-        MediaRecord mockRecord1 = mock(MediaRecord.class);
-        MediaRecord mockRecord2 = mock(MediaRecord.class);
+        MediaRecord record1 = loan(1, LocalDate.of(2026, 3, 20));
+        MediaRecord record2 = loan(2, LocalDate.of(2026, 3, 12));
 
         List<MediaRecord> list = new ArrayList<>();
-        list.add(mockRecord1);
-        list.add(mockRecord2);
+        list.add(record1);
+        list.add(record2);
 
         borrower.setBorrowedMedia(list);
 
         List<MediaRecord> result = borrower.getBorrowedMedia();
 
         assertEquals(2, result.size());
-        assertTrue(result.contains(mockRecord1));
-        assertTrue(result.contains(mockRecord2));
+        assertTrue(result.contains(record1));
+        assertTrue(result.contains(record2));
 
         // Ensure getter returns a COPY (not the internal list)
-        result.add(mock(MediaRecord.class));
+        result.add(loan(3, LocalDate.of(2026, 3, 1)));
         assertEquals(2, borrower.getBorrowedMedia().size(), "Internal list should remain unchanged");
     }
 
@@ -62,13 +62,10 @@ class BorrowerTest {
 
     @Test
     void testGetOverdueMedia() {
-        MediaRecord overdue1 = mock(MediaRecord.class);
-        MediaRecord overdue2 = mock(MediaRecord.class);
-        MediaRecord notOverdue = mock(MediaRecord.class);
-
-        when(overdue1.isOverdue()).thenReturn(true);
-        when(overdue2.isOverdue()).thenReturn(true);
-        when(notOverdue.isOverdue()).thenReturn(false);
+        LocalDate today = LocalDate.of(2026, 3, 10);
+        MediaRecord overdue1 = loan(1, today.minusDays(3));
+        MediaRecord overdue2 = loan(2, today.minusDays(1));
+        MediaRecord notOverdue = loan(3, today);
 
         List<MediaRecord> list = new ArrayList<>();
         list.add(overdue1);
@@ -77,29 +74,83 @@ class BorrowerTest {
 
         borrower.setBorrowedMedia(list);
 
-        List<MediaRecord> overdue = borrower.getOverdueMedia();
+        List<MediaRecord> overdue = borrower.getOverdueMedia(today);
 
-        assertEquals(2, overdue.size());
-        assertTrue(overdue.contains(overdue1));
-        assertTrue(overdue.contains(overdue2));
+        assertEquals(List.of(overdue1, overdue2), overdue);
+        assertTrue(borrower.hasOverdue(today));
     }
 
     @Test
     void testGetOverdueMediaWhenNoneAreOverdue() {
-        MediaRecord rec1 = mock(MediaRecord.class);
-        MediaRecord rec2 = mock(MediaRecord.class);
-
-        when(rec1.isOverdue()).thenReturn(false);
-        when(rec2.isOverdue()).thenReturn(false);
-
+        LocalDate today = LocalDate.of(2026, 3, 10);
         List<MediaRecord> list = new ArrayList<>();
-        list.add(rec1);
-        list.add(rec2);
+        list.add(loan(1, today));
+        list.add(loan(2, today.plusDays(5)));
 
         borrower.setBorrowedMedia(list);
 
-        List<MediaRecord> overdue = borrower.getOverdueMedia();
+        List<MediaRecord> overdue = borrower.getOverdueMedia(today);
 
         assertTrue(overdue.isEmpty(), "No overdue media should return an empty list");
+        assertFalse(borrower.hasOverdue(today));
+    }
+
+    @Test
+    void testLoanIndexByMediaId() {
+        MediaRecord dune = loan(1, LocalDate.of(2026, 3, 20));
+        MediaRecord emma = loan(2, LocalDate.of(2026, 3, 12));
+        borrower.addLoan(dune);
+        borrower.addLoan(emma);
+
+        assertSame(dune, borrower.findLoan(1));
+        assertNull(borrower.findLoan(3));
+        assertEquals(2, borrower.getLoanCount());
+        assertEquals(List.of(emma, dune), borrower.getBorrowedMedia());
+        assertEquals(LocalDate.of(2026, 3, 12), borrower.getEarliestDueDate());
+
+        assertSame(emma, borrower.removeLoan(2));
+        assertNull(borrower.removeLoan(2));
+        assertEquals(LocalDate.of(2026, 3, 20), borrower.getEarliestDueDate());
+
+        assertSame(dune, borrower.removeLoan(1));
+        assertNull(borrower.getEarliestDueDate());
+        assertFalse(borrower.hasOverdue(LocalDate.MAX));
+    }
+
+    @Test
+    void testAddLoanReplacesLoanOnSameMedia() {
+        borrower.addLoan(loan(1, LocalDate.of(2026, 3, 1)));
+        MediaRecord renewed = loan(1, LocalDate.of(2026, 3, 29));
+        borrower.addLoan(renewed);
+
+        assertEquals(List.of(renewed), borrower.getBorrowedMedia());
+        assertEquals(LocalDate.of(2026, 3, 29), borrower.getEarliestDueDate());
+    }
+
+    @Test
+    void testConcurrentLoanChangesKeepIndexesInStep() throws Exception {
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int first = t * 1000;
+            threads[t] = new Thread(() -> {
+                for (int i = first; i < first + 500; i++) {
+                    borrower.addLoan(loan(i, LocalDate.of(2026, 1, 1).plusDays(i % 97)));
+                }
+                for (int i = first; i < first + 250; i++) {
+                    borrower.removeLoan(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1000, borrower.getLoanCount());
+        assertEquals(1000, borrower.getBorrowedMedia().size());
+    }
+
+    private static MediaRecord loan(int mediaId, LocalDate dueDate) {
+        return new MediaRecord(mediaId * 10, new Media(mediaId, "Item " + mediaId, false, "book"), dueDate);
     }
 }
@@ -1,4 +1,5 @@
 import model.Borrower;
+import model.BorrowerDelta;
 import model.Media;
 import model.MediaRecord;
 import model.UserWithOverdueBooks;
@@ -6,7 +7,6 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import service.BorrowingService;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -20,7 +20,7 @@ public class BorrowingServiceTest {
 
     // Mock DAOs
     private dao.BorrowRecordDAO borrowRecordDAOMock;
-    private dao.MediaDAO mediaDAOMock;
+    private service.ReservationService reservationServiceMock;
     private dao.FineDAO fineDAOMock;
 
     @BeforeEach
@@ -29,7 +29,7 @@ public class BorrowingServiceTest {
 
         // Mock DAOs
         borrowRecordDAOMock = mock(dao.BorrowRecordDAO.class);
-        mediaDAOMock = mock(dao.MediaDAO.class);
+        reservationServiceMock = mock(service.ReservationService.class);
         fineDAOMock = mock(dao.FineDAO.class);
 
         // Inject mocks via reflection
@@ -37,9 +37,9 @@ public class BorrowingServiceTest {
         borrowField.setAccessible(true);
         borrowField.set(borrowingService, borrowRecordDAOMock);
 
-        java.lang.reflect.Field mediaField = BorrowingService.class.getDeclaredField("mediaDAO");
-        mediaField.setAccessible(true);
-        mediaField.set(borrowingService, mediaDAOMock);
+        java.lang.reflect.Field reservationField = BorrowingService.class.getDeclaredField("reservationService");
+        reservationField.setAccessible(true);
+        reservationField.set(borrowingService, reservationServiceMock);
 
         java.lang.reflect.Field fineField = BorrowingService.class.getDeclaredField("fineDAO");
         fineField.setAccessible(true);
@@ -58,19 +58,20 @@ public class BorrowingServiceTest {
     void testBorrowMedia_Success() {
         when(borrower.isLoggedIn()).thenReturn(true);
         when(borrower.getFineBalance()).thenReturn(0.0);
-        when(borrower.getOverdueMedia()).thenReturn(new ArrayList<>());
         when(media.isAvailable()).thenReturn(true);
         when(media.getMediaType()).thenReturn("book");
         when(media.getTitle()).thenReturn("Java Programming");
         when(media.getId()).thenReturn(1);
-        when(borrower.getBorrowedMedia()).thenReturn(new ArrayList<>());
-        when(borrowRecordDAOMock.insert(anyInt(), anyInt(), anyString(), anyString(), any(), any())).thenReturn(100);
+        when(borrowRecordDAOMock.borrow(anyInt(), any(), any(), any()))
+                .thenReturn(BorrowerDelta.borrowed(new MediaRecord(100, media, java.time.LocalDate.now()), 1));
 
         boolean result = borrowingService.borrowMedia(borrower, media);
 
         assertTrue(result);
-        verify(mediaDAOMock).updateAvailability(1, false);
-        verify(borrowRecordDAOMock).insert(anyInt(), anyInt(), anyString(), anyString(), any(), any());
+        verify(borrowRecordDAOMock).borrow(anyInt(), eq(media), any(), any());
+        verify(media).setAvailable(false);
+        verify(borrower).addLoan(argThat(loan -> loan.getRecordId() == 100));
+        verify(borrower).setStateVersion(1);
     }
 
     @Test
@@ -94,9 +95,7 @@ public class BorrowingServiceTest {
     void testBorrowMedia_Fails_OverdueItems() {
         when(borrower.isLoggedIn()).thenReturn(true);
         when(borrower.getFineBalance()).thenReturn(0.0);
-        List<MediaRecord> overdueList = new ArrayList<>();
-        overdueList.add(mock(MediaRecord.class));
-        when(borrower.getOverdueMedia()).thenReturn(overdueList);
+        when(borrower.hasOverdue(any())).thenReturn(true);
 
         boolean result = borrowingService.borrowMedia(borrower, media);
         assertFalse(result);
@@ -106,11 +105,39 @@ public class BorrowingServiceTest {
     void testBorrowMedia_Fails_MediaNotAvailable() {
         when(borrower.isLoggedIn()).thenReturn(true);
         when(borrower.getFineBalance()).thenReturn(0.0);
-        when(borrower.getOverdueMedia()).thenReturn(new ArrayList<>());
-        when(media.isAvailable()).thenReturn(false);
+        when(media.getMediaType()).thenReturn("book");
+        when(media.getTitle()).thenReturn("Java Programming");
+        when(borrowRecordDAOMock.borrow(anyInt(), any(), any(), any())).thenReturn(BorrowerDelta.NONE);
 
         boolean result = borrowingService.borrowMedia(borrower, media);
         assertFalse(result);
+        verify(media).setAvailable(false);
+        verify(borrower, never()).addLoan(any());
+    }
+
+    @Test
+    void testBorrowMedia_IgnoresStaleUnavailableFlag() {
+        when(borrower.isLoggedIn()).thenReturn(true);
+        when(borrower.getFineBalance()).thenReturn(0.0);
+        when(media.isAvailable()).thenReturn(false);
+        when(media.getMediaType()).thenReturn("cd");
+        when(media.getTitle()).thenReturn("Abbey Road");
+        when(borrowRecordDAOMock.borrow(anyInt(), any(), any(), any()))
+                .thenReturn(BorrowerDelta.borrowed(new MediaRecord(7, media, java.time.LocalDate.now()), 1));
+
+        assertTrue(borrowingService.borrowMedia(borrower, media));
+    }
+
+    @Test
+    void testBorrowMedia_Fails_TransactionError() {
+        when(borrower.isLoggedIn()).thenReturn(true);
+        when(borrower.getFineBalance()).thenReturn(0.0);
+        when(media.getMediaType()).thenReturn("book");
+        when(media.getTitle()).thenReturn("Java Programming");
+        when(borrowRecordDAOMock.borrow(anyInt(), any(), any(), any())).thenReturn(null);
+
+        assertFalse(borrowingService.borrowMedia(borrower, media));
+        verify(media, never()).setAvailable(anyBoolean());
     }
 
     // -------------------------------------------------------------------------
@@ -121,47 +148,98 @@ public class BorrowingServiceTest {
     void testReturnMedia_Success_NoFine() {
         MediaRecord record = mock(MediaRecord.class);
         when(record.getMedia()).thenReturn(media);
-        when(record.isOverdue()).thenReturn(false);
+        when(record.isOverdue(any())).thenReturn(false);
         when(media.getId()).thenReturn(1);
         when(media.getMediaType()).thenReturn("book");
-        when(borrower.getBorrowedMedia()).thenReturn(new ArrayList<>(List.of(record)));
+        when(borrower.findLoan(1)).thenReturn(record);
         when(borrower.getFineBalance()).thenReturn(0.0);
+        when(borrowRecordDAOMock.returnLoan(anyInt(), eq(record), any(), eq(0.0), any(), any()))
+                .thenReturn(BorrowerDelta.returned(record, 0.0, 1));
 
         boolean result = borrowingService.returnMedia(borrower, media);
 
         assertTrue(result);
-        verify(mediaDAOMock).updateAvailability(1, true);
-        verify(borrowRecordDAOMock).markAsReturned(anyInt(), any(), anyDouble());
+        verify(media).setAvailable(true);
+        verify(reservationServiceMock, never()).handedOff(any());
+        verify(borrower).removeLoan(1);
+        verify(borrower, never()).setFineBalance(anyDouble());
     }
 
     @Test
     void testReturnMedia_Success_WithFine() {
         MediaRecord record = mock(MediaRecord.class);
         when(record.getMedia()).thenReturn(media);
-        when(record.isOverdue()).thenReturn(true);
-        when(record.getOverdueDays()).thenReturn(2L);
+        when(record.isOverdue(any())).thenReturn(true);
+        when(record.getOverdueDays(any())).thenReturn(2L);
         when(record.getRecordId()).thenReturn(100);
         when(media.getId()).thenReturn(1);
         when(media.getMediaType()).thenReturn("book");
         when(media.getTitle()).thenReturn("Test Book");
         when(borrower.getId()).thenReturn(0);
-        when(borrower.getBorrowedMedia()).thenReturn(new ArrayList<>(List.of(record)));
+        when(borrower.findLoan(1)).thenReturn(record);
         when(borrower.getFineBalance()).thenReturn(0.0);
-        when(fineDAOMock.getFineBalance(0)).thenReturn(20.0);
+        when(borrowRecordDAOMock.returnLoan(eq(0), eq(record), any(), eq(20.0), any(), any())) // 2 * 10.0
+                .thenReturn(BorrowerDelta.returned(record, 20.0, 1));
 
         boolean result = borrowingService.returnMedia(borrower, media);
 
         assertTrue(result);
-        verify(mediaDAOMock).updateAvailability(1, true);
-        verify(borrowRecordDAOMock).markAsReturned(anyInt(), any(), eq(20.0)); // 2 * 10.0
-        verify(fineDAOMock).addFine(0, 20.0);
-        verify(fineDAOMock).getFineBalance(0);
+        verify(borrower).setFineBalance(20.0);
+        verify(fineDAOMock, never()).getFineBalance(anyInt());
     }
 
     @Test
-    void testReturnMedia_Fails_NotBorrowed() {
-        when(borrower.getBorrowedMedia()).thenReturn(new ArrayList<>());
+    void testBorrow_LeavesBorrowerToCaller() {
+        when(borrower.isLoggedIn()).thenReturn(true);
+        when(borrower.getFineBalance()).thenReturn(0.0);
+        when(media.getMediaType()).thenReturn("book");
+        when(media.getTitle()).thenReturn("Held Book");
+        BorrowerDelta delta = BorrowerDelta.borrowed(new MediaRecord(55, media, java.time.LocalDate.now()), 4);
+        when(borrowRecordDAOMock.borrow(anyInt(), any(), any(), any())).thenReturn(delta);
+
+        assertSame(delta, borrowingService.borrow(borrower, media));
+        verify(media).setAvailable(false);
+        verify(borrower, never()).addLoan(any());
+    }
+
+    @Test
+    void testReturnMedia_HandsOffToNextHold() {
+        MediaRecord record = mock(MediaRecord.class);
+        when(record.getMedia()).thenReturn(media);
+        when(record.isOverdue(any())).thenReturn(false);
+        when(media.getId()).thenReturn(1);
+        when(media.getMediaType()).thenReturn("book");
+        when(borrower.findLoan(1)).thenReturn(record);
+        model.Hold hold = new model.Hold(9, 1, 2, model.Hold.READY, java.time.LocalDate.now().plusDays(3));
+        when(borrowRecordDAOMock.returnLoan(anyInt(), any(), any(), anyDouble(), any(), any()))
+                .thenAnswer(invocation -> {
+                    List<model.Hold> handedTo = invocation.getArgument(5);
+                    handedTo.add(hold);
+                    return BorrowerDelta.returned(record, 0.0, 1);
+                });
+
+        assertTrue(borrowingService.returnMedia(borrower, media));
+        verify(reservationServiceMock).handedOff(hold);
+        verify(media).setAvailable(false);
+    }
 
+    @Test
+    void testReturnMedia_Fails_AlreadyReturnedElsewhere() {
+        MediaRecord record = mock(MediaRecord.class);
+        when(record.getMedia()).thenReturn(media);
+        when(media.getId()).thenReturn(1);
+        when(media.getMediaType()).thenReturn("book");
+        when(borrower.findLoan(1)).thenReturn(record);
+        when(borrowRecordDAOMock.returnLoan(anyInt(), any(), any(), anyDouble(), any(), any()))
+                .thenReturn(BorrowerDelta.NONE);
+
+        assertFalse(borrowingService.returnMedia(borrower, media));
+        verify(reservationServiceMock, never()).handedOff(any());
+        verify(borrower, never()).removeLoan(anyInt());
+    }
+
+    @Test
+    void testReturnMedia_Fails_NotBorrowed() {
         boolean result = borrowingService.returnMedia(borrower, media);
         assertFalse(result);
     }
@@ -173,7 +251,7 @@ public class BorrowingServiceTest {
     @Test
     void testGetUsersWithOverdueBooks() {
         List<UserWithOverdueBooks> mockList = List.of(new UserWithOverdueBooks(1, "rahaf", 2));
-        when(borrowRecordDAOMock.getUsersWithOverdueBooks()).thenReturn(mockList);
+        when(borrowRecordDAOMock.getUsersWithOverdueBooks(any())).thenReturn(mockList);
 
         List<UserWithOverdueBooks> result = borrowingService.getUsersWithOverdueBooks();
         assertEquals(1, result.size());
@@ -30,15 +30,43 @@ class BorrowRecordDAOTest {
     void testInitializeTable_success() throws SQLException {
         Connection mockConn = mock(Connection.class);
         Statement mockStmt = mock(Statement.class);
+        ResultSet mockColumns = mock(ResultSet.class);
         when(mockConn.createStatement()).thenReturn(mockStmt);
         when(mockStmt.execute(anyString())).thenReturn(true);
+        when(mockStmt.executeQuery("PRAGMA table_info(borrow_records)")).thenReturn(mockColumns);
+        when(mockColumns.next()).thenReturn(true);
+        when(mockColumns.getString("name")).thenReturn("reminders_sent", "last_reminded_on", "next_reminder_on",
+                "accrued_fine", "accrued_on");
 
         try (MockedStatic<DatabaseConnection> dbMock = mockStatic(DatabaseConnection.class)) {
             dbMock.when(DatabaseConnection::getConnection).thenReturn(mockConn);
 
             borrowRecordDAO.initializeTable();
 
-            verify(mockStmt, times(1)).execute(anyString());
+            verify(mockStmt, times(7)).execute(anyString());
+            verify(mockStmt, never()).execute(startsWith("ALTER TABLE"));
+        }
+    }
+
+    @Test
+    void testInitializeTable_addsMissingColumns() throws SQLException {
+        Connection mockConn = mock(Connection.class);
+        Statement mockStmt = mock(Statement.class);
+        ResultSet mockColumns = mock(ResultSet.class);
+        when(mockConn.createStatement()).thenReturn(mockStmt);
+        when(mockStmt.executeQuery("PRAGMA table_info(borrow_records)")).thenReturn(mockColumns);
+        when(mockColumns.next()).thenReturn(false);
+
+        try (MockedStatic<DatabaseConnection> dbMock = mockStatic(DatabaseConnection.class)) {
+            dbMock.when(DatabaseConnection::getConnection).thenReturn(mockConn);
+
+            borrowRecordDAO.initializeTable();
+
+            verify(mockStmt).execute("ALTER TABLE borrow_records ADD COLUMN reminders_sent INTEGER NOT NULL DEFAULT 0");
+            verify(mockStmt).execute("ALTER TABLE borrow_records ADD COLUMN last_reminded_on TEXT");
+            verify(mockStmt).execute("ALTER TABLE borrow_records ADD COLUMN next_reminder_on TEXT");
+            verify(mockStmt).execute("ALTER TABLE borrow_records ADD COLUMN accrued_fine REAL NOT NULL DEFAULT 0");
+            verify(mockStmt).execute("ALTER TABLE borrow_records ADD COLUMN accrued_on TEXT");
         }
     }
 
@@ -48,6 +76,7 @@ class BorrowRecordDAOTest {
         Statement mockStmt = mock(Statement.class);
         when(mockConn.createStatement()).thenReturn(mockStmt);
         when(mockStmt.execute(anyString())).thenThrow(new SQLException("Create table failed"));
+        when(mockStmt.executeQuery(anyString())).thenThrow(new SQLException("Query failed"));
 
         try (MockedStatic<DatabaseConnection> dbMock = mockStatic(DatabaseConnection.class)) {
             dbMock.when(DatabaseConnection::getConnection).thenReturn(mockConn);
@@ -0,0 +1,75 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.BookService;
+import service.CDService;
+import service.CatalogIndexRefresher;
+import service.TrigramIndex;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the refresher indexes items another process added.
+ */
+class CatalogIndexRefresherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TestLibrary library;
+    private TrigramIndex index;
+    private CatalogIndexRefresher refresher;
+
+    /** Writes to the catalog without knowing about the index, like the admin console. */
+    private BookService consoleBooks;
+    private CDService consoleCDs;
+
+    @BeforeEach
+    void setUp() {
+        library = TestLibrary.open(tempDir);
+        consoleBooks = new BookService();
+        consoleCDs = new CDService();
+        consoleBooks.addBook("Dune", "Frank Herbert", "isbn-1");
+
+        index = new TrigramIndex();
+        refresher = new CatalogIndexRefresher(index);
+    }
+
+    @AfterEach
+    void tearDown() {
+        refresher.stop();
+        library.close();
+    }
+
+    @Test
+    void testFirstPassIndexesTheCatalog() {
+        assertEquals(1, refresher.runOnce());
+        assertEquals(1, index.search("herb", TrigramIndex.AUTHOR, "book").length);
+    }
+
+    @Test
+    void testLaterPassesIndexOnlyNewItems() {
+        refresher.runOnce();
+        consoleBooks.addBook("Emma", "Jane Austen", "isbn-2");
+        consoleCDs.addCD("Kind of Blue", "Miles Davis", "Jazz", 46);
+        assertEquals(0, index.search("austen", TrigramIndex.AUTHOR, "book").length);
+
+        assertEquals(2, refresher.runOnce());
+        assertEquals(1, index.search("austen", TrigramIndex.AUTHOR, "book").length);
+        assertEquals(1, index.search("jazz", TrigramIndex.GENRE, "cd").length);
+        assertEquals(3, index.size());
+        assertEquals(0, refresher.runOnce());
+    }
+
+    @Test
+    void testStartAndStop() {
+        refresher.start(1, TimeUnit.HOURS);
+        assertTrue(refresher.isRunning());
+        refresher.stop();
+        assertFalse(refresher.isRunning());
+    }
+}
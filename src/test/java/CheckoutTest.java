@@ -0,0 +1,129 @@
+import model.Borrower;
+import model.CheckoutResult;
+import model.Media;
+import model.MediaRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.BorrowingService;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks out carts of media against real tables on a temporary SQLite file.
+ */
+class CheckoutTest {
+
+    private static final LocalDate TODAY = TestLibrary.TODAY;
+
+    @TempDir
+    Path tempDir;
+
+    private TestLibrary library;
+    private BorrowingService borrowingService;
+    private Borrower amy;
+
+    @BeforeEach
+    void setUp() {
+        library = TestLibrary.open(tempDir);
+        borrowingService = library.borrowingService(library.reservationService());
+        amy = library.borrower("amy");
+    }
+
+    @AfterEach
+    void tearDown() {
+        library.close();
+    }
+
+    @Test
+    void testWholeCartIsBorrowedWithConsecutiveRecordIds() {
+        Media dune = media("Dune");
+        Media emma = media("Emma");
+        Media ulysses = media("Ulysses");
+
+        CheckoutResult result = borrowingService.checkout(amy, List.of(dune, emma, ulysses), false);
+
+        assertTrue(result.isComplete());
+        assertEquals(3, result.getBorrowed().size());
+        assertTrue(result.getDelta().applyTo(amy));
+        assertEquals(3, amy.getLoanCount());
+        assertEquals(library.borrowRecordDAO.findStateVersion(amy.getId()), amy.getStateVersion());
+
+        List<MediaRecord> persisted = library.borrowRecordDAO.findActiveByUserId(amy.getId());
+        for (MediaRecord record : result.getBorrowed()) {
+            assertTrue(persisted.stream().anyMatch(p -> p.getRecordId() == record.getRecordId()
+                    && p.getMedia().getId() == record.getMedia().getId()));
+        }
+        assertFalse(library.mediaDAO.claimAvailability(dune.getId()));
+    }
+
+    @Test
+    void testBestEffortSkipsUnavailableItems() {
+        Media dune = media("Dune");
+        Media emma = media("Emma");
+        assertTrue(library.mediaDAO.updateAvailability(emma.getId(), false));
+
+        CheckoutResult result = borrowingService.checkout(amy, List.of(dune, emma), false);
+
+        assertFalse(result.isComplete());
+        assertEquals(List.of(emma), result.getUnavailable());
+        assertEquals(1, result.getBorrowed().size());
+        assertEquals(dune.getId(), result.getBorrowed().get(0).getMedia().getId());
+        assertTrue(result.getDelta().applyTo(amy));
+        assertEquals(1, amy.getLoanCount());
+    }
+
+    @Test
+    void testAllOrNothingRollsBackEveryClaim() {
+        Media dune = media("Dune");
+        Media emma = media("Emma");
+        assertTrue(library.mediaDAO.updateAvailability(emma.getId(), false));
+
+        CheckoutResult result = borrowingService.checkout(amy, List.of(dune, emma), true);
+
+        assertTrue(result.getBorrowed().isEmpty());
+        assertTrue(result.getDelta().isEmpty());
+        assertTrue(library.borrowRecordDAO.findActiveByUserId(amy.getId()).isEmpty());
+        assertEquals(0, library.borrowRecordDAO.findStateVersion(amy.getId()));
+        // The claim on the available item was released with the rollback
+        assertTrue(library.mediaDAO.claimAvailability(dune.getId()));
+    }
+
+    @Test
+    void testReadyHoldIsFulfilledAndDuplicatesAreIgnored() {
+        Media dune = media("Dune");
+        Media emma = media("Emma");
+        assertTrue(library.mediaDAO.updateAvailability(emma.getId(), false));
+        assertTrue(library.holdDAO.insert(emma.getId(), amy.getId()) > 0);
+        assertNotNull(library.holdDAO.handOff(emma.getId(), TODAY.plusDays(3)));
+
+        CheckoutResult result = borrowingService.checkout(amy, List.of(dune, emma, dune), true);
+
+        assertTrue(result.isComplete());
+        assertEquals(2, result.getBorrowed().size());
+        assertTrue(result.getDelta().applyTo(amy));
+        assertNotNull(amy.findLoan(emma.getId()));
+        assertTrue(library.holdDAO.findActiveByUserId(amy.getId()).isEmpty());
+    }
+
+    @Test
+    void testBorrowingRulesAreCheckedOnce() {
+        Media dune = media("Dune");
+        amy.setFineBalance(2.0);
+
+        assertNull(borrowingService.checkout(amy, List.of(dune), false));
+        assertNull(borrowingService.checkout(amy, List.of(), false));
+        assertTrue(library.borrowRecordDAO.findActiveByUserId(amy.getId()).isEmpty());
+    }
+
+    private Media media(String title) {
+        int id = library.mediaDAO.insert(title, "book");
+        assertTrue(library.bookDAO.insert(id, "Author", "isbn-" + id) >= 0);
+        return new Media(id, title, true, "book");
+    }
+}
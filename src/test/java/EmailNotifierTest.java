@@ -30,6 +30,17 @@ public class EmailNotifierTest {
         assertDoesNotThrow(() -> notifier.notify(user, "Test message"));
     }
 
+    @Test
+    void testNotify_UsesStoredEmail() {
+        User user = new User(1, "john", "pass", "salt");
+        user.setEmail("john@example.org");
+
+        emailNotifier.notify(user, "Hello");
+
+        verify(emailServer).sendEmail("john@example.org", "Library Notification", "Hello");
+        assertEquals("john@gmail.com", EmailNotifier.addressOf("john", null));
+    }
+
     // -------------------------------------------------------------------------
     // Case 2: User is null
     // -------------------------------------------------------------------------
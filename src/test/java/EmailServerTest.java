@@ -1,16 +1,25 @@
 
+import benchmark.SmtpSink;
 import io.github.cdimascio.dotenv.Dotenv;
 import io.github.cdimascio.dotenv.DotenvBuilder;
 import jakarta.mail.*;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import service.EmailServer;
+import service.SentMailJournal;
+import service.SmtpSettings;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -19,10 +28,20 @@ import static org.mockito.Mockito.*;
 public class EmailServerTest {
 
     private EmailServer emailServerWithCredentials;
+    private SmtpSink sink;
 
     @BeforeEach
-    void setUp() {
-        emailServerWithCredentials = new EmailServer("test@example.com", "password123");
+    void setUp() throws Exception {
+        sink = new SmtpSink(0);
+        sink.start();
+        emailServerWithCredentials = new EmailServer("test@example.com", "password123",
+                new SmtpSettings("localhost", sink.getPort()).withStartTls(false).withTimeouts(5_000, 5_000));
+    }
+
+    @AfterEach
+    void tearDown() {
+        emailServerWithCredentials.close();
+        sink.close();
     }
 
     @Test
@@ -70,6 +89,34 @@ public class EmailServerTest {
         }
     }
 
+    @Test
+    void testConstructorWithDotenvSmtpServer() {
+        try (MockedStatic<Dotenv> dotenvMockedStatic = mockStatic(Dotenv.class)) {
+            DotenvBuilder mockBuilder = mock(DotenvBuilder.class);
+            Dotenv mockDotenv = mock(Dotenv.class);
+
+            dotenvMockedStatic.when(Dotenv::configure).thenReturn(mockBuilder);
+            when(mockBuilder.ignoreIfMissing()).thenReturn(mockBuilder);
+            when(mockBuilder.load()).thenReturn(mockDotenv);
+
+            when(mockDotenv.get("EMAIL_USERNAME")).thenReturn("test@example.com");
+            when(mockDotenv.get("EMAIL_PASSWORD")).thenReturn("password123");
+            when(mockDotenv.get("SMTP_HOST")).thenReturn("localhost");
+            when(mockDotenv.get("SMTP_PORT")).thenReturn(String.valueOf(sink.getPort()));
+            when(mockDotenv.get("SMTP_STARTTLS")).thenReturn("false");
+
+            EmailServer server = new EmailServer();
+            try {
+                server.sendEmail("recipient@example.com", "Configured", "Body");
+            } finally {
+                server.close();
+            }
+            assertEquals("localhost", server.getSettings().getHost());
+            assertFalse(server.getSettings().isStartTls());
+            assertEquals("Configured", sink.getMessages().get(0).getSubject());
+        }
+    }
+
     @Test
     void testConstructorWithMissingDotenvUsername() {
         try (MockedStatic<Dotenv> dotenvMockedStatic = mockStatic(Dotenv.class)) {
@@ -109,23 +156,19 @@ public class EmailServerTest {
     }
 
     @Test
-    void testSendEmailSuccess() throws MessagingException {
-        try (MockedStatic<Transport> transportMockedStatic = mockStatic(Transport.class)) {
-            transportMockedStatic.when(() -> Transport.send(any())).thenAnswer(invocation -> null);
+    void testSendEmailSuccess() {
+        emailServerWithCredentials.sendEmail("recipient@example.com", "Test Subject", "Test Body");
 
-            emailServerWithCredentials.sendEmail("recipient@example.com", "Test Subject", "Test Body");
+        List<EmailServer.Email> sentEmails = emailServerWithCredentials.getSentEmails();
+        assertEquals(1, sentEmails.size());
 
-            List<EmailServer.Email> sentEmails = emailServerWithCredentials.getSentEmails();
-            assertEquals(1, sentEmails.size());
+        EmailServer.Email sentEmail = sentEmails.get(0);
+        assertEquals("recipient@example.com", sentEmail.getTo());
+        assertEquals("Test Subject", sentEmail.getSubject());
+        assertEquals("Test Body", sentEmail.getBody());
+        assertTrue(sentEmail.getTimestamp() > 0);
 
-            EmailServer.Email sentEmail = sentEmails.get(0);
-            assertEquals("recipient@example.com", sentEmail.getTo());
-            assertEquals("Test Subject", sentEmail.getSubject());
-            assertEquals("Test Body", sentEmail.getBody());
-            assertTrue(sentEmail.getTimestamp() > 0);
-
-            transportMockedStatic.verify(() -> Transport.send(any()), times(1));
-        }
+        assertEquals(1, sink.getMessageCount());
     }
 
     @Test
@@ -142,82 +185,142 @@ public class EmailServerTest {
 
     @Test
     void testSendEmailWithNullSubject() {
-        try (MockedStatic<Transport> transportMockedStatic = mockStatic(Transport.class)) {
-            transportMockedStatic.when(() -> Transport.send(any())).thenAnswer(invocation -> null);
-
-            emailServerWithCredentials.sendEmail("recipient@example.com", null, "Test Body");
+        emailServerWithCredentials.sendEmail("recipient@example.com", null, "Test Body");
 
-            List<EmailServer.Email> sentEmails = emailServerWithCredentials.getSentEmails();
-            assertEquals(1, sentEmails.size());
+        List<EmailServer.Email> sentEmails = emailServerWithCredentials.getSentEmails();
+        assertEquals(1, sentEmails.size());
 
-            EmailServer.Email sentEmail = sentEmails.get(0);
-            assertNull(sentEmail.getSubject());
-        }
+        EmailServer.Email sentEmail = sentEmails.get(0);
+        assertNull(sentEmail.getSubject());
     }
 
     @Test
     void testSendEmailWithNullBody() {
-        try (MockedStatic<Transport> transportMockedStatic = mockStatic(Transport.class)) {
-            transportMockedStatic.when(() -> Transport.send(any())).thenAnswer(invocation -> null);
+        emailServerWithCredentials.sendEmail("recipient@example.com", "Test Subject", null);
+
+        List<EmailServer.Email> sentEmails = emailServerWithCredentials.getSentEmails();
+        assertEquals(1, sentEmails.size());
+
+        EmailServer.Email sentEmail = sentEmails.get(0);
+        // CORRECTED: The EmailServer converts null bodies to empty strings.
+        assertEquals("", sentEmail.getBody());
+    }
+
+    @Test
+    void testSendEmailFailure() {
+        sink.close();
 
-            emailServerWithCredentials.sendEmail("recipient@example.com", "Test Subject", null);
+        assertThrows(RuntimeException.class, () ->
+                emailServerWithCredentials.sendEmail("recipient@example.com", "Test Subject", "Test Body"));
 
-            List<EmailServer.Email> sentEmails = emailServerWithCredentials.getSentEmails();
-            assertEquals(1, sentEmails.size());
+        List<EmailServer.Email> sentEmails = emailServerWithCredentials.getSentEmails();
+        assertEquals(0, sentEmails.size());
+    }
 
-            EmailServer.Email sentEmail = sentEmails.get(0);
-            // CORRECTED: The EmailServer converts null bodies to empty strings.
-            assertEquals("", sentEmail.getBody());
+    @Test
+    void testConsecutiveEmailsReuseOneConnection() {
+        for (int i = 0; i < 20; i++) {
+            emailServerWithCredentials.sendEmail("recipient" + i + "@example.com", "Subject", "Body");
         }
+
+        assertEquals(20, sink.getMessageCount());
+        assertEquals(1, sink.getConnectionCount());
+        assertEquals(1, emailServerWithCredentials.getConnectCount());
     }
 
     @Test
-    void testSendEmailFailure() throws MessagingException {
-        try (MockedStatic<Transport> transportMockedStatic = mockStatic(Transport.class)) {
-            transportMockedStatic.when(() -> Transport.send(any()))
-                    .thenThrow(new MessagingException("Failed to send email"));
+    void testReconnectsAfterServerDropsConnection() {
+        emailServerWithCredentials.sendEmail("recipient1@example.com", "Subject 1", "Body 1");
+
+        // The pooled connection is now dead; the next send must open a new one.
+        sink.dropConnections();
 
-            assertThrows(RuntimeException.class, () ->
-                    emailServerWithCredentials.sendEmail("recipient@example.com", "Test Subject", "Test Body"));
+        emailServerWithCredentials.sendEmail("recipient2@example.com", "Subject 2", "Body 2");
 
-            List<EmailServer.Email> sentEmails = emailServerWithCredentials.getSentEmails();
-            assertEquals(0, sentEmails.size());
+        assertEquals(2, sink.getMessageCount());
+        assertEquals(2, emailServerWithCredentials.getSentEmails().size());
+        assertEquals(2, emailServerWithCredentials.getConnectCount());
+    }
+
+    @Test
+    void testConcurrentSendersShareBoundedPool() throws Exception {
+        EmailServer pooled = new EmailServer("test@example.com", "password123",
+                new SmtpSettings("localhost", sink.getPort()).withStartTls(false).withPoolSize(2));
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 6; t++) {
+                int sender = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10; i++) {
+                        pooled.sendEmail("r" + sender + "-" + i + "@example.com", "Subject", "Body");
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            pooled.close();
         }
+
+        assertEquals(60, sink.getMessageCount());
+        assertTrue(pooled.getConnectCount() <= 2, "connects " + pooled.getConnectCount());
     }
 
     @Test
     void testGetSentEmailsReturnsCopy() {
-        try (MockedStatic<Transport> transportMockedStatic = mockStatic(Transport.class)) {
-            transportMockedStatic.when(() -> Transport.send(any())).thenAnswer(invocation -> null);
-
-            emailServerWithCredentials.sendEmail("recipient1@example.com", "Subject 1", "Body 1");
-            emailServerWithCredentials.sendEmail("recipient2@example.com", "Subject 2", "Body 2");
+        emailServerWithCredentials.sendEmail("recipient1@example.com", "Subject 1", "Body 1");
+        emailServerWithCredentials.sendEmail("recipient2@example.com", "Subject 2", "Body 2");
 
-            List<EmailServer.Email> sentEmails = emailServerWithCredentials.getSentEmails();
-            assertEquals(2, sentEmails.size());
+        List<EmailServer.Email> sentEmails = emailServerWithCredentials.getSentEmails();
+        assertEquals(2, sentEmails.size());
 
-            // Modify the returned list
-            sentEmails.clear();
+        // Modify the returned list
+        sentEmails.clear();
 
-            // Verify the original list is not affected
-            List<EmailServer.Email> sentEmailsAgain = emailServerWithCredentials.getSentEmails();
-            assertEquals(2, sentEmailsAgain.size());
-        }
+        // Verify the original list is not affected
+        List<EmailServer.Email> sentEmailsAgain = emailServerWithCredentials.getSentEmails();
+        assertEquals(2, sentEmailsAgain.size());
     }
 
     @Test
     void testClearSentEmails() {
-        try (MockedStatic<Transport> transportMockedStatic = mockStatic(Transport.class)) {
-            transportMockedStatic.when(() -> Transport.send(any())).thenAnswer(invocation -> null);
+        emailServerWithCredentials.sendEmail("recipient1@example.com", "Subject 1", "Body 1");
+        emailServerWithCredentials.sendEmail("recipient2@example.com", "Subject 2", "Body 2");
 
-            emailServerWithCredentials.sendEmail("recipient1@example.com", "Subject 1", "Body 1");
-            emailServerWithCredentials.sendEmail("recipient2@example.com", "Subject 2", "Body 2");
+        assertEquals(2, emailServerWithCredentials.getSentEmails().size());
 
-            assertEquals(2, emailServerWithCredentials.getSentEmails().size());
+        emailServerWithCredentials.clearSentEmails();
+        assertEquals(0, emailServerWithCredentials.getSentEmails().size());
+    }
 
-            emailServerWithCredentials.clearSentEmails();
-            assertEquals(0, emailServerWithCredentials.getSentEmails().size());
+    @Test
+    void testSentEmailsAreBoundedByJournal() {
+        EmailServer bounded = new EmailServer("test@example.com", "password123",
+                new SmtpSettings("localhost", sink.getPort()).withStartTls(false), new SentMailJournal(2));
+        try {
+            for (int i = 0; i < 5; i++) {
+                bounded.sendEmail("recipient" + i + "@example.com", "Subject " + i, "Body");
+            }
+        } finally {
+            bounded.close();
         }
+
+        assertEquals(2, bounded.getSentEmails().size());
+        assertEquals(5, bounded.getJournal().getTotalRecorded());
+        assertEquals("Subject 4", bounded.getJournal().findByRecipient("recipient4@example.com").get(0).getSubject());
+    }
+
+    @Test
+    void testDefaultSettingsTargetGmail() {
+        SmtpSettings settings = new EmailServer("test@example.com", "password123").getSettings();
+
+        assertEquals("smtp.gmail.com", settings.getHost());
+        assertEquals(587, settings.getPort());
+        assertTrue(settings.isStartTls());
+        assertEquals("true", settings.toProperties().get("mail.smtp.starttls.required"));
     }
 
     @Test
@@ -0,0 +1,138 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.FineAccrualJob;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Accrues fines on real tables on a temporary SQLite file.
+ */
+class FineAccrualJobTest {
+
+    private static final LocalDate TODAY = TestLibrary.TODAY;
+
+    @TempDir
+    Path tempDir;
+
+    private TestLibrary library;
+    private FineAccrualJob job;
+
+    @BeforeEach
+    void setUp() {
+        library = TestLibrary.open(tempDir);
+        job = new FineAccrualJob(library.borrowRecordDAO, TestLibrary.clockAt(LocalTime.of(2, 0)), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        job.stop();
+        library.close();
+    }
+
+    @Test
+    void testAccruesEveryActiveOverdueLoanAtItsTypeRate() {
+        int amy = library.user("amy");
+        int bob = library.user("bob");
+        int dune = loan(amy, "book", TODAY.minusDays(3));
+        int emma = loan(amy, "book", TODAY.minusDays(1));
+        int abbey = loan(amy, "cd", TODAY.minusDays(2));
+        loan(amy, "book", TODAY);                                  // due today, not overdue
+        loan(bob, "book", TODAY.minusDays(5));
+        loan(bob, "cd", TODAY.minusDays(1));
+
+        assertEquals(5, job.runOnce());
+
+        assertEquals(Map.of(dune, 30.0, emma, 10.0, abbey, 40.0), library.borrowRecordDAO.findAccruedFines(amy));
+        Map<String, Double> totals = library.borrowRecordDAO.getAccruedFineTotals();
+        assertEquals(90.0, totals.get("book"));
+        assertEquals(60.0, totals.get("cd"));
+    }
+
+    @Test
+    void testSecondRunOnSameDayTouchesNothing() {
+        int amy = library.user("amy");
+        int dune = loan(amy, "book", TODAY.minusDays(3));
+        loan(amy, "cd", TODAY.minusDays(2));
+
+        assertEquals(2, job.runOnce(TODAY));
+        assertEquals(0, job.runOnce(TODAY));
+        assertEquals(30.0, library.borrowRecordDAO.findAccruedFines(amy).get(dune));
+    }
+
+    @Test
+    void testNextDayRecomputesFromDueDate() {
+        int amy = library.user("amy");
+        int dune = loan(amy, "book", TODAY.minusDays(3));
+        assertEquals(1, job.runOnce(TODAY));
+
+        assertEquals(1, job.runOnce(TODAY.plusDays(1)));
+        assertEquals(40.0, library.borrowRecordDAO.findAccruedFines(amy).get(dune));
+        assertEquals(1, job.runOnce(TODAY.plusDays(3)));
+        assertEquals(60.0, library.borrowRecordDAO.findAccruedFines(amy).get(dune));
+    }
+
+    @Test
+    void testReturnedLoansDropOutOfLiability() {
+        int amy = library.user("amy");
+        int dune = loan(amy, "book", TODAY.minusDays(3));
+        loan(amy, "book", TODAY.minusDays(1));
+        job.runOnce(TODAY);
+
+        assertTrue(library.borrowRecordDAO.markAsReturned(dune, TODAY, 30.0));
+        assertEquals(10.0, library.borrowRecordDAO.getAccruedFineTotals().get("book"));
+        assertFalse(library.borrowRecordDAO.findAccruedFines(amy).containsKey(dune));
+        assertEquals(1, job.runOnce(TODAY.plusDays(1)));
+    }
+
+    @Test
+    void testBatchesCoverMoreLoansThanOneBatch() {
+        int amy = library.user("amy");
+        for (int i = 1; i <= 5; i++) {
+            loan(amy, "book", TODAY.minusDays(i));
+        }
+
+        assertEquals(2, library.borrowRecordDAO.accrueFines("book", 10.0, TODAY, 2));
+        assertEquals(3, job.runOnce(TODAY));
+        assertEquals(150.0, library.borrowRecordDAO.getAccruedFineTotals().get("book"));
+    }
+
+    @Test
+    void testNothingAccruedBeforeFirstRun() {
+        int amy = library.user("amy");
+        loan(amy, "book", TODAY.minusDays(3));
+
+        assertTrue(library.borrowRecordDAO.findAccruedFines(amy).isEmpty());
+        assertTrue(library.borrowRecordDAO.getAccruedFineTotals().isEmpty());
+    }
+
+    @Test
+    void testStartAndStop() {
+        assertFalse(job.isRunning());
+        job.start(LocalTime.of(2, 0));
+        assertTrue(job.isRunning());
+        job.stop();
+        assertFalse(job.isRunning());
+    }
+
+    @Test
+    void testRejectsInvalidBatchSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new FineAccrualJob(library.borrowRecordDAO, Clock.systemUTC(), 0));
+    }
+
+    private int loan(int userId, String mediaType, LocalDate dueDate) {
+        int mediaId = library.mediaDAO.insert("Item", mediaType);
+        int recordId = library.borrowRecordDAO.insert(userId, mediaId, mediaType, "Item",
+                dueDate.minusDays(7), dueDate);
+        assertTrue(recordId > 0);
+        return recordId;
+    }
+}
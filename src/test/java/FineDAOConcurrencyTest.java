@@ -0,0 +1,88 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers a single user's fine balance from many threads against a real
+ * SQLite file to make sure no increment or payment is lost.
+ */
+class FineDAOConcurrencyTest {
+
+    private static final int USER_ID = 1;
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 50;
+
+    @TempDir
+    Path tempDir;
+
+    private TestLibrary library;
+
+    @BeforeEach
+    void setUp() {
+        library = TestLibrary.openShared(tempDir);
+    }
+
+    @AfterEach
+    void tearDown() {
+        library.close();
+    }
+
+    @Test
+    void testConcurrentAddFineLosesNoIncrements() throws Exception {
+        runConcurrently(() -> assertTrue(library.fineDAO.addFine(USER_ID, 1.0)));
+
+        assertEquals(THREADS * OPERATIONS_PER_THREAD, library.fineDAO.getFineBalance(USER_ID), 0.0001);
+    }
+
+    @Test
+    void testConcurrentAddAndPayKeepsBalanceConsistent() throws Exception {
+        AtomicInteger added = new AtomicInteger();
+        AtomicInteger paid = new AtomicInteger();
+        AtomicInteger turn = new AtomicInteger();
+
+        runConcurrently(() -> {
+            if (turn.getAndIncrement() % 2 == 0) {
+                assertTrue(library.fineDAO.addFine(USER_ID, 2.0));
+                added.incrementAndGet();
+            } else if (library.fineDAO.payFine(USER_ID, 1.0)) {
+                paid.incrementAndGet();
+            }
+        });
+
+        double balance = library.fineDAO.getFineBalance(USER_ID);
+        assertTrue(balance >= 0.0);
+        assertEquals(added.get() * 2.0 - paid.get(), balance, 0.0001);
+    }
+
+    private void runConcurrently(Runnable operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        operation.run();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -58,38 +58,42 @@ class FineDAOTest {
     @Test
     void testInitializeTable() throws SQLException {
         when(mockConnection.createStatement()).thenReturn(mockStatement);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
         fineDAO.initializeTable();
-        verify(mockStatement).execute(contains("CREATE TABLE IF NOT EXISTS user_fines"));
+        verify(mockStatement).execute(contains("CREATE TABLE IF NOT EXISTS fine_transactions"));
+        verify(mockStatement).execute(contains("CREATE INDEX IF NOT EXISTS idx_fine_transactions_user"));
+        verify(mockStatement).execute(contains("CREATE TABLE IF NOT EXISTS fine_snapshots"));
+        verify(mockStatement).execute(contains("CREATE TABLE IF NOT EXISTS borrower_versions"));
+        verify(mockStatement).execute(contains("CREATE TRIGGER IF NOT EXISTS trg_fine_transactions_version"));
+        // No legacy table in the mocked database: nothing to migrate
+        verify(mockConnection).prepareStatement(contains("FROM sqlite_master"));
+        verify(mockConnection, never()).prepareStatement(contains("FROM user_fines"));
     }
 
     @Test
     void testGetFineBalance_Exists() throws SQLException {
-        double expectedBalance = 15.50;
         when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
         when(mockResultSet.next()).thenReturn(true);
-        when(mockResultSet.getDouble("total_fine")).thenReturn(expectedBalance);
+        when(mockResultSet.getLong("balance_cents")).thenReturn(1550L);
 
         double result = fineDAO.getFineBalance(1);
 
-        assertEquals(expectedBalance, result);
+        assertEquals(15.50, result);
+        verify(mockConnection).prepareStatement(contains("FROM fine_snapshots WHERE user_id = ?1"));
         verify(mockPreparedStatement).setObject(1, 1);
         verify(fineDAO, never()).initializeFine(anyInt());
     }
 
     @Test
-    void testGetFineBalance_NotExists() throws SQLException {
-        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
-        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(false);
-
-        doReturn(true).when(fineDAO).initializeFine(1);
+    void testGetFineBalance_NoConnection() {
+        mockedDatabaseConnection.when(DatabaseConnection::getConnection).thenReturn(null);
 
         double result = fineDAO.getFineBalance(1);
 
         assertEquals(0.0, result);
-        verify(mockPreparedStatement).setObject(1, 1);
-        verify(fineDAO).initializeFine(1);
+        verify(fineDAO, never()).initializeFine(anyInt());
     }
 
     @Test
@@ -133,89 +137,94 @@ class FineDAOTest {
         boolean result = fineDAO.updateFine(1, 25.0);
 
         assertTrue(result);
-        verify(mockPreparedStatement).setObject(1, 25.0);
-        verify(mockPreparedStatement).setObject(2, 1);
+        verify(mockConnection).prepareStatement(contains("SELECT ?1, ?2 - "));
+        verify(mockPreparedStatement).setObject(1, 1);
+        verify(mockPreparedStatement).setObject(2, 2500L);
         verify(fineDAO, never()).initializeFine(anyInt());
     }
 
     @Test
-    void testUpdateFine_FailsButInitializeSucceeds() throws SQLException {
+    void testUpdateFine_Failure() throws SQLException {
         when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
-        when(mockPreparedStatement.executeUpdate()).thenReturn(0);
-        doReturn(true).when(fineDAO).initializeFine(1);
+        when(mockPreparedStatement.executeUpdate()).thenThrow(new SQLException("locked"));
 
         boolean result = fineDAO.updateFine(1, 25.0);
 
-        assertTrue(result);
-        verify(fineDAO).initializeFine(1);
+        assertFalse(result);
     }
 
     @Test
-    void testUpdateFine_FailsAndInitializeFails() throws SQLException {
+    void testAddFine() throws SQLException {
         when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
-        when(mockPreparedStatement.executeUpdate()).thenReturn(0);
-        doReturn(false).when(fineDAO).initializeFine(1);
+        when(mockPreparedStatement.executeUpdate()).thenReturn(1);
 
-        boolean result = fineDAO.updateFine(1, 25.0);
+        boolean result = fineDAO.addFine(1, 5.0);
 
-        assertFalse(result);
-        verify(fineDAO).initializeFine(1);
+        assertTrue(result);
+        verify(mockConnection).prepareStatement(startsWith("INSERT INTO fine_transactions"));
+        verify(mockPreparedStatement).setObject(1, 1);
+        verify(mockPreparedStatement).setObject(2, 500L);
+        verify(mockPreparedStatement).setObject(3, "ACCRUAL");
+        verify(fineDAO, never()).getFineBalance(anyInt());
     }
 
     @Test
-    void testAddFine() {
-        double currentBalance = 10.0;
-        double fineToAdd = 5.0;
-        double newBalance = currentBalance + fineToAdd;
-        doReturn(currentBalance).when(fineDAO).getFineBalance(1);
-        doReturn(true).when(fineDAO).updateFine(1, newBalance);
+    void testAppendTransactions_Batched() throws SQLException {
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeBatch()).thenReturn(new int[]{1, 1});
 
-        boolean result = fineDAO.addFine(1, fineToAdd);
+        int written = fineDAO.appendTransactions(java.util.List.of(
+                model.FineTransaction.accrual(1, 2.5),
+                model.FineTransaction.accrual(2, 10.0)));
 
-        assertTrue(result);
-        verify(fineDAO).getFineBalance(1);
-        verify(fineDAO).updateFine(1, newBalance);
+        assertEquals(2, written);
+        verify(mockPreparedStatement, times(2)).addBatch();
+        verify(mockConnection).commit();
     }
 
     @Test
-    void testPayFine_Success() {
-        double currentBalance = 20.0;
-        double paymentAmount = 15.0;
-        double newBalance = currentBalance - paymentAmount;
-        doReturn(currentBalance).when(fineDAO).getFineBalance(1);
-        doReturn(true).when(fineDAO).updateFine(1, newBalance);
+    void testPayFine_Success() throws SQLException {
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeUpdate()).thenReturn(1);
 
-        boolean result = fineDAO.payFine(1, paymentAmount);
+        boolean result = fineDAO.payFine(1, 15.0);
 
         assertTrue(result);
-        verify(fineDAO).getFineBalance(1);
-        verify(fineDAO).updateFine(1, newBalance);
+        verify(mockConnection).prepareStatement(contains("SELECT ?1, -?2, 'PAYMENT' WHERE"));
+        verify(mockPreparedStatement).setObject(1, 1);
+        verify(mockPreparedStatement).setObject(2, 1500L);
+        verify(fineDAO, never()).getFineBalance(anyInt());
     }
 
     @Test
     void testPayFine_InvalidAmountZero() {
-        double currentBalance = 20.0;
-        doReturn(currentBalance).when(fineDAO).getFineBalance(1);
-
         boolean result = fineDAO.payFine(1, 0.0);
 
         assertFalse(result);
-        verify(fineDAO).getFineBalance(1);
-        verify(fineDAO, never()).updateFine(anyInt(), anyDouble());
+        verify(fineDAO, never()).getFineBalance(anyInt());
+        mockedDatabaseConnection.verify(DatabaseConnection::getConnection, never());
     }
 
     @Test
-    void testPayFine_InvalidAmountTooHigh() {
-        double currentBalance = 20.0;
-        doReturn(currentBalance).when(fineDAO).getFineBalance(1);
+    void testPayFine_InvalidAmountTooHigh() throws SQLException {
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeUpdate()).thenReturn(0);
 
         boolean result = fineDAO.payFine(1, 25.0);
 
         assertFalse(result);
-        verify(fineDAO).getFineBalance(1);
         verify(fineDAO, never()).updateFine(anyInt(), anyDouble());
     }
 
+    @Test
+    void testCompactSnapshots() throws SQLException {
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeUpdate()).thenReturn(3);
+
+        assertEquals(3, fineDAO.compactSnapshots());
+        verify(mockConnection).prepareStatement(contains("ON CONFLICT(user_id) DO UPDATE SET balance_cents"));
+    }
+
     @Test
     void testClearFine() {
         doReturn(true).when(fineDAO).updateFine(1, 0.0);
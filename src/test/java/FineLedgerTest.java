@@ -0,0 +1,135 @@
+import dao.DatabaseConnection;
+import model.FineTransaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.FineCompactionJob;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises the append-only fine ledger and snapshot compaction against a
+ * real SQLite file.
+ */
+class FineLedgerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TestLibrary library;
+
+    @BeforeEach
+    void setUp() {
+        library = TestLibrary.open(tempDir);
+    }
+
+    @AfterEach
+    void tearDown() {
+        library.close();
+    }
+
+    @Test
+    void testLedgerRecordsHowBalanceWasReached() {
+        assertTrue(library.fineDAO.addFine(1, 10.0));
+        assertTrue(library.fineDAO.addFine(1, 2.5));
+        assertTrue(library.fineDAO.payFine(1, 4.0));
+        assertFalse(library.fineDAO.payFine(1, 100.0));
+
+        assertEquals(8.5, library.fineDAO.getFineBalance(1), 0.0001);
+        List<FineTransaction> ledger = library.fineDAO.findTransactionsByUserId(1);
+        assertEquals(3, ledger.size());
+        assertEquals(FineTransaction.ACCRUAL, ledger.get(0).getKind());
+        assertEquals(1000, ledger.get(0).getAmountCents());
+        assertEquals(FineTransaction.PAYMENT, ledger.get(2).getKind());
+        assertEquals(-400, ledger.get(2).getAmountCents());
+        assertNotNull(ledger.get(2).getCreatedAt());
+    }
+
+    @Test
+    void testCompactionRollsSnapshotForwardWithoutChangingBalance() throws SQLException {
+        library.fineDAO.addFine(1, 5.0);
+        library.fineDAO.addFine(2, 7.0);
+
+        assertEquals(2, library.fineDAO.compactSnapshots());
+        assertEquals(0, library.fineDAO.compactSnapshots());
+        library.fineDAO.payFine(1, 1.25);
+
+        assertEquals(3.75, library.fineDAO.getFineBalance(1), 0.0001);
+        assertEquals(7.0, library.fineDAO.getFineBalance(2), 0.0001);
+        assertEquals(500, snapshotCents(1));
+        assertEquals(3, library.fineDAO.findTransactionsByUserId(1).size()
+                + library.fineDAO.findTransactionsByUserId(2).size());
+    }
+
+    @Test
+    void testClearFineAppendsAdjustment() {
+        library.fineDAO.addFine(1, 12.0);
+        library.fineDAO.compactSnapshots();
+        library.fineDAO.addFine(1, 3.0);
+
+        assertTrue(library.fineDAO.clearFine(1));
+
+        assertEquals(0.0, library.fineDAO.getFineBalance(1), 0.0001);
+        List<FineTransaction> ledger = library.fineDAO.findTransactionsByUserId(1);
+        assertEquals(FineTransaction.ADJUSTMENT, ledger.get(ledger.size() - 1).getKind());
+        assertEquals(-1500, ledger.get(ledger.size() - 1).getAmountCents());
+    }
+
+    @Test
+    void testAppendTransactionsWritesBatch() {
+        int written = library.fineDAO.appendTransactions(List.of(
+                FineTransaction.accrual(1, 10.0),
+                FineTransaction.accrual(1, 20.0),
+                FineTransaction.accrual(2, 0.3)));
+
+        assertEquals(3, written);
+        assertEquals(30.0, library.fineDAO.getFineBalance(1), 0.0001);
+        assertEquals(0.3, library.fineDAO.getFineBalance(2), 0.0001);
+    }
+
+    @Test
+    void testLegacyBalancesBecomeOpeningSnapshotsOnce() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE user_fines (user_id INTEGER PRIMARY KEY, total_fine REAL DEFAULT 0.0)");
+            stmt.execute("INSERT INTO user_fines (user_id, total_fine) VALUES (9, 42.5)");
+        }
+
+        library.fineDAO.initializeTable();
+        library.fineDAO.payFine(9, 2.5);
+        library.fineDAO.initializeTable();
+
+        assertEquals(40.0, library.fineDAO.getFineBalance(9), 0.0001);
+        try (Connection conn = DatabaseConnection.getConnection(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM sqlite_master WHERE name = 'user_fines'")) {
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void testCompactionJobSchedule() {
+        FineCompactionJob job = new FineCompactionJob(library.fineDAO);
+        library.fineDAO.addFine(1, 1.0);
+
+        assertEquals(1, job.runOnce());
+        job.start(1, TimeUnit.HOURS);
+        assertTrue(job.isRunning());
+        job.stop();
+        assertFalse(job.isRunning());
+    }
+
+    private long snapshotCents(int userId) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT balance_cents FROM fine_snapshots WHERE user_id = " + userId)) {
+            return rs.next() ? rs.getLong(1) : -1;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.HoldQueueIndex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HoldQueueIndexTest {
+
+    private HoldQueueIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new HoldQueueIndex();
+    }
+
+    @Test
+    void testPositionsFollowFifoOrder() {
+        index.add(1, 10, 100);
+        index.add(1, 11, 101);
+        index.add(1, 12, 102);
+
+        assertEquals(1, index.position(1, 100));
+        assertEquals(2, index.position(1, 101));
+        assertEquals(3, index.position(1, 102));
+        assertEquals(3, index.size(1));
+    }
+
+    @Test
+    void testServingHeadShiftsPositions() {
+        index.add(1, 10, 100);
+        index.add(1, 11, 101);
+        index.add(1, 12, 102);
+
+        index.remove(1, 10);
+
+        assertEquals(0, index.position(1, 100));
+        assertEquals(1, index.position(1, 101));
+        assertEquals(2, index.position(1, 102));
+    }
+
+    @Test
+    void testRemovingMiddleHold() {
+        index.add(1, 10, 100);
+        index.add(1, 11, 101);
+        index.add(1, 12, 102);
+
+        index.remove(1, 11);
+
+        assertEquals(1, index.position(1, 100));
+        assertEquals(2, index.position(1, 102));
+        assertEquals(2, index.size(1));
+    }
+
+    @Test
+    void testQueuesAreIndependentPerMedia() {
+        index.add(1, 10, 100);
+        index.add(2, 11, 100);
+
+        assertEquals(1, index.position(1, 100));
+        assertEquals(1, index.position(2, 100));
+        assertEquals(0, index.position(3, 100));
+        assertEquals(0, index.size(3));
+    }
+
+    @Test
+    void testOutOfOrderAddKeepsQueueSorted() {
+        index.add(1, 20, 100);
+        index.add(1, 15, 101);
+
+        assertEquals(1, index.position(1, 101));
+        assertEquals(2, index.position(1, 100));
+    }
+
+    @Test
+    void testLongQueueGrowsAndCompacts() {
+        for (int i = 0; i < 1000; i++) {
+            index.add(7, i, i);
+        }
+        for (int i = 0; i < 600; i++) {
+            index.remove(7, i);
+        }
+        for (int i = 1000; i < 1500; i++) {
+            index.add(7, i, i);
+        }
+
+        assertEquals(900, index.size(7));
+        assertEquals(1, index.position(7, 600));
+        assertEquals(900, index.position(7, 1499));
+    }
+
+    @Test
+    void testDuplicateAndUnknownRemovalsAreIgnored() {
+        index.add(1, 10, 100);
+        index.add(1, 10, 100);
+        index.remove(1, 99);
+        index.remove(5, 10);
+
+        assertEquals(1, index.size(1));
+        index.clear();
+        assertEquals(0, index.size(1));
+    }
+}
@@ -0,0 +1,164 @@
+import dao.DatabaseConnection;
+import dao.PasswordUtil;
+import model.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import presentation.LibraryHttpServer;
+import service.BookService;
+import service.LoginThrottle;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load harness: thousands of patron sessions log in over HTTP on localhost,
+ * stay logged in together, race for a small shelf, and log out again.
+ */
+class LibraryHttpServerLoadTest {
+
+    /** Concurrent sessions; raise with {@code -Dhttp.load.sessions=5000} for a longer soak. */
+    private static final int SESSIONS = Integer.getInteger("http.load.sessions", 1000);
+    private static final int CLIENT_THREADS = 200;
+    private static final int COPIES = 50;
+
+    @TempDir
+    Path tempDir;
+
+    private TestLibrary library;
+    private LibraryHttpServer server;
+    private String base;
+    private final List<Integer> mediaIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Keep the hashing cost low: this test measures request handling, not PBKDF2.
+        PasswordUtil.setIterations(PasswordUtil.MIN_ITERATIONS);
+        library = TestLibrary.openShared(tempDir);
+        // Every session logs in once; make room for the soak sizes as well.
+        server = new LibraryHttpServer(0, new LoginThrottle(LoginThrottle.DEFAULT_PER_USER_LIMIT,
+                Math.max(LoginThrottle.DEFAULT_GLOBAL_LIMIT, 2 * SESSIONS), LoginThrottle.DEFAULT_WINDOW, Clock.systemUTC()));
+        BookService bookService = new BookService();
+        for (int i = 0; i < COPIES; i++) {
+            bookService.addBook("Copy " + i, "Author", "isbn-" + i);
+        }
+        for (Book book : bookService.getAllBooks()) {
+            mediaIds.add(book.getId());
+        }
+        server.start();
+        base = "http://localhost:" + server.getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        library.close();
+        PasswordUtil.setIterations(PasswordUtil.DEFAULT_ITERATIONS);
+    }
+
+    @Test
+    void testThousandsOfConcurrentSessions() throws Exception {
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newFixedThreadPool(8)).build();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENT_THREADS);
+        AtomicInteger requests = new AtomicInteger();
+        AtomicInteger loans = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        long started = System.nanoTime();
+
+        try {
+            // Phase 1: every session registers and logs in; all of them stay live.
+            List<Future<String>> tokens = new ArrayList<>();
+            for (int s = 0; s < SESSIONS; s++) {
+                String name = "patron" + s;
+                tokens.add(clients.submit(() -> {
+                    expect(201, send(client, "POST", "/api/register", null,
+                            "{\"username\":\"" + name + "\",\"password\":\"pw\"}"), requests);
+                    String token = field(expect(200, send(client, "POST", "/api/login", null,
+                            "{\"username\":\"" + name + "\",\"password\":\"pw\"}"), requests), "token");
+                    return token;
+                }));
+            }
+            for (Future<String> token : tokens) {
+                token.get(300, TimeUnit.SECONDS);
+            }
+            assertEquals(SESSIONS, server.getSessionCount());
+
+            // Phase 2: every live session browses, tries one copy, returns it and logs out.
+            for (int s = 0; s < SESSIONS; s++) {
+                int mediaId = mediaIds.get(s % COPIES);
+                Future<String> token = tokens.get(s);
+                futures.add(clients.submit(() -> {
+                    String bearer = token.get();
+                    expect(200, send(client, "GET", "/api/books", bearer, null), requests);
+                    HttpResponse<String> borrow = send(client, "POST", "/api/borrow", bearer,
+                            "{\"mediaId\":" + mediaId + "}");
+                    requests.incrementAndGet();
+                    if (borrow.statusCode() == 200) {
+                        loans.incrementAndGet();
+                        expect(200, send(client, "POST", "/api/return", bearer,
+                                "{\"mediaId\":" + mediaId + "}"), requests);
+                    } else {
+                        assertEquals(409, borrow.statusCode(), borrow.body());
+                    }
+                    expect(200, send(client, "POST", "/api/logout", bearer, ""), requests);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(300, TimeUnit.SECONDS);
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("HTTP load: %d sessions, %d requests in %.1fs (%.0f req/s), %d loans%n",
+                SESSIONS, requests.get(), seconds, requests.get() / seconds, loans.get());
+
+        assertEquals(0, server.getSessionCount());
+        assertTrue(loans.get() >= COPIES, "every copy should have been borrowed at least once");
+        try (Connection conn = DatabaseConnection.getConnection(); Statement stmt = conn.createStatement()) {
+            ResultSet active = stmt.executeQuery("SELECT COUNT(*) FROM borrow_records WHERE returned = 0");
+            assertEquals(0, active.getInt(1));
+            ResultSet available = stmt.executeQuery("SELECT COUNT(*) FROM media WHERE available = 1");
+            assertEquals(COPIES, available.getInt(1));
+        }
+    }
+
+    private HttpResponse<String> send(HttpClient client, String method, String path, String token, String json)
+            throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + path))
+                .method(method, json == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(json));
+        if (token != null) request.header("Authorization", "Bearer " + token);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String expect(int status, HttpResponse<String> response, AtomicInteger requests) {
+        requests.incrementAndGet();
+        assertEquals(status, response.statusCode(), response.body());
+        return response.body();
+    }
+
+    private static String field(String json, String name) {
+        Matcher matcher = Pattern.compile("\"" + name + "\":\"?([^\",}]*)").matcher(json);
+        assertTrue(matcher.find(), "missing " + name + " in " + json);
+        return matcher.group(1);
+    }
+}
@@ -0,0 +1,206 @@
+import dao.PasswordUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import presentation.LibraryHttpServer;
+import service.AdminService;
+import service.LoginThrottle;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the HTTP API end to end on a temporary SQLite file.
+ */
+class LibraryHttpServerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TestLibrary library;
+    private LibraryHttpServer server;
+    private HttpClient client;
+    private String base;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Keep the hashing cost low; these tests exercise the API, not PBKDF2.
+        PasswordUtil.setIterations(PasswordUtil.MIN_ITERATIONS);
+        library = TestLibrary.openShared(tempDir);
+        server = new LibraryHttpServer(0);
+        server.start();
+        new AdminService().register("root", "secret");
+        client = HttpClient.newHttpClient();
+        base = "http://localhost:" + server.getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        library.close();
+        PasswordUtil.setIterations(PasswordUtil.DEFAULT_ITERATIONS);
+    }
+
+    @Test
+    void testPatronFlow() throws Exception {
+        String admin = token(post("/api/admin/login", null, "{\"username\":\"root\",\"password\":\"secret\"}"));
+        HttpResponse<String> added = post("/api/admin/books", admin,
+                "{\"title\":\"Dune\",\"author\":\"Frank Herbert\",\"isbn\":\"isbn-1\"}");
+        assertEquals(201, added.statusCode());
+
+        assertEquals(201, post("/api/register", null, "{\"username\":\"amy\",\"password\":\"pw\"}").statusCode());
+        assertEquals(409, post("/api/register", null, "{\"username\":\"amy\",\"password\":\"pw\"}").statusCode());
+        assertEquals(401, post("/api/login", null, "{\"username\":\"amy\",\"password\":\"bad\"}").statusCode());
+        String amy = token(post("/api/login", null, "{\"username\":\"amy\",\"password\":\"pw\"}"));
+
+        HttpResponse<String> books = get("/api/books", amy);
+        assertEquals(200, books.statusCode());
+        int mediaId = Integer.parseInt(field(books.body(), "id"));
+
+        HttpResponse<String> search = get("/api/books/search?q=Herb&by=author", amy);
+        assertTrue(search.body().contains("\"title\":\"Dune\""));
+
+        HttpResponse<String> borrowed = post("/api/borrow", amy, "{\"mediaId\":" + mediaId + "}");
+        assertEquals(200, borrowed.statusCode());
+        assertTrue(borrowed.body().contains("\"dueDate\""));
+        assertEquals(409, post("/api/borrow", amy, "{\"mediaId\":" + mediaId + "}").statusCode());
+
+        assertTrue(get("/api/loans", amy).body().contains("\"title\":\"Dune\""));
+        assertEquals(200, post("/api/return", amy, "{\"mediaId\":" + mediaId + "}").statusCode());
+        assertEquals(404, post("/api/return", amy, "{\"mediaId\":" + mediaId + "}").statusCode());
+        assertEquals("0.0", field(get("/api/fines", amy).body(), "fineBalance"));
+
+        assertEquals(200, post("/api/logout", amy, "").statusCode());
+        assertEquals(401, get("/api/loans", amy).statusCode());
+    }
+
+    @Test
+    void testFinesChargedElsewhereAreSeenByTheSession() throws Exception {
+        int id = Integer.parseInt(field(post("/api/register", null,
+                "{\"username\":\"dan\",\"password\":\"pw\"}").body(), "id"));
+        String dan = token(post("/api/login", null, "{\"username\":\"dan\",\"password\":\"pw\"}"));
+        assertEquals("0.0", field(get("/api/fines", dan).body(), "fineBalance"));
+
+        // Charged outside this session, as the nightly accrual job does
+        assertTrue(library.fineDAO.addFine(id, 12.5));
+        assertEquals("12.5", field(get("/api/fines", dan).body(), "fineBalance"));
+
+        HttpResponse<String> paid = post("/api/fines/pay", dan, "{\"amount\":10}");
+        assertEquals(200, paid.statusCode());
+        assertEquals("2.5", field(paid.body(), "fineBalance"));
+        assertEquals(2.5, library.fineDAO.getFineBalance(id));
+        assertEquals(409, post("/api/fines/pay", dan, "{\"amount\":5}").statusCode());
+    }
+
+    @Test
+    void testFineChargedElsewhereBlocksBorrowing() throws Exception {
+        String admin = token(post("/api/admin/login", null, "{\"username\":\"root\",\"password\":\"secret\"}"));
+        post("/api/admin/books", admin, "{\"title\":\"Dune\",\"author\":\"Frank Herbert\",\"isbn\":\"isbn-1\"}");
+        int id = Integer.parseInt(field(post("/api/register", null,
+                "{\"username\":\"eve\",\"password\":\"pw\"}").body(), "id"));
+        String eve = token(post("/api/login", null, "{\"username\":\"eve\",\"password\":\"pw\"}"));
+        int mediaId = Integer.parseInt(field(get("/api/books", eve).body(), "id"));
+
+        // Charged outside this session, as a drop-box return does
+        assertTrue(library.fineDAO.addFine(id, 20.0));
+
+        assertEquals(409, post("/api/borrow", eve, "{\"mediaId\":" + mediaId + "}").statusCode());
+        assertEquals(200, post("/api/fines/pay", eve, "{\"amount\":20}").statusCode());
+        assertEquals(200, post("/api/borrow", eve, "{\"mediaId\":" + mediaId + "}").statusCode());
+    }
+
+    @Test
+    void testAuthorizationAndErrors() throws Exception {
+        assertEquals(401, get("/api/loans", null).statusCode());
+        assertEquals(403, post("/api/admin/books", null, "{\"title\":\"x\"}").statusCode());
+        assertEquals(404, get("/api/nothing", null).statusCode());
+        assertEquals(400, post("/api/login", null, "{not json").statusCode());
+        assertEquals(400, post("/api/login", null, "{\"username\":\"amy\"}").statusCode());
+
+        post("/api/register", null, "{\"username\":\"bob\",\"password\":\"pw\"}");
+        String bob = token(post("/api/login", null, "{\"username\":\"bob\",\"password\":\"pw\"}"));
+        assertEquals(403, get("/api/admin/overdue", bob).statusCode());
+        assertEquals(400, post("/api/borrow", bob, "{\"mediaId\":\"abc\"}").statusCode());
+        assertEquals(404, post("/api/borrow", bob, "{\"mediaId\":999}").statusCode());
+        assertEquals(409, post("/api/fines/pay", bob, "{\"amount\":5}").statusCode());
+    }
+
+    @Test
+    void testAdminOperations() throws Exception {
+        String admin = token(post("/api/admin/login", null, "{\"username\":\"root\",\"password\":\"secret\"}"));
+        assertEquals(201, post("/api/admin/cds", admin,
+                "{\"title\":\"Kind of Blue\",\"artist\":\"Miles Davis\",\"genre\":\"Jazz\",\"duration\":46}").statusCode());
+        assertTrue(get("/api/cds/search?q=Jazz&by=genre", null).body().contains("\"artist\":\"Miles Davis\""));
+        String misspelled = get("/api/cds/search?q=Myles%20Daviss&by=artist", null).body();
+        assertTrue(misspelled.startsWith("{\"items\":[]"));
+        assertTrue(misspelled.contains("\"didYouMean\":[{"));
+        assertTrue(misspelled.contains("\"artist\":\"Miles Davis\""));
+        assertFalse(get("/api/cds/search?q=Jazz&by=genre", null).body().contains("didYouMean"));
+
+        post("/api/register", null, "{\"username\":\"cat\",\"password\":\"pw\"}");
+        assertEquals(200, get("/api/admin/overdue", admin).statusCode());
+        assertEquals(200, post("/api/admin/users/delete", admin, "{\"username\":\"cat\"}").statusCode());
+        assertEquals(401, post("/api/login", null, "{\"username\":\"cat\",\"password\":\"pw\"}").statusCode());
+    }
+
+    @Test
+    void testOutboxPauseAndResume() throws Exception {
+        String admin = token(post("/api/admin/login", null, "{\"username\":\"root\",\"password\":\"secret\"}"));
+        assertEquals(403, get("/api/admin/outbox", null).statusCode());
+
+        HttpResponse<String> paused = post("/api/admin/outbox/pause", admin, "{}");
+        assertEquals(200, paused.statusCode());
+        assertTrue(paused.body().contains("\"paused\":true"));
+        assertTrue(get("/api/admin/outbox", admin).body().contains("\"depth\":"));
+
+        assertTrue(post("/api/admin/outbox/resume", admin, "{}").body().contains("\"paused\":false"));
+    }
+
+    @Test
+    void testLoginBurstIsThrottled() throws Exception {
+        post("/api/register", null, "{\"username\":\"dan\",\"password\":\"pw\"}");
+        for (int i = 0; i < LoginThrottle.DEFAULT_PER_USER_LIMIT; i++) {
+            assertEquals(401, post("/api/login", null, "{\"username\":\"dan\",\"password\":\"bad\"}").statusCode());
+        }
+
+        HttpResponse<String> throttled = post("/api/login", null, "{\"username\":\"dan\",\"password\":\"pw\"}");
+        assertEquals(429, throttled.statusCode());
+        assertTrue(Integer.parseInt(throttled.headers().firstValue("Retry-After").orElse("0")) > 0);
+        assertTrue(throttled.body().contains("\"retryAfter\""));
+
+        // Admin logins are counted under their own keys.
+        token(post("/api/admin/login", null, "{\"username\":\"root\",\"password\":\"secret\"}"));
+    }
+
+    private HttpResponse<String> get(String path, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + path)).GET();
+        if (token != null) request.header("Authorization", "Bearer " + token);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String token, String json) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + path))
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (token != null) request.header("Authorization", "Bearer " + token);
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String token(HttpResponse<String> response) {
+        assertEquals(200, response.statusCode(), response.body());
+        return field(response.body(), "token");
+    }
+
+    private static String field(String json, String name) {
+        Matcher matcher = Pattern.compile("\"" + name + "\":\"?([^\",}]*)").matcher(json);
+        assertTrue(matcher.find(), "missing " + name + " in " + json);
+        return matcher.group(1);
+    }
+}
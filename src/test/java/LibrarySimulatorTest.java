@@ -0,0 +1,63 @@
+import benchmark.LibrarySimulator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs a short simulation against the real services on a temporary SQLite file.
+ */
+class LibrarySimulatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSamplesTrackGrowthOverSimulatedTime() {
+        List<LibrarySimulator.Sample> samples =
+                new LibrarySimulator(tempDir.resolve("a.db"), 20, 50, 200, 7).run().getSamples();
+
+        assertEquals(3, samples.size());
+        assertEquals(LibrarySimulator.START.plusDays(90), samples.get(0).getDate());
+        assertEquals(LibrarySimulator.START.plusDays(200), samples.get(2).getDate());
+        assertEquals(20, samples.get(2).getPatrons());
+        for (int i = 1; i < samples.size(); i++) {
+            assertTrue(samples.get(i).getBorrowRecords() >= samples.get(i - 1).getBorrowRecords());
+            assertTrue(samples.get(i).getPatrons() >= samples.get(i - 1).getPatrons());
+        }
+
+        LibrarySimulator.Sample first = samples.get(0);
+        assertTrue(first.getBorrowRecords() > 0);
+        assertTrue(first.getActiveLoans() <= first.getBorrowRecords());
+        assertTrue(first.getDatabaseBytes() > 0);
+        assertTrue(first.getOperations() > 0);
+        assertTrue(first.getOperationsPerSecond() > 0);
+        assertTrue(first.getBorrowP99Micros() >= first.getBorrowP50Micros());
+        assertTrue(samples.stream().mapToInt(LibrarySimulator.Sample::getLateReturns).sum() > 0);
+        assertTrue(samples.stream().mapToInt(LibrarySimulator.Sample::getRemindersSent).sum() > 0);
+    }
+
+    @Test
+    void testSameSeedReplaysSameWorkload() {
+        List<LibrarySimulator.Sample> first =
+                new LibrarySimulator(tempDir.resolve("a.db"), 10, 30, 100, 3).run().getSamples();
+        List<LibrarySimulator.Sample> second =
+                new LibrarySimulator(tempDir.resolve("b.db"), 10, 30, 100, 3).run().getSamples();
+
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).getBorrowRecords(), second.get(i).getBorrowRecords());
+            assertEquals(first.get(i).getActiveLoans(), second.get(i).getActiveLoans());
+            assertEquals(first.get(i).getLateReturns(), second.get(i).getLateReturns());
+        }
+    }
+
+    @Test
+    void testRejectsEmptyWorkload() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new LibrarySimulator(tempDir.resolve("a.db"), 0, 10, 10, 1));
+    }
+}
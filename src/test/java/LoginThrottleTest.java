@@ -0,0 +1,170 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.LoginThrottle;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    private static final Duration WINDOW = Duration.ofMinutes(1);
+
+    private MutableClock clock;
+    private LoginThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        throttle = new LoginThrottle(3, 10, WINDOW, clock);
+    }
+
+    @Test
+    void testAdmitsUpToPerUserLimit() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(throttle.tryAcquire("amy").isZero());
+        }
+        Duration wait = throttle.tryAcquire("amy");
+
+        assertFalse(wait.isZero());
+        assertEquals(1, throttle.getRejectedCount());
+        assertTrue(throttle.tryAcquire("bob").isZero());
+    }
+
+    @Test
+    void testRetryAfterDoesNotCount() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(throttle.retryAfter("amy").isZero());
+        }
+        assertTrue(throttle.tryAcquire("amy").isZero());
+        assertEquals(0, throttle.getRejectedCount());
+    }
+
+    @Test
+    void testRetryAfterPointsToWhenAttemptFits() {
+        for (int i = 0; i < 3; i++) {
+            throttle.tryAcquire("amy");
+        }
+        clock.advance(Duration.ofSeconds(15));
+        Duration wait = throttle.tryAcquire("amy");
+
+        // All three attempts sit in this window; one must slide out of view
+        // of the next window: 45 s to the boundary plus a third of a window.
+        assertEquals(Duration.ofSeconds(65), wait);
+
+        clock.advance(wait.minusMillis(1));
+        assertFalse(throttle.retryAfter("amy").isZero());
+        clock.advance(Duration.ofMillis(1));
+        assertTrue(throttle.tryAcquire("amy").isZero());
+    }
+
+    @Test
+    void testPreviousWindowFadesOut() {
+        for (int i = 0; i < 3; i++) {
+            throttle.tryAcquire("amy");
+        }
+        clock.advance(WINDOW);
+
+        // At the start of the next window the old attempts still count in full.
+        assertFalse(throttle.retryAfter("amy").isZero());
+        clock.advance(WINDOW.dividedBy(3));
+        assertTrue(throttle.tryAcquire("amy").isZero());
+        assertFalse(throttle.tryAcquire("amy").isZero());
+
+        clock.advance(WINDOW.multipliedBy(2));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(throttle.tryAcquire("amy").isZero());
+        }
+    }
+
+    @Test
+    void testGlobalLimitSpansUsers() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(throttle.tryAcquire("user" + i).isZero());
+        }
+        assertFalse(throttle.tryAcquire("fresh").isZero());
+    }
+
+    @Test
+    void testSketchKeepsDistinctNamesApart() {
+        LoginThrottle wide = new LoginThrottle(2, Integer.MAX_VALUE, WINDOW, clock);
+        for (int i = 0; i < 500; i++) {
+            wide.tryAcquire("user" + i);
+            wide.tryAcquire("user" + i);
+        }
+        int blocked = 0;
+        for (int i = 0; i < 500; i++) {
+            if (!wide.retryAfter("other" + i).isZero()) blocked++;
+        }
+        // A thousand names fit in the sketch with at most rare collisions.
+        assertTrue(blocked < 5, "blocked " + blocked);
+    }
+
+    @Test
+    void testConcurrentAttemptsNeverPassLimit() throws Exception {
+        LoginThrottle shared = new LoginThrottle(50, Integer.MAX_VALUE, WINDOW, clock);
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        if (shared.tryAcquire("amy").isZero()) admitted.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Checking and counting is one step, so no two attempts can share the last slot.
+        assertEquals(50, admitted.get());
+    }
+
+    @Test
+    void testRejectsInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new LoginThrottle(0, 10, WINDOW, clock));
+        assertThrows(IllegalArgumentException.class, () -> new LoginThrottle(1, 10, Duration.ZERO, clock));
+    }
+
+    /**
+     * Clock the tests move by hand.
+     */
+    private static final class MutableClock extends Clock {
+        private volatile Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -181,4 +181,24 @@ class MediaDAOTest {
         verify(mockPreparedStatement).setObject(2, mediaId);
         verify(mockPreparedStatement).executeUpdate();
     }
-}
\ No newline at end of file
+
+    @Test
+    void testClaimAvailabilitySuccess() throws SQLException {
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeUpdate()).thenReturn(1);
+
+        boolean result = mediaDAO.claimAvailability(5);
+
+        assertTrue(result);
+        verify(mockConnection).prepareStatement("UPDATE media SET available = 0 WHERE id = ? AND available = 1");
+        verify(mockPreparedStatement).setObject(1, 5);
+    }
+
+    @Test
+    void testClaimAvailabilityAlreadyClaimed() throws SQLException {
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeUpdate()).thenReturn(0);
+
+        assertFalse(mediaDAO.claimAvailability(5));
+    }
+}
@@ -63,4 +63,16 @@ class MediaRecordTest {
         assertFalse(record.isOverdue());
         assertEquals(0, record.getOverdueDays());
     }
+
+    @Test
+    void testIsOverdue_OnGivenDate() {
+        Media media = new Media(1, "Book Title", true, "book");
+        LocalDate dueDate = LocalDate.of(2026, 3, 1);
+        MediaRecord record = new MediaRecord(1, media, dueDate);
+
+        assertFalse(record.isOverdue(dueDate));
+        assertEquals(0, record.getOverdueDays(dueDate));
+        assertTrue(record.isOverdue(dueDate.plusDays(40)));
+        assertEquals(40, record.getOverdueDays(dueDate.plusDays(40)));
+    }
 }
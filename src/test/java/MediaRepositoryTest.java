@@ -0,0 +1,117 @@
+import dao.MediaDAO;
+import model.Book;
+import model.CD;
+import model.Media;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.MediaRepository;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Loads books and CDs by ID through {@link MediaDAO} on a temporary SQLite
+ * file, and checks the identity map of {@link MediaRepository}.
+ */
+class MediaRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TestLibrary library;
+
+    @BeforeEach
+    void setUp() {
+        library = TestLibrary.open(tempDir);
+    }
+
+    @AfterEach
+    void tearDown() {
+        library.close();
+    }
+
+    @Test
+    void testFindByIdReturnsTheConcreteType() {
+        int dune = book("Dune", "Herbert");
+        int abbey = cd("Abbey Road", "The Beatles");
+        assertTrue(library.mediaDAO.updateAvailability(abbey, false));
+
+        Media book = library.mediaDAO.findById(dune);
+        assertInstanceOf(Book.class, book);
+        assertEquals("Herbert", ((Book) book).getAuthor());
+        assertTrue(book.isAvailable());
+
+        Media cd = library.mediaDAO.findById(abbey);
+        assertInstanceOf(CD.class, cd);
+        assertEquals("The Beatles", ((CD) cd).getArtist());
+        assertFalse(cd.isAvailable());
+
+        assertNull(library.mediaDAO.findById(999));
+        // A media row without its subtype row is not a complete item
+        assertNull(library.mediaDAO.findById(library.mediaDAO.insert("Orphan", "book")));
+    }
+
+    @Test
+    void testFindByIdsBindsLargeListsInChunks() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            ids.add(i % 2 == 0 ? book("Book " + i, "Author") : cd("CD " + i, "Artist"));
+        }
+        ids.add(99_999);
+
+        List<Media> found = library.mediaDAO.findByIds(ids);
+
+        assertEquals(1200, found.size());
+        assertEquals(600, found.stream().filter(Book.class::isInstance).count());
+        assertTrue(library.mediaDAO.findByIds(List.of()).isEmpty());
+    }
+
+    @Test
+    void testRepositoryLoadsEachItemOnce() {
+        int dune = book("Dune", "Herbert");
+        int abbey = cd("Abbey Road", "The Beatles");
+        MediaDAO spyDAO = spy(library.mediaDAO);
+        MediaRepository repository = new MediaRepository(spyDAO);
+
+        Media first = repository.findById(dune);
+        assertSame(first, repository.findById(dune));
+        assertNull(repository.findById(999));
+        assertNull(repository.findById(999));
+        verify(spyDAO, times(1)).findById(dune);
+        verify(spyDAO, times(1)).findById(999);
+
+        Map<Integer, Media> found = repository.findByIds(List.of(abbey, dune, 999, abbey));
+        assertEquals(List.of(abbey, dune), new ArrayList<>(found.keySet()));
+        assertSame(first, found.get(dune));
+        verify(spyDAO).findByIds(List.of(abbey));
+        assertSame(found.get(abbey), repository.findById(abbey));
+    }
+
+    @Test
+    void testTypedLookupRejectsOtherTypes() {
+        int dune = book("Dune", "Herbert");
+        MediaRepository repository = new MediaRepository(library.mediaDAO);
+
+        assertEquals("Dune", repository.findById(dune, Book.class).getTitle());
+        assertNull(repository.findById(dune, CD.class));
+    }
+
+    private int book(String title, String author) {
+        int id = library.mediaDAO.insert(title, "book");
+        assertTrue(library.bookDAO.insert(id, author, "isbn-" + id) >= 0);
+        return id;
+    }
+
+    private int cd(String title, String artist) {
+        int id = library.mediaDAO.insert(title, "cd");
+        assertTrue(library.cdDAO.insert(id, artist, "Rock", 47) >= 0);
+        return id;
+    }
+}
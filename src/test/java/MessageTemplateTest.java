@@ -0,0 +1,59 @@
+import org.junit.jupiter.api.Test;
+import service.MessageTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks parsing and rendering of {@link MessageTemplate}.
+ */
+class MessageTemplateTest {
+
+    @Test
+    void testRendersPlaceholdersInOrder() {
+        MessageTemplate template = MessageTemplate.compile("Hello {{name}}, you owe ${{ amount }}.");
+
+        assertEquals(List.of("name", "amount"), template.getPlaceholders());
+        assertEquals("Hello amy, you owe $2.50.", template.render(Map.of("name", "amy", "amount", "2.50")));
+    }
+
+    @Test
+    void testTextWithoutPlaceholders() {
+        MessageTemplate template = MessageTemplate.compile("Thank you.\n");
+
+        assertTrue(template.getPlaceholders().isEmpty());
+        assertEquals("Thank you.\n", template.render(Map.of()));
+    }
+
+    @Test
+    void testRenderToAppendsAndRepeats() {
+        MessageTemplate line = MessageTemplate.compile("- {{title}}\n");
+        StringBuilder out = new StringBuilder("Items:\n");
+        Map<String, Object> values = new HashMap<>();
+        for (String title : List.of("Dune", "Emma")) {
+            values.put("title", title);
+            line.renderTo(out, values);
+        }
+
+        assertEquals("Items:\n- Dune\n- Emma\n", out.toString());
+    }
+
+    @Test
+    void testMissingValueIsRejected() {
+        MessageTemplate template = MessageTemplate.compile("Hi {{name}}");
+
+        assertThrows(IllegalArgumentException.class, () -> template.render(Map.of()));
+        Map<String, Object> explicitNull = new HashMap<>();
+        explicitNull.put("name", null);
+        assertEquals("Hi null", template.render(explicitNull));
+    }
+
+    @Test
+    void testMalformedTemplatesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("Hi {{name"));
+        assertThrows(IllegalArgumentException.class, () -> MessageTemplate.compile("Hi {{ }}"));
+    }
+}
@@ -0,0 +1,140 @@
+import model.Hold;
+import model.OutboxMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.NotificationDigestService;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Builds notification digests from real tables on a temporary SQLite file.
+ */
+class NotificationDigestServiceTest {
+
+    private static final LocalDate TODAY = TestLibrary.TODAY;
+
+    @TempDir
+    Path tempDir;
+
+    private TestLibrary library;
+    private NotificationDigestService digests;
+
+    @BeforeEach
+    void setUp() {
+        library = TestLibrary.open(tempDir);
+        digests = new NotificationDigestService(library.borrowRecordDAO, library.holdDAO, library.fineDAO,
+                library.outboxDAO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        library.close();
+    }
+
+    @Test
+    void testMergesAllNoticesIntoOneMessagePerUser() {
+        int amy = library.user("amy", "amy@example.org");
+        int bob = library.user("bob", null);
+        int cat = library.user("cat", "cat@example.org");
+
+        loan(amy, "Dune", TODAY.minusDays(3));
+        loan(amy, "Emma", TODAY.minusDays(1));
+        loan(amy, "Ulysses", TODAY.plusDays(5));          // not due yet
+        readyHold(amy, "Beloved", TODAY.plusDays(2));
+        library.fineDAO.addFine(amy, 2.5);
+        loan(bob, "Walden", TODAY.minusDays(10));
+        loan(cat, "Ivanhoe", TODAY.plusDays(1));          // nothing to report
+
+        List<OutboxMessage> messages = digests.buildDigests(TODAY);
+
+        assertEquals(2, messages.size());
+        OutboxMessage toAmy = messages.get(0);
+        assertEquals("amy@example.org", toAmy.getRecipient());
+        assertEquals("Library account: 4 item(s) need your attention", toAmy.getSubject());
+        assertEquals("Hello amy,\n"
+                + "\nOverdue items (2):\n"
+                + "  - Dune, due 2026-03-07 (3 day(s) overdue)\n"
+                + "  - Emma, due 2026-03-09 (1 day(s) overdue)\n"
+                + "\nReady for pickup (1):\n"
+                + "  - Beloved, held for you until 2026-03-12\n"
+                + "\nOutstanding fines: $2.50\n"
+                + "\nThank you,\nThe Library\n", toAmy.getBody());
+
+        OutboxMessage toBob = messages.get(1);
+        assertEquals("bob@gmail.com", toBob.getRecipient());
+        assertTrue(toBob.getBody().contains("Walden, due 2026-02-28 (10 day(s) overdue)"));
+        assertFalse(toBob.getBody().contains("fines"));
+    }
+
+    @Test
+    void testFineOnlyAndPaidFines() {
+        int amy = library.user("amy", "amy@example.org");
+        int bob = library.user("bob", "bob@example.org");
+        library.fineDAO.addFine(amy, 4.0);
+        library.fineDAO.addFine(bob, 1.0);
+        library.fineDAO.payFine(bob, 1.0);
+
+        List<OutboxMessage> messages = digests.buildDigests(TODAY);
+
+        assertEquals(1, messages.size());
+        assertEquals("amy@example.org", messages.get(0).getRecipient());
+        assertTrue(messages.get(0).getBody().contains("Outstanding fines: $4.00"));
+    }
+
+    @Test
+    void testQueueDigestsWritesToOutbox() {
+        int amy = library.user("amy", "amy@example.org");
+        loan(amy, "Dune", TODAY.minusDays(3));
+
+        assertEquals(1, digests.queueDigests(TODAY));
+        assertEquals(1, library.outboxDAO.countPending());
+        assertEquals(0, digests.queueDigests(TODAY.minusDays(30)));
+    }
+
+    @Test
+    void testQueuedDigestsAreStampedFromTheClock() {
+        Clock clock = Clock.fixed(Instant.parse("2026-03-10T09:00:00Z"), ZoneOffset.UTC);
+        digests = new NotificationDigestService(library.borrowRecordDAO, library.holdDAO, library.fineDAO,
+                library.outboxDAO, clock);
+        int amy = library.user("amy", "amy@example.org");
+        loan(amy, "Dune", TODAY.minusDays(3));
+
+        assertEquals(1, digests.queueDigests(TODAY));
+
+        List<OutboxMessage> due = library.outboxDAO.claimDue(10, clock.millis(), clock.millis() + 1000);
+        assertEquals(1, due.size());
+        assertEquals(clock.millis(), due.get(0).getCreatedAt());
+    }
+
+    @Test
+    void testStoredEmailCanBeUpdated() {
+        int amy = library.user("amy", null);
+        loan(amy, "Dune", TODAY.minusDays(3));
+        assertEquals("amy@gmail.com", digests.buildDigests(TODAY).get(0).getRecipient());
+
+        assertTrue(library.userDAO.updateEmail(amy, "amy@example.org"));
+        assertEquals("amy@example.org", library.userDAO.findByUsername("amy").getEmail());
+        assertEquals("amy@example.org", digests.buildDigests(TODAY).get(0).getRecipient());
+    }
+
+    private void loan(int userId, String title, LocalDate dueDate) {
+        int mediaId = library.mediaDAO.insert(title, "book");
+        assertTrue(library.borrowRecordDAO.insert(userId, mediaId, "book", title, dueDate.minusDays(28), dueDate) > 0);
+    }
+
+    private void readyHold(int userId, String title, LocalDate readyUntil) {
+        int mediaId = library.mediaDAO.insert(title, "book");
+        library.holdDAO.insert(mediaId, userId);
+        Hold ready = library.holdDAO.handOff(mediaId, readyUntil);
+        assertNotNull(ready);
+    }
+}
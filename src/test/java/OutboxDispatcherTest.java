@@ -0,0 +1,290 @@
+import benchmark.SmtpSink;
+import dao.DatabaseConnection;
+import model.OutboxMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.EmailServer;
+import service.OutboxDispatcher;
+import service.SmtpSettings;
+import service.TokenBucket;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drives the outbox and its dispatcher on a temporary SQLite file.
+ */
+class OutboxDispatcherTest {
+
+    private static final Duration BACKOFF = Duration.ofSeconds(30);
+
+    @TempDir
+    Path tempDir;
+
+    private MutableClock clock;
+    private TestLibrary library;
+    private EmailServer emailServer;
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        library = TestLibrary.open(tempDir);
+        clock = new MutableClock();
+        emailServer = mock(EmailServer.class);
+        dispatcher = new OutboxDispatcher(library.outboxDAO, emailServer, clock, 3, BACKOFF, 4,
+                new TokenBucket(1000, 1000));
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.stop();
+        library.close();
+    }
+
+    @Test
+    void testDrainDeliversAndRemovesMessages() {
+        enqueue(120);
+
+        assertEquals(120, dispatcher.drain());
+
+        verify(emailServer, times(120)).sendEmail(anyString(), eq("Subject"), anyString());
+        verify(emailServer).sendEmail("user7@example.com", "Subject", "Body 7");
+        assertEquals(0, dispatcher.getQueueDepth());
+        assertEquals(120, dispatcher.getDeliveredCount());
+    }
+
+    @Test
+    void testFailedMessageIsRetriedAfterBackoff() {
+        enqueue(1);
+        doThrow(new RuntimeException("SMTP down")).doNothing()
+                .when(emailServer).sendEmail(anyString(), anyString(), anyString());
+
+        assertEquals(0, dispatcher.drain());
+        assertEquals(1, dispatcher.getQueueDepth());
+
+        clock.advance(BACKOFF.minusSeconds(1));
+        assertEquals(0, dispatcher.drain());
+
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(1, dispatcher.drain());
+        assertEquals(0, dispatcher.getQueueDepth());
+        verify(emailServer, times(2)).sendEmail(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testBackoffDoublesThenDeadLetters() {
+        enqueue(1);
+        doThrow(new RuntimeException("mailbox unavailable"))
+                .when(emailServer).sendEmail(anyString(), anyString(), anyString());
+
+        dispatcher.drain();                      // attempt 1, retry in 30 s
+        clock.advance(BACKOFF);
+        dispatcher.drain();                      // attempt 2, retry in 60 s
+        clock.advance(BACKOFF);
+        dispatcher.drain();                      // too early
+        verify(emailServer, times(2)).sendEmail(anyString(), anyString(), anyString());
+
+        clock.advance(BACKOFF);
+        dispatcher.drain();                      // attempt 3, dead-lettered
+
+        assertEquals(0, dispatcher.getQueueDepth());
+        assertEquals(1, dispatcher.getDeadLetterCount());
+        List<OutboxMessage> dead = library.outboxDAO.findDead();
+        assertEquals("user0@example.com", dead.get(0).getRecipient());
+        assertEquals(3, dead.get(0).getAttempts());
+
+        clock.advance(Duration.ofHours(2));
+        dispatcher.drain();
+        verify(emailServer, times(3)).sendEmail(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testExpiredLeaseIsClaimedAgain() {
+        enqueue(1);
+        long now = clock.millis();
+        assertEquals(1, library.outboxDAO.claimDue(10, now, now + OutboxDispatcher.LEASE.toMillis()).size());
+
+        // Claimed by a dispatcher that never reported back.
+        assertEquals(0, dispatcher.drain());
+        clock.advance(OutboxDispatcher.LEASE);
+        assertEquals(1, dispatcher.drain());
+    }
+
+    @Test
+    void testQueueDepthAndAge() {
+        assertEquals(Duration.ZERO, dispatcher.getOldestMessageAge());
+        enqueue(3);
+        clock.advance(Duration.ofMinutes(2));
+        enqueue(2);
+
+        assertEquals(5, dispatcher.getQueueDepth());
+        assertEquals(Duration.ofMinutes(2), dispatcher.getOldestMessageAge());
+    }
+
+    @Test
+    void testEnqueueInFollowsCallerTransaction() throws Exception {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            library.outboxDAO.enqueueIn(conn, new OutboxMessage("a@example.com", "S", "B"), clock.millis());
+            conn.rollback();
+            library.outboxDAO.enqueueIn(conn, new OutboxMessage("b@example.com", "S", "B"), clock.millis());
+            conn.commit();
+        }
+
+        assertEquals(1, dispatcher.drain());
+        verify(emailServer).sendEmail("b@example.com", "S", "B");
+        verify(emailServer, never()).sendEmail(eq("a@example.com"), anyString(), anyString());
+    }
+
+    @Test
+    void testNoServerPausesDelivery() {
+        enqueue(2);
+        dispatcher.setEmailServer(null);
+
+        assertEquals(0, dispatcher.drain());
+        assertEquals(2, dispatcher.getQueueDepth());
+    }
+
+    @Test
+    void testSendsRunInParallelUpToConcurrencyLimit() {
+        enqueue(40);
+        AtomicInteger current = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        doAnswer(invocation -> {
+            peak.accumulateAndGet(current.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            current.decrementAndGet();
+            return null;
+        }).when(emailServer).sendEmail(anyString(), anyString(), anyString());
+
+        long start = System.nanoTime();
+        assertEquals(40, dispatcher.drain());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(4, peak.get());
+        assertTrue(elapsedMillis < 40 * 20, "sends should overlap, took " + elapsedMillis + " ms");
+        assertEquals(0, dispatcher.getInFlightCount());
+    }
+
+    @Test
+    void testSendRateIsLimited() {
+        OutboxDispatcher limited = new OutboxDispatcher(library.outboxDAO, emailServer, clock, 3, BACKOFF,
+                4, new TokenBucket(50, 5));
+        enqueue(15);
+
+        long start = System.nanoTime();
+        assertEquals(15, limited.drain());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // A burst of 5, then 10 more at 50 per second.
+        assertTrue(elapsedMillis >= 180, "sends should be spaced, took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void testPauseReleasesUnsentMessagesAndResumeContinues() {
+        OutboxDispatcher serial = new OutboxDispatcher(library.outboxDAO, emailServer, clock, 3, BACKOFF,
+                1, new TokenBucket(1000, 1000));
+        enqueue(10);
+        doAnswer(invocation -> {
+            serial.pause();
+            return null;
+        }).when(emailServer).sendEmail(eq("user2@example.com"), anyString(), anyString());
+
+        int sent = serial.drain();
+        assertTrue(serial.isPaused());
+        assertTrue(sent >= 3 && sent < 10, "sent " + sent);
+        assertEquals(10 - sent, serial.getQueueDepth());
+        assertEquals(0, serial.drain());
+
+        serial.resume();
+        assertEquals(10 - sent, serial.drain());
+        assertEquals(0, serial.getQueueDepth());
+        verify(emailServer, times(10)).sendEmail(anyString(), anyString(), anyString());
+        assertEquals(0, serial.getFailedCount());
+    }
+
+    @Test
+    void testReleasedMessageIsNotChargedAnAttempt() {
+        enqueue(1);
+        long now = clock.millis();
+        OutboxMessage claimed = library.outboxDAO.claimDue(10, now, now + OutboxDispatcher.LEASE.toMillis()).get(0);
+        assertEquals(1, claimed.getAttempts());
+
+        assertTrue(library.outboxDAO.release(claimed.getId()));
+        assertEquals(1, library.outboxDAO.claimDue(10, now, now + 1).get(0).getAttempts());
+    }
+
+    @Test
+    void testBackgroundDeliveryToSmtpSink() throws Exception {
+        try (SmtpSink sink = new SmtpSink(0)) {
+            sink.start();
+            EmailServer server = new EmailServer("library@example.com", "secret",
+                    new SmtpSettings("localhost", sink.getPort()).withStartTls(false));
+            OutboxDispatcher live = new OutboxDispatcher(library.outboxDAO, server);
+            enqueue(25);
+            try {
+                live.start(50, TimeUnit.MILLISECONDS);
+                long deadline = System.currentTimeMillis() + 10_000;
+                while ((sink.getMessageCount() < 25 || live.getQueueDepth() > 0)
+                        && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(20);
+                }
+            } finally {
+                live.stop();
+                server.close();
+            }
+            assertEquals(25, sink.getMessageCount());
+            assertEquals(0, live.getQueueDepth());
+        }
+    }
+
+    private void enqueue(int count) {
+        List<OutboxMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(new OutboxMessage("user" + i + "@example.com", "Subject", "Body " + i));
+        }
+        assertEquals(count, library.outboxDAO.enqueueAll(messages, clock.millis()));
+    }
+
+    /**
+     * Clock the tests move by hand.
+     */
+    private static final class MutableClock extends Clock {
+        private volatile Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
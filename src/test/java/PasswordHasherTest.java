@@ -0,0 +1,63 @@
+import dao.PasswordUtil;
+import org.junit.jupiter.api.Test;
+import service.PasswordHasher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTest {
+
+    @Test
+    void testHashAndVerify() {
+        PasswordHasher hasher = new PasswordHasher(1, 4);
+        String salt = PasswordUtil.generateSalt();
+
+        String hash = hasher.hash("secret", salt);
+
+        assertTrue(hasher.verify("secret", salt, hash));
+        assertFalse(hasher.verify("wrong", salt, hash));
+    }
+
+    @Test
+    void testErrorsPropagateUnwrapped() {
+        PasswordHasher hasher = new PasswordHasher(1, 4);
+        assertThrows(IllegalArgumentException.class, () -> hasher.hash("secret", null));
+    }
+
+    @Test
+    void testSaturatedPoolRejectsInsteadOfQueueing() throws Exception {
+        PasswordHasher hasher = new PasswordHasher(1, 1);
+        String salt = PasswordUtil.generateSalt();
+        String slowHash = PasswordUtil.hashPassword("secret", salt, 1_000);
+        String expensive = "pbkdf2-sha256$1000000$" + slowHash.substring(slowHash.lastIndexOf('$') + 1);
+
+        ExecutorService callers = Executors.newFixedThreadPool(6);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 6; i++) {
+                results.add(callers.submit(() -> hasher.verify("secret", salt, expensive)));
+            }
+            int rejected = 0;
+            for (Future<Boolean> result : results) {
+                try {
+                    result.get(120, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertInstanceOf(RejectedExecutionException.class, e.getCause());
+                    rejected++;
+                }
+            }
+            // One job runs, one waits, the rest are turned away.
+            assertTrue(rejected >= 1 && rejected <= 4, "rejected " + rejected);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
@@ -131,6 +131,60 @@ class PasswordUtilTest {
         assertEquals("Invalid salt format. Salt must be a valid Base64 string.", exception.getMessage());
     }
 
+    // ==================== Tests for PBKDF2 format and verification ====================
+
+    @Test
+    @DisplayName("hashPassword() should encode scheme and iteration count")
+    void testHashPassword_encodesParameters() {
+        String salt = PasswordUtil.generateSalt();
+        String hash = PasswordUtil.hashPassword("pw", salt, 2000);
+
+        assertTrue(hash.startsWith("pbkdf2-sha256$2000$"), hash);
+        assertNotEquals(hash, PasswordUtil.hashPassword("pw", salt, 3000));
+    }
+
+    @Test
+    @DisplayName("verifyPassword() should accept PBKDF2 hashes at any encoded cost")
+    void testVerifyPassword_pbkdf2() {
+        String salt = PasswordUtil.generateSalt();
+        String hash = PasswordUtil.hashPassword("secret", salt, 1500);
+
+        assertTrue(PasswordUtil.verifyPassword("secret", salt, hash));
+        assertFalse(PasswordUtil.verifyPassword("Secret", salt, hash));
+        assertFalse(PasswordUtil.verifyPassword("secret", salt, "pbkdf2-sha256$oops$abc"));
+        assertFalse(PasswordUtil.verifyPassword("secret", salt, null));
+    }
+
+    @Test
+    @DisplayName("verifyPassword() should accept legacy SHA-256 hashes")
+    void testVerifyPassword_legacy() {
+        String salt = PasswordUtil.generateSalt();
+        String legacy = PasswordUtil.legacyHash("secret", salt);
+
+        assertFalse(legacy.contains("$"));
+        assertTrue(PasswordUtil.verifyPassword("secret", salt, legacy));
+        assertFalse(PasswordUtil.verifyPassword("other", salt, legacy));
+    }
+
+    @Test
+    @DisplayName("needsRehash() should flag legacy and cheaper hashes")
+    void testNeedsRehash() {
+        String salt = PasswordUtil.generateSalt();
+        int current = PasswordUtil.getIterations();
+
+        assertTrue(PasswordUtil.needsRehash(PasswordUtil.legacyHash("pw", salt)));
+        assertTrue(PasswordUtil.needsRehash("pbkdf2-sha256$" + (current - 1) + "$abc"));
+        assertFalse(PasswordUtil.needsRehash("pbkdf2-sha256$" + current + "$abc"));
+        assertFalse(PasswordUtil.needsRehash("pbkdf2-sha256$" + (current + 1) + "$abc"));
+    }
+
+    @Test
+    @DisplayName("setIterations() should reject counts below the minimum")
+    void testSetIterations_rejectsTooFew() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PasswordUtil.setIterations(PasswordUtil.MIN_ITERATIONS - 1));
+    }
+
     // Note: Testing the NoSuchAlgorithmException case for MessageDigest.getInstance("SHA-256")
     // would require mocking the MessageDigest class itself, which is complex and often
     // not necessary for this level of testing. SHA-256 is a standard, guaranteed algorithm.
@@ -0,0 +1,162 @@
+import model.Notice;
+import model.OutboxMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.ReminderScheduler;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the overdue reminder scheduler against real tables on a temporary SQLite file.
+ */
+class ReminderSchedulerTest {
+
+    private static final LocalDate TODAY = TestLibrary.TODAY;
+
+    @TempDir
+    Path tempDir;
+
+    private TestLibrary library;
+    private ReminderScheduler reminders;
+
+    @BeforeEach
+    void setUp() {
+        library = TestLibrary.open(tempDir);
+        reminders = new ReminderScheduler(library.borrowRecordDAO, library.outboxDAO, null,
+                TestLibrary.clockAt(LocalTime.of(9, 0)), 7, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reminders.stop();
+        library.close();
+    }
+
+    @Test
+    void testFirstRunRemindsEachUserOnceAboutAllOverdueLoans() {
+        int amy = library.user("amy", "amy@example.org");
+        int bob = library.user("bob", "bob@example.org");
+        loan(amy, "Dune", TODAY.minusDays(3));
+        loan(amy, "Emma", TODAY.minusDays(1));
+        loan(amy, "Ulysses", TODAY);                      // due today, not overdue
+        loan(bob, "Walden", TODAY.minusDays(10));
+
+        assertEquals(2, reminders.runOnce());
+
+        List<OutboxMessage> queued = library.outboxDAO.claimDue(10, Long.MAX_VALUE, Long.MAX_VALUE);
+        assertEquals(2, queued.size());
+        OutboxMessage toAmy = queued.get(0);
+        assertEquals("amy@example.org", toAmy.getRecipient());
+        assertEquals("Overdue reminder: 2 overdue item(s)", toAmy.getSubject());
+        assertEquals("Hello amy,\n\nThe following item(s) are overdue:\n"
+                + "  - Dune, due 2026-03-07 (3 day(s) overdue) - reminder 1 of 3\n"
+                + "  - Emma, due 2026-03-09 (1 day(s) overdue) - reminder 1 of 3\n"
+                + "\nPlease return them as soon as possible.\n\nThank you,\nThe Library\n", toAmy.getBody());
+        assertEquals("bob@example.org", queued.get(1).getRecipient());
+    }
+
+    @Test
+    void testSecondRunOnSameDaySendsNothing() {
+        loan(library.user("amy", "amy@example.org"), "Dune", TODAY.minusDays(3));
+
+        assertEquals(1, reminders.runOnce(TODAY));
+        assertEquals(0, reminders.runOnce(TODAY));
+        assertEquals(0, reminders.runOnce(TODAY.plusDays(6)));
+        assertEquals(1, library.outboxDAO.countPending());
+    }
+
+    @Test
+    void testOnlyNewlyOverdueLoansAreSelected() {
+        int amy = library.user("amy", "amy@example.org");
+        loan(amy, "Dune", TODAY.minusDays(3));
+        loan(amy, "Emma", TODAY.plusDays(1));
+        assertEquals(1, reminders.runOnce(TODAY));
+
+        List<Notice> due = library.borrowRecordDAO.findDueReminders(TODAY.plusDays(2));
+        assertEquals(1, due.size());
+        assertEquals("Emma", due.get(0).getTitle());
+        assertEquals(0, due.get(0).getRemindersSent());
+    }
+
+    @Test
+    void testEscalatesUntilFinalNoticeThenStops() {
+        loan(library.user("amy", "amy@example.org"), "Dune", TODAY.minusDays(1));
+
+        assertEquals(1, reminders.runOnce(TODAY));
+        assertEquals(1, reminders.runOnce(TODAY.plusDays(7)));
+        assertEquals(1, reminders.runOnce(TODAY.plusDays(14)));
+        assertEquals(0, reminders.runOnce(TODAY.plusDays(21)));
+        assertEquals(0, reminders.runOnce(TODAY.plusDays(365)));
+
+        List<OutboxMessage> queued = library.outboxDAO.claimDue(10, Long.MAX_VALUE, Long.MAX_VALUE);
+        assertEquals(3, queued.size());
+        assertTrue(queued.get(1).getBody().contains("(8 day(s) overdue) - reminder 2 of 3"));
+        assertEquals("Final notice: 1 overdue item(s)", queued.get(2).getSubject());
+        assertTrue(queued.get(2).getBody().contains("(15 day(s) overdue) - final notice"));
+    }
+
+    @Test
+    void testMissedDayCatchesUpWithOneReminder() {
+        loan(library.user("amy", "amy@example.org"), "Dune", TODAY.minusDays(1));
+        assertEquals(1, reminders.runOnce(TODAY));
+
+        assertEquals(1, reminders.runOnce(TODAY.plusDays(10)));
+        assertEquals(0, reminders.runOnce(TODAY.plusDays(11)));
+        assertEquals(1, reminders.runOnce(TODAY.plusDays(17)));
+    }
+
+    @Test
+    void testReturnedLoansAreNotReminded() {
+        int amy = library.user("amy", "amy@example.org");
+        int recordId = loan(amy, "Dune", TODAY.minusDays(1));
+        assertEquals(1, reminders.runOnce(TODAY));
+
+        assertTrue(library.borrowRecordDAO.markAsReturned(recordId, TODAY.plusDays(1), 0.5));
+        assertEquals(0, reminders.runOnce(TODAY.plusDays(7)));
+    }
+
+    @Test
+    void testStaleSelectionIsRolledBack() {
+        loan(library.user("amy", "amy@example.org"), "Dune", TODAY.minusDays(1));
+        List<Notice> due = library.borrowRecordDAO.findDueReminders(TODAY);
+        List<OutboxMessage> message = List.of(new OutboxMessage("amy@example.org", "Hi", "Hello"));
+
+        assertTrue(library.borrowRecordDAO.recordReminders(due, TODAY, TODAY.plusDays(7), 3, message,
+                library.outboxDAO, 0));
+        assertFalse(library.borrowRecordDAO.recordReminders(due, TODAY, TODAY.plusDays(7), 3, message,
+                library.outboxDAO, 0));
+        assertEquals(1, library.outboxDAO.countPending());
+    }
+
+    @Test
+    void testStartAndStop() {
+        assertFalse(reminders.isRunning());
+        reminders.start(LocalTime.of(8, 0));
+        assertTrue(reminders.isRunning());
+        reminders.stop();
+        assertFalse(reminders.isRunning());
+    }
+
+    @Test
+    void testRejectsInvalidPolicy() {
+        assertThrows(IllegalArgumentException.class, () -> new ReminderScheduler(library.borrowRecordDAO,
+                library.outboxDAO, null, Clock.systemUTC(), 0, 3));
+        assertThrows(IllegalArgumentException.class, () -> new ReminderScheduler(library.borrowRecordDAO,
+                library.outboxDAO, null, Clock.systemUTC(), 7, 0));
+    }
+
+    private int loan(int userId, String title, LocalDate dueDate) {
+        int mediaId = library.mediaDAO.insert(title, "book");
+        int recordId = library.borrowRecordDAO.insert(userId, mediaId, "book", title, dueDate.minusDays(28), dueDate);
+        assertTrue(recordId > 0);
+        return recordId;
+    }
+}
@@ -0,0 +1,189 @@
+import dao.DatabaseConnection;
+import model.Book;
+import model.Borrower;
+import model.Hold;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.BorrowingService;
+import service.ReservationService;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the hold queue through the real borrowing flow on a temporary SQLite file.
+ */
+class ReservationServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TestLibrary library;
+    private ReservationService reservationService;
+    private BorrowingService borrowingService;
+    private Book book;
+    private Borrower first;
+    private Borrower second;
+    private Borrower third;
+
+    @BeforeEach
+    void setUp() {
+        library = TestLibrary.open(tempDir);
+        int mediaId = library.mediaDAO.insert("Dune", "book");
+        library.bookDAO.insert(mediaId, "Frank Herbert", "isbn-1");
+        book = new Book(mediaId, "Dune", "Frank Herbert", "isbn-1", true);
+
+        reservationService = new ReservationService();
+        borrowingService = new BorrowingService(reservationService);
+        first = borrower(1);
+        second = borrower(2);
+        third = borrower(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservationService.stopSweeper();
+        library.close();
+    }
+
+    @Test
+    void testReturnHandsItemToFirstHolder() {
+        assertTrue(borrowingService.borrowMedia(first, book));
+        assertFalse(borrowingService.borrowMedia(second, book));
+
+        assertEquals(1, reservationService.placeHold(second, book));
+        assertEquals(2, reservationService.placeHold(third, book));
+        assertEquals(0, reservationService.placeHold(third, book));
+
+        assertTrue(borrowingService.returnMedia(first, book));
+        assertFalse(book.isAvailable());
+        assertEquals(0, reservationService.getQueuePosition(second.getId(), book.getId()));
+        assertEquals(1, reservationService.getQueuePosition(third.getId(), book.getId()));
+
+        Book staleCopy = new Book(book.getId(), "Dune", "Frank Herbert", "isbn-1", false);
+        assertFalse(borrowingService.borrowMedia(third, staleCopy));
+        assertTrue(borrowingService.borrowMedia(second, staleCopy));
+        assertTrue(reservationService.getActiveHolds(second.getId()).isEmpty());
+    }
+
+    @Test
+    void testHoldOnAvailableItemIsRejected() {
+        assertEquals(0, reservationService.placeHold(second, book));
+        assertEquals(0, reservationService.getQueueLength(book.getId()));
+        assertTrue(reservationService.getActiveHolds(second.getId()).isEmpty());
+    }
+
+    @Test
+    void testReturnMarksHoldReadyInSameTransaction() {
+        assertTrue(borrowingService.borrowMedia(first, book));
+        reservationService.placeHold(second, book);
+        assertTrue(borrowingService.returnMedia(first, book));
+
+        // A restarted service sees the hand-off already committed with the return
+        ReservationService restarted = new ReservationService();
+        assertEquals(0, restarted.getQueueLength(book.getId()));
+        Hold ready = restarted.getActiveHolds(second.getId()).get(0);
+        assertEquals(Hold.READY, ready.getStatus());
+        assertFalse(library.mediaDAO.claimAvailability(book.getId()));
+        restarted.stopSweeper();
+    }
+
+    @Test
+    void testReturnWithoutHoldsReleasesItem() {
+        assertTrue(borrowingService.borrowMedia(first, book));
+        assertTrue(borrowingService.returnMedia(first, book));
+
+        assertTrue(book.isAvailable());
+        assertTrue(borrowingService.borrowMedia(second, new Book(book.getId(), "Dune", "F", "isbn-1", false)));
+    }
+
+    @Test
+    void testSweeperExpiresUncollectedHold() throws SQLException {
+        borrowingService.borrowMedia(first, book);
+        reservationService.placeHold(second, book);
+        reservationService.placeHold(third, book);
+        borrowingService.returnMedia(first, book);
+
+        execute("UPDATE holds SET ready_until = date('now', '-1 day') WHERE user_id = 2");
+        assertEquals(1, reservationService.sweepExpiredHolds());
+
+        Hold thirdHold = reservationService.getActiveHolds(third.getId()).get(0);
+        assertEquals(Hold.READY, thirdHold.getStatus());
+        assertTrue(reservationService.getActiveHolds(second.getId()).isEmpty());
+        assertFalse(borrowingService.borrowMedia(second, book));
+        assertTrue(borrowingService.borrowMedia(third, book));
+    }
+
+    @Test
+    void testCancelAndRebuildIndex() {
+        borrowingService.borrowMedia(first, book);
+        reservationService.placeHold(second, book);
+        reservationService.placeHold(third, book);
+
+        Hold secondHold = reservationService.getActiveHolds(second.getId()).get(0);
+        assertTrue(reservationService.cancelHold(second, secondHold));
+        assertFalse(reservationService.cancelHold(second, secondHold));
+        assertEquals(1, reservationService.getQueuePosition(third.getId(), book.getId()));
+
+        ReservationService restarted = new ReservationService();
+        assertEquals(1, restarted.getQueueLength(book.getId()));
+        assertEquals(1, restarted.getQueuePosition(third.getId(), book.getId()));
+    }
+
+    @Test
+    void testReleaseHoldsPassesReadyItemOn() {
+        borrowingService.borrowMedia(first, book);
+        reservationService.placeHold(second, book);
+        reservationService.placeHold(third, book);
+        borrowingService.returnMedia(first, book);
+
+        assertEquals(1, reservationService.releaseHolds(second.getId()));
+
+        assertTrue(reservationService.getActiveHolds(second.getId()).isEmpty());
+        assertEquals(Hold.READY, reservationService.getActiveHolds(third.getId()).get(0).getStatus());
+        assertEquals(0, reservationService.getQueueLength(book.getId()));
+        assertTrue(borrowingService.borrowMedia(third, book));
+    }
+
+    @Test
+    void testReleaseHoldsLeavesTheQueue() {
+        borrowingService.borrowMedia(first, book);
+        reservationService.placeHold(second, book);
+        reservationService.placeHold(third, book);
+
+        assertEquals(1, reservationService.releaseHolds(second.getId()));
+
+        assertEquals(1, reservationService.getQueueLength(book.getId()));
+        assertEquals(1, reservationService.getQueuePosition(third.getId(), book.getId()));
+        assertEquals(1, new ReservationService().getQueueLength(book.getId()));
+    }
+
+    @Test
+    void testReleaseLastHolderPutsItemBackOnShelf() {
+        borrowingService.borrowMedia(first, book);
+        reservationService.placeHold(second, book);
+        borrowingService.returnMedia(first, book);
+
+        assertEquals(1, reservationService.releaseHolds(second.getId()));
+
+        assertTrue(library.mediaDAO.claimAvailability(book.getId()));
+    }
+
+    private Borrower borrower(int id) {
+        Borrower borrower = new Borrower(id, "patron" + id, "hash", "salt");
+        borrower.setLoggedIn(true);
+        return borrower;
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
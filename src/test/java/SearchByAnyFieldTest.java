@@ -0,0 +1,86 @@
+import dao.BookDAO;
+import model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import service.SearchByAnyField;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class SearchByAnyFieldTest {
+
+    @Mock
+    private BookDAO mockBookDAO;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testSearchRunsOneScanAndRanksByWeightedField() {
+        Book isbnOnly = new Book(1, "Dune", "Frank Herbert", "978-java-1", true);
+        Book authorWord = new Book(2, "Notes", "Ann Java", "222", true);
+        Book titlePrefix = new Book(3, "Java Puzzlers", "Joshua Bloch", "333", true);
+        Book titleExact = new Book(4, "Java", "Someone", "444", true);
+        when(mockBookDAO.searchByAnyField("java"))
+                .thenReturn(List.of(isbnOnly, authorWord, titlePrefix, titleExact));
+
+        List<Book> results = new SearchByAnyField(mockBookDAO, 10).search("java");
+
+        assertEquals(List.of(titleExact, titlePrefix, authorWord, isbnOnly), results);
+        verify(mockBookDAO, times(1)).searchByAnyField("java");
+        verifyNoMoreInteractions(mockBookDAO);
+    }
+
+    @Test
+    public void testScoreWeighsFieldsAndMatchQuality() {
+        Book book = new Book(1, "The Java Way", "Javadoc Team", "12-java", true);
+
+        // Title: start of a later word; author: prefix; ISBN: start of a later word
+        assertEquals(SearchByAnyField.TITLE_WEIGHT * 2 + SearchByAnyField.AUTHOR_WEIGHT * 3
+                + SearchByAnyField.ISBN_WEIGHT * 2, SearchByAnyField.score(book, "JAVA"));
+        assertEquals(SearchByAnyField.TITLE_WEIGHT * 2, SearchByAnyField.score(book, "way"));
+        assertEquals(0, SearchByAnyField.score(book, "python"));
+    }
+
+    @Test
+    public void testOnlyTheTopResultsAreKeptBestFirst() {
+        List<Book> candidates = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // Every tenth book matches in its title, the rest only in the author
+            String title = i % 10 == 0 ? "Rust " + i : "Book " + i;
+            candidates.add(new Book(i, title, "Rusty Writer", "isbn-" + i, true));
+        }
+        when(mockBookDAO.searchByAnyField("rust")).thenReturn(candidates);
+
+        List<Book> results = new SearchByAnyField(mockBookDAO, 5).search("rust");
+
+        assertEquals(5, results.size());
+        for (Book book : results) {
+            assertTrue(book.getTitle().startsWith("Rust "));
+        }
+        List<Book> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparing(Book::getTitle));
+        assertEquals(sorted, results);
+    }
+
+    @Test
+    public void testCandidatesWithoutRealMatchAreDropped() {
+        // LIKE treats '_' as a wildcard, so the scan may return near misses
+        when(mockBookDAO.searchByAnyField("a_c")).thenReturn(List.of(new Book(1, "abc", "x", "y", true)));
+
+        assertTrue(new SearchByAnyField(mockBookDAO, 10).search("a_c").isEmpty());
+    }
+
+    @Test
+    public void testRejectsNonPositiveLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new SearchByAnyField(mockBookDAO, 0));
+    }
+}
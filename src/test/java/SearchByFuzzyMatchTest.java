@@ -0,0 +1,61 @@
+import dao.MediaDAO;
+import model.Book;
+import model.CD;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import service.SearchByFuzzyMatch;
+import service.TrigramIndex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class SearchByFuzzyMatchTest {
+
+    @Mock
+    private MediaDAO mockMediaDAO;
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        index = new TrigramIndex();
+        index.rebuild(List.of(
+                new Book(1, "The Hobbit", "J.R.R. Tolkien", "111", true),
+                new Book(2, "Tolkin Notes", "Anon", "222", true),
+                new Book(3, "Dune", "Frank Herbert", "333", true)),
+                List.of(new CD(4, "Tolkien Sings", "Various", "Folk", 40, true)));
+    }
+
+    @Test
+    public void testSearchLoadsTheClosestBooksInRankOrder() {
+        Book hobbit = new Book(1, "The Hobbit", "J.R.R. Tolkien", "111", false);
+        Book notes = new Book(2, "Tolkin Notes", "Anon", "222", true);
+        // The DAO returns rows in no particular order
+        when(mockMediaDAO.findByIds(List.of(2, 1))).thenReturn(List.of(hobbit, notes));
+
+        List<Book> results = new SearchByFuzzyMatch(index, null, mockMediaDAO, 10).search("Tolkein");
+
+        assertEquals(List.of(notes, hobbit), results);
+        assertFalse(results.get(1).isAvailable());
+        verify(mockMediaDAO, times(1)).findByIds(List.of(2, 1));
+    }
+
+    @Test
+    public void testSearchHonoursTheFieldAndSkipsTheDatabaseWhenNothingIsClose() {
+        when(mockMediaDAO.findByIds(List.of(1))).thenReturn(List.of(new Book(1, "The Hobbit", "J.R.R. Tolkien", "111", true)));
+
+        assertEquals(1, new SearchByFuzzyMatch(index, TrigramIndex.AUTHOR, mockMediaDAO, 10).search("tolkein").size());
+        assertTrue(new SearchByFuzzyMatch(index, null, mockMediaDAO, 10).search("Asimov").isEmpty());
+        verify(mockMediaDAO, times(1)).findByIds(anyList());
+    }
+
+    @Test
+    public void testRejectsNonPositiveLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new SearchByFuzzyMatch(index, null, mockMediaDAO, 0));
+    }
+}
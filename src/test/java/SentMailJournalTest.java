@@ -0,0 +1,168 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.EmailServer;
+import service.SentMailJournal;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks eviction, queries, spilling and concurrent use of {@link SentMailJournal}.
+ */
+class SentMailJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testKeepsOnlyMostRecentEntries() {
+        SentMailJournal journal = new SentMailJournal(3);
+        for (int i = 0; i < 5; i++) {
+            journal.record(new EmailServer.Email("user" + i + "@example.com", "Subject " + i, "Body"));
+        }
+
+        List<EmailServer.Email> kept = journal.snapshot();
+        assertEquals(3, kept.size());
+        assertEquals("Subject 2", kept.get(0).getSubject());
+        assertEquals("Subject 4", kept.get(2).getSubject());
+        assertEquals(3, journal.size());
+        assertEquals(5, journal.getTotalRecorded());
+    }
+
+    @Test
+    void testFindByRecipient() {
+        SentMailJournal journal = new SentMailJournal(10);
+        journal.record(new EmailServer.Email("amy@example.com", "One", "Body"));
+        journal.record(new EmailServer.Email("bob@example.com", "Two", "Body"));
+        journal.record(new EmailServer.Email("amy@example.com", "Three", "Body"));
+
+        List<EmailServer.Email> toAmy = journal.findByRecipient("amy@example.com");
+        assertEquals(2, toAmy.size());
+        assertEquals("One", toAmy.get(0).getSubject());
+        assertEquals("Three", toAmy.get(1).getSubject());
+        assertTrue(journal.findByRecipient("cat@example.com").isEmpty());
+    }
+
+    @Test
+    void testFindBetween() throws InterruptedException {
+        SentMailJournal journal = new SentMailJournal(10);
+        journal.record(new EmailServer.Email("amy@example.com", "Before", "Body"));
+        Thread.sleep(5);
+        long from = System.currentTimeMillis();
+        journal.record(new EmailServer.Email("bob@example.com", "During", "Body"));
+        long to = System.currentTimeMillis() + 1;
+
+        List<EmailServer.Email> during = journal.findBetween(from, to);
+        assertEquals(1, during.size());
+        assertEquals("During", during.get(0).getSubject());
+    }
+
+    @Test
+    void testClearKeepsCounting() {
+        SentMailJournal journal = new SentMailJournal(2);
+        journal.record(new EmailServer.Email("amy@example.com", "One", "Body"));
+        journal.clear();
+        journal.record(new EmailServer.Email("bob@example.com", "Two", "Body"));
+
+        assertEquals(1, journal.snapshot().size());
+        assertEquals("Two", journal.snapshot().get(0).getSubject());
+        assertEquals(2, journal.getTotalRecorded());
+    }
+
+    @Test
+    void testEvictedEntriesSpillToRotatingLog() throws Exception {
+        SentMailJournal journal = new SentMailJournal(2, tempDir, 200, 3);
+        for (int i = 0; i < 40; i++) {
+            journal.record(new EmailServer.Email("user" + i + "@example.com", "Subject\t" + i, "Line one\nline two"));
+        }
+        journal.close();
+
+        Path active = tempDir.resolve(SentMailJournal.LOG_NAME);
+        assertTrue(Files.exists(active));
+        assertTrue(Files.exists(tempDir.resolve(SentMailJournal.LOG_NAME + ".1")));
+        assertTrue(Files.exists(tempDir.resolve(SentMailJournal.LOG_NAME + ".2")));
+        assertFalse(Files.exists(tempDir.resolve(SentMailJournal.LOG_NAME + ".3")));
+        assertTrue(Files.size(active) <= 200);
+
+        // Entry 37 was the last pushed out of the ring; one line per entry, escaped.
+        List<String> lines = Files.readAllLines(active);
+        String last = lines.get(lines.size() - 1);
+        assertTrue(last.endsWith("\tuser37@example.com\tSubject\\t37\tLine one\\nline two"), last);
+        assertEquals(2, journal.size());
+    }
+
+    @Test
+    void testConcurrentWritersDoNotLoseCount() throws Exception {
+        SentMailJournal journal = new SentMailJournal(100);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int writer = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        journal.record(new EmailServer.Email("w" + writer + "@example.com", "S", "B"));
+                        journal.findByRecipient("w0@example.com");
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(4000, journal.getTotalRecorded());
+        assertEquals(100, journal.snapshot().size());
+        assertFalse(journal.snapshot().contains(null));
+    }
+
+    @Test
+    void testConcurrentWritersSpillEveryEvictedEntryInOrder() throws Exception {
+        SentMailJournal journal = new SentMailJournal(10, tempDir, Long.MAX_VALUE, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int writer = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        journal.record(new EmailServer.Email("w" + writer + "@example.com", "S" + i, "B"));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        journal.close();
+
+        List<String> lines = Files.readAllLines(tempDir.resolve(SentMailJournal.LOG_NAME));
+        assertEquals(2000 - 10, lines.size());
+        int[] last = {-1, -1, -1, -1};
+        for (String line : lines) {
+            String[] fields = line.split("\t");
+            int writer = fields[1].charAt(1) - '0';
+            int sequence = Integer.parseInt(fields[2].substring(1));
+            assertTrue(sequence > last[writer], line);
+            last[writer] = sequence;
+        }
+    }
+
+    @Test
+    void testRejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new SentMailJournal(0));
+        assertThrows(IllegalArgumentException.class, () -> new SentMailJournal(1, tempDir, 0, 1));
+    }
+}
@@ -0,0 +1,197 @@
+import model.Admin;
+import model.Borrower;
+import model.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.SessionStore;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionStoreTest {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    private MutableClock clock;
+    private SessionStore store;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        store = new SessionStore(TTL, 2, clock);
+    }
+
+    @Test
+    void testOpenAndValidate() {
+        Borrower borrower = borrower(1);
+        Session session = store.open(borrower);
+
+        assertEquals(48, session.getToken().length());
+        assertSame(session, store.validate(session.getToken()));
+        assertSame(borrower, session.getBorrower());
+        assertNull(store.validate("unknown"));
+        assertNull(store.validate(null));
+    }
+
+    @Test
+    void testTokensAreUnique() {
+        Set<String> tokens = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            tokens.add(store.open(borrower(i)).getToken());
+        }
+        assertEquals(200, tokens.size());
+    }
+
+    @Test
+    void testExpiresAfterIdleTtl() {
+        Borrower borrower = borrower(1);
+        Session session = store.open(borrower);
+
+        clock.advance(TTL.plusSeconds(1));
+
+        assertNull(store.validate(session.getToken()));
+        assertEquals(0, store.size());
+        assertFalse(borrower.isLoggedIn());
+    }
+
+    @Test
+    void testUseSlidesExpiry() {
+        Session session = store.open(borrower(1));
+
+        for (int i = 0; i < 5; i++) {
+            clock.advance(TTL.minusMinutes(1));
+            assertSame(session, store.validate(session.getToken()));
+        }
+        clock.advance(TTL);
+        assertNull(store.validate(session.getToken()));
+    }
+
+    @Test
+    void testPerUserCapEndsOldestSession() {
+        Borrower borrower = borrower(1);
+        Session first = store.open(borrower);
+        Session second = store.open(borrower);
+        Session third = store.open(borrower);
+
+        assertNull(store.validate(first.getToken()));
+        assertSame(second, store.validate(second.getToken()));
+        assertSame(third, store.validate(third.getToken()));
+        assertEquals(2, store.countFor(borrower));
+    }
+
+    @Test
+    void testAdminAndPatronWithSameIdAreSeparate() {
+        store.open(borrower(1));
+        store.open(borrower(1));
+        Session admin = store.open(new Admin(1, "admin", "hash", "salt"));
+
+        assertEquals(3, store.size());
+        assertTrue(store.validate(admin.getToken()).isAdmin());
+    }
+
+    @Test
+    void testTimerWheelEvictsIdleSessionsOnly() {
+        List<Session> idle = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            idle.add(store.open(borrower(i)));
+        }
+        Session active = store.open(borrower(1000));
+
+        for (int minute = 0; minute < 12; minute++) {
+            clock.advance(Duration.ofMinutes(1));
+            store.validate(active.getToken());
+        }
+
+        // The wheel advanced inside validate(); nobody touched the idle tokens.
+        assertEquals(1, store.size());
+        for (Session session : idle) {
+            assertFalse(session.getUser().isLoggedIn());
+        }
+        assertEquals(0, store.evictExpired());
+        assertSame(active, store.validate(active.getToken()));
+    }
+
+    @Test
+    void testInvalidate() {
+        Borrower borrower = borrower(1);
+        Session session = store.open(borrower);
+
+        assertTrue(store.invalidate(session.getToken()));
+        assertFalse(store.invalidate(session.getToken()));
+        assertNull(store.validate(session.getToken()));
+        assertEquals(0, store.countFor(borrower));
+        assertFalse(borrower.isLoggedIn());
+    }
+
+    @Test
+    void testConcurrentLoginsRespectCap() throws Exception {
+        SessionStore shared = new SessionStore(TTL, 3, clock);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        Session session = shared.open(borrower(i % 10));
+                        shared.validate(session.getToken());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(30, shared.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(3, shared.countFor(borrower(i)));
+        }
+    }
+
+    private static Borrower borrower(int id) {
+        Borrower borrower = new Borrower(id, "patron" + id, "hash", "salt");
+        borrower.setLoggedIn(true);
+        return borrower;
+    }
+
+    /**
+     * Clock the tests move by hand.
+     */
+    private static final class MutableClock extends Clock {
+        private volatile Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+import benchmark.SmtpSink;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.EmailServer;
+import service.SmtpSettings;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives {@link SmtpSink} through {@link EmailServer}, the way the mail path uses it.
+ */
+class SmtpSinkTest {
+
+    private SmtpSink sink;
+    private EmailServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sink = new SmtpSink(0, 3);
+        sink.start();
+        server = new EmailServer("library@example.com", "secret", plain());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        sink.close();
+    }
+
+    @Test
+    void testStoresEnvelopeAndContent() {
+        server.sendEmail("amy@example.com", "Due soon", "Your book is due.");
+
+        SmtpSink.ReceivedMessage message = sink.getMessages().get(0);
+        assertEquals("library@example.com", message.getFrom());
+        assertEquals(List.of("amy@example.com"), message.getRecipients());
+        assertEquals("Due soon", message.getSubject());
+        assertTrue(message.getContent().contains("Your book is due."));
+    }
+
+    @Test
+    void testStoreKeepsMostRecentMessages() {
+        for (int i = 0; i < 5; i++) {
+            server.sendEmail("user" + i + "@example.com", "Subject " + i, "Body");
+        }
+
+        assertEquals(5, sink.getMessageCount());
+        List<SmtpSink.ReceivedMessage> kept = sink.getMessages();
+        assertEquals(3, kept.size());
+        assertEquals("Subject 2", kept.get(0).getSubject());
+        assertEquals("Subject 4", kept.get(2).getSubject());
+
+        sink.clearMessages();
+        assertTrue(sink.getMessages().isEmpty());
+        assertEquals(5, sink.getMessageCount());
+    }
+
+    @Test
+    void testStartTlsUpgradesConnection() throws Exception {
+        sink.enableStartTls(SmtpSink.localhostContext());
+        EmailServer secure = new EmailServer("library@example.com", "secret",
+                new SmtpSettings("localhost", sink.getPort()).withTimeouts(5_000, 5_000));
+        try {
+            secure.sendEmail("amy@example.com", "Over TLS", "Body");
+            secure.sendEmail("bob@example.com", "Over TLS again", "Body");
+        } finally {
+            secure.close();
+        }
+
+        assertTrue(secure.getSettings().isStartTls());
+        assertEquals(2, sink.getMessageCount());
+        assertEquals(1, sink.getConnectionCount());
+    }
+
+    @Test
+    void testFailEveryRejectsReproducibly() {
+        sink.setFailEvery(3);
+        int failures = 0;
+        for (int i = 0; i < 9; i++) {
+            try {
+                server.sendEmail("user" + i + "@example.com", "Subject", "Body");
+            } catch (RuntimeException e) {
+                failures++;
+                assertTrue(e.getMessage().contains("451"), e.getMessage());
+            }
+        }
+
+        assertEquals(3, failures);
+        assertEquals(3, sink.getRejectedCount());
+        assertEquals(6, sink.getMessageCount());
+    }
+
+    @Test
+    void testLatencyDelaysEachMessage() {
+        server.sendEmail("warm@example.com", "Subject", "Body");
+        sink.setLatency(Duration.ofMillis(50));
+
+        long start = System.nanoTime();
+        server.sendEmail("slow@example.com", "Subject", "Body");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis >= 50, "took " + elapsedMillis + " ms");
+    }
+
+    private SmtpSettings plain() {
+        return new SmtpSettings("localhost", sink.getPort()).withStartTls(false).withTimeouts(5_000, 5_000);
+    }
+}
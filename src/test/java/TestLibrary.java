@@ -0,0 +1,162 @@
+import dao.BookDAO;
+import dao.BorrowRecordDAO;
+import dao.CDDAO;
+import dao.DatabaseConnection;
+import dao.FineDAO;
+import dao.HoldDAO;
+import dao.MediaDAO;
+import dao.OutboxDAO;
+import dao.UserDAO;
+import model.Borrower;
+import service.BorrowerService;
+import service.BorrowingService;
+import service.ReservationService;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A library database on a temporary SQLite file, shared by the tests that run
+ * against real tables.
+ *
+ * <p>Opening one points {@link DatabaseConnection} at the file and creates
+ * every table; closing it points the connection back at the default database.
+ * Services built here read a UTC clock fixed on {@link #TODAY}.</p>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ *     &#64;TempDir Path tempDir;
+ *     private TestLibrary library;
+ *
+ *     &#64;BeforeEach void setUp() { library = TestLibrary.open(tempDir); }
+ *     &#64;AfterEach void tearDown() { library.close(); }
+ * </pre>
+ */
+final class TestLibrary implements AutoCloseable {
+
+    /** The date every fixed clock of the fixture falls on. */
+    static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+
+    final UserDAO userDAO = new UserDAO();
+    final MediaDAO mediaDAO = new MediaDAO();
+    final BookDAO bookDAO = new BookDAO();
+    final CDDAO cdDAO = new CDDAO();
+    final HoldDAO holdDAO = new HoldDAO();
+    final BorrowRecordDAO borrowRecordDAO = new BorrowRecordDAO();
+    final FineDAO fineDAO = new FineDAO();
+    final OutboxDAO outboxDAO = new OutboxDAO();
+
+    /** Clock fixed at the start of {@link #TODAY}. */
+    final Clock clock = clockAt(LocalTime.MIDNIGHT);
+
+    private TestLibrary(String url) {
+        DatabaseConnection.setUrl(url);
+        userDAO.initializeTable();
+        mediaDAO.initializeTable();
+        bookDAO.initializeTable();
+        cdDAO.initializeTable();
+        holdDAO.initializeTable();
+        borrowRecordDAO.initializeTable();
+        fineDAO.initializeTable();
+        outboxDAO.initializeTable();
+    }
+
+    /**
+     * Opens a library on a new file in the given directory.
+     *
+     * @param dir the test's temporary directory
+     * @return the open library
+     */
+    static TestLibrary open(Path dir) {
+        return new TestLibrary("jdbc:sqlite:" + dir.resolve("library.db"));
+    }
+
+    /**
+     * Opens a library that several threads write to at once: the file uses
+     * WAL and writers wait for each other instead of failing.
+     *
+     * @param dir the test's temporary directory
+     * @return the open library
+     */
+    static TestLibrary openShared(Path dir) {
+        return new TestLibrary("jdbc:sqlite:" + dir.resolve("library.db") + "?journal_mode=WAL&busy_timeout=30000");
+    }
+
+    /**
+     * Returns a UTC clock fixed at the given time of {@link #TODAY}.
+     *
+     * @param time the time of day
+     * @return the fixed clock
+     */
+    static Clock clockAt(LocalTime time) {
+        return Clock.fixed(TODAY.atTime(time).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    }
+
+    /**
+     * Builds a reservation service on the fixture clock.
+     *
+     * @return the reservation service
+     */
+    ReservationService reservationService() {
+        return new ReservationService(new HoldDAO(), clock);
+    }
+
+    /**
+     * Builds a borrowing service on the fixture clock over the given holds.
+     *
+     * @param reservationService the service managing holds
+     * @return the borrowing service
+     */
+    BorrowingService borrowingService(ReservationService reservationService) {
+        return new BorrowingService(reservationService, clock);
+    }
+
+    /**
+     * Registers a user.
+     *
+     * @param username the username
+     * @return the new user's ID
+     */
+    int user(String username) {
+        return user(username, null);
+    }
+
+    /**
+     * Registers a user with a stored email address.
+     *
+     * @param username the username
+     * @param email    the email address; {@code null} to store none
+     * @return the new user's ID
+     */
+    int user(String username, String email) {
+        assertTrue(email == null ? userDAO.insert(username, "hash", "salt")
+                : userDAO.insert(username, "hash", "salt", email));
+        return userDAO.findByUsername(username).getId();
+    }
+
+    /**
+     * Registers a user and returns them logged in with their loans and fines loaded.
+     *
+     * @param username the username
+     * @return the logged-in borrower
+     */
+    Borrower borrower(String username) {
+        Borrower borrower = new Borrower(user(username), username, "hash", "salt");
+        borrower.setLoggedIn(true);
+        new BorrowerService(clock).loadBorrowerData(borrower);
+        return borrower;
+    }
+
+    /**
+     * Points the connection back at the default database.
+     */
+    @Override
+    public void close() {
+        DatabaseConnection.setUrl(null);
+    }
+}
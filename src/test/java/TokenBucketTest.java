@@ -0,0 +1,89 @@
+import org.junit.jupiter.api.Test;
+import service.TokenBucket;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the burst and refill behaviour of {@link TokenBucket} on a hand-driven clock.
+ */
+class TokenBucketTest {
+
+    @Test
+    void testFullBucketAllowsBurstThenRefills() {
+        MutableClock clock = new MutableClock();
+        TokenBucket bucket = new TokenBucket(2, 3, clock);
+
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+
+        clock.advance(Duration.ofMillis(499));
+        assertFalse(bucket.tryAcquire());
+        clock.advance(Duration.ofMillis(1));
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void testRefillStopsAtCapacity() {
+        MutableClock clock = new MutableClock();
+        TokenBucket bucket = new TokenBucket(10, 5, clock);
+        for (int i = 0; i < 5; i++) bucket.tryAcquire();
+        assertEquals(0, bucket.available());
+
+        clock.advance(Duration.ofMinutes(1));
+        assertEquals(5, bucket.available());
+    }
+
+    @Test
+    void testAcquireWaitsForRefill() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(20, 1);
+        bucket.acquire();
+
+        long start = System.nanoTime();
+        bucket.acquire();
+        bucket.acquire();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis >= 90, "two tokens at 20/s take about 100 ms, took " + elapsedMillis);
+    }
+
+    @Test
+    void testRejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0));
+    }
+
+    /**
+     * Clock the tests move by hand.
+     */
+    private static final class MutableClock extends Clock {
+        private volatile Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
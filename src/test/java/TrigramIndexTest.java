@@ -0,0 +1,259 @@
+import dao.MediaDAO;
+import model.Book;
+import model.CD;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import service.BookService;
+import service.CDService;
+import service.SearchByTrigram;
+import service.TrigramIndex;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Checks the posting lists, intersection and verification of
+ * {@link TrigramIndex}, and that {@link BookService} and {@link CDService}
+ * keep it up to date on a temporary SQLite file.
+ */
+class TrigramIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    /** Opened by the tests that go through the services; {@code null} otherwise. */
+    private TestLibrary library;
+
+    @AfterEach
+    void tearDown() {
+        if (library != null) {
+            library.close();
+        }
+    }
+
+    @Test
+    void testFindsSubstringsIgnoringCase() {
+        TrigramIndex index = new TrigramIndex();
+        index.rebuild(List.of(
+                new Book(1, "The Hobbit", "J.R.R. Tolkien", "111", true),
+                new Book(2, "Dune", "Frank Herbert", "222", true),
+                new Book(3, "Hobbit Tales", "Anon", "333", true)),
+                List.of(new CD(4, "Kind of Blue", "Miles Davis", "Jazz", 46, true)));
+
+        assertArrayEquals(new int[]{1, 3}, index.search("HOBBIT", null, null));
+        assertArrayEquals(new int[]{1}, index.search("tolk", TrigramIndex.AUTHOR, "book"));
+        assertArrayEquals(new int[]{4}, index.search("jazz", TrigramIndex.GENRE, "cd"));
+        assertArrayEquals(new int[0], index.search("zzz", null, null));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void testCandidatesHoldingAllTrigramsAreVerified() {
+        TrigramIndex index = new TrigramIndex();
+        // "abcd" and "bcab" together hold every trigram of "abcab" but neither contains it
+        index.rebuild(List.of(
+                new Book(1, "abcd bcab", "x", "1", true),
+                new Book(2, "xabcabx", "x", "2", true)), List.of());
+
+        assertArrayEquals(new int[]{2}, index.search("abcab", null, null));
+    }
+
+    @Test
+    void testTrigramsDoNotSpanFields() {
+        TrigramIndex index = new TrigramIndex();
+        index.rebuild(List.of(new Book(1, "Dune", "Frank Herbert", "1", true)), List.of());
+
+        assertArrayEquals(new int[0], index.search("nefr", null, null));
+        assertArrayEquals(new int[0], index.search("dune", TrigramIndex.AUTHOR, null));
+        assertArrayEquals(new int[]{1}, index.search("dune", TrigramIndex.TITLE, "book"));
+        assertArrayEquals(new int[0], index.search("dune", null, "cd"));
+        assertThrows(IllegalArgumentException.class, () -> index.search("dune", "isbn", null));
+    }
+
+    @Test
+    void testShortTermsScanEveryItem() {
+        TrigramIndex index = new TrigramIndex();
+        index.rebuild(List.of(
+                new Book(1, "Go", "Ann", "1", true),
+                new Book(2, "Rust", "Bob", "2", true)),
+                List.of(new CD(3, "Ok", "Go Band", "Pop", 30, true)));
+
+        assertArrayEquals(new int[]{1, 3}, index.search("go", null, null));
+        assertArrayEquals(new int[]{1}, index.search("g", TrigramIndex.TITLE, "book"));
+    }
+
+    @Test
+    void testOutOfOrderAndLargeIdsMatchALinearScan() {
+        Random random = new Random(42);
+        String[] words = {"red", "green", "blue", "river", "stone", "garden", "night", "silver"};
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            int id = i < 2000 ? i * 7 + 1 : 300_000 + i * 131;
+            books.add(new Book(id, words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)],
+                    words[random.nextInt(words.length)], "isbn", true));
+        }
+        TrigramIndex index = new TrigramIndex();
+        List<Book> shuffled = new ArrayList<>(books);
+        Collections.shuffle(shuffled, random);
+        // Add half in bulk and the rest one by one out of ID order
+        index.rebuild(shuffled.subList(0, 1500), List.of());
+        for (Book book : shuffled.subList(1500, shuffled.size())) {
+            index.addBook(book);
+        }
+
+        for (String term : List.of("een sto", "river", "ver", "night silver", "d g")) {
+            int[] expected = books.stream()
+                    .filter(b -> b.getTitle().contains(term))
+                    .mapToInt(Book::getId).sorted().toArray();
+            assertArrayEquals(expected, index.search(term, TrigramIndex.TITLE, null), term);
+        }
+        assertEquals(3000, index.size());
+    }
+
+    @Test
+    void testServicesIndexWhatTheyAdd() {
+        library = TestLibrary.open(tempDir);
+        TrigramIndex index = new TrigramIndex();
+        BookService bookService = new BookService(index);
+        CDService cdService = new CDService(index);
+        bookService.addBook("Existing Book", "Old Author", "isbn-0");
+        index.rebuild(bookService.getAllBooks(), cdService.getAllCDs());
+
+        Book added = bookService.addBook("Dune Messiah", "Frank Herbert", "isbn-1");
+        CD cd = cdService.addCD("Blue Train", "John Coltrane", "Jazz", 42);
+
+        assertEquals(3, index.size());
+        assertEquals(List.of(added.getId()), ids(bookService.searchBooks("MESSIAH", "title")));
+        assertEquals(List.of(added.getId()), ids(bookService.searchBooks("herb", "author")));
+        assertEquals(List.of(cd.getId()), cdService.searchCDs("coltr", "artist").stream()
+                .map(CD::getId).collect(Collectors.toList()));
+        assertTrue(cdService.searchCDs("Messiah", "title").isEmpty());
+        assertEquals(2, bookService.searchBooks("e", "title").size());
+    }
+
+    @Test
+    void testStrategyLoadsOnlyTheMatchingBooks() {
+        library = TestLibrary.open(tempDir);
+        BookService bookService = new BookService();
+        Book dune = bookService.addBook("Dune", "Frank Herbert", "isbn-1");
+        bookService.addBook("Emma", "Jane Austen", "isbn-2");
+        TrigramIndex index = new TrigramIndex();
+        index.rebuild(bookService.getAllBooks(), List.of());
+        MediaDAO mediaDAO = spy(new MediaDAO());
+        assertTrue(mediaDAO.updateAvailability(dune.getId(), false));
+
+        List<Book> found = new SearchByTrigram(index, null, mediaDAO).search("herbert");
+
+        assertEquals(1, found.size());
+        assertFalse(found.get(0).isAvailable());
+        verify(mediaDAO).findByIds(List.of(dune.getId()));
+        assertTrue(new SearchByTrigram(index, TrigramIndex.TITLE, mediaDAO).search("austen").isEmpty());
+    }
+
+    @Test
+    void testEditDistanceStopsAtTheBound() {
+        assertEquals(0, TrigramIndex.editDistance("tolkien", "tolkien", 2));
+        assertEquals(1, TrigramIndex.editDistance("beetles", "beatles", 2));
+        assertEquals(2, TrigramIndex.editDistance("tolkein", "tolkien", 2));
+        assertEquals(3, TrigramIndex.editDistance("kitten", "sitting", 5));
+        assertEquals(2, TrigramIndex.editDistance("kitten", "sitting", 1));
+        assertEquals(3, TrigramIndex.editDistance("a", "abcdef", 2));
+    }
+
+    @Test
+    void testSuggestToleratesTyposAndRanksByEdits() {
+        TrigramIndex index = new TrigramIndex();
+        index.rebuild(List.of(
+                new Book(1, "The Hobbit", "J.R.R. Tolkien", "111", true),
+                new Book(2, "The Silmarillion", "J.R.R. Tolkien", "222", true),
+                new Book(3, "Tolkin Notes", "Anon", "333", true)),
+                List.of(new CD(4, "Abbey Road", "The Beatles", "Rock", 47, true),
+                        new CD(5, "Beetles of the World", "Nature Sounds", "Ambient", 50, true)));
+
+        assertArrayEquals(new int[]{1, 2}, index.suggest("Tolkein", TrigramIndex.AUTHOR, "book", 10));
+        // "tolkin" is one edit from "tolkein", "tolkien" two
+        assertArrayEquals(new int[]{3, 1, 2}, index.suggest("tolkein", null, "book", 10));
+        assertArrayEquals(new int[]{4}, index.suggest("the beetles", TrigramIndex.ARTIST, "cd", 10));
+        assertArrayEquals(new int[]{5, 4}, index.suggest("beetles", null, "cd", 10));
+        assertArrayEquals(new int[]{1}, index.suggest("hobit tolkein", null, null, 10));
+        assertArrayEquals(new int[]{3}, index.suggest("tolkein", null, "book", 1));
+        // Short words must match exactly, and every word needs a match
+        assertArrayEquals(new int[0], index.suggest("Hobbit Tolstoy", null, null, 10));
+        assertArrayEquals(new int[0], index.suggest("thy", TrigramIndex.TITLE, null, 10));
+        assertArrayEquals(new int[0], index.suggest("!!", null, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> index.suggest("x", null, null, 0));
+    }
+
+    @Test
+    void testSuggestMatchesALinearScanAfterIncrementalAdds() {
+        Random random = new Random(11);
+        String[] words = {"river", "rivers", "driver", "silver", "sliver", "garden", "harden", "stone", "stoned"};
+        List<Book> books = new ArrayList<>();
+        TrigramIndex index = new TrigramIndex();
+        for (int id = 1; id <= 2000; id++) {
+            Book book = new Book(id, words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)],
+                    "Author", "isbn", true);
+            books.add(book);
+            index.addBook(book);
+        }
+
+        for (String term : List.of("rivr", "silvr garden", "stoen")) {
+            int[] expected = books.stream()
+                    .filter(b -> closeToEveryWord(b.getTitle().toLowerCase(), term))
+                    .mapToInt(Book::getId).toArray();
+            int[] found = index.suggest(term, TrigramIndex.TITLE, "book", 5000);
+            assertArrayEquals(expected, Arrays.stream(found).sorted().toArray(), term);
+        }
+    }
+
+    @Test
+    void testServicesSuggestWithAndWithoutAnIndex() {
+        library = TestLibrary.open(tempDir);
+        BookService plainBooks = new BookService();
+        CDService plainCDs = new CDService();
+        Book hobbit = plainBooks.addBook("The Hobbit", "J.R.R. Tolkien", "isbn-1");
+        CD abbey = plainCDs.addCD("Abbey Road", "The Beatles", "Rock", 47);
+
+        assertTrue(plainBooks.searchBooks("Tolkein", "author").isEmpty());
+        assertEquals(List.of(hobbit.getId()), ids(plainBooks.suggestBooks("Tolkein", "author")));
+        assertTrue(plainBooks.suggestBooks("Tolkein", "isbn").isEmpty());
+        assertEquals(abbey.getId(), plainCDs.suggestCDs("Beetles", "artist").get(0).getId());
+        // The index built by the first suggestion keeps up with items added through the service
+        CD help = plainCDs.addCD("Help!", "The Beatles", "Rock", 34);
+        assertEquals(List.of(abbey.getId(), help.getId()),
+                plainCDs.suggestCDs("Beetles", "artist").stream().map(CD::getId).toList());
+
+        TrigramIndex index = new TrigramIndex();
+        BookService indexedBooks = new BookService(index);
+        index.rebuild(indexedBooks.getAllBooks(), List.of());
+        Book lotr = indexedBooks.addBook("The Lord of the Rings", "J.R.R. Tolkien", "isbn-2");
+        assertEquals(List.of(hobbit.getId(), lotr.getId()), ids(indexedBooks.suggestBooks("tolkein", "any")));
+        assertEquals(List.of(lotr.getId()), ids(indexedBooks.suggestBooks("lord of the ringz", "title")));
+    }
+
+    /** Whether every word of the term is within the allowed edits of some word of the text. */
+    private static boolean closeToEveryWord(String text, String term) {
+        for (String termWord : term.split(" ")) {
+            int max = termWord.length() <= 3 ? 0 : termWord.length() <= 5 ? 1 : 2;
+            boolean close = false;
+            for (String word : text.split(" ")) {
+                close |= TrigramIndex.editDistance(termWord, word, max) <= max;
+            }
+            if (!close) return false;
+        }
+        return true;
+    }
+
+    private static List<Integer> ids(List<Book> books) {
+        return books.stream().map(Book::getId).collect(Collectors.toList());
+    }
+}
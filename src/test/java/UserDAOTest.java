@@ -25,22 +25,46 @@ class UserDAOTest {
     void testInitializeTable_success() throws SQLException {
         Connection mockConn = mock(Connection.class);
         Statement mockStmt = mock(Statement.class);
+        ResultSet mockColumns = mock(ResultSet.class);
         when(mockConn.createStatement()).thenReturn(mockStmt);
+        when(mockStmt.executeQuery("PRAGMA table_info(users)")).thenReturn(mockColumns);
+        when(mockColumns.next()).thenReturn(true, false);
+        when(mockColumns.getString("name")).thenReturn("email");
 
         try (MockedStatic<DatabaseConnection> dbMock = mockStatic(DatabaseConnection.class)) {
             dbMock.when(DatabaseConnection::getConnection).thenReturn(mockConn);
 
             userDAO.initializeTable();
+            // The table is created; the email column is already there, so nothing is altered.
             verify(mockStmt).execute(anyString());
         }
     }
 
+    @Test
+    void testInitializeTable_addsMissingEmailColumn() throws SQLException {
+        Connection mockConn = mock(Connection.class);
+        Statement mockStmt = mock(Statement.class);
+        ResultSet mockColumns = mock(ResultSet.class);
+        when(mockConn.createStatement()).thenReturn(mockStmt);
+        when(mockStmt.executeQuery("PRAGMA table_info(users)")).thenReturn(mockColumns);
+        when(mockColumns.next()).thenReturn(true, true, false);
+        when(mockColumns.getString("name")).thenReturn("id", "username");
+
+        try (MockedStatic<DatabaseConnection> dbMock = mockStatic(DatabaseConnection.class)) {
+            dbMock.when(DatabaseConnection::getConnection).thenReturn(mockConn);
+
+            userDAO.initializeTable();
+            verify(mockStmt).execute("ALTER TABLE users ADD COLUMN email TEXT");
+        }
+    }
+
     @Test
     void testInitializeTable_sqlException() throws SQLException {
         Connection mockConn = mock(Connection.class);
         Statement mockStmt = mock(Statement.class);
         when(mockConn.createStatement()).thenReturn(mockStmt);
         doThrow(new SQLException("Create failed")).when(mockStmt).execute(anyString());
+        when(mockStmt.executeQuery(anyString())).thenThrow(new SQLException("Query failed"));
 
         try (MockedStatic<DatabaseConnection> dbMock = mockStatic(DatabaseConnection.class)) {
             dbMock.when(DatabaseConnection::getConnection).thenReturn(mockConn);
@@ -143,7 +167,7 @@ class UserDAOTest {
 
         when(mockConn.prepareStatement("SELECT id FROM users WHERE username = ?")).thenReturn(findStmt);
         when(mockConn.prepareStatement("DELETE FROM borrow_records WHERE user_id = ?")).thenReturn(deleteStmt);
-        when(mockConn.prepareStatement("DELETE FROM user_fines WHERE user_id = ?")).thenReturn(deleteStmt);
+        when(mockConn.prepareStatement("DELETE FROM holds WHERE user_id = ?")).thenReturn(deleteStmt);
         when(mockConn.prepareStatement("DELETE FROM users WHERE id = ?")).thenReturn(deleteStmt);
 
         when(findStmt.executeQuery()).thenReturn(rs);
@@ -1,8 +1,10 @@
 import dao.UserDAO;
+import model.Session;
 import model.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import dao.PasswordUtil;
+import service.LoginThrottle;
 import service.UserService;
 import java.lang.reflect.Field;
 
@@ -45,6 +47,27 @@ public class UserServiceTest {
         verify(userDAOMock).insert(anyString(), anyString(), anyString());
     }
 
+    @Test
+    public void testRegister_StoresEmail() {
+        User expectedUser = new User(1, "rahaf", "hashed", "salt");
+        when(userDAOMock.findByUsername("rahaf")).thenReturn(null, expectedUser);
+        when(userDAOMock.insert(anyString(), anyString(), anyString(), eq("rahaf@example.org"))).thenReturn(true);
+
+        assertNotNull(userService.register("rahaf", "12345", " rahaf@example.org "));
+        verify(userDAOMock, never()).insert(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testUpdateEmail() {
+        User user = new User(1, "rahaf", "hashed", "salt");
+        when(userDAOMock.updateEmail(1, "new@example.org")).thenReturn(true);
+
+        assertTrue(userService.updateEmail(user, "new@example.org"));
+        assertEquals("new@example.org", user.getEmail());
+        assertFalse(userService.updateEmail(user, "not-an-address"));
+        verify(userDAOMock, times(1)).updateEmail(anyInt(), anyString());
+    }
+
     @Test
     public void testRegister_Fails_UserExists() {
         String username = "existing";
@@ -91,6 +114,31 @@ public class UserServiceTest {
         assertEquals(username, result.getUsername());
     }
 
+    @Test
+    public void testLogin_UpgradesLegacyHash() {
+        String salt = PasswordUtil.generateSalt();
+        User legacyUser = new User(3, "old", PasswordUtil.legacyHash("12345", salt), salt);
+        when(userDAOMock.findByUsername("old")).thenReturn(legacyUser);
+        when(userDAOMock.updatePasswordHash(eq(3), anyString(), anyString())).thenReturn(true);
+
+        User result = userService.login("old", "12345");
+
+        assertNotNull(result);
+        verify(userDAOMock).updatePasswordHash(eq(3), startsWith("pbkdf2-sha256$"), anyString());
+        assertFalse(PasswordUtil.needsRehash(result.getPasswordHash()));
+        assertTrue(PasswordUtil.verifyPassword("12345", result.getSalt(), result.getPasswordHash()));
+    }
+
+    @Test
+    public void testLogin_DoesNotRehashCurrentHash() {
+        String salt = PasswordUtil.generateSalt();
+        User user = new User(4, "fresh", PasswordUtil.hashPassword("12345", salt), salt);
+        when(userDAOMock.findByUsername("fresh")).thenReturn(user);
+
+        assertNotNull(userService.login("fresh", "12345"));
+        verify(userDAOMock, never()).updatePasswordHash(anyInt(), anyString(), anyString());
+    }
+
     @Test
     public void testLogin_Fails_WrongPassword() {
         String username = "rahaf";
@@ -114,4 +162,50 @@ public class UserServiceTest {
 
         assertNull(result);
     }
+
+    @Test
+    public void testLogin_ThrottledAfterRepeatedAttempts() {
+        when(userDAOMock.findByUsername("target")).thenReturn(null);
+
+        for (int i = 0; i < LoginThrottle.DEFAULT_PER_USER_LIMIT; i++) {
+            assertNull(userService.login("target", "guess" + i));
+        }
+        assertTrue(userService.loginRetryAfter("target").toMillis() > 0);
+        assertNull(userService.login("target", "guess"));
+
+        // The rejected attempt never reached the database; other users are unaffected.
+        verify(userDAOMock, times(LoginThrottle.DEFAULT_PER_USER_LIMIT)).findByUsername("target");
+        assertTrue(userService.loginRetryAfter("someoneElse").isZero());
+    }
+
+    // -------------------------------------------------------------------------
+    // openSession() Tests
+    // -------------------------------------------------------------------------
+
+    @Test
+    public void testOpenSession_IssuesTokenForBorrower() {
+        String salt = PasswordUtil.generateSalt();
+        User mockUser = new User(7, "rahaf", PasswordUtil.hashPassword("12345", salt), salt);
+        mockUser.setEmail("rahaf@example.com");
+        when(userDAOMock.findByUsername("rahaf")).thenReturn(mockUser);
+
+        Session session = userService.openSession("rahaf", "12345");
+
+        assertNotNull(session);
+        assertNotNull(session.getBorrower());
+        assertEquals(7, session.getBorrower().getId());
+        assertEquals("rahaf@example.com", session.getBorrower().getEmail());
+        assertTrue(session.getBorrower().isLoggedIn());
+        assertSame(session, userService.getSessionStore().validate(session.getToken()));
+    }
+
+    @Test
+    public void testOpenSession_Fails_WrongPassword() {
+        String salt = PasswordUtil.generateSalt();
+        User mockUser = new User(7, "rahaf", PasswordUtil.hashPassword("12345", salt), salt);
+        when(userDAOMock.findByUsername("rahaf")).thenReturn(mockUser);
+
+        assertNull(userService.openSession("rahaf", "nope"));
+        assertEquals(0, userService.getSessionStore().size());
+    }
 }
@@ -0,0 +1,172 @@
+package benchmark;
+
+import dao.BorrowRecordDAO;
+import dao.DatabaseConnection;
+import dao.FineDAO;
+import dao.HoldDAO;
+import dao.MediaDAO;
+import dao.UserDAO;
+import model.Hold;
+import model.Media;
+import model.MediaRecord;
+import model.ReturnOutcome;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import service.BorrowingService;
+import service.ReservationService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of checking in a full drop box: {@value #ITEMS} loans spread
+ * over {@value #USERS} patrons, a third of them overdue, returned either one
+ * at a time the way a logged-in patron returns an item, or through
+ * {@link BorrowingService#returnBatch}.
+ *
+ * <p>Everything runs locally on a throwaway SQLite file. The loans are put
+ * back before every invocation, so each measurement checks in the same pile.</p>
+ *
+ * <p>Run after {@code mvn test-compile}:</p>
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main benchmark.DropBoxReturnBenchmark
+ * </pre>
+ *
+ * <p>Results on a single-core container (JDK 17, 1 fork, 3 warm-up and 10
+ * measured invocations), time to check in 500 items:</p>
+ * <pre>
+ * mode         ms/op
+ * single       1 720     (one transaction and a hand-off per item)
+ * batch           61     (five transactions of 100)
+ * </pre>
+ * <p>One at a time, every item pays for its own connection, commit and
+ * hand-off transaction. The batch finds the loans with one indexed query
+ * and closes each group of 100 with a handful of JDBC batches and a single
+ * commit. Errors were around 25% on this machine; compare runs on the
+ * same host.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DropBoxReturnBenchmark {
+
+    private static final int ITEMS = 500;
+    private static final int USERS = 50;
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+
+    /** {@code single} returns item by item; {@code batch} uses {@link BorrowingService#returnBatch}. */
+    @Param({"single", "batch"})
+    public String mode;
+
+    private Path dbFile;
+    private PrintStream console;
+    private BorrowRecordDAO borrowRecordDAO;
+    private MediaDAO mediaDAO;
+    private ReservationService reservationService;
+    private BorrowingService borrowingService;
+    private final List<Integer> userIds = new ArrayList<>();
+    private final List<Media> items = new ArrayList<>();
+    private List<ReturnOutcome> loans;
+
+    @Setup
+    public void setUp() throws IOException {
+        dbFile = Files.createTempFile("drop-box", ".db");
+        DatabaseConnection.setUrl("jdbc:sqlite:" + dbFile);
+        UserDAO userDAO = new UserDAO();
+        mediaDAO = new MediaDAO();
+        borrowRecordDAO = new BorrowRecordDAO();
+        userDAO.initializeTable();
+        mediaDAO.initializeTable();
+        new HoldDAO().initializeTable();
+        borrowRecordDAO.initializeTable();
+        new FineDAO().initializeTable();
+
+        Clock clock = Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        reservationService = new ReservationService(new HoldDAO(), clock);
+        borrowingService = new BorrowingService(reservationService, clock);
+
+        for (int i = 0; i < USERS; i++) {
+            userDAO.insert("patron" + i, "hash", "salt");
+            userIds.add(userDAO.findByUsername("patron" + i).getId());
+        }
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(new Media(mediaDAO.insert("Item " + i, "book"), "Item " + i, true, "book"));
+        }
+
+        // Per-item progress lines would dominate the measurement
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @Setup(Level.Invocation)
+    public void lendEverything() {
+        for (int u = 0; u < USERS; u++) {
+            List<MediaRecord> cart = new ArrayList<>();
+            for (int i = u; i < ITEMS; i += USERS) {
+                cart.add(new MediaRecord(0, items.get(i), TODAY.plusDays(i % 3 == 0 ? -2 : 10)));
+            }
+            borrowRecordDAO.checkout(userIds.get(u), cart, TODAY.minusDays(20), true);
+        }
+        loans = borrowRecordDAO.findActiveByMediaIds(items.stream().map(Media::getId).toList());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.setOut(console);
+        DatabaseConnection.setUrl(null);
+        Files.deleteIfExists(dbFile);
+    }
+
+    @Benchmark
+    public int checkIn() {
+        int returned = 0;
+        if (mode.equals("batch")) {
+            for (ReturnOutcome outcome : borrowingService.returnBatch(items.stream().map(Media::getId).toList())) {
+                if (outcome.isReturned()) returned++;
+            }
+        } else {
+            for (ReturnOutcome loan : loans) {
+                Media media = new Media(loan.getMediaId(), loan.getTitle(), false, loan.getMediaType());
+                double fine = Math.max(0, TODAY.toEpochDay() - loan.getDueDate().toEpochDay())
+                        * BorrowingService.getFinePerDay(loan.getMediaType());
+                MediaRecord record = new MediaRecord(loan.getRecordId(), media, loan.getDueDate());
+                List<Hold> handedTo = new ArrayList<>(1);
+                if (!borrowRecordDAO.returnLoan(loan.getUserId(), record, TODAY, fine,
+                        TODAY.plusDays(ReservationService.PICKUP_DAYS), handedTo).isEmpty()) {
+                    for (Hold hold : handedTo) {
+                        reservationService.handedOff(hold);
+                    }
+                    returned++;
+                }
+            }
+        }
+        if (returned != ITEMS) {
+            throw new IllegalStateException("Returned " + returned + " of " + ITEMS);
+        }
+        return returned;
+    }
+}
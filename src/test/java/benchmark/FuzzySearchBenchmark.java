@@ -0,0 +1,118 @@
+package benchmark;
+
+import model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.SearchByFuzzyMatch;
+import service.TrigramIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of {@link TrigramIndex#suggest}, the typo-tolerant lookup
+ * behind {@link SearchByFuzzyMatch}, over a large in-memory catalog.
+ *
+ * <p>The catalog is {@code size} books titled with three and credited to two
+ * words drawn from a vocabulary of {@value #VOCABULARY} made-up words. The
+ * term misspells one vocabulary word, or two for {@code words = 2}, by
+ * swapping two adjacent letters, so every close word is two edits away.</p>
+ *
+ * <p>Run after {@code mvn test-compile}:</p>
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main benchmark.FuzzySearchBenchmark
+ * </pre>
+ *
+ * <p>Results on a single-core container (JDK 17, 1 fork, 3 warm-up and 5
+ * measured iterations of one second), time per lookup of the ten closest
+ * books:</p>
+ * <pre>
+ * words       100 000 books    1 000 000 books
+ * 1             0.5 ms/op        0.5 ms/op
+ * 2             7.7 ms/op        6.3 ms/op
+ * </pre>
+ * <p>The time goes to walking the BK-tree of the vocabulary, so it depends
+ * on the number of distinct words and on the term, not on the number of
+ * books. Errors were up to 65% on this machine; compare runs on the same
+ * host.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class FuzzySearchBenchmark {
+
+    private static final int VOCABULARY = 50_000;
+
+    /** Number of books in the catalog. */
+    @Param({"100000", "1000000"})
+    public int size;
+
+    /** Number of misspelled words in the term. */
+    @Param({"1", "2"})
+    public int words;
+
+    private TrigramIndex index;
+    private String term;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        String[] vocabulary = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            vocabulary[i] = word(random);
+        }
+
+        List<Book> books = new ArrayList<>(size);
+        for (int id = 1; id <= size; id++) {
+            books.add(new Book(id,
+                    vocabulary[random.nextInt(VOCABULARY)] + " " + vocabulary[random.nextInt(VOCABULARY)]
+                            + " " + vocabulary[random.nextInt(VOCABULARY)],
+                    vocabulary[random.nextInt(VOCABULARY)] + " " + vocabulary[random.nextInt(VOCABULARY)],
+                    "isbn-" + id, true));
+        }
+        index = new TrigramIndex();
+        index.rebuild(books, List.of());
+
+        // Misspell words of the first book so the term always has close matches
+        String[] titleWords = books.get(0).getTitle().split(" ");
+        term = swapLetters(titleWords[0]) + (words == 2 ? " " + swapLetters(titleWords[1]) : "");
+    }
+
+    @Benchmark
+    public int suggest() {
+        return index.suggest(term, null, "book", SearchByFuzzyMatch.DEFAULT_MAX_RESULTS).length;
+    }
+
+    /** Swaps the second and third letters, two edits away from the original. */
+    private static String swapLetters(String word) {
+        return word.charAt(0) + "" + word.charAt(2) + word.charAt(1) + word.substring(3);
+    }
+
+    /** Makes up a pronounceable word of three to five syllables. */
+    private static String word(Random random) {
+        String consonants = "bcdfghklmnprstvz";
+        String vowels = "aeiou";
+        StringBuilder word = new StringBuilder();
+        int syllables = 3 + random.nextInt(3);
+        for (int i = 0; i < syllables; i++) {
+            word.append(consonants.charAt(random.nextInt(consonants.length())));
+            word.append(vowels.charAt(random.nextInt(vowels.length())));
+        }
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,674 @@
+package benchmark;
+
+import dao.BorrowRecordDAO;
+import dao.DatabaseConnection;
+import dao.HoldDAO;
+import dao.OutboxDAO;
+import dao.UserDAO;
+import model.Borrower;
+import model.Media;
+import model.MediaRecord;
+import model.OutboxMessage;
+import model.User;
+import service.BookService;
+import service.BorrowerService;
+import service.BorrowingService;
+import service.CDService;
+import service.FineAccrualJob;
+import service.ReminderScheduler;
+import service.ReservationService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Discrete-event simulator that replays years of library use against the
+ * real services on a throwaway SQLite file, to see how throughput, database
+ * size and query latency develop as history piles up.
+ *
+ * <p>Every service runs on a {@link SimulationClock} that the simulator
+ * moves from one event to the next, so a year passes in however long its
+ * events take to process. Events are kept in a priority queue by day:</p>
+ * <ul>
+ *     <li>a patron joins, half of them on the first day and the rest spread over the run;</li>
+ *     <li>a patron visits, pays any fine, and borrows up to three items, then
+ *         schedules the next visit after an exponentially distributed gap;</li>
+ *     <li>a loan comes back, on time or, for a share of loans, late;</li>
+ *     <li>once a day the overdue reminder and fine accrual jobs run and the
+ *         outbox is drained into a sink that accepts everything;</li>
+ *     <li>at a fixed interval a sample of the metrics is taken.</li>
+ * </ul>
+ *
+ * <p>Patron accounts are written through {@link UserDAO} with a placeholder
+ * hash: password hashing is a fixed per-login cost measured by
+ * {@link PasswordHashBenchmark}, and would swamp everything else here.
+ * Service console output is discarded while the simulation runs.</p>
+ *
+ * <p>Run after {@code mvn test-compile}, optionally with patrons, items,
+ * years and seed:</p>
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) benchmark.LibrarySimulator 200 500 3 42
+ * </pre>
+ *
+ * <p>Excerpt of that run on a single-core container (JDK 17), 77 s wall time:</p>
+ * <pre>
+ * date        patrons  records  db_kb  ops/s  borrow_p50/p99_us  return_p50/p99_us  overdue_q_us
+ * 2026-04-01      107      963    200    330      1369/8973          3288/14745             2279
+ * 2027-06-25      146     5763    652    648       827/3733          2038/7080               362
+ * 2028-12-16      198    12771   1284    640       882/2394          2182/5840               730
+ * </pre>
+ * <p>The database grows by about 430 KB a year at this size, while borrow,
+ * return and overdue query latency stay flat: the hot paths read active
+ * loans through indexes, not the growing history. The first period is
+ * slower while the JIT warms up.</p>
+ *
+ * @author Library
+ * @version 1.1
+ */
+public class LibrarySimulator {
+
+    /** First simulated day. */
+    public static final LocalDate START = LocalDate.of(2026, 1, 1);
+
+    /** Average days between two visits of the same patron. */
+    public static final double MEAN_DAYS_BETWEEN_VISITS = 14.0;
+
+    /** Share of loans that come back after their due date. */
+    public static final double LATE_RETURN_RATE = 0.15;
+
+    /** Average days a late loan comes back after its due date. */
+    public static final double MEAN_DAYS_LATE = 10.0;
+
+    /** Most loans a patron keeps at once. */
+    public static final int MAX_LOANS_PER_PATRON = 5;
+
+    /** Days between two metric samples. */
+    public static final int SAMPLE_EVERY_DAYS = 90;
+
+    /** Outbox messages the simulated mail sink accepts per claim. */
+    private static final int OUTBOX_BATCH = 100;
+
+    private final Path dbFile;
+    private final int patronCount;
+    private final int itemCount;
+    private final int days;
+    private final Random random;
+    private final SimulationClock clock = new SimulationClock(START);
+
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private final List<Media> catalog = new ArrayList<>();
+    private final List<Borrower> patrons = new ArrayList<>();
+    private long sequence;
+
+    private UserDAO userDAO;
+    private BorrowRecordDAO borrowRecordDAO;
+    private OutboxDAO outboxDAO;
+    private BorrowingService borrowingService;
+    private BorrowerService borrowerService;
+    private ReminderScheduler reminderScheduler;
+    private FineAccrualJob fineAccrualJob;
+
+    /** Per-period counters, reset at every sample. */
+    private final List<Long> borrowNanos = new ArrayList<>();
+    private final List<Long> returnNanos = new ArrayList<>();
+    private int operations;
+    private int lateReturns;
+    private int remindersSent;
+    private long periodStartNanos;
+
+    /**
+     * Constructs a simulator.
+     *
+     * @param dbFile      the SQLite file to create; it must not hold data worth keeping
+     * @param patronCount patrons that join over the run
+     * @param itemCount   books and CDs in the catalog, four books to every CD
+     * @param days        simulated days
+     * @param seed        seed of the random workload, so runs can be repeated
+     * @throws IllegalArgumentException if any count is below one
+     */
+    public LibrarySimulator(Path dbFile, int patronCount, int itemCount, int days, long seed) {
+        if (patronCount < 1 || itemCount < 1 || days < 1) {
+            throw new IllegalArgumentException("Patrons, items and days must be positive");
+        }
+        this.dbFile = dbFile;
+        this.patronCount = patronCount;
+        this.itemCount = itemCount;
+        this.days = days;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Runs the simulation to the end and returns its samples. The database
+     * connection URL points at the simulator's file while it runs and is
+     * reset afterwards.
+     *
+     * @return the report with one sample per period
+     */
+    public Report run() {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        DatabaseConnection.setUrl("jdbc:sqlite:" + dbFile);
+        try {
+            setUp();
+            return simulate();
+        } finally {
+            DatabaseConnection.setUrl(null);
+            System.setOut(console);
+        }
+    }
+
+    private void setUp() {
+        BookService bookService = new BookService();
+        CDService cdService = new CDService();
+        ReservationService reservationService = new ReservationService(new HoldDAO(), clock);
+        borrowingService = new BorrowingService(reservationService, clock);
+        borrowerService = new BorrowerService(clock);
+        userDAO = new UserDAO();
+        userDAO.initializeTable();
+        borrowRecordDAO = new BorrowRecordDAO();
+        outboxDAO = new OutboxDAO();
+        outboxDAO.initializeTable();
+        reminderScheduler = new ReminderScheduler(borrowRecordDAO, outboxDAO, null, clock,
+                ReminderScheduler.DEFAULT_ESCALATION_DAYS, ReminderScheduler.DEFAULT_MAX_REMINDERS);
+        fineAccrualJob = new FineAccrualJob(borrowRecordDAO, clock, FineAccrualJob.DEFAULT_BATCH_SIZE);
+
+        for (int i = 0; i < itemCount; i++) {
+            if (i % 5 == 4) {
+                cdService.addCD("Album " + i, "Artist " + (i % 37), "Genre " + (i % 7), 40 + i % 30);
+            } else {
+                bookService.addBook("Title " + i, "Author " + (i % 97), "ISBN-" + i);
+            }
+        }
+        catalog.addAll(bookService.getAllBooks());
+        catalog.addAll(cdService.getAllCDs());
+
+        for (int i = 0; i < patronCount; i++) {
+            int day = i < (patronCount + 1) / 2 ? 0 : random.nextInt(days);
+            schedule(day, EventType.JOIN, null, null);
+        }
+        for (int day = 0; day < days; day++) {
+            schedule(day, EventType.DAILY_JOBS, null, null);
+        }
+        for (int day = SAMPLE_EVERY_DAYS; day <= days; day += SAMPLE_EVERY_DAYS) {
+            schedule(day, EventType.SAMPLE, null, null);
+        }
+        if (days % SAMPLE_EVERY_DAYS != 0) {
+            schedule(days, EventType.SAMPLE, null, null);
+        }
+    }
+
+    private Report simulate() {
+        Report report = new Report();
+        periodStartNanos = System.nanoTime();
+        while (!events.isEmpty()) {
+            Event event = events.poll();
+            if (event.day > days) break;
+            clock.setDate(START.plusDays(event.day));
+            switch (event.type) {
+                case JOIN -> join(event.day);
+                case VISIT -> visit(event.day, event.patron);
+                case RETURN -> giveBack(event.patron, event.record);
+                case DAILY_JOBS -> runDailyJobs();
+                case SAMPLE -> report.samples.add(sample());
+            }
+        }
+        return report;
+    }
+
+    private void join(long day) {
+        String username = "patron" + patrons.size();
+        userDAO.insert(username, "simulated", "simulated", username + "@example.org");
+        User user = userDAO.findByUsername(username);
+        Borrower borrower = new Borrower(user.getId(), user.getUsername(), user.getPasswordHash(), user.getSalt());
+        borrower.setLoggedIn(true);
+        patrons.add(borrower);
+        operations += 2;
+        schedule(day, EventType.VISIT, borrower, null);
+    }
+
+    private void visit(long day, Borrower borrower) {
+        if (borrower.getFineBalance() > 0) {
+            borrowerService.payFine(borrower, borrower.getFineBalance());
+            operations++;
+        }
+        int wanted = 1 + random.nextInt(3);
+        for (int i = 0; i < wanted && borrower.getLoanCount() < MAX_LOANS_PER_PATRON; i++) {
+            Media media = catalog.get(random.nextInt(catalog.size()));
+            long start = System.nanoTime();
+            boolean borrowed = borrowingService.borrowMedia(borrower, media);
+            borrowNanos.add(System.nanoTime() - start);
+            operations++;
+            if (borrowed) {
+                MediaRecord record = borrower.findLoan(media.getId());
+                long loanDays = record.getDueDate().toEpochDay() - START.plusDays(day).toEpochDay();
+                long keptDays = random.nextDouble() < LATE_RETURN_RATE
+                        ? loanDays + 1 + exponential(MEAN_DAYS_LATE)
+                        : 1 + random.nextInt((int) loanDays);
+                schedule(day + keptDays, EventType.RETURN, borrower, record);
+            }
+        }
+        schedule(day + Math.max(1, exponential(MEAN_DAYS_BETWEEN_VISITS)), EventType.VISIT, borrower, null);
+    }
+
+    private void giveBack(Borrower borrower, MediaRecord record) {
+        if (record.isOverdue(LocalDate.now(clock))) {
+            lateReturns++;
+        }
+        long start = System.nanoTime();
+        borrowingService.returnMedia(borrower, record.getMedia());
+        returnNanos.add(System.nanoTime() - start);
+        operations++;
+    }
+
+    private void runDailyJobs() {
+        int reminders = reminderScheduler.runOnce();
+        if (reminders > 0) remindersSent += reminders;
+        fineAccrualJob.runOnce();
+        long now = clock.millis();
+        List<OutboxMessage> due;
+        while (!(due = outboxDAO.claimDue(OUTBOX_BATCH, now, now + 60_000)).isEmpty()) {
+            for (OutboxMessage message : due) {
+                outboxDAO.markSent(message.getId());
+            }
+        }
+        operations += 3;
+    }
+
+    private Sample sample() {
+        LocalDate today = LocalDate.now(clock);
+        long probeStart = System.nanoTime();
+        int overdueUsers = borrowingService.getUsersWithOverdueBooks().size();
+        long overdueQueryNanos = System.nanoTime() - probeStart;
+
+        Borrower probe = patrons.get(random.nextInt(patrons.size()));
+        probeStart = System.nanoTime();
+        borrowRecordDAO.findActiveByUserId(probe.getId());
+        long activeLoansQueryNanos = System.nanoTime() - probeStart;
+
+        long elapsed = System.nanoTime() - periodStartNanos;
+        Sample sample = new Sample(today, patrons.size(), count("SELECT COUNT(*) FROM borrow_records"),
+                count("SELECT COUNT(*) FROM borrow_records WHERE returned = 0"), overdueUsers,
+                databaseBytes(), operations, operations / (elapsed / 1e9),
+                percentile(borrowNanos, 50), percentile(borrowNanos, 99),
+                percentile(returnNanos, 50), percentile(returnNanos, 99),
+                overdueQueryNanos / 1000, activeLoansQueryNanos / 1000, lateReturns, remindersSent);
+
+        borrowNanos.clear();
+        returnNanos.clear();
+        operations = 0;
+        lateReturns = 0;
+        remindersSent = 0;
+        periodStartNanos = System.nanoTime();
+        return sample;
+    }
+
+    private void schedule(long day, EventType type, Borrower patron, MediaRecord record) {
+        events.add(new Event(day, sequence++, type, patron, record));
+    }
+
+    private long exponential(double mean) {
+        return Math.round(-mean * Math.log(1 - random.nextDouble()));
+    }
+
+    private long databaseBytes() {
+        try {
+            return Files.size(dbFile);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static int count(String sql) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns a percentile of the samples in microseconds; 0 if there are none.
+     */
+    private static long percentile(List<Long> nanos, int percent) {
+        if (nanos.isEmpty()) return 0;
+        long[] sorted = nanos.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1000;
+    }
+
+    /**
+     * Runs a simulation and prints its report.
+     *
+     * @param args optional patrons, items, years and seed
+     * @throws IOException if the temporary database cannot be created
+     */
+    public static void main(String[] args) throws IOException {
+        int patrons = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int items = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int years = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+        Path dir = Files.createTempDirectory("library-sim");
+        Path db = dir.resolve("simulation.db");
+        try {
+            LibrarySimulator simulator = new LibrarySimulator(db, patrons, items, years * 365, seed);
+            simulator.run().print(System.out);
+        } finally {
+            Files.deleteIfExists(db);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    /**
+     * A {@link Clock} the simulator sets to the day of the event being
+     * processed. The time of day is always 09:00 UTC.
+     */
+    public static final class SimulationClock extends Clock {
+        private volatile Instant now;
+
+        /**
+         * Constructs a clock set to the given date.
+         *
+         * @param date the first date
+         */
+        public SimulationClock(LocalDate date) {
+            setDate(date);
+        }
+
+        /**
+         * Moves the clock to the given date.
+         *
+         * @param date the new date
+         */
+        public void setDate(LocalDate date) {
+            now = date.atTime(9, 0).toInstant(ZoneOffset.UTC);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    /**
+     * Metrics for one sampling period.
+     */
+    public static final class Sample {
+        private final LocalDate date;
+        private final int patrons;
+        private final int borrowRecords;
+        private final int activeLoans;
+        private final int overdueUsers;
+        private final long databaseBytes;
+        private final int operations;
+        private final double operationsPerSecond;
+        private final long borrowP50Micros;
+        private final long borrowP99Micros;
+        private final long returnP50Micros;
+        private final long returnP99Micros;
+        private final long overdueQueryMicros;
+        private final long activeLoansQueryMicros;
+        private final int lateReturns;
+        private final int remindersSent;
+
+        Sample(LocalDate date, int patrons, int borrowRecords, int activeLoans, int overdueUsers,
+               long databaseBytes, int operations, double operationsPerSecond,
+               long borrowP50Micros, long borrowP99Micros, long returnP50Micros, long returnP99Micros,
+               long overdueQueryMicros, long activeLoansQueryMicros, int lateReturns, int remindersSent) {
+            this.date = date;
+            this.patrons = patrons;
+            this.borrowRecords = borrowRecords;
+            this.activeLoans = activeLoans;
+            this.overdueUsers = overdueUsers;
+            this.databaseBytes = databaseBytes;
+            this.operations = operations;
+            this.operationsPerSecond = operationsPerSecond;
+            this.borrowP50Micros = borrowP50Micros;
+            this.borrowP99Micros = borrowP99Micros;
+            this.returnP50Micros = returnP50Micros;
+            this.returnP99Micros = returnP99Micros;
+            this.overdueQueryMicros = overdueQueryMicros;
+            this.activeLoansQueryMicros = activeLoansQueryMicros;
+            this.lateReturns = lateReturns;
+            this.remindersSent = remindersSent;
+        }
+
+        /**
+         * Gets the simulated date the sample was taken.
+         *
+         * @return the the simulated date the sample was taken
+         */
+        public LocalDate getDate() {
+            return date;
+        }
+
+        /**
+         * Gets the patrons who have joined so far.
+         *
+         * @return the patrons who have joined so far
+         */
+        public int getPatrons() {
+            return patrons;
+        }
+
+        /**
+         * Gets the borrow records ever written.
+         *
+         * @return the borrow records ever written
+         */
+        public int getBorrowRecords() {
+            return borrowRecords;
+        }
+
+        /**
+         * Gets the loans not yet returned.
+         *
+         * @return the loans not yet returned
+         */
+        public int getActiveLoans() {
+            return activeLoans;
+        }
+
+        /**
+         * Gets the users with at least one overdue loan.
+         *
+         * @return the users with at least one overdue loan
+         */
+        public int getOverdueUsers() {
+            return overdueUsers;
+        }
+
+        /**
+         * Gets the size of the database file.
+         *
+         * @return the size of the database file
+         */
+        public long getDatabaseBytes() {
+            return databaseBytes;
+        }
+
+        /**
+         * Gets the service calls made during the period.
+         *
+         * @return the service calls made during the period
+         */
+        public int getOperations() {
+            return operations;
+        }
+
+        /**
+         * Gets the service calls per second of wall time during the period.
+         *
+         * @return the service calls per second of wall time during the period
+         */
+        public double getOperationsPerSecond() {
+            return operationsPerSecond;
+        }
+
+        /**
+         * Gets the median borrow latency during the period.
+         *
+         * @return the median borrow latency during the period
+         */
+        public long getBorrowP50Micros() {
+            return borrowP50Micros;
+        }
+
+        /**
+         * Gets the 99th percentile borrow latency during the period.
+         *
+         * @return the 99th percentile borrow latency during the period
+         */
+        public long getBorrowP99Micros() {
+            return borrowP99Micros;
+        }
+
+        /**
+         * Gets the median return latency during the period.
+         *
+         * @return the median return latency during the period
+         */
+        public long getReturnP50Micros() {
+            return returnP50Micros;
+        }
+
+        /**
+         * Gets the 99th percentile return latency during the period.
+         *
+         * @return the 99th percentile return latency during the period
+         */
+        public long getReturnP99Micros() {
+            return returnP99Micros;
+        }
+
+        /**
+         * Gets the latency of one users-with-overdue-books query.
+         *
+         * @return the latency of one users-with-overdue-books query
+         */
+        public long getOverdueQueryMicros() {
+            return overdueQueryMicros;
+        }
+
+        /**
+         * Gets the latency of one active-loans-by-user query.
+         *
+         * @return the latency of one active-loans-by-user query
+         */
+        public long getActiveLoansQueryMicros() {
+            return activeLoansQueryMicros;
+        }
+
+        /**
+         * Gets the loans returned late during the period.
+         *
+         * @return the loans returned late during the period
+         */
+        public int getLateReturns() {
+            return lateReturns;
+        }
+
+        /**
+         * Gets the reminder emails queued during the period.
+         *
+         * @return the reminder emails queued during the period
+         */
+        public int getRemindersSent() {
+            return remindersSent;
+        }
+    }
+
+    /**
+     * The samples of one run, in date order.
+     */
+    public static final class Report {
+        private final List<Sample> samples = new ArrayList<>();
+
+        /**
+         * Returns the samples.
+         *
+         * @return the samples, oldest first
+         */
+        public List<Sample> getSamples() {
+            return samples;
+        }
+
+        /**
+         * Prints the samples as a table.
+         *
+         * @param out the stream to print to
+         */
+        public void print(PrintStream out) {
+            out.println("date        patrons  records  active  overdue  db_kb   ops   ops/s  "
+                    + "borrow_p50/p99_us  return_p50/p99_us  overdue_q_us  loans_q_us  late  reminders");
+            for (Sample s : samples) {
+                out.println(String.format(Locale.ROOT,
+                        "%s  %7d  %7d  %6d  %7d  %6d  %5d  %6.0f  %8d/%-8d  %8d/%-8d  %12d  %10d  %4d  %9d",
+                        s.date, s.patrons, s.borrowRecords, s.activeLoans, s.overdueUsers,
+                        s.databaseBytes / 1024, s.operations, s.operationsPerSecond,
+                        s.borrowP50Micros, s.borrowP99Micros, s.returnP50Micros, s.returnP99Micros,
+                        s.overdueQueryMicros, s.activeLoansQueryMicros, s.lateReturns, s.remindersSent));
+            }
+        }
+    }
+
+    private enum EventType { JOIN, VISIT, RETURN, DAILY_JOBS, SAMPLE }
+
+    /**
+     * One scheduled event. Events on the same day run in the order they were scheduled.
+     */
+    private static final class Event implements Comparable<Event> {
+        final long day;
+        final long sequence;
+        final EventType type;
+        final Borrower patron;
+        final MediaRecord record;
+
+        Event(long day, long sequence, EventType type, Borrower patron, MediaRecord record) {
+            this.day = day;
+            this.sequence = sequence;
+            this.type = type;
+            this.patron = patron;
+            this.record = record;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            int byDay = Long.compare(day, other.day);
+            return byDay != 0 ? byDay : Long.compare(sequence, other.sequence);
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package benchmark;
+
+import dao.PasswordUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of one password hash at each cost level.
+ *
+ * <p>Run after {@code mvn test-compile}:</p>
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main benchmark.PasswordHashBenchmark
+ * </pre>
+ *
+ * <p>Results on a single-core container (JDK 17, 1 fork, 2x2s warm-up,
+ * 3x3s measurement), average time per hash:</p>
+ * <pre>
+ * iterations        us/op
+ *          0        0.375   (legacy single-pass SHA-256)
+ *     10 000    4 979
+ *    100 000   44 515
+ *    210 000  105 550   (default)
+ *    600 000  286 412
+ * </pre>
+ * <p>Cost grows linearly with the iteration count, at about 0.5 us per iteration.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+    /** PBKDF2 iteration count; 0 measures the legacy single-pass SHA-256 hash. */
+    @Param({"0", "10000", "100000", "210000", "600000"})
+    public int iterations;
+
+    private String salt;
+
+    @Setup
+    public void setUp() {
+        salt = PasswordUtil.generateSalt();
+    }
+
+    @Benchmark
+    public String hash() {
+        if (iterations == 0) {
+            return PasswordUtil.legacyHash("correct horse battery staple", salt);
+        }
+        return PasswordUtil.hashPassword("correct horse battery staple", salt, iterations);
+    }
+}
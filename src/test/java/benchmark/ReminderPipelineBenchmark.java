@@ -0,0 +1,129 @@
+package benchmark;
+
+import dao.DatabaseConnection;
+import dao.OutboxDAO;
+import model.OutboxMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import service.EmailServer;
+import service.OutboxDispatcher;
+import service.SmtpSettings;
+import service.TokenBucket;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the overdue reminder pipeline end to end: a run of
+ * reminders is written to the outbox, then the {@link OutboxDispatcher}
+ * delivers them through {@link EmailServer} to an in-process
+ * {@link SmtpSink} that answers each message after a fixed latency.
+ *
+ * <p>Everything runs locally on a throwaway SQLite file, with a fixed
+ * number of reminders and a fixed provider latency, so runs are comparable
+ * from one machine state to the next.</p>
+ *
+ * <p>Run after {@code mvn test-compile}:</p>
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main benchmark.ReminderPipelineBenchmark
+ * </pre>
+ *
+ * <p>Results on a single-core container (JDK 17, 1 fork, 2x2s warm-up,
+ * 3x3s measurement), average time for a run of 200 reminders:</p>
+ * <pre>
+ * concurrency  latencyMillis    ms/op
+ *           1              0      388
+ *           1              5    1 844     (200 x 5 ms waited out one by one)
+ *           8              0      809
+ *           8              5      838     (waits overlap)
+ * </pre>
+ * <p>With no provider latency the run is bound by one SQLite write per
+ * delivered message, and on one core extra senders only add switching.
+ * Parallel sends pay off once each message spends time waiting on the
+ * provider, which a real one always does. Errors were wide on this
+ * machine; compare runs on the same host.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class ReminderPipelineBenchmark {
+
+    private static final int REMINDERS = 200;
+
+    /** Sends in flight at once. */
+    @Param({"1", "8"})
+    public int concurrency;
+
+    /** Time the sink takes to accept each message, in milliseconds. */
+    @Param({"0", "5"})
+    public int latencyMillis;
+
+    private Path dbFile;
+    private SmtpSink sink;
+    private EmailServer emailServer;
+    private OutboxDAO outboxDAO;
+    private OutboxDispatcher dispatcher;
+    private List<OutboxMessage> reminders;
+
+    @Setup
+    public void setUp() throws IOException {
+        dbFile = Files.createTempFile("reminder-pipeline", ".db");
+        DatabaseConnection.setUrl("jdbc:sqlite:" + dbFile);
+        outboxDAO = new OutboxDAO();
+        outboxDAO.initializeTable();
+
+        sink = new SmtpSink(0, 0);
+        sink.setLatency(Duration.ofMillis(latencyMillis));
+        sink.start();
+        emailServer = new EmailServer("library@example.com", "secret",
+                new SmtpSettings("localhost", sink.getPort()).withStartTls(false).withPoolSize(concurrency));
+        // The rate limit is set far above what the sink can take, so it does not shape the result.
+        dispatcher = new OutboxDispatcher(outboxDAO, emailServer, Clock.systemUTC(),
+                OutboxDispatcher.DEFAULT_MAX_ATTEMPTS, OutboxDispatcher.DEFAULT_BASE_BACKOFF,
+                concurrency, new TokenBucket(1_000_000, 1_000_000));
+
+        reminders = new ArrayList<>(REMINDERS);
+        for (int i = 0; i < REMINDERS; i++) {
+            reminders.add(new OutboxMessage("patron" + i + "@example.com", "Library Notification",
+                    "You have " + (1 + i % 3) + " overdue book(s)."));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        emailServer.close();
+        sink.close();
+        DatabaseConnection.setUrl(null);
+        Files.deleteIfExists(dbFile);
+    }
+
+    @Benchmark
+    public int queueAndDeliver() {
+        outboxDAO.enqueueAll(reminders, System.currentTimeMillis());
+        int delivered = dispatcher.drain();
+        if (delivered != REMINDERS) {
+            throw new IllegalStateException("Delivered " + delivered + " of " + REMINDERS);
+        }
+        return delivered;
+    }
+}
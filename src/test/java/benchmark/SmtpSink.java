@@ -0,0 +1,523 @@
+package benchmark;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process SMTP server that stands in for a mail provider in tests
+ * and load benchmarks.
+ *
+ * <p>It speaks just enough SMTP for Jakarta Mail: EHLO, STARTTLS when
+ * {@linkplain #enableStartTls(SSLContext) enabled} with the bundled
+ * {@linkplain #localhostContext() localhost key store}, AUTH PLAIN or LOGIN with
+ * any credentials, MAIL, RCPT, DATA, RSET, NOOP and QUIT. It listens on the
+ * loopback interface only and counts connections and messages, so the mail
+ * path can be exercised and measured without a real mail provider.</p>
+ *
+ * <p>The most recent messages are kept in a bounded store, oldest dropped
+ * first, so a long load run does not grow the heap. Each message can be
+ * delayed by a fixed {@linkplain #setLatency(Duration) latency}, and every
+ * n-th message can be {@linkplain #setFailEvery(int) rejected} with a
+ * temporary failure, to reproduce a slow or flaky provider.</p>
+ *
+ * <p><b>Example Usage:</b></p>
+ * <pre>
+ *     try (SmtpSink sink = new SmtpSink(0)) {
+ *         sink.start();
+ *         EmailServer server = new EmailServer("me@example.com", "secret",
+ *                 new SmtpSettings("localhost", sink.getPort()).withStartTls(false));
+ *         server.sendEmail("you@example.com", "Hi", "Hello");
+ *     }
+ * </pre>
+ *
+ * @author Library
+ * @version 1.2
+ */
+public class SmtpSink implements AutoCloseable {
+
+    /** Messages kept by default. */
+    public static final int DEFAULT_STORE_CAPACITY = 1000;
+
+    /** Test resource holding a self-signed key and certificate for localhost. */
+    public static final String LOCALHOST_KEY_STORE = "/smtp-sink.p12";
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService workers;
+    private final int storeCapacity;
+    private final Deque<ReceivedMessage> store = new ArrayDeque<>();
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong dataCommands = new AtomicLong();
+    private final Set<Socket> open = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
+    private volatile SSLContext tls;
+    private volatile long latencyNanos;
+    private volatile int failEvery;
+
+    /**
+     * A message the sink accepted.
+     */
+    public static final class ReceivedMessage {
+        private final String from;
+        private final List<String> recipients;
+        private final String content;
+
+        ReceivedMessage(String from, List<String> recipients, String content) {
+            this.from = from;
+            this.recipients = Collections.unmodifiableList(new ArrayList<>(recipients));
+            this.content = content;
+        }
+
+        /**
+         * Gets the envelope sender given in {@code MAIL FROM}.
+         *
+         * @return the sender address
+         */
+        public String getFrom() {
+            return from;
+        }
+
+        /**
+         * Gets the envelope recipients given in {@code RCPT TO}.
+         *
+         * @return the recipient addresses
+         */
+        public List<String> getRecipients() {
+            return recipients;
+        }
+
+        /**
+         * Gets the raw message, headers and body, with CRLF line endings.
+         *
+         * @return the message content
+         */
+        public String getContent() {
+            return content;
+        }
+
+        /**
+         * Returns the value of the {@code Subject} header.
+         *
+         * @return the subject; {@code null} if the message has none
+         */
+        public String getSubject() {
+            for (String line : content.split("\r\n")) {
+                if (line.isEmpty()) break;
+                if (line.regionMatches(true, 0, "Subject:", 0, 8)) return line.substring(8).trim();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Binds the sink to a loopback port with the default store capacity.
+     * It does not accept connections until {@link #start()} is called.
+     *
+     * @param port the TCP port; 0 picks a free port
+     * @throws IOException if the port cannot be bound
+     */
+    public SmtpSink(int port) throws IOException {
+        this(port, DEFAULT_STORE_CAPACITY);
+    }
+
+    /**
+     * Binds the sink to a loopback port. It does not accept connections
+     * until {@link #start()} is called.
+     *
+     * @param port          the TCP port; 0 picks a free port
+     * @param storeCapacity most messages kept; 0 keeps none and only counts them
+     * @throws IOException if the port cannot be bound
+     */
+    public SmtpSink(int port, int storeCapacity) throws IOException {
+        if (storeCapacity < 0) {
+            throw new IllegalArgumentException("Store capacity cannot be negative");
+        }
+        this.storeCapacity = storeCapacity;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.setReuseAddress(true);
+        this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        AtomicInteger count = new AtomicInteger();
+        this.workers = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "smtp-sink-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads a TLS server context from a PKCS12 key store, for
+     * {@link #enableStartTls(SSLContext)}.
+     *
+     * @param keyStore the key store holding the server key and certificate
+     * @param password the key store password
+     * @return the TLS context
+     * @throws IOException              if the key store cannot be read
+     * @throws GeneralSecurityException if the key store is not usable
+     */
+    public static SSLContext serverContext(InputStream keyStore, char[] password)
+            throws IOException, GeneralSecurityException {
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        store.load(keyStore, password);
+        KeyManagerFactory keys = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keys.init(store, password);
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keys.getKeyManagers(), null, null);
+        return context;
+    }
+
+    /**
+     * Loads the TLS server context of the self-signed localhost key store
+     * bundled with the tests as {@value #LOCALHOST_KEY_STORE}.
+     *
+     * @return the TLS context
+     * @throws IOException              if the key store is missing or cannot be read
+     * @throws GeneralSecurityException if the key store is not usable
+     */
+    public static SSLContext localhostContext() throws IOException, GeneralSecurityException {
+        try (InputStream keyStore = SmtpSink.class.getResourceAsStream(LOCALHOST_KEY_STORE)) {
+            if (keyStore == null) {
+                throw new IOException("Key store not on the classpath: " + LOCALHOST_KEY_STORE);
+            }
+            return serverContext(keyStore, "changeit".toCharArray());
+        }
+    }
+
+    /**
+     * Offers STARTTLS to clients, upgrading the connection with the given
+     * server context. Without it the sink speaks plain SMTP only.
+     *
+     * @param context the TLS server context
+     */
+    public void enableStartTls(SSLContext context) {
+        this.tls = context;
+    }
+
+    /**
+     * Delays the reply to every message by a fixed time, as a distant or
+     * busy provider would.
+     *
+     * @param latency the delay; {@link Duration#ZERO} for none
+     */
+    public void setLatency(Duration latency) {
+        this.latencyNanos = latency.toNanos();
+    }
+
+    /**
+     * Rejects every n-th message with a temporary failure ({@code 451}).
+     * The count runs across all connections, so a run with the same
+     * messages fails the same share of them each time.
+     *
+     * @param n reject every n-th message; 0 rejects none
+     */
+    public void setFailEvery(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Failure interval cannot be negative");
+        }
+        this.failEvery = n;
+    }
+
+    /**
+     * Starts accepting connections on a background thread.
+     */
+    public void start() {
+        running = true;
+        workers.execute(this::acceptLoop);
+    }
+
+    /**
+     * Returns the port the sink listens on.
+     *
+     * @return the local port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the number of connections accepted so far.
+     *
+     * @return the connection count
+     */
+    public long getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * Returns the number of messages accepted so far.
+     *
+     * @return the message count
+     */
+    public long getMessageCount() {
+        return messages.get();
+    }
+
+    /**
+     * Returns the number of messages rejected by failure injection.
+     *
+     * @return the rejected count
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns the stored messages, oldest first.
+     *
+     * @return a snapshot of the message store
+     */
+    public List<ReceivedMessage> getMessages() {
+        synchronized (store) {
+            return new ArrayList<>(store);
+        }
+    }
+
+    /**
+     * Empties the message store. The counters are left as they are.
+     */
+    public void clearMessages() {
+        synchronized (store) {
+            store.clear();
+        }
+    }
+
+    /**
+     * Stops listening and drops open connections.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("Error closing SMTP sink: " + e.getMessage());
+        }
+        dropConnections();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Closes every open client connection while continuing to listen, as a
+     * server does when it restarts or times out idle clients.
+     */
+    public void dropConnections() {
+        for (Socket socket : open) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Dropping the client is the point.
+            }
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                open.add(socket);
+                workers.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (running) System.err.println("SMTP sink accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Socket current = socket;
+        try {
+            BufferedReader in = reader(current);
+            Writer out = writer(current);
+            reply(out, "220 localhost SMTP sink ready");
+
+            String from = null;
+            List<String> recipients = new ArrayList<>();
+            boolean secure = false;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String verb = line.length() < 4 ? line.toUpperCase(Locale.ROOT)
+                        : line.substring(0, 4).toUpperCase(Locale.ROOT);
+                switch (verb) {
+                    case "EHLO":
+                        reply(out, tls != null && !secure
+                                ? "250-localhost\r\n250-STARTTLS\r\n250-AUTH PLAIN LOGIN\r\n250 8BITMIME"
+                                : "250-localhost\r\n250-AUTH PLAIN LOGIN\r\n250 8BITMIME");
+                        break;
+                    case "HELO":
+                        reply(out, "250 localhost");
+                        break;
+                    case "STAR":
+                        if (tls == null || secure) {
+                            reply(out, "502 Command not implemented");
+                            break;
+                        }
+                        reply(out, "220 Ready to start TLS");
+                        current = upgrade(current);
+                        in = reader(current);
+                        out = writer(current);
+                        secure = true;
+                        break;
+                    case "AUTH":
+                        authenticate(line, in, out);
+                        break;
+                    case "MAIL":
+                        from = address(line);
+                        recipients.clear();
+                        reply(out, "250 OK");
+                        break;
+                    case "RCPT":
+                        recipients.add(address(line));
+                        reply(out, "250 OK");
+                        break;
+                    case "DATA":
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        StringBuilder content = new StringBuilder();
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            content.append(line.startsWith("..") ? line.substring(1) : line).append("\r\n");
+                        }
+                        pause();
+                        int every = failEvery;
+                        if (every > 0 && dataCommands.incrementAndGet() % every == 0) {
+                            rejected.incrementAndGet();
+                            reply(out, "451 4.3.0 Temporary failure, try again later");
+                        } else {
+                            messages.incrementAndGet();
+                            keep(new ReceivedMessage(from, recipients, content.toString()));
+                            reply(out, "250 OK queued");
+                        }
+                        recipients.clear();
+                        break;
+                    case "QUIT":
+                        reply(out, "221 Bye");
+                        return;
+                    case "RSET":
+                        from = null;
+                        recipients.clear();
+                        reply(out, "250 OK");
+                        break;
+                    case "NOOP":
+                        reply(out, "250 OK");
+                        break;
+                    default:
+                        reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (SocketException e) {
+            // Client went away or the sink is closing.
+        } catch (IOException e) {
+            System.err.println("SMTP sink connection failed: " + e.getMessage());
+        } finally {
+            open.remove(socket);
+            open.remove(current);
+            try {
+                current.close();
+            } catch (IOException e) {
+                // Already gone.
+            }
+        }
+    }
+
+    /**
+     * Wraps an accepted connection in TLS as the server side and completes
+     * the handshake.
+     */
+    private Socket upgrade(Socket plain) throws IOException {
+        SSLSocket secure = (SSLSocket) tls.getSocketFactory()
+                .createSocket(plain, plain.getInetAddress().getHostAddress(), plain.getPort(), true);
+        secure.setUseClientMode(false);
+        open.add(secure);
+        open.remove(plain);
+        secure.startHandshake();
+        return secure;
+    }
+
+    private void keep(ReceivedMessage message) {
+        if (storeCapacity == 0) return;
+        synchronized (store) {
+            if (store.size() == storeCapacity) store.removeFirst();
+            store.addLast(message);
+        }
+    }
+
+    private void pause() {
+        long nanos = latencyNanos;
+        if (nanos <= 0) return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Extracts the address from {@code MAIL FROM:<a@b>} or {@code RCPT TO:<a@b>}.
+     */
+    private static String address(String line) {
+        int start = line.indexOf('<');
+        int end = line.indexOf('>', start + 1);
+        if (start >= 0 && end > start) return line.substring(start + 1, end);
+        int colon = line.indexOf(':');
+        return colon < 0 ? "" : line.substring(colon + 1).trim();
+    }
+
+    private static BufferedReader reader(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+    }
+
+    private static Writer writer(Socket socket) throws IOException {
+        return new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.ISO_8859_1);
+    }
+
+    private static void authenticate(String line, BufferedReader in, Writer out) throws IOException {
+        String[] parts = line.split(" ");
+        String mechanism = parts.length > 1 ? parts[1].toUpperCase(Locale.ROOT) : "";
+        if (mechanism.equals("LOGIN")) {
+            reply(out, "334 VXNlcm5hbWU6");
+            in.readLine();
+            reply(out, "334 UGFzc3dvcmQ6");
+            in.readLine();
+        } else if (mechanism.equals("PLAIN") && parts.length < 3) {
+            reply(out, "334 ");
+            in.readLine();
+        } else if (!mechanism.equals("PLAIN")) {
+            reply(out, "504 Unrecognized authentication type");
+            return;
+        }
+        reply(out, "235 Authentication successful");
+    }
+
+    private static void reply(Writer out, String text) throws IOException {
+        out.write(text);
+        out.write("\r\n");
+        out.flush();
+    }
+}
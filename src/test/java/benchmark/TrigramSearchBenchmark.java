@@ -0,0 +1,164 @@
+package benchmark;
+
+import dao.BookDAO;
+import dao.CDDAO;
+import dao.DatabaseConnection;
+import dao.MediaDAO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import service.SearchByTrigram;
+import service.TrigramIndex;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of a title search over a large catalog: the
+ * {@code LIKE '%term%'} scan of {@link BookDAO#searchByTitle} against
+ * {@link SearchByTrigram}, which asks a {@link TrigramIndex} for the matching
+ * IDs and loads only those rows, and against the index lookup alone.
+ *
+ * <p>The catalog is {@code size} books on a throwaway SQLite file, each titled
+ * with three words drawn from a vocabulary of {@value #VOCABULARY} made-up
+ * words, so the searched word is in about 0.15% of the titles.</p>
+ *
+ * <p>Run after {@code mvn test-compile}:</p>
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/test-classes:target/classes:$(cat cp.txt) org.openjdk.jmh.Main benchmark.TrigramSearchBenchmark
+ * </pre>
+ *
+ * <p>Results on a single-core container (JDK 17, 1 fork, 3 warm-up and 5
+ * measured iterations of one second), time per search:</p>
+ * <pre>
+ * mode        100 000 books    1 000 000 books
+ * like          20.9 ms/op       204 ms/op    (scans every title)
+ * trigram        2.2 ms/op        18 ms/op    (index, then loads the matches by ID)
+ * index          0.04 ms/op      1.1 ms/op    (posting-list intersection and verification only)
+ * </pre>
+ * <p>The scan grows with the catalog; the indexed search grows with the
+ * number of matches, and most of its time goes to loading those rows.
+ * Errors were up to 100% of the smaller figures on this machine; compare
+ * runs on the same host.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class TrigramSearchBenchmark {
+
+    private static final int VOCABULARY = 2000;
+    private static final int INSERT_BATCH = 10_000;
+
+    /** Number of books in the catalog. */
+    @Param({"100000", "1000000"})
+    public int size;
+
+    /** {@code like} scans the table; {@code trigram} uses {@link SearchByTrigram}; {@code index} only the index. */
+    @Param({"like", "trigram", "index"})
+    public String mode;
+
+    private Path dbFile;
+    private BookDAO bookDAO;
+    private TrigramIndex index;
+    private SearchByTrigram trigramSearch;
+    private String term;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        dbFile = Files.createTempFile("trigram-search", ".db");
+        DatabaseConnection.setUrl("jdbc:sqlite:" + dbFile);
+        bookDAO = new BookDAO();
+        new MediaDAO().initializeTable();
+        bookDAO.initializeTable();
+        new CDDAO().initializeTable();
+
+        Random random = new Random(7);
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = word(random);
+        }
+        term = words[VOCABULARY / 2];
+        insertBooks(words, random);
+
+        index = new TrigramIndex();
+        index.rebuild(bookDAO.findAll(), List.of());
+        trigramSearch = new SearchByTrigram(index, TrigramIndex.TITLE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        DatabaseConnection.setUrl(null);
+        Files.deleteIfExists(dbFile);
+    }
+
+    @Benchmark
+    public int searchTitle() {
+        switch (mode) {
+            case "like":
+                return bookDAO.searchByTitle(term).size();
+            case "trigram":
+                return trigramSearch.search(term).size();
+            default:
+                return index.search(term, TrigramIndex.TITLE, "book").length;
+        }
+    }
+
+    /** Bulk-loads the catalog in one transaction, bypassing the per-row DAO inserts. */
+    private void insertBooks(String[] words, Random random) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement media = conn.prepareStatement(
+                     "INSERT INTO media (id, title, media_type, available) VALUES (?, ?, 'book', 1)");
+             PreparedStatement books = conn.prepareStatement(
+                     "INSERT INTO books (id, author, isbn) VALUES (?, ?, ?)")) {
+            conn.setAutoCommit(false);
+            for (int id = 1; id <= size; id++) {
+                media.setInt(1, id);
+                media.setString(2, words[random.nextInt(VOCABULARY)] + " " + words[random.nextInt(VOCABULARY)]
+                        + " " + words[random.nextInt(VOCABULARY)]);
+                media.addBatch();
+                books.setInt(1, id);
+                books.setString(2, words[random.nextInt(VOCABULARY)] + " " + words[random.nextInt(VOCABULARY)]);
+                books.setString(3, "isbn-" + id);
+                books.addBatch();
+                if (id % INSERT_BATCH == 0 || id == size) {
+                    media.executeBatch();
+                    books.executeBatch();
+                }
+            }
+            conn.commit();
+        }
+    }
+
+    /** Makes up a pronounceable word of two to four syllables. */
+    private static String word(Random random) {
+        String consonants = "bcdfghklmnprstvz";
+        String vowels = "aeiou";
+        StringBuilder word = new StringBuilder();
+        int syllables = 2 + random.nextInt(3);
+        for (int i = 0; i < syllables; i++) {
+            word.append(consonants.charAt(random.nextInt(consonants.length())));
+            word.append(vowels.charAt(random.nextInt(vowels.length())));
+        }
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}